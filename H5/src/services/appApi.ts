@@ -6,7 +6,7 @@ import type {
   AppInfoWithLatestVersion, 
   UpdateForceUpdateRequest, 
   CreateAppRequest,
-  PageResponse 
+  SliceResponse 
 } from '../types/app'
 
 /**
@@ -58,19 +58,19 @@ export const validateApiKey = async (apiKey: string, serverUrl?: string): Promis
  * @param page 页码
  * @param size 每页大小
  * @param appNameQuery 应用名称查询条件
- * @returns 应用列表
+ * @returns 应用列表（切片，不统计总数）
  */
 export const getAppList = async (
   page: number = 0, 
   size: number = 10, 
   appNameQuery?: string
-): Promise<PageResponse<AppInfoWithLatestVersion>> => {
-  const params: any = { page, size }
+): Promise<SliceResponse<AppInfoWithLatestVersion>> => {
+  const params: any = { page, size, slice: true }
   if (appNameQuery) {
     params.appNameQuery = appNameQuery
   }
   
-  const response = await api.get<ApiResponse<PageResponse<AppInfoWithLatestVersion>>>('/api/admin/app/apps', { params })
+  const response = await api.get<ApiResponse<SliceResponse<AppInfoWithLatestVersion>>>('/api/admin/app/apps', { params })
   return response.data.data
 }
 
@@ -109,15 +109,15 @@ export const uploadApk = async (
  * @param appId 应用ID
  * @param page 页码
  * @param size 每页大小
- * @returns 版本列表
+ * @returns 版本列表（切片，不统计总数）
  */
 export const getAppVersions = async (
   appId: string, 
   page: number = 0, 
   size: number = 10
-): Promise<PageResponse<AppVersion>> => {
-  const response = await api.get<ApiResponse<PageResponse<AppVersion>>>(`/api/admin/app/app/${appId}/versions`, {
-    params: { page, size }
+): Promise<SliceResponse<AppVersion>> => {
+  const response = await api.get<ApiResponse<SliceResponse<AppVersion>>>(`/api/admin/app/app/${appId}/versions`, {
+    params: { page, size, slice: true }
   })
   return response.data.data
 }
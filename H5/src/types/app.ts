@@ -49,7 +49,6 @@ export interface AppInfoWithLatestVersion {
   latestVersionCode?: number
   latestVersionName?: string
   latestFileSize?: number
-  latestUpdateDescription?: string
   latestForceUpdate?: boolean
   latestIsReleased?: boolean
   latestVersionCreateTime?: string
@@ -75,19 +74,26 @@ export interface CreateAppRequest {
 }
 
 /**
- * 分页响应接口
+ * 切片响应接口（slice=true时返回，不含总数）
  */
-export interface PageResponse<T> {
+export interface SliceResponse<T> {
   content: T[]
-  totalElements: number
-  totalPages: number
   number: number
   size: number
+  numberOfElements: number
   first: boolean
   last: boolean
   empty: boolean
 }
 
+/**
+ * 分页响应接口
+ */
+export interface PageResponse<T> extends SliceResponse<T> {
+  totalElements: number
+  totalPages: number
+}
+
 /**
  * API响应接口
  */
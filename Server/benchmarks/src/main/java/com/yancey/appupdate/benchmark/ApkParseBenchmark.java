@@ -0,0 +1,111 @@
+package com.yancey.appupdate.benchmark;
+
+import com.yancey.appupdate.dto.ApkManifestInfo;
+import com.yancey.appupdate.dto.ParsedApkData;
+import com.yancey.appupdate.entity.ApkMetadata;
+import com.yancey.appupdate.service.ApkParserService;
+import com.yancey.appupdate.util.ApkManifestReader;
+import net.dongliu.apk.parser.ApkFile;
+import net.dongliu.apk.parser.bean.ApkMeta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * APK解析基准
+ * 对比缓存未命中/命中时的parseApk，以及中央目录读取与apk-parser读取Manifest的开销
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApkParseBenchmark {
+
+    /**
+     * APK大小（KB）
+     */
+    @Param({"1024", "32768"})
+    public int sizeKb;
+
+    /**
+     * 资源条目数
+     */
+    @Param({"64", "4096"})
+    public int entryCount;
+
+    private Path workDirectory;
+    private File apkFile;
+    private ApkParserService coldParser;
+    private ApkParserService warmParser;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDirectory = BenchmarkFixtures.createTempDirectory("parse");
+        apkFile = BenchmarkFixtures.syntheticApk(workDirectory, sizeKb, entryCount).toFile();
+        coldParser = BenchmarkFixtures.apkParserService(null, false);
+        warmParser = BenchmarkFixtures.apkParserService(new ConcurrentHashMap<String, ApkMetadata>(), false);
+        // 预先解析一次填充缓存
+        warmParser.parseApk(apkFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkFixtures.deleteQuietly(workDirectory);
+    }
+
+    /**
+     * 缓存未命中：计算MD5并解析Manifest
+     */
+    @Benchmark
+    public ParsedApkData parseApkCold() throws IOException {
+        return coldParser.parseApk(apkFile);
+    }
+
+    /**
+     * 缓存命中：计算MD5后直接返回缓存的元数据
+     */
+    @Benchmark
+    public ParsedApkData parseApkWarm() throws IOException {
+        return warmParser.parseApk(apkFile);
+    }
+
+    /**
+     * 通过内存映射的中央目录读取Manifest
+     */
+    @Benchmark
+    public ApkManifestInfo manifestReader() throws IOException {
+        return ApkManifestReader.read(apkFile);
+    }
+
+    /**
+     * 通过apk-parser读取Manifest（对照组）
+     */
+    @Benchmark
+    public ApkMeta apkParserLibrary() throws IOException {
+        try (ApkFile apk = new ApkFile(apkFile)) {
+            return apk.getApkMeta();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.yancey.appupdate.benchmark;
+
+import com.yancey.appupdate.config.AppProperties;
+import com.yancey.appupdate.entity.ApkMetadata;
+import com.yancey.appupdate.repository.ApkMetadataRepository;
+import com.yancey.appupdate.service.ApkMetadataCacheService;
+import com.yancey.appupdate.service.ApkParserService;
+import com.yancey.appupdate.service.FileStorageService;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基准测试公共夹具
+ * 不启动Spring容器，直接构造被测服务；解析缓存使用内存Map代替数据库
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-15
+ */
+public final class BenchmarkFixtures {
+
+    /**
+     * 合成APK的固定随机种子
+     */
+    public static final long SEED = 20240615L;
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * 创建基准测试用的临时目录
+     */
+    public static Path createTempDirectory(String prefix) throws IOException {
+        return Files.createTempDirectory("app-update-bench-" + prefix);
+    }
+
+    /**
+     * 删除临时目录
+     */
+    public static void deleteQuietly(Path directory) {
+        try {
+            FileSystemUtils.deleteRecursively(directory);
+        } catch (IOException ignored) {
+            // 基准结束时的清理失败不影响结果
+        }
+    }
+
+    /**
+     * 生成指定大小和条目数的合成APK
+     */
+    public static Path syntheticApk(Path directory, int sizeKb, int entryCount) throws IOException {
+        Path apk = directory.resolve(String.format("synthetic-%dk-%d.apk", sizeKb, entryCount));
+        SyntheticApkGenerator.generate(apk, "com.yancey.bench", 100, "1.0.0", "Bench",
+                sizeKb * 1024L, entryCount, SEED);
+        return apk;
+    }
+
+    /**
+     * 应用配置
+     */
+    public static AppProperties appProperties(Path uploadDirectory) {
+        AppProperties appProperties = new AppProperties();
+        appProperties.setUploadPath(uploadDirectory.toString());
+        appProperties.setServerBaseUrl("http://localhost:8080");
+        return appProperties;
+    }
+
+    /**
+     * 文件存储服务
+     */
+    public static FileStorageService fileStorageService(Path uploadDirectory) {
+        FileStorageService service = new FileStorageService(appProperties(uploadDirectory));
+        service.init();
+        return service;
+    }
+
+    /**
+     * APK解析服务
+     *
+     * @param cache 解析缓存（为null时每次都是缓存未命中）
+     * @param signatureEnabled 是否校验签名
+     */
+    public static ApkParserService apkParserService(Map<String, ApkMetadata> cache, boolean signatureEnabled) {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getSignature().setEnabled(signatureEnabled);
+        return new ApkParserService(new ApkMetadataCacheService(metadataRepository(cache)), appProperties);
+    }
+
+    /**
+     * 以Map实现的解析缓存Repository（只实现解析服务用到的方法）
+     */
+    private static ApkMetadataRepository metadataRepository(Map<String, ApkMetadata> cache) {
+        Map<String, ApkMetadata> store = cache != null ? cache : new ConcurrentHashMap<>();
+        boolean enabled = cache != null;
+        return (ApkMetadataRepository) Proxy.newProxyInstance(BenchmarkFixtures.class.getClassLoader(),
+                new Class<?>[]{ApkMetadataRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findById":
+                            return enabled ? Optional.ofNullable(store.get((String) args[0])) : Optional.empty();
+                        case "existsById":
+                            return enabled && store.containsKey((String) args[0]);
+                        case "save":
+                            if (enabled) {
+                                ApkMetadata metadata = (ApkMetadata) args[0];
+                                store.put(metadata.getMd5(), metadata);
+                            }
+                            return args[0];
+                        case "updateAppName":
+                        case "updateSignature":
+                            return 1;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "InMemoryApkMetadataRepository";
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
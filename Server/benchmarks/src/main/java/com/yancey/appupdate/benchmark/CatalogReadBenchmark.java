@@ -0,0 +1,191 @@
+package com.yancey.appupdate.benchmark;
+
+import com.yancey.appupdate.AppUpdateServerApplication;
+import com.yancey.appupdate.dto.AppInfoWithLatestVersionDto;
+import com.yancey.appupdate.dto.AppVersionDto;
+import com.yancey.appupdate.dto.CheckUpdateResponseDto;
+import com.yancey.appupdate.dto.VersionStatsDto;
+import com.yancey.appupdate.service.AppVersionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 目录读取基准
+ * 写入带长更新说明和应用描述的目录，测量应用列表、检查更新、统计和版本列表的服务层耗时；
+ * 配合 -prof gc 查看每次操作的分配字节数（gc.alloc.rate.norm）
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CatalogReadBenchmark {
+
+    private static final int APP_COUNT = 200;
+    private static final int VERSIONS_PER_APP = 20;
+    private static final int PAGE_SIZE = 20;
+
+    private static final List<String> DEVICE_ABIS = Arrays.asList("arm64-v8a", "armeabi-v7a");
+
+    /**
+     * 每条更新说明和应用描述的字符数
+     */
+    @Param({"64", "16384"})
+    public int descriptionLength;
+
+    /**
+     * 是否启用Hibernate二级缓存和查询缓存（关闭时每次操作都从数据库读取行）
+     */
+    @Param({"true", "false"})
+    public boolean entityCache;
+
+    private Path workDirectory;
+    private ConfigurableApplicationContext context;
+    private AppVersionService appVersionService;
+    private String appId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDirectory = BenchmarkFixtures.createTempDirectory("catalog-read");
+        context = new SpringApplicationBuilder(AppUpdateServerApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:catalog;DB_CLOSE_DELAY=-1",
+                        // 打包后的jar中无法按{vendor}定位迁移脚本，直接指定H2目录
+                        "spring.flyway.locations=classpath:db/migration/h2",
+                        "spring.jpa.show-sql=false",
+                        "spring.h2.console.enabled=false",
+                        "logging.level.root=WARN",
+                        "app.entity-cache.enabled=" + entityCache,
+                        "app.upload-path=" + workDirectory.resolve("uploads"),
+                        "app.db-path=" + workDirectory.resolve("database"),
+                        "app.admin.api-key=benchmark-api-key")
+                .run();
+        appVersionService = context.getBean(AppVersionService.class);
+        seed(context.getBean(JdbcTemplate.class));
+        appId = appIdOf(APP_COUNT / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        BenchmarkFixtures.deleteQuietly(workDirectory);
+    }
+
+    /**
+     * 用JDBC批量写入目录，每个应用的最新版本为发布版本
+     */
+    private void seed(JdbcTemplate jdbcTemplate) {
+        String description = longText(descriptionLength);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> apps = new ArrayList<>();
+        List<Object[]> versions = new ArrayList<>();
+        for (int app = 0; app < APP_COUNT; app++) {
+            String id = appIdOf(app);
+            apps.add(new Object[]{id, "Bench " + app, description, false, now, now});
+            for (int versionCode = 1; versionCode <= VERSIONS_PER_APP; versionCode++) {
+                String apkPath = id + "/" + id + "-" + versionCode + ".apk";
+                versions.add(new Object[]{id, versionCode, "1.0." + versionCode, 32L * 1024 * 1024,
+                        String.format("%032x", app * 1000L + versionCode), apkPath,
+                        "http://localhost:8080/api/app/download/" + apkPath, description,
+                        false, versionCode == VERSIONS_PER_APP, now, now});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO app_info (app_id, app_name, app_description, force_update, " +
+                "create_time, update_time) VALUES (?, ?, ?, ?, ?, ?)", apps);
+        jdbcTemplate.batchUpdate("INSERT INTO app_version (app_id, version_code, version_name, file_size, md5, " +
+                "apk_path, download_url, update_description, force_update, is_released, create_time, update_time) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", versions);
+        jdbcTemplate.update("UPDATE app_info ai SET released_version_id = " +
+                "(SELECT av.id FROM app_version av WHERE av.app_id = ai.app_id AND av.is_released = TRUE)");
+    }
+
+    private static String appIdOf(int app) {
+        return String.format("com.yancey.bench.app%04d", app);
+    }
+
+    /**
+     * 典型的多行更新说明，重复到指定长度
+     */
+    private static String longText(int length) {
+        String line = "- 修复了若干已知问题并优化了启动速度 Fixed several known issues and improved startup time\n";
+        StringBuilder builder = new StringBuilder(length);
+        while (builder.length() < length) {
+            builder.append(line);
+        }
+        return builder.substring(0, length);
+    }
+
+    /**
+     * 管理端应用列表第一页
+     */
+    @Benchmark
+    public Page<AppInfoWithLatestVersionDto> listApps() {
+        return appVersionService.getAppsWithLatestVersion(null, PageRequest.of(0, PAGE_SIZE));
+    }
+
+    /**
+     * 有新版本
+     */
+    @Benchmark
+    public CheckUpdateResponseDto checkUpdateAvailable() {
+        return appVersionService.checkUpdate(appId, 1, DEVICE_ABIS, 420);
+    }
+
+    /**
+     * 已是最新版本
+     */
+    @Benchmark
+    public CheckUpdateResponseDto checkUpdateLatest() {
+        return appVersionService.checkUpdate(appId, VERSIONS_PER_APP, DEVICE_ABIS, 420);
+    }
+
+    /**
+     * 统计信息（含最近10个版本）
+     */
+    @Benchmark
+    public VersionStatsDto versionStats() {
+        return appVersionService.getVersionStats();
+    }
+
+    /**
+     * 版本列表第一页（页面展示更新说明，作为对照）
+     */
+    @Benchmark
+    public Page<AppVersionDto> appVersions() {
+        return appVersionService.getAppVersions(appId, PageRequest.of(0, PAGE_SIZE));
+    }
+}
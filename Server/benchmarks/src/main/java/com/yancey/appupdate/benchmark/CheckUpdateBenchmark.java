@@ -0,0 +1,122 @@
+package com.yancey.appupdate.benchmark;
+
+import com.yancey.appupdate.AppUpdateServerApplication;
+import com.yancey.appupdate.dto.CheckUpdateResponseDto;
+import com.yancey.appupdate.entity.AppInfo;
+import com.yancey.appupdate.entity.AppVersion;
+import com.yancey.appupdate.repository.AppInfoRepository;
+import com.yancey.appupdate.repository.AppVersionRepository;
+import com.yancey.appupdate.service.AppVersionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 检查更新基准
+ * 启动不含Web容器的Spring上下文（H2内存库），测量移动端检查更新的服务层耗时
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckUpdateBenchmark {
+
+    private static final String APP_ID = "com.yancey.bench";
+    private static final int VERSION_COUNT = 50;
+
+    private static final List<String> DEVICE_ABIS = Arrays.asList("arm64-v8a", "armeabi-v7a");
+
+    private Path workDirectory;
+    private ConfigurableApplicationContext context;
+    private AppVersionService appVersionService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDirectory = BenchmarkFixtures.createTempDirectory("check-update");
+        context = new SpringApplicationBuilder(AppUpdateServerApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                        // 打包后的jar中无法按{vendor}定位迁移脚本，直接指定H2目录
+                        "spring.flyway.locations=classpath:db/migration/h2",
+                        "spring.jpa.show-sql=false",
+                        "spring.h2.console.enabled=false",
+                        "logging.level.root=WARN",
+                        "app.upload-path=" + workDirectory.resolve("uploads"),
+                        "app.db-path=" + workDirectory.resolve("database"),
+                        "app.admin.api-key=benchmark-api-key")
+                .run();
+        appVersionService = context.getBean(AppVersionService.class);
+        seed(context.getBean(AppInfoRepository.class), context.getBean(AppVersionRepository.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        BenchmarkFixtures.deleteQuietly(workDirectory);
+    }
+
+    /**
+     * 写入一个应用及其历史版本，最新版本为发布版本
+     */
+    private void seed(AppInfoRepository appInfoRepository, AppVersionRepository appVersionRepository) {
+        AppInfo appInfo = new AppInfo();
+        appInfo.setAppId(APP_ID);
+        appInfo.setAppName("Bench");
+        appInfoRepository.save(appInfo);
+
+        for (int versionCode = 1; versionCode <= VERSION_COUNT; versionCode++) {
+            AppVersion version = new AppVersion();
+            version.setAppId(APP_ID);
+            version.setVersionCode(versionCode);
+            version.setVersionName("1.0." + versionCode);
+            version.setFileSize(32L * 1024 * 1024);
+            version.setMd5(String.format("%032x", versionCode));
+            version.setApkPath(APP_ID + "/" + APP_ID + "-" + versionCode + ".apk");
+            version.setDownloadUrl("http://localhost:8080/api/app/download/" + version.getApkPath());
+            version.setIsReleased(versionCode == VERSION_COUNT);
+            appVersionRepository.save(version);
+        }
+    }
+
+    /**
+     * 有新版本
+     */
+    @Benchmark
+    public CheckUpdateResponseDto checkUpdateAvailable() {
+        return appVersionService.checkUpdate(APP_ID, 1, DEVICE_ABIS, 420);
+    }
+
+    /**
+     * 已是最新版本
+     */
+    @Benchmark
+    public CheckUpdateResponseDto checkUpdateLatest() {
+        return appVersionService.checkUpdate(APP_ID, VERSION_COUNT, DEVICE_ABIS, 420);
+    }
+}
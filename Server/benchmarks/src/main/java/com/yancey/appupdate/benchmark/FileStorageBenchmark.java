@@ -0,0 +1,81 @@
+package com.yancey.appupdate.benchmark;
+
+import com.yancey.appupdate.service.FileStorageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * APK存储基准
+ * 对比本地文件暂存与上传流暂存两种入库路径（都在暂存后移动到最终位置）
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileStorageBenchmark {
+
+    /**
+     * APK大小（KB）
+     */
+    @Param({"1024", "32768"})
+    public int sizeKb;
+
+    private Path workDirectory;
+    private Path sourceApk;
+    private FileStorageService storageService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDirectory = BenchmarkFixtures.createTempDirectory("storage");
+        sourceApk = BenchmarkFixtures.syntheticApk(workDirectory, sizeKb, 16);
+        storageService = BenchmarkFixtures.fileStorageService(workDirectory.resolve("uploads"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkFixtures.deleteQuietly(workDirectory);
+    }
+
+    /**
+     * 本地文件拷贝到暂存目录后移动到最终位置（批量导入路径）
+     */
+    @Benchmark
+    public String stageFileAndPromote() {
+        String staged = storageService.stageApkFile(sourceApk);
+        return storageService.promoteStagedApk(staged, "com.yancey.bench", "100");
+    }
+
+    /**
+     * 上传流写入暂存目录后移动到最终位置（流式上传路径）
+     */
+    @Benchmark
+    public String stageAndPromote() throws IOException {
+        try (InputStream input = Files.newInputStream(sourceApk)) {
+            String staged = storageService.stageApkStream(input);
+            return storageService.promoteStagedApk(staged, "com.yancey.bench", "100");
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.yancey.appupdate.benchmark;
+
+import com.yancey.appupdate.service.ApkParserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文件MD5计算基准
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashBenchmark {
+
+    /**
+     * 文件大小（KB）
+     */
+    @Param({"1024", "32768", "131072"})
+    public int sizeKb;
+
+    private Path workDirectory;
+    private File apkFile;
+    private ApkParserService parserService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDirectory = BenchmarkFixtures.createTempDirectory("hash");
+        apkFile = BenchmarkFixtures.syntheticApk(workDirectory, sizeKb, 16).toFile();
+        parserService = BenchmarkFixtures.apkParserService(null, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkFixtures.deleteQuietly(workDirectory);
+    }
+
+    @Benchmark
+    public String calculateMd5() throws IOException {
+        return parserService.calculateMd5(apkFile);
+    }
+}
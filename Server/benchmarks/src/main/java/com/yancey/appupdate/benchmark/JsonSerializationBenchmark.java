@@ -0,0 +1,70 @@
+package com.yancey.appupdate.benchmark;
+
+import com.alibaba.fastjson.JSON;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yancey.appupdate.dto.ApiResponse;
+import com.yancey.appupdate.dto.CheckUpdateResponseDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 检查更新响应的JSON序列化基准
+ * Jackson为接口实际使用的序列化方式，fastjson为过滤器中使用的序列化方式
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private ApiResponse<CheckUpdateResponseDto> response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // 与Spring MVC默认配置一致
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        CheckUpdateResponseDto data = new CheckUpdateResponseDto();
+        data.setHasUpdate(true);
+        data.setNewVersionName("2.3.1");
+        data.setNewVersionCode(231);
+        data.setUpdateDescription("1. 修复已知问题\n2. 优化启动速度\n3. 新增深色模式");
+        data.setForceUpdate(false);
+        data.setDownloadUrl("http://localhost:8080/api/app/download/com.yancey.bench/com.yancey.bench-231-arm64-v8a.apk");
+        data.setMd5("0123456789abcdef0123456789abcdef");
+        data.setFileSize(32L * 1024 * 1024);
+        data.setAbi("arm64-v8a");
+        data.setScreenDensity(480);
+        response = ApiResponse.success(data);
+    }
+
+    @Benchmark
+    public byte[] jackson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] fastjson() {
+        return JSON.toJSONBytes(response);
+    }
+}
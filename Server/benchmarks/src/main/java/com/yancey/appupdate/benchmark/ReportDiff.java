@@ -0,0 +1,88 @@
+package com.yancey.appupdate.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 基准报告对比工具
+ * 比较两次JMH运行（-rf json）的结果，按基准及参数逐项输出变化百分比
+ * 用法：java -cp benchmarks.jar com.yancey.appupdate.benchmark.ReportDiff base.json current.json
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-15
+ */
+public final class ReportDiff {
+
+    private ReportDiff() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("用法: ReportDiff <base.json> <current.json>");
+            System.exit(2);
+        }
+        Map<String, Result> base = load(new File(args[0]));
+        Map<String, Result> current = load(new File(args[1]));
+
+        System.out.printf("%-80s %14s %14s %10s  %s%n", "Benchmark", "Base", "Current", "Change", "Unit");
+        for (String key : union(base, current)) {
+            Result before = base.get(key);
+            Result after = current.get(key);
+            if (before == null || after == null) {
+                Result present = before != null ? before : after;
+                System.out.printf("%-80s %14s %14s %10s  %s%n", key,
+                        before != null ? format(before.score) : "-", after != null ? format(after.score) : "-",
+                        before == null ? "new" : "missing", present.unit);
+                continue;
+            }
+            double change = before.score == 0 ? 0 : (after.score - before.score) / before.score * 100;
+            System.out.printf("%-80s %14s %14s %+9.1f%%  %s%n", key, format(before.score), format(after.score),
+                    change, after.unit);
+        }
+    }
+
+    private static Map<String, Result> load(File file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode node : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(node.path("benchmark").asText()
+                    .replace("com.yancey.appupdate.benchmark.", ""));
+            JsonNode params = node.path("params");
+            Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                key.append(' ').append(field.getKey()).append('=').append(field.getValue().asText());
+            }
+            JsonNode metric = node.path("primaryMetric");
+            results.put(key.toString(), new Result(metric.path("score").asDouble(), metric.path("scoreUnit").asText()));
+        }
+        return results;
+    }
+
+    private static TreeSet<String> union(Map<String, Result> base, Map<String, Result> current) {
+        TreeSet<String> keys = new TreeSet<>(base.keySet());
+        keys.addAll(current.keySet());
+        return keys;
+    }
+
+    private static String format(double score) {
+        return String.format("%.3f", score);
+    }
+
+    private static final class Result {
+        private final double score;
+        private final String unit;
+
+        private Result(double score, String unit) {
+            this.score = score;
+            this.unit = unit;
+        }
+    }
+}
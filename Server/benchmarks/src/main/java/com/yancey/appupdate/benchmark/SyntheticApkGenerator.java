@@ -0,0 +1,198 @@
+package com.yancey.appupdate.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 合成APK生成器
+ * 生成包含二进制AndroidManifest.xml、classes.dex及若干资源条目的ZIP，
+ * 内容由固定种子的随机数生成，相同参数在不同机器、不同提交间生成的文件完全一致
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-15
+ */
+public final class SyntheticApkGenerator {
+
+    private static final String ANDROID_NAMESPACE = "http://schemas.android.com/apk/res/android";
+
+    // android命名空间属性资源ID
+    private static final int ATTR_VERSION_CODE = 0x0101021b;
+    private static final int ATTR_VERSION_NAME = 0x0101021c;
+    private static final int ATTR_LABEL = 0x01010001;
+    private static final int ATTR_MIN_SDK_VERSION = 0x0101020c;
+
+    private static final LocalDateTime FIXED_TIME = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private static final int TYPE_STRING = 0x03;
+    private static final int TYPE_INT_DEC = 0x10;
+
+    private SyntheticApkGenerator() {
+    }
+
+    /**
+     * 生成合成APK
+     *
+     * @param target 输出文件
+     * @param packageName 包名
+     * @param versionCode 版本号
+     * @param versionName 版本名称
+     * @param label 应用名称
+     * @param totalSize 期望的文件总大小（字节，近似值）
+     * @param entryCount 资源条目数
+     * @param seed 随机种子
+     * @throws IOException 写入异常
+     */
+    public static void generate(Path target, String packageName, int versionCode, String versionName, String label,
+                                long totalSize, int entryCount, long seed) throws IOException {
+        Random random = new Random(seed);
+        // 随机字节不可压缩：dex占一半，其余平均分给资源条目（STORED，与真实APK中的png/so类似）
+        long dexSize = Math.max(16, totalSize / 2);
+        long resourceSize = entryCount > 0 ? Math.max(0, (totalSize - dexSize) / entryCount) : 0;
+
+        try (OutputStream output = Files.newOutputStream(target);
+             ZipOutputStream zip = new ZipOutputStream(output)) {
+            zip.setLevel(1);
+            writeEntry(zip, "AndroidManifest.xml", manifest(packageName, versionCode, versionName, label, 21), true);
+            writeRandomEntry(zip, "classes.dex", dexSize, random, true);
+            for (int i = 0; i < entryCount; i++) {
+                writeRandomEntry(zip, String.format("res/raw/r%05d.bin", i), resourceSize, random, false);
+            }
+        }
+    }
+
+    private static void writeRandomEntry(ZipOutputStream zip, String name, long size, Random random, boolean deflated)
+            throws IOException {
+        byte[] data = new byte[(int) size];
+        random.nextBytes(data);
+        writeEntry(zip, name, data, deflated);
+    }
+
+    private static void writeEntry(ZipOutputStream zip, String name, byte[] data, boolean deflated) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        // 固定本地时间戳（不受时区影响），保证生成结果可复现
+        entry.setTimeLocal(FIXED_TIME);
+        if (!deflated) {
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(data.length);
+            entry.setCompressedSize(data.length);
+            entry.setCrc(crc.getValue());
+        }
+        zip.putNextEntry(entry);
+        zip.write(data);
+        zip.closeEntry();
+    }
+
+    /**
+     * 编码最小的二进制AndroidManifest.xml（manifest、uses-sdk、application三个元素）
+     */
+    static byte[] manifest(String packageName, int versionCode, String versionName, String label, int minSdk) {
+        List<String> strings = Arrays.asList("versionCode", "versionName", "label", "minSdkVersion", "android",
+                ANDROID_NAMESPACE, "package", "manifest", "application", "uses-sdk", packageName, versionName, label);
+        int[] resourceIds = {ATTR_VERSION_CODE, ATTR_VERSION_NAME, ATTR_LABEL, ATTR_MIN_SDK_VERSION};
+        int namespace = strings.indexOf(ANDROID_NAMESPACE);
+        int prefix = strings.indexOf("android");
+
+        List<byte[]> chunks = new ArrayList<>();
+        chunks.add(stringPool(strings));
+
+        ByteBuffer resourceMap = buffer(8 + 4 * resourceIds.length);
+        resourceMap.putShort((short) 0x0180).putShort((short) 8).putInt(resourceMap.capacity());
+        for (int resourceId : resourceIds) {
+            resourceMap.putInt(resourceId);
+        }
+        chunks.add(resourceMap.array());
+
+        chunks.add(namespaceChunk(0x0100, prefix, namespace));
+        chunks.add(startElement(strings.indexOf("manifest"),
+                attribute(namespace, strings.indexOf("versionCode"), -1, TYPE_INT_DEC, versionCode),
+                attribute(namespace, strings.indexOf("versionName"), strings.indexOf(versionName), TYPE_STRING, strings.indexOf(versionName)),
+                attribute(-1, strings.indexOf("package"), strings.indexOf(packageName), TYPE_STRING, strings.indexOf(packageName))));
+        chunks.add(startElement(strings.indexOf("uses-sdk"),
+                attribute(namespace, strings.indexOf("minSdkVersion"), -1, TYPE_INT_DEC, minSdk)));
+        chunks.add(endElement(strings.indexOf("uses-sdk")));
+        chunks.add(startElement(strings.indexOf("application"),
+                attribute(namespace, strings.indexOf("label"), strings.indexOf(label), TYPE_STRING, strings.indexOf(label))));
+        chunks.add(endElement(strings.indexOf("application")));
+        chunks.add(endElement(strings.indexOf("manifest")));
+        chunks.add(namespaceChunk(0x0101, prefix, namespace));
+
+        int bodySize = chunks.stream().mapToInt(chunk -> chunk.length).sum();
+        ByteBuffer document = buffer(8 + bodySize);
+        document.putShort((short) 0x0003).putShort((short) 8).putInt(document.capacity());
+        chunks.forEach(document::put);
+        return document.array();
+    }
+
+    private static byte[] stringPool(List<String> strings) {
+        ByteBuffer data = buffer(strings.stream().mapToInt(s -> 2 + s.length() * 2 + 2).sum() + 4);
+        int[] offsets = new int[strings.size()];
+        for (int i = 0; i < strings.size(); i++) {
+            offsets[i] = data.position();
+            String value = strings.get(i);
+            data.putShort((short) value.length());
+            data.put(value.getBytes(StandardCharsets.UTF_16LE));
+            data.putShort((short) 0);
+        }
+        int dataSize = (data.position() + 3) & ~3;
+
+        int stringsStart = 28 + 4 * strings.size();
+        ByteBuffer pool = buffer(stringsStart + dataSize);
+        pool.putShort((short) 0x0001).putShort((short) 28).putInt(pool.capacity())
+                .putInt(strings.size()).putInt(0).putInt(0).putInt(stringsStart).putInt(0);
+        for (int offset : offsets) {
+            pool.putInt(offset);
+        }
+        pool.put(data.array(), 0, dataSize);
+        return pool.array();
+    }
+
+    private static byte[] attribute(int namespace, int name, int rawValue, int type, int data) {
+        ByteBuffer attribute = buffer(20);
+        attribute.putInt(namespace).putInt(name).putInt(rawValue)
+                .putShort((short) 8).put((byte) 0).put((byte) type).putInt(data);
+        return attribute.array();
+    }
+
+    private static byte[] startElement(int name, byte[]... attributes) {
+        ByteBuffer element = buffer(16 + 20 + 20 * attributes.length);
+        element.putShort((short) 0x0102).putShort((short) 16).putInt(element.capacity()).putInt(1).putInt(-1);
+        element.putInt(-1).putInt(name).putShort((short) 20).putShort((short) 20)
+                .putShort((short) attributes.length).putShort((short) 0).putShort((short) 0).putShort((short) 0);
+        for (byte[] attribute : attributes) {
+            element.put(attribute);
+        }
+        return element.array();
+    }
+
+    private static byte[] endElement(int name) {
+        ByteBuffer element = buffer(24);
+        element.putShort((short) 0x0103).putShort((short) 16).putInt(24).putInt(1).putInt(-1).putInt(-1).putInt(name);
+        return element.array();
+    }
+
+    private static byte[] namespaceChunk(int type, int prefix, int uri) {
+        ByteBuffer chunk = buffer(24);
+        chunk.putShort((short) type).putShort((short) 16).putInt(24).putInt(1).putInt(-1).putInt(prefix).putInt(uri);
+        return chunk.array();
+    }
+
+    private static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
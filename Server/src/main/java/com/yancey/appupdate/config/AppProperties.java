@@ -3,9 +3,14 @@ package com.yancey.appupdate.config;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 
 import javax.annotation.PostConstruct;
 import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * 应用配置属性
@@ -50,6 +55,413 @@ public class AppProperties {
         private String apiKey = "your-secret-api-key";
     }
 
+    /**
+     * 批量导入配置
+     */
+    private BulkImport bulkImport = new BulkImport();
+
+    /**
+     * 批量导入配置内部类
+     */
+    @Data
+    public static class BulkImport {
+        /**
+         * 解析APK的并行度（默认为CPU核数）
+         */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * 每批处理的APK数量（同时也是JDBC批量插入的大小）
+         */
+        private int batchSize = 200;
+
+        /**
+         * 每个任务最多保留的错误信息条数
+         */
+        private int maxErrors = 100;
+
+        /**
+         * 已结束任务的进度保留时长，超过后查询进度返回任务不存在
+         */
+        private Duration jobRetention = Duration.ofHours(24);
+    }
+
+    /**
+     * 上传配置
+     */
+    private Upload upload = new Upload();
+
+    /**
+     * 上传配置内部类
+     */
+    @Data
+    public static class Upload {
+        /**
+         * 流式上传接口路径（不经过Spring的MultipartResolver，直接从请求流写入暂存目录）
+         */
+        private String streamingPath = "/api/admin/app/upload-stream";
+
+        /**
+         * 上传准入控制配置
+         */
+        private Admission admission = new Admission();
+    }
+
+    /**
+     * 上传准入控制配置内部类
+     */
+    @Data
+    public static class Admission {
+        /**
+         * 是否启用上传准入控制
+         */
+        private boolean enabled = true;
+
+        /**
+         * 受控的上传路径（支持Ant风格通配符）
+         */
+        private List<String> paths = new ArrayList<>(Arrays.asList("/api/admin/app/upload", "/api/admin/app/upload-stream",
+                "/api/admin/app/version/*/variants"));
+
+        /**
+         * 同时处理的最大上传数
+         */
+        private int maxConcurrent = 2;
+
+        /**
+         * 同时处理的上传请求体总字节数上限
+         */
+        private DataSize maxBytesInFlight = DataSize.ofMegabytes(1024);
+
+        /**
+         * 等待队列长度，队列满时直接拒绝（429）
+         */
+        private int maxQueue = 4;
+
+        /**
+         * 在队列中的最长等待时间，超时拒绝（503）
+         */
+        private Duration queueTimeout = Duration.ofSeconds(10);
+
+        /**
+         * 拒绝响应中Retry-After头的秒数
+         */
+        private int retryAfterSeconds = 30;
+    }
+
+    /**
+     * 应用图标配置
+     */
+    private IconConfig icon = new IconConfig();
+
+    /**
+     * 应用图标配置内部类
+     */
+    @Data
+    public static class IconConfig {
+        /**
+         * 生成的缩略图尺寸（像素）
+         */
+        private List<Integer> sizes = new ArrayList<>(Arrays.asList(48, 96, 192));
+
+        /**
+         * 内存缩略图缓存的最大字节数
+         */
+        private DataSize cacheMaxSize = DataSize.ofMegabytes(16);
+    }
+
+    /**
+     * APK签名校验配置
+     */
+    private SignatureConfig signature = new SignatureConfig();
+
+    /**
+     * APK签名校验配置内部类
+     */
+    @Data
+    public static class SignatureConfig {
+        /**
+         * 是否在入库时校验v2/v3签名
+         */
+        private boolean enabled = true;
+
+        /**
+         * 是否拒绝未签名的APK
+         */
+        private boolean requireSigned = false;
+
+        /**
+         * 是否要求同一应用的所有版本使用相同的签名证书
+         */
+        private boolean enforceSameSigner = true;
+    }
+
+    /**
+     * 版本统计配置
+     */
+    private StatsConfig stats = new StatsConfig();
+
+    /**
+     * 版本统计配置内部类
+     */
+    @Data
+    public static class StatsConfig {
+        /**
+         * 统计计数器与实际数据的校准间隔（ISO-8601格式，如PT10M）
+         */
+        private Duration reconcileInterval = Duration.ofMinutes(10);
+    }
+
+    /**
+     * 实体二级缓存配置
+     */
+    private EntityCacheConfig entityCache = new EntityCacheConfig();
+
+    /**
+     * 实体二级缓存配置内部类
+     */
+    @Data
+    public static class EntityCacheConfig {
+        /**
+         * 是否启用Hibernate二级缓存和查询缓存
+         */
+        private boolean enabled = true;
+
+        /**
+         * AppInfo缓存区域的最大条目数
+         */
+        private long appInfoMaxSize = 10_000;
+
+        /**
+         * AppVersion缓存区域的最大条目数
+         */
+        private long appVersionMaxSize = 50_000;
+
+        /**
+         * 查询缓存区域的最大条目数
+         */
+        private long queryResultsMaxSize = 1_000;
+
+        /**
+         * 实体和查询缓存条目写入后的有效期（秒，0表示不过期）
+         * 缓存失效只在本实例内生效，多实例部署时其他实例写入的数据最迟在该时长后可见
+         */
+        private long expireAfterWriteSeconds = 60;
+    }
+
+    /**
+     * 只读副本配置
+     */
+    private ReplicaConfig replica = new ReplicaConfig();
+
+    /**
+     * 只读副本配置内部类
+     */
+    @Data
+    public static class ReplicaConfig {
+        /**
+         * 是否启用读写分离（只读事务路由到副本）
+         */
+        private boolean enabled = false;
+
+        /**
+         * 只读副本列表
+         */
+        private List<ReplicaNode> nodes = new ArrayList<>();
+
+        /**
+         * 允许的最大复制延迟，超过后该副本暂停承接读请求
+         */
+        private Duration maxLag = Duration.ofSeconds(5);
+
+        /**
+         * 主库心跳写入及副本延迟检测间隔，也是延迟测量的精度
+         */
+        private Duration heartbeatInterval = Duration.ofSeconds(1);
+
+        /**
+         * 每个副本连接池的最大连接数
+         */
+        private int maximumPoolSize = 10;
+    }
+
+    /**
+     * 版本保留策略配置
+     */
+    private RetentionConfig retention = new RetentionConfig();
+
+    /**
+     * 版本保留策略配置内部类
+     * 版本满足任一条件即保留：属于最新的keepLast个版本、在keepDays天内上传、是当前发布版本
+     */
+    @Data
+    public static class RetentionConfig {
+        /**
+         * 是否启用后台清理任务（关闭时仍可通过接口手动触发）
+         */
+        private boolean enabled = false;
+
+        /**
+         * 默认保留的最新版本数（应用未单独配置时使用）
+         */
+        private int keepLast = 20;
+
+        /**
+         * 默认保留最近多少天内上传的版本（应用未单独配置时使用）
+         */
+        private int keepDays = 30;
+
+        /**
+         * 后台清理任务的执行间隔
+         */
+        private Duration interval = Duration.ofMinutes(5);
+
+        /**
+         * 每轮评估的应用数，下一轮从上一轮结束的应用之后继续
+         */
+        private int appsPerRun = 100;
+
+        /**
+         * 每轮最多删除的版本数
+         */
+        private int maxVersionsPerRun = 2000;
+
+        /**
+         * 每个删除批次的版本数
+         */
+        private int batchSize = 100;
+
+        /**
+         * 删除批次之间的停顿，限制清理对数据库和磁盘的压力
+         */
+        private Duration batchPause = Duration.ofMillis(200);
+    }
+
+    /**
+     * 冷版本归档配置
+     */
+    private ArchiveConfig archive = new ArchiveConfig();
+
+    /**
+     * 冷版本归档配置内部类
+     */
+    @Data
+    public static class ArchiveConfig {
+        /**
+         * 是否启用后台归档任务（关闭时仍可通过接口手动触发，已归档的版本照常下载）
+         */
+        private boolean enabled = false;
+
+        /**
+         * 归档目录（可挂载到更便宜的存储卷）
+         */
+        private String path = "../apk_archive/";
+
+        /**
+         * 超过该时长未被下载（从未下载过的按上传时间计算）的非发布版本会被归档
+         */
+        private Duration idleAfter = Duration.ofDays(30);
+
+        /**
+         * 是否以gzip压缩归档文件（APK本身已压缩，通常只能节省少量空间）
+         */
+        private boolean compress = false;
+
+        /**
+         * 后台归档任务的执行间隔
+         */
+        private Duration interval = Duration.ofHours(1);
+
+        /**
+         * 每轮最多归档的版本数
+         */
+        private int batchSize = 50;
+
+        /**
+         * 下载时间的批量写回间隔
+         */
+        private Duration accessFlushInterval = Duration.ofMinutes(1);
+    }
+
+    /**
+     * 应用搜索索引配置
+     */
+    private SearchConfig search = new SearchConfig();
+
+    /**
+     * 应用搜索索引配置内部类
+     */
+    @Data
+    public static class SearchConfig {
+        /**
+         * 是否使用内存索引搜索应用（关闭时按关键词LIKE查询数据库）
+         */
+        private boolean enabled = true;
+
+        /**
+         * 从数据库重建索引的间隔，用于同步其他实例新建的应用
+         */
+        private Duration refreshInterval = Duration.ofMinutes(10);
+    }
+
+    /**
+     * 版本导出配置
+     */
+    private ExportConfig export = new ExportConfig();
+
+    /**
+     * 版本导出配置内部类
+     */
+    @Data
+    public static class ExportConfig {
+        /**
+         * 每次从数据库读取的行数（MySQL不使用该值，导出语句以流式方式逐行读取）
+         */
+        private int fetchSize = 1000;
+
+        /**
+         * 同时执行的导出数，超出时直接拒绝
+         */
+        private int maxConcurrent = 2;
+    }
+
+    /**
+     * 列表总数缓存配置
+     */
+    private ListingConfig listing = new ListingConfig();
+
+    /**
+     * 列表总数缓存配置内部类
+     */
+    @Data
+    public static class ListingConfig {
+        /**
+         * 各应用版本数的缓存有效期，切片分页请求总数时在有效期内直接返回缓存值
+         */
+        private Duration countRefreshInterval = Duration.ofMinutes(1);
+    }
+
+    /**
+     * 只读副本节点
+     */
+    @Data
+    public static class ReplicaNode {
+        /**
+         * JDBC连接地址
+         */
+        private String url;
+
+        /**
+         * 用户名（为空时使用主库用户名）
+         */
+        private String username;
+
+        /**
+         * 密码（用户名为空时使用主库密码）
+         */
+        private String password;
+    }
+
     /**
      * 初始化后创建必要的目录
      */
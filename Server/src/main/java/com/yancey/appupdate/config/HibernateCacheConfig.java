@@ -0,0 +1,112 @@
+package com.yancey.appupdate.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate二级缓存配置
+ * AppInfo、AppVersion实体和发布版本汇总查询使用进程内的Caffeine JCache缓存，
+ * 所有缓存区域在启动时按配置的容量预先创建（缺失即失败），各区域的命中率由Hibernate统计信息提供。
+ * JPQL批量更新（@Modifying）由Hibernate自动清空受影响实体的缓存区域并使相关查询缓存失效。
+ * 缓存失效只作用于本实例，多实例部署时依靠写入后过期（expire-after-write-seconds）限制其他实例读到旧数据的时长
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-19
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "app.entity-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class HibernateCacheConfig {
+
+    /**
+     * AppInfo实体缓存区域
+     */
+    public static final String APP_INFO_REGION = "appInfo";
+
+    /**
+     * AppVersion实体缓存区域
+     */
+    public static final String APP_VERSION_REGION = "appVersion";
+
+    /**
+     * 发布版本汇总查询的查询缓存区域
+     */
+    public static final String RELEASE_LOOKUP_REGION = "releaseLookup";
+
+    private final AppProperties appProperties;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateJCacheManager() {
+        AppProperties.EntityCacheConfig config = appProperties.getEntityCache();
+        // 每个应用上下文使用独立的CacheManager：提供者的默认CacheManager在JVM内共享，
+        // 同一进程中启动第二个上下文（如测试）时区域已存在会导致创建失败
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("hibernate-" + UUID.randomUUID()), provider.getDefaultClassLoader());
+
+        long expireAfterWrite = config.getExpireAfterWriteSeconds();
+        createRegion(cacheManager, APP_INFO_REGION, config.getAppInfoMaxSize(), expireAfterWrite);
+        createRegion(cacheManager, APP_VERSION_REGION, config.getAppVersionMaxSize(), expireAfterWrite);
+        createRegion(cacheManager, RELEASE_LOOKUP_REGION, config.getQueryResultsMaxSize(), expireAfterWrite);
+        createRegion(cacheManager, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                config.getQueryResultsMaxSize(), expireAfterWrite);
+        // 表更新时间戳区域不能淘汰或过期：时间戳丢失会被当作查询缓存未过期（条目数等于表数，很小）
+        createRegion(cacheManager, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, 0, 0);
+
+        log.info("Hibernate二级缓存已启用: appInfo={}, appVersion={}, queryResults={}, expireAfterWrite={}s",
+                config.getAppInfoMaxSize(), config.getAppVersionMaxSize(), config.getQueryResultsMaxSize(), expireAfterWrite);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateJCacheManager) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, hibernateJCacheManager);
+            hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            // 统计信息用于输出各缓存区域的命中率；关闭每个Session结束时的统计日志
+            hibernateProperties.put(AvailableSettings.GENERATE_STATISTICS, true);
+            hibernateProperties.put(AvailableSettings.LOG_SESSION_METRICS, false);
+        };
+    }
+
+    /**
+     * 创建缓存区域
+     *
+     * @param maximumSize 最大条目数（0表示不限）
+     * @param expireAfterWriteSeconds 写入后的有效期（秒，0表示不过期）
+     */
+    private static void createRegion(CacheManager cacheManager, String name, long maximumSize, long expireAfterWriteSeconds) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        // Hibernate存入的是不可变的缓存条目，按引用存储，避免每次读写都序列化复制
+        configuration.setStoreByValue(false);
+        if (maximumSize > 0) {
+            configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        }
+        if (expireAfterWriteSeconds > 0) {
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(expireAfterWriteSeconds)));
+        }
+        cacheManager.createCache(name, configuration);
+    }
+}
@@ -0,0 +1,48 @@
+package com.yancey.appupdate.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.multipart.MultipartResolver;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Multipart配置
+ * 流式上传接口自行读取请求流，因此对其跳过Spring的multipart解析，避免容器先将整个文件写入临时目录
+ * 
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-10
+ */
+@Configuration
+@RequiredArgsConstructor
+public class MultipartConfig {
+
+    private final AppProperties appProperties;
+    private final ObjectProvider<MultipartProperties> multipartProperties;
+
+    @Bean(name = DispatcherServlet.MULTIPART_RESOLVER_BEAN_NAME)
+    @ConditionalOnProperty(prefix = "spring.servlet.multipart", name = "enabled", matchIfMissing = true)
+    public MultipartResolver multipartResolver() {
+        String streamingPath = appProperties.getUpload().getStreamingPath();
+
+        StandardServletMultipartResolver resolver = new StandardServletMultipartResolver() {
+            @Override
+            public boolean isMultipart(HttpServletRequest request) {
+                String path = request.getRequestURI().substring(request.getContextPath().length());
+                if (path.equals(streamingPath)) {
+                    return false;
+                }
+                return super.isMultipart(request);
+            }
+        };
+        resolver.setResolveLazily(multipartProperties.getIfAvailable(MultipartProperties::new).isResolveLazily());
+        return resolver;
+    }
+}
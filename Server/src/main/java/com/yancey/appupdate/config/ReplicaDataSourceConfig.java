@@ -0,0 +1,92 @@
+package com.yancey.appupdate.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读写分离数据源配置
+ * 启用后主库与各只读副本各自一个Hikari连接池，对外只暴露一个延迟取连接的路由数据源，
+ * Flyway、写事务和无事务的访问都走主库
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-18
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "app.replica", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReplicaDataSourceConfig {
+
+    private final AppProperties appProperties;
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties, Environment environment) {
+        AppProperties.ReplicaConfig replicaConfig = appProperties.getReplica();
+        if (replicaConfig.getNodes().isEmpty()) {
+            throw new IllegalStateException("已启用读写分离，但未配置只读副本(app.replica.nodes)");
+        }
+
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        // 保留spring.datasource.hikari.*下的连接池配置
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        List<AppProperties.ReplicaNode> nodes = replicaConfig.getNodes();
+        for (int i = 0; i < nodes.size(); i++) {
+            AppProperties.ReplicaNode node = nodes.get(i);
+            boolean ownCredentials = StringUtils.hasText(node.getUsername());
+
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setJdbcUrl(node.getUrl());
+            replica.setUsername(ownCredentials ? node.getUsername() : properties.determineUsername());
+            replica.setPassword(ownCredentials ? node.getPassword() : properties.determinePassword());
+            replica.setMaximumPoolSize(replicaConfig.getMaximumPoolSize());
+            replica.setReadOnly(true);
+            // 副本不可达时不阻塞启动，由延迟监控标记为不可用
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(replica);
+        }
+
+        log.info("已启用读写分离: 只读副本数={}, maxLag={}, heartbeatInterval={}",
+                replicas.size(), replicaConfig.getMaxLag(), replicaConfig.getHeartbeatInterval());
+        return new ReplicaRoutingDataSource(primary, replicas, replicaConfig.getMaxLag().toMillis());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    /**
+     * 事务结束即释放连接：默认的连接持有模式会在open-in-view的整个请求内复用第一个事务拿到的连接，
+     * 导致同一请求中后续事务无法重新路由
+     */
+    @Bean
+    public HibernatePropertiesCustomizer replicaConnectionHandlingCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
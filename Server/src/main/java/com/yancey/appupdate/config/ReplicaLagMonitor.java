@@ -0,0 +1,83 @@
+package com.yancey.appupdate.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 只读副本复制延迟监控
+ * 定期把当前时间写入主库的replica_heartbeat表，再从各副本读回：
+ * 副本已应用上一次心跳时视为无延迟，否则延迟为当前时间减去副本上的心跳时间，
+ * 测量精度为心跳间隔
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-18
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.replica", name = "enabled", havingValue = "true")
+public class ReplicaLagMonitor {
+
+    private static final String WRITE_HEARTBEAT = "UPDATE replica_heartbeat SET beat_millis = ? WHERE id = 1";
+    private static final String READ_HEARTBEAT = "SELECT beat_millis FROM replica_heartbeat WHERE id = 1";
+
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final long maxLagMillis;
+    private final JdbcTemplate primaryJdbcTemplate;
+
+    /**
+     * 最近一次成功写入主库的心跳时间（0表示尚未写入）
+     */
+    private long lastBeatMillis;
+
+    public ReplicaLagMonitor(ReplicaRoutingDataSource routingDataSource, AppProperties appProperties) {
+        this.routingDataSource = routingDataSource;
+        this.maxLagMillis = appProperties.getReplica().getMaxLag().toMillis();
+        this.primaryJdbcTemplate = new JdbcTemplate(routingDataSource.getPrimary());
+    }
+
+    @Scheduled(fixedDelayString = "${app.replica.heartbeat-interval:PT1S}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        // 第一次只写心跳：副本上的旧心跳可能来自很久以前，无法据此判断延迟
+        if (lastBeatMillis > 0) {
+            checkReplicas(now);
+        }
+
+        try {
+            primaryJdbcTemplate.update(WRITE_HEARTBEAT, now);
+            lastBeatMillis = now;
+        } catch (DataAccessException e) {
+            log.warn("写入主库心跳失败: {}", e.getMessage());
+        }
+    }
+
+    private void checkReplicas(long now) {
+        List<ReplicaRoutingDataSource.Replica> replicas = routingDataSource.getReplicas();
+        for (ReplicaRoutingDataSource.Replica replica : replicas) {
+            try {
+                Long appliedBeat = new JdbcTemplate(replica.getDataSource()).queryForObject(READ_HEARTBEAT, Long.class);
+                long beat = appliedBeat != null ? appliedBeat : 0L;
+                long lag = beat >= lastBeatMillis ? 0L : now - beat;
+
+                boolean wasAvailable = replica.isAvailable();
+                boolean wasServing = wasAvailable && replica.getLagMillis() <= maxLagMillis;
+                replica.update(beat, lag);
+                if (lag <= maxLagMillis && !wasServing) {
+                    log.info("只读副本开始承接读请求: {}, lag={}ms", replica.getName(), lag);
+                } else if (lag > maxLagMillis && (wasServing || !wasAvailable)) {
+                    log.warn("只读副本复制延迟超过阈值，读请求回退主库: {}, lag={}ms, maxLag={}ms",
+                            replica.getName(), lag, maxLagMillis);
+                }
+            } catch (DataAccessException e) {
+                replica.markUnavailable(e.getMessage());
+            }
+        }
+    }
+}
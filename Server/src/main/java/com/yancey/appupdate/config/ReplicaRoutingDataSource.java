@@ -0,0 +1,169 @@
+package com.yancey.appupdate.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 读写分离路由数据源
+ * 只读事务路由到复制延迟在阈值内、且已追上最近一次写事务的副本，其余连接一律走主库。
+ * 只有提交的读写事务才计为写入；无事务的访问（多为查询，写入只有后台维护任务的自动提交更新）走主库但不计入，
+ * 否则每次无事务查询都会让副本暂时落后于"最近一次写入"而把读请求全部推回主库。
+ * 必须包在LazyConnectionDataSourceProxy内使用：事务开始时只读标记尚未绑定到线程，
+ * 延迟到第一条SQL执行时再取真实连接，路由才能看到只读标记
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-18
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    static final String PRIMARY = "primary";
+
+    @Getter
+    private final HikariDataSource primary;
+
+    @Getter
+    private final List<Replica> replicas;
+
+    private final long maxLagMillis;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    /**
+     * 最近一次写事务提交的时间，副本已应用的心跳早于该时间时不承接读请求（读己之写）
+     */
+    private volatile long lastWriteMillis;
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaDataSources, long maxLagMillis) {
+        this.primary = primary;
+        this.maxLagMillis = maxLagMillis;
+
+        List<Replica> replicaList = new ArrayList<>();
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (HikariDataSource dataSource : replicaDataSources) {
+            Replica replica = new Replica(dataSource.getPoolName(), dataSource);
+            replicaList.add(replica);
+            targets.put(replica.getName(), dataSource);
+        }
+        this.replicas = Collections.unmodifiableList(replicaList);
+
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        // 启动时尚无写事务，视为此刻刚写入，副本追上第一次心跳后才承接读请求
+        this.lastWriteMillis = System.currentTimeMillis();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            Replica replica = selectReplica();
+            return replica != null ? replica.getName() : PRIMARY;
+        }
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isSynchronizationActive()) {
+            trackWriteOnCommit();
+        }
+        return PRIMARY;
+    }
+
+    /**
+     * 读写事务提交后记录写入时间
+     */
+    private void trackWriteOnCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    lastWriteMillis = System.currentTimeMillis();
+                }
+            }
+        });
+    }
+
+    /**
+     * 轮询选择可用副本，没有可用副本时返回null（回退主库）
+     */
+    private Replica selectReplica() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        long requiredBeat = lastWriteMillis;
+        int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.isAvailable() && replica.getLagMillis() <= maxLagMillis
+                    && replica.getAppliedBeatMillis() > requiredBeat) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        for (Replica replica : replicas) {
+            replica.getDataSource().close();
+        }
+        primary.close();
+    }
+
+    /**
+     * 副本及其最近一次检测到的复制状态
+     */
+    @Getter
+    public static class Replica {
+
+        private final String name;
+
+        private final HikariDataSource dataSource;
+
+        /**
+         * 最近一次检测是否可连接
+         */
+        private volatile boolean available;
+
+        /**
+         * 复制延迟（毫秒）
+         */
+        private volatile long lagMillis = Long.MAX_VALUE;
+
+        /**
+         * 副本上已应用的主库心跳时间
+         */
+        private volatile long appliedBeatMillis;
+
+        Replica(String name, HikariDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        void update(long appliedBeatMillis, long lagMillis) {
+            this.appliedBeatMillis = appliedBeatMillis;
+            this.lagMillis = lagMillis;
+            this.available = true;
+        }
+
+        void markUnavailable(String reason) {
+            if (available) {
+                log.warn("只读副本不可用，读请求回退主库: {}, reason={}", name, reason);
+            }
+            this.available = false;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.yancey.appupdate.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 上传准入控制配置
+ * 过滤器排在Spring Security之后，保证未认证请求不会占用上传名额
+ * 
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-10
+ */
+@Configuration
+@RequiredArgsConstructor
+public class UploadAdmissionConfig {
+
+    private final AppProperties appProperties;
+
+    @Bean
+    public FilterRegistrationBean<UploadAdmissionFilter> uploadAdmissionFilter(
+            ObjectProvider<MultipartProperties> multipartProperties) {
+
+        // Content-Length未知（chunked）时按最大请求大小估算
+        DataSize maxRequestSize = multipartProperties.getIfAvailable(MultipartProperties::new).getMaxRequestSize();
+        long unknownLengthBytes = maxRequestSize != null && maxRequestSize.toBytes() > 0
+                ? maxRequestSize.toBytes() : DataSize.ofMegabytes(500).toBytes();
+
+        FilterRegistrationBean<UploadAdmissionFilter> registration = new FilterRegistrationBean<>(
+                new UploadAdmissionFilter(appProperties.getUpload().getAdmission(), unknownLengthBytes));
+        registration.setName("uploadAdmissionFilter");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,175 @@
+package com.yancey.appupdate.config;
+
+import com.alibaba.fastjson.JSON;
+import com.yancey.appupdate.dto.ApiResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 上传准入控制过滤器
+ * 限制同时处理的上传数量和请求体总字节数，超出时进入有界等待队列，
+ * 队列已满或等待超时则快速返回429/503并附带Retry-After，避免大文件上传拖垮检查更新等接口
+ * 
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-10
+ */
+@Slf4j
+public class UploadAdmissionFilter extends OncePerRequestFilter {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final AppProperties.Admission admission;
+
+    /**
+     * Content-Length未知时按此字节数计入在途字节
+     */
+    private final long unknownLengthBytes;
+
+    private final Object lock = new Object();
+    private int activeUploads;
+    private long bytesInFlight;
+    private int waitingUploads;
+
+    public UploadAdmissionFilter(AppProperties.Admission admission, long unknownLengthBytes) {
+        this.admission = admission;
+        this.unknownLengthBytes = unknownLengthBytes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!admission.isEnabled() || !"POST".equalsIgnoreCase(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return admission.getPaths().stream().noneMatch(pattern -> PATH_MATCHER.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        long contentLength = request.getContentLengthLong();
+        long requestBytes = contentLength >= 0 ? contentLength : unknownLengthBytes;
+
+        Admission result;
+        try {
+            result = acquire(requestBytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = Admission.TIMED_OUT;
+        }
+
+        if (result == Admission.QUEUE_FULL) {
+            log.warn("上传请求被拒绝-队列已满: {} bytes={}", request.getRequestURI(), requestBytes);
+            sendRejectResponse(response, HttpStatus.TOO_MANY_REQUESTS, "上传请求过多，请稍后重试");
+            return;
+        }
+        if (result == Admission.TIMED_OUT) {
+            log.warn("上传请求被拒绝-等待超时: {} bytes={}", request.getRequestURI(), requestBytes);
+            sendRejectResponse(response, HttpStatus.SERVICE_UNAVAILABLE, "服务器繁忙，请稍后重试");
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            release(requestBytes);
+        }
+    }
+
+    /**
+     * 申请上传许可
+     */
+    private Admission acquire(long requestBytes) throws InterruptedException {
+        synchronized (lock) {
+            if (waitingUploads == 0 && canAdmit(requestBytes)) {
+                admit(requestBytes);
+                return Admission.ADMITTED;
+            }
+            if (waitingUploads >= admission.getMaxQueue()) {
+                return Admission.QUEUE_FULL;
+            }
+
+            waitingUploads++;
+            try {
+                long deadline = System.nanoTime() + admission.getQueueTimeout().toNanos();
+                while (!canAdmit(requestBytes)) {
+                    long remainingMillis = (deadline - System.nanoTime()) / 1_000_000L;
+                    if (remainingMillis <= 0) {
+                        return Admission.TIMED_OUT;
+                    }
+                    lock.wait(remainingMillis);
+                }
+                admit(requestBytes);
+                return Admission.ADMITTED;
+            } finally {
+                waitingUploads--;
+            }
+        }
+    }
+
+    /**
+     * 判断当前是否能接纳该请求（空闲时总是允许单个超大请求通过）
+     */
+    private boolean canAdmit(long requestBytes) {
+        if (activeUploads >= admission.getMaxConcurrent()) {
+            return false;
+        }
+        return activeUploads == 0 || bytesInFlight + requestBytes <= admission.getMaxBytesInFlight().toBytes();
+    }
+
+    private void admit(long requestBytes) {
+        activeUploads++;
+        bytesInFlight += requestBytes;
+        log.debug("上传请求获得许可: active={}, bytesInFlight={}", activeUploads, bytesInFlight);
+    }
+
+    private void release(long requestBytes) {
+        synchronized (lock) {
+            activeUploads--;
+            bytesInFlight -= requestBytes;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * 发送拒绝响应
+     * 
+     * @param response HTTP响应
+     * @param status HTTP状态码
+     * @param message 错误消息
+     */
+    private void sendRejectResponse(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(admission.getRetryAfterSeconds()));
+        response.setHeader(HttpHeaders.CONNECTION, "close");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        ApiResponse<Void> apiResponse = ApiResponse.error(status.value(), message);
+        response.getWriter().write(JSON.toJSONString(apiResponse));
+        response.getWriter().flush();
+    }
+
+    /**
+     * 准入结果
+     */
+    private enum Admission {
+        ADMITTED,
+        QUEUE_FULL,
+        TIMED_OUT
+    }
+}
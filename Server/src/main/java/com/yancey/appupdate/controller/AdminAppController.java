@@ -1,23 +1,47 @@
 package com.yancey.appupdate.controller;
 
 import com.yancey.appupdate.dto.ApiResponse;
+import com.yancey.appupdate.dto.ApkMetadataDto;
 import com.yancey.appupdate.dto.AppInfoDto;
 import com.yancey.appupdate.dto.AppInfoWithLatestVersionDto;
 import com.yancey.appupdate.dto.AppVersionDto;
+import com.yancey.appupdate.dto.AppVersionVariantDto;
+import com.yancey.appupdate.dto.ArchiveStatusDto;
+import com.yancey.appupdate.dto.BatchDeleteResultDto;
+import com.yancey.appupdate.dto.BulkImportProgressDto;
+import com.yancey.appupdate.dto.BulkImportRequestDto;
+import com.yancey.appupdate.dto.CacheRegionStatsDto;
+import com.yancey.appupdate.dto.CursorPageDto;
+import com.yancey.appupdate.dto.RetentionPolicyDto;
+import com.yancey.appupdate.dto.RetentionStatusDto;
 import com.yancey.appupdate.dto.UpdateForceUpdateRequestDto;
 import com.yancey.appupdate.entity.AppVersion;
+import com.yancey.appupdate.service.ApkBulkImportService;
+import com.yancey.appupdate.service.CacheRegionStatsService;
 import com.yancey.appupdate.service.AppVersionService;
+import com.yancey.appupdate.service.StreamingUploadService;
+import com.yancey.appupdate.service.VersionArchiveService;
+import com.yancey.appupdate.service.VersionBatchDeleteService;
+import com.yancey.appupdate.service.VersionExportService;
+import com.yancey.appupdate.service.VersionRetentionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 /**
  * 管理端应用控制器
@@ -33,6 +57,13 @@ import javax.validation.constraints.NotBlank;
 public class AdminAppController {
 
     private final AppVersionService appVersionService;
+    private final ApkBulkImportService apkBulkImportService;
+    private final StreamingUploadService streamingUploadService;
+    private final CacheRegionStatsService cacheRegionStatsService;
+    private final VersionBatchDeleteService versionBatchDeleteService;
+    private final VersionRetentionService versionRetentionService;
+    private final VersionArchiveService versionArchiveService;
+    private final VersionExportService versionExportService;
 
     /**
      * 管理端API密钥验证端点
@@ -114,25 +145,101 @@ public class AdminAppController {
         }
     }
 
+    /**
+     * 流式上传APK文件并创建版本
+     * 直接从请求流读取multipart内容写入暂存目录，表单字段与 /upload 接口一致
+     * 
+     * @param request HTTP请求
+     * @return 创建的版本信息
+     */
+    @PostMapping("/upload-stream")
+    public ResponseEntity<ApiResponse<AppVersionDto>> uploadAppVersionStreaming(HttpServletRequest request) {
+        
+        try {
+            log.info("开始流式上传APK: contentLength={}", request.getContentLengthLong());
+
+            StreamingUploadService.StagedUpload upload = streamingUploadService.receive(request);
+            AppVersion savedVersion = appVersionService.createAppVersionFromStagedFile(
+                    upload.getStagedPath(), upload.getAppId(), upload.getUpdateDescription(), upload.getForceUpdate());
+            AppVersionDto versionDto = appVersionService.convertToDto(savedVersion);
+
+            log.info("APK流式上传成功: appId={}, versionCode={}, versionName={}", 
+                    upload.getAppId(), savedVersion.getVersionCode(), savedVersion.getVersionName());
+
+            return ResponseEntity.ok(ApiResponse.success("APK上传成功", versionDto));
+            
+        } catch (Exception e) {
+            log.error("APK流式上传失败: error={}", e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
+        }
+    }
+
+    /**
+     * 从服务器本地目录批量导入APK
+     * 
+     * @param request 导入请求
+     * @return 导入任务进度
+     */
+    @PostMapping("/import")
+    public ResponseEntity<ApiResponse<BulkImportProgressDto>> startBulkImport(
+            @RequestBody @Valid BulkImportRequestDto request) {
+        
+        try {
+            log.info("提交APK批量导入: directory={}", request.getDirectory());
+            
+            BulkImportProgressDto progress = apkBulkImportService.startImport(request);
+            
+            return ResponseEntity.ok(ApiResponse.success("导入任务已提交", progress));
+            
+        } catch (Exception e) {
+            log.error("提交APK批量导入失败: directory={}, error={}", request.getDirectory(), e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
+        }
+    }
+
+    /**
+     * 查询批量导入任务进度
+     * 
+     * @param jobId 任务ID
+     * @return 导入任务进度
+     */
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<ApiResponse<BulkImportProgressDto>> getBulkImportProgress(@PathVariable String jobId) {
+        
+        try {
+            return ResponseEntity.ok(ApiResponse.success("查询成功", apkBulkImportService.getProgress(jobId)));
+        } catch (Exception e) {
+            log.error("查询批量导入进度失败: jobId={}, error={}", jobId, e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
+        }
+    }
+
     /**
      * 查询应用列表
+     * slice=true时不执行COUNT，只返回是否还有下一页；同时includeTotal=true时总数取自定期刷新的计数缓存
      * 
      * @param appNameQuery 应用名称查询条件（可选）
+     * @param slice 是否使用切片模式
+     * @param includeTotal 切片模式下是否返回总数
      * @param pageable 分页参数
-     * @return 应用信息及最新版本的分页列表
+     * @return 应用信息及最新版本的分页列表（切片模式且不返回总数时为切片）
      */
     @GetMapping("/apps")
-    public ResponseEntity<ApiResponse<Page<AppInfoWithLatestVersionDto>>> getApps(
+    public ResponseEntity<ApiResponse<Slice<AppInfoWithLatestVersionDto>>> getApps(
             @RequestParam(value = "appNameQuery", required = false) String appNameQuery,
+            @RequestParam(value = "slice", defaultValue = "false") Boolean slice,
+            @RequestParam(value = "includeTotal", defaultValue = "false") Boolean includeTotal,
             @PageableDefault(size = 10, sort = "createTime") Pageable pageable) {
         
         try {
-            log.info("查询应用列表: appNameQuery={}, pageable={}", appNameQuery, pageable);
+            log.info("查询应用列表: appNameQuery={}, slice={}, pageable={}", appNameQuery, slice, pageable);
             
-            Page<AppInfoWithLatestVersionDto> appsPage = appVersionService.getAppsWithLatestVersion(appNameQuery, pageable);
+            Slice<AppInfoWithLatestVersionDto> appsPage = slice
+                    ? appVersionService.getAppsWithLatestVersionSlice(appNameQuery, pageable, includeTotal)
+                    : appVersionService.getAppsWithLatestVersion(appNameQuery, pageable);
             
-            log.info("查询应用列表成功: 总数={}, 当前页={}, 每页大小={}", 
-                    appsPage.getTotalElements(), appsPage.getNumber(), appsPage.getSize());
+            log.info("查询应用列表成功: 本页条数={}, 当前页={}, 每页大小={}, 有下一页={}", 
+                    appsPage.getNumberOfElements(), appsPage.getNumber(), appsPage.getSize(), appsPage.hasNext());
             
             return ResponseEntity.ok(ApiResponse.success("查询成功", appsPage));
             
@@ -142,25 +249,61 @@ public class AdminAppController {
         }
     }
 
+    /**
+     * 游标分页查询应用列表
+     * 深页与第一页代价相同，总数仅在includeTotal=true时查询
+     * 
+     * @param appNameQuery 应用名称查询条件（可选）
+     * @param cursor 上一页返回的nextCursor（为空表示第一页）
+     * @param size 每页大小
+     * @param includeTotal 是否返回总数
+     * @return 应用列表的游标分页结果
+     */
+    @GetMapping("/apps/cursor")
+    public ResponseEntity<ApiResponse<CursorPageDto<AppInfoWithLatestVersionDto>>> getAppsByCursor(
+            @RequestParam(value = "appNameQuery", required = false) String appNameQuery,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "10") Integer size,
+            @RequestParam(value = "includeTotal", defaultValue = "false") Boolean includeTotal) {
+        
+        try {
+            CursorPageDto<AppInfoWithLatestVersionDto> appsPage =
+                    appVersionService.getAppsWithLatestVersionByCursor(appNameQuery, cursor, size, includeTotal);
+            return ResponseEntity.ok(ApiResponse.success("查询成功", appsPage));
+            
+        } catch (Exception e) {
+            log.error("游标分页查询应用列表失败: appNameQuery={}, cursor={}, error={}", appNameQuery, cursor, e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
+        }
+    }
+
     /**
      * 查询指定应用的版本列表
+     * slice=true时不执行COUNT，只返回是否还有下一页；同时includeTotal=true时总数取自定期刷新的计数缓存
      * 
      * @param appId 应用ID
+     * @param slice 是否使用切片模式
+     * @param includeTotal 切片模式下是否返回总数
      * @param pageable 分页参数
-     * @return 应用版本的分页列表
+     * @return 应用版本的分页列表（切片模式且不返回总数时为切片）
      */
     @GetMapping("/app/{appId}/versions")
-    public ResponseEntity<ApiResponse<Page<AppVersionDto>>> getAppVersions(
+    public ResponseEntity<ApiResponse<Slice<AppVersionDto>>> getAppVersions(
             @PathVariable String appId,
+            @RequestParam(value = "slice", defaultValue = "false") Boolean slice,
+            @RequestParam(value = "includeTotal", defaultValue = "false") Boolean includeTotal,
             @PageableDefault(size = 10, sort = "versionCode", direction = org.springframework.data.domain.Sort.Direction.DESC) Pageable pageable) {
         
         try {
-            log.info("查询应用版本列表: appId={}, pageable={}", appId, pageable);
+            log.info("查询应用版本列表: appId={}, slice={}, pageable={}", appId, slice, pageable);
             
-            Page<AppVersionDto> versionsPage = appVersionService.getAppVersions(appId, pageable);
+            Slice<AppVersionDto> versionsPage = slice
+                    ? appVersionService.getAppVersionsSlice(appId, pageable, includeTotal)
+                    : appVersionService.getAppVersions(appId, pageable);
             
-            log.info("查询应用版本列表成功: appId={}, 总数={}, 当前页={}, 每页大小={}", 
-                    appId, versionsPage.getTotalElements(), versionsPage.getNumber(), versionsPage.getSize());
+            log.info("查询应用版本列表成功: appId={}, 本页条数={}, 当前页={}, 每页大小={}, 有下一页={}", 
+                    appId, versionsPage.getNumberOfElements(), versionsPage.getNumber(), versionsPage.getSize(),
+                    versionsPage.hasNext());
             
             return ResponseEntity.ok(ApiResponse.success("查询成功", versionsPage));
             
@@ -170,6 +313,34 @@ public class AdminAppController {
         }
     }
 
+    /**
+     * 游标分页查询指定应用的版本列表
+     * 深页与第一页代价相同，总数仅在includeTotal=true时查询
+     * 
+     * @param appId 应用ID
+     * @param cursor 上一页返回的nextCursor（为空表示第一页）
+     * @param size 每页大小
+     * @param includeTotal 是否返回总数
+     * @return 应用版本的游标分页结果
+     */
+    @GetMapping("/app/{appId}/versions/cursor")
+    public ResponseEntity<ApiResponse<CursorPageDto<AppVersionDto>>> getAppVersionsByCursor(
+            @PathVariable String appId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "10") Integer size,
+            @RequestParam(value = "includeTotal", defaultValue = "false") Boolean includeTotal) {
+        
+        try {
+            CursorPageDto<AppVersionDto> versionsPage =
+                    appVersionService.getAppVersionsByCursor(appId, cursor, size, includeTotal);
+            return ResponseEntity.ok(ApiResponse.success("查询成功", versionsPage));
+            
+        } catch (Exception e) {
+            log.error("游标分页查询应用版本列表失败: appId={}, cursor={}, error={}", appId, cursor, e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
+        }
+    }
+
     /**
      * 修改应用版本信息
      * 
@@ -197,6 +368,100 @@ public class AdminAppController {
         }
     }
 
+    /**
+     * 查询版本APK的元数据
+     * 
+     * @param versionId 版本ID
+     * @return APK元数据
+     */
+    @GetMapping("/version/{versionId}/metadata")
+    public ResponseEntity<ApiResponse<ApkMetadataDto>> getVersionMetadata(@PathVariable Long versionId) {
+        
+        try {
+            log.info("查询版本APK元数据: versionId={}", versionId);
+            
+            ApkMetadataDto metadata = appVersionService.getVersionMetadata(versionId);
+            
+            return ResponseEntity.ok(ApiResponse.success("查询成功", metadata));
+            
+        } catch (Exception e) {
+            log.error("查询版本APK元数据失败: versionId={}, error={}", versionId, e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
+        }
+    }
+
+    /**
+     * 为版本上传ABI/屏幕密度变体
+     * 
+     * @param versionId 版本ID
+     * @param apkFile 变体APK文件
+     * @param abi 目标ABI（可选，未指定时根据原生库目录识别）
+     * @param screenDensity 目标屏幕密度dpi（可选）
+     * @return 变体信息
+     */
+    @PostMapping("/version/{versionId}/variants")
+    public ResponseEntity<ApiResponse<AppVersionVariantDto>> uploadVersionVariant(
+            @PathVariable Long versionId,
+            @RequestParam("apkFile") MultipartFile apkFile,
+            @RequestParam(value = "abi", required = false) String abi,
+            @RequestParam(value = "screenDensity", required = false) Integer screenDensity) {
+        
+        try {
+            log.info("上传版本变体: versionId={}, abi={}, screenDensity={}, size={}", 
+                    versionId, abi, screenDensity, apkFile.getSize());
+            
+            AppVersionVariantDto variant = appVersionService.addVersionVariant(versionId, apkFile, abi, screenDensity);
+            
+            return ResponseEntity.ok(ApiResponse.success("变体上传成功", variant));
+            
+        } catch (Exception e) {
+            log.error("上传版本变体失败: versionId={}, error={}", versionId, e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
+        }
+    }
+
+    /**
+     * 查询版本的全部变体
+     * 
+     * @param versionId 版本ID
+     * @return 变体列表
+     */
+    @GetMapping("/version/{versionId}/variants")
+    public ResponseEntity<ApiResponse<List<AppVersionVariantDto>>> getVersionVariants(@PathVariable Long versionId) {
+        
+        try {
+            List<AppVersionVariantDto> variants = appVersionService.getVersionVariants(versionId);
+            
+            return ResponseEntity.ok(ApiResponse.success("查询成功", variants));
+            
+        } catch (Exception e) {
+            log.error("查询版本变体失败: versionId={}, error={}", versionId, e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
+        }
+    }
+
+    /**
+     * 删除版本变体
+     * 
+     * @param variantId 变体ID
+     * @return 删除结果
+     */
+    @DeleteMapping("/variant/{variantId}")
+    public ResponseEntity<ApiResponse<Void>> deleteVersionVariant(@PathVariable Long variantId) {
+        
+        try {
+            log.info("删除版本变体: variantId={}", variantId);
+            
+            appVersionService.deleteVersionVariant(variantId);
+            
+            return ResponseEntity.ok(ApiResponse.success("删除成功", null));
+            
+        } catch (Exception e) {
+            log.error("删除版本变体失败: variantId={}, error={}", variantId, e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
+        }
+    }
+
     /**
      * 删除应用版本
      * 
@@ -231,17 +496,16 @@ public class AdminAppController {
      * @return 删除结果
      */
     @DeleteMapping("/versions")
-    public ResponseEntity<ApiResponse<java.util.List<Long>>> batchDeleteVersions(
+    public ResponseEntity<ApiResponse<BatchDeleteResultDto>> batchDeleteVersions(
             @RequestBody @javax.validation.Valid com.yancey.appupdate.dto.BatchDeleteRequestDto batchDeleteRequest) {
         
         try {
-            log.info("批量删除应用版本: request={}", batchDeleteRequest);
+            log.info("批量删除应用版本: 版本数={}, forceDelete={}",
+                    batchDeleteRequest.getVersionIds().size(), batchDeleteRequest.getForceDelete());
             
-            java.util.List<Long> successIds = appVersionService.batchDeleteVersions(batchDeleteRequest);
+            BatchDeleteResultDto result = versionBatchDeleteService.deleteVersions(batchDeleteRequest);
             
-            log.info("批量删除应用版本成功: 成功数量={}", successIds.size());
-            
-            return ResponseEntity.ok(ApiResponse.success("批量删除成功", successIds));
+            return ResponseEntity.ok(ApiResponse.success("批量删除完成", result));
             
         } catch (Exception e) {
             log.error("批量删除应用版本失败: error={}", e.getMessage(), e);
@@ -299,6 +563,191 @@ public class AdminAppController {
         }
     }
 
+    /**
+     * 获取二级缓存各区域的命中统计
+     * 
+     * @return 缓存区域统计列表
+     */
+    @GetMapping("/cache-stats")
+    public ResponseEntity<ApiResponse<List<CacheRegionStatsDto>>> getCacheStats() {
+        
+        try {
+            return ResponseEntity.ok(ApiResponse.success("获取缓存统计成功", cacheRegionStatsService.getRegionStats()));
+            
+        } catch (Exception e) {
+            log.error("获取缓存统计失败: error={}", e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取版本保留策略清理任务状态
+     * 
+     * @return 任务状态
+     */
+    @GetMapping("/retention/status")
+    public ResponseEntity<ApiResponse<RetentionStatusDto>> getRetentionStatus() {
+        
+        try {
+            return ResponseEntity.ok(ApiResponse.success("获取清理状态成功", versionRetentionService.getStatus()));
+            
+        } catch (Exception e) {
+            log.error("获取清理状态失败: error={}", e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
+        }
+    }
+
+    /**
+     * 立即触发一轮版本保留策略清理（后台执行）
+     * 
+     * @return 触发后的任务状态
+     */
+    @PostMapping("/retention/run")
+    public ResponseEntity<ApiResponse<RetentionStatusDto>> runRetention() {
+        
+        try {
+            log.info("手动触发版本保留策略清理");
+            return ResponseEntity.ok(ApiResponse.success("清理任务已触发", versionRetentionService.triggerPurge()));
+            
+        } catch (Exception e) {
+            log.error("触发版本保留策略清理失败: error={}", e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取冷版本归档任务状态
+     * 
+     * @return 任务状态
+     */
+    @GetMapping("/archive/status")
+    public ResponseEntity<ApiResponse<ArchiveStatusDto>> getArchiveStatus() {
+        
+        try {
+            return ResponseEntity.ok(ApiResponse.success("获取归档状态成功", versionArchiveService.getStatus()));
+            
+        } catch (Exception e) {
+            log.error("获取归档状态失败: error={}", e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
+        }
+    }
+
+    /**
+     * 立即触发一轮冷版本归档（后台执行）
+     * 
+     * @return 触发后的任务状态
+     */
+    @PostMapping("/archive/run")
+    public ResponseEntity<ApiResponse<ArchiveStatusDto>> runArchive() {
+        
+        try {
+            log.info("手动触发冷版本归档");
+            return ResponseEntity.ok(ApiResponse.success("归档任务已触发", versionArchiveService.triggerArchive()));
+            
+        } catch (Exception e) {
+            log.error("触发冷版本归档失败: error={}", e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
+        }
+    }
+
+    /**
+     * 把已归档的版本恢复到热存储
+     * 
+     * @param versionId 版本ID
+     * @return 恢复结果
+     */
+    @PostMapping("/version/{versionId}/restore")
+    public ResponseEntity<ApiResponse<Void>> restoreArchivedVersion(@PathVariable Long versionId) {
+        
+        try {
+            log.info("恢复归档版本: versionId={}", versionId);
+            versionArchiveService.restoreNow(versionId);
+            return ResponseEntity.ok(ApiResponse.success("恢复成功", null));
+            
+        } catch (Exception e) {
+            log.error("恢复归档版本失败: versionId={}, error={}", versionId, e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
+        }
+    }
+
+    /**
+     * 流式导出版本及其元数据（NDJSON或CSV），边查询边写出
+     * 
+     * @param appId 应用ID（可选，为空表示全部应用）
+     * @param from 上传时间下限（可选，包含）
+     * @param to 上传时间上限（可选，不包含）
+     * @param format 导出格式：ndjson（默认）或csv
+     * @param response HTTP响应
+     * @return 导出成功时为null（内容已直接写入响应），开始写出前失败时返回错误信息
+     */
+    @GetMapping("/export/versions")
+    public ResponseEntity<ApiResponse<Void>> exportVersions(
+            @RequestParam(required = false) String appId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response) {
+        
+        try {
+            log.info("导出版本: appId={}, from={}, to={}, format={}", appId, from, to, format);
+            VersionExportService.ExportFormat exportFormat = VersionExportService.ExportFormat.parse(format);
+            String filename = "versions-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"))
+                    + "." + exportFormat.getExtension();
+            response.setContentType(exportFormat.getContentType());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+            versionExportService.exportVersions(appId, from, to, exportFormat, response.getOutputStream());
+            return null;
+            
+        } catch (Exception e) {
+            log.error("导出版本失败: appId={}, error={}", appId, e.getMessage(), e);
+            if (response.isCommitted()) {
+                // 已开始写出，只能中断响应
+                return null;
+            }
+            response.reset();
+            return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取应用的版本保留策略
+     * 
+     * @param appId 应用ID
+     * @return 保留策略
+     */
+    @GetMapping("/{appId}/retention")
+    public ResponseEntity<ApiResponse<RetentionPolicyDto>> getRetentionPolicy(@PathVariable String appId) {
+        
+        try {
+            return ResponseEntity.ok(ApiResponse.success("获取保留策略成功", versionRetentionService.getPolicy(appId)));
+            
+        } catch (Exception e) {
+            log.error("获取保留策略失败: appId={}, error={}", appId, e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
+        }
+    }
+
+    /**
+     * 更新应用的版本保留策略
+     * 
+     * @param appId 应用ID
+     * @param request 保留策略（字段为null表示使用全局默认值）
+     * @return 更新后的保留策略
+     */
+    @PutMapping("/{appId}/retention")
+    public ResponseEntity<ApiResponse<RetentionPolicyDto>> updateRetentionPolicy(
+            @PathVariable String appId,
+            @RequestBody @Valid RetentionPolicyDto request) {
+        
+        try {
+            return ResponseEntity.ok(ApiResponse.success("保留策略更新成功", versionRetentionService.updatePolicy(appId, request)));
+            
+        } catch (Exception e) {
+            log.error("更新保留策略失败: appId={}, error={}", appId, e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
+        }
+    }
+
     // ===========================================
     // 发布版本管理相关接口（新增）
     // ===========================================
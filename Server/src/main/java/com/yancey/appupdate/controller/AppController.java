@@ -3,12 +3,16 @@ package com.yancey.appupdate.controller;
 import com.yancey.appupdate.dto.ApiResponse;
 import com.yancey.appupdate.dto.CheckUpdateRequestDto;
 import com.yancey.appupdate.dto.CheckUpdateResponseDto;
+import com.yancey.appupdate.exception.BusinessException;
+import com.yancey.appupdate.service.ApkDownloadTracker;
+import com.yancey.appupdate.service.AppIconService;
 import com.yancey.appupdate.service.AppVersionService;
 import com.yancey.appupdate.service.FileStorageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -32,8 +36,14 @@ import java.nio.file.Path;
 @RequiredArgsConstructor
 public class AppController {
 
+    /**
+     * 图标缓存策略：图标按版本ID寻址且内容不可变
+     */
+    private static final String ICON_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
     private final AppVersionService appVersionService;
     private final FileStorageService fileStorageService;
+    private final ApkDownloadTracker apkDownloadTracker;
 
     /**
      * 移动端检查更新接口
@@ -50,7 +60,8 @@ public class AppController {
                     request.getAppId(), request.getCurrentVersionCode());
 
             CheckUpdateResponseDto response = appVersionService.checkUpdate(
-                    request.getAppId(), request.getCurrentVersionCode());
+                    request.getAppId(), request.getCurrentVersionCode(),
+                    request.getSupportedAbis(), request.getScreenDensity());
 
             if (response.getHasUpdate()) {
                 log.info("检查更新成功 - 发现更新: appId={}, currentVersionCode={} -> newVersionCode={}", 
@@ -71,6 +82,49 @@ public class AppController {
         }
     }
 
+    /**
+     * 应用图标接口
+     * 图标随版本不可变，响应带长期缓存头和ETag
+     * 
+     * @param versionId 版本ID
+     * @param size 期望尺寸（可选，返回不小于该尺寸的最小缩略图）
+     * @param ifNoneMatch 客户端缓存的ETag
+     * @return 图标内容
+     */
+    @GetMapping("/icon/{versionId}")
+    public ResponseEntity<byte[]> getIcon(
+            @PathVariable Long versionId,
+            @RequestParam(required = false) Integer size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        try {
+            AppIconService.IconContent icon = appVersionService.getVersionIcon(versionId, size);
+            if (icon == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            if (icon.getEtag().equals(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(icon.getEtag())
+                        .header(HttpHeaders.CACHE_CONTROL, ICON_CACHE_CONTROL)
+                        .build();
+            }
+
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(icon.getContentType()))
+                    .eTag(icon.getEtag())
+                    .header(HttpHeaders.CACHE_CONTROL, ICON_CACHE_CONTROL)
+                    .body(icon.getData());
+
+        } catch (BusinessException e) {
+            log.warn("获取图标失败: versionId={}, error={}", versionId, e.getMessage());
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.error("获取图标失败: versionId={}, error={}", versionId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     /**
      * APK文件下载接口 - 支持子目录
      * 支持路径格式: /api/app/download/{appId}/{fileName}
@@ -97,13 +151,14 @@ public class AppController {
             
             log.info("开始下载APK: filePath={}", filePath);
 
-            // 1. 加载文件作为Resource
+            // 1. 加载文件作为Resource（热存储中没有时从归档目录读取）
             Resource resource = fileStorageService.loadFileAsResource(filePath);
             
             if (!resource.exists()) {
                 log.warn("APK文件不存在: filePath={}", filePath);
                 return ResponseEntity.notFound().build();
             }
+            apkDownloadTracker.recordDownload(filePath);
 
             // 2. 确定文件的内容类型
             String contentType = null;
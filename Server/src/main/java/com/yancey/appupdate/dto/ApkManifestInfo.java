@@ -0,0 +1,54 @@
+package com.yancey.appupdate.dto;
+
+import lombok.Data;
+
+/**
+ * 从AndroidManifest.xml直接解码出的APK基础信息
+ * 
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-12
+ */
+@Data
+public class ApkManifestInfo {
+
+    /**
+     * 包名
+     */
+    private String packageName;
+
+    /**
+     * 版本号（数字）
+     */
+    private Long versionCode;
+
+    /**
+     * 版本名称（字符串），引用资源时为null
+     */
+    private String versionName;
+
+    /**
+     * 应用名称（仅当manifest中为字面量时有值）
+     */
+    private String label;
+
+    /**
+     * 应用名称的资源ID（manifest中引用string资源时有值，需要结合resources.arsc解析）
+     */
+    private Integer labelResourceId;
+
+    /**
+     * 最低SDK版本
+     */
+    private Integer minSdkVersion;
+
+    /**
+     * 目标SDK版本
+     */
+    private Integer targetSdkVersion;
+
+    /**
+     * 版本名称是否引用了资源（此时需要完整解析器解析）
+     */
+    private boolean versionNameReference;
+}
@@ -0,0 +1,69 @@
+package com.yancey.appupdate.dto;
+
+import lombok.Data;
+
+/**
+ * APK元数据DTO
+ * 
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-12
+ */
+@Data
+public class ApkMetadataDto {
+
+    /**
+     * 版本ID
+     */
+    private Long versionId;
+
+    /**
+     * 文件MD5值
+     */
+    private String md5;
+
+    /**
+     * 包名
+     */
+    private String packageName;
+
+    /**
+     * 版本号（数字）
+     */
+    private Long versionCode;
+
+    /**
+     * 版本名称（字符串）
+     */
+    private String versionName;
+
+    /**
+     * 应用名称
+     */
+    private String appName;
+
+    /**
+     * 最低SDK版本
+     */
+    private Integer minSdkVersion;
+
+    /**
+     * 目标SDK版本
+     */
+    private Integer targetSdkVersion;
+
+    /**
+     * 文件大小（字节）
+     */
+    private Long fileSize;
+
+    /**
+     * 签名方案（0未签名，1/2/3对应v1/v2/v3）
+     */
+    private Integer signatureScheme;
+
+    /**
+     * 签名者证书SHA-256指纹（逗号分隔）
+     */
+    private String signerFingerprints;
+}
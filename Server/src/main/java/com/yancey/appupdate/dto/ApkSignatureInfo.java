@@ -0,0 +1,61 @@
+package com.yancey.appupdate.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * APK签名校验结果
+ * 
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-14
+ */
+@Data
+public class ApkSignatureInfo {
+
+    /**
+     * 未签名
+     */
+    public static final int SCHEME_NONE = 0;
+
+    /**
+     * 仅JAR签名（v1）
+     */
+    public static final int SCHEME_V1 = 1;
+
+    /**
+     * APK Signature Scheme v2
+     */
+    public static final int SCHEME_V2 = 2;
+
+    /**
+     * APK Signature Scheme v3
+     */
+    public static final int SCHEME_V3 = 3;
+
+    /**
+     * 通过校验的最高签名方案
+     */
+    private int scheme = SCHEME_NONE;
+
+    /**
+     * 签名者证书SHA-256指纹（小写十六进制，已排序）
+     */
+    private List<String> signerFingerprints = new ArrayList<>();
+
+    /**
+     * 是否存在签名
+     */
+    public boolean isSigned() {
+        return scheme != SCHEME_NONE;
+    }
+
+    /**
+     * 指纹拼接为存储格式（逗号分隔）
+     */
+    public String joinFingerprints() {
+        return signerFingerprints.isEmpty() ? null : String.join(",", signerFingerprints);
+    }
+}
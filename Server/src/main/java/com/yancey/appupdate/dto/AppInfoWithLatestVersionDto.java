@@ -70,11 +70,6 @@ public class AppInfoWithLatestVersionDto {
      */
     private Long latestFileSize;
 
-    /**
-     * 最新发布版本更新说明
-     */
-    private String latestUpdateDescription;
-
     /**
      * 最新发布版本是否强制更新（版本级别，保留兼容性）
      */
@@ -0,0 +1,86 @@
+package com.yancey.appupdate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 应用列表汇总投影（应用基础信息、版本总数及当前发布版本）
+ * 用于应用列表一次查询整页应用的数据（不含应用描述等大字段）
+ * 
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-16
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppReleaseSummary {
+
+    /**
+     * 应用ID
+     */
+    private String appId;
+
+    /**
+     * 应用名称
+     */
+    private String appName;
+
+    /**
+     * 应用级别是否强制更新
+     */
+    private Boolean appForceUpdate;
+
+    /**
+     * 应用创建时间
+     */
+    private LocalDateTime appCreateTime;
+
+    /**
+     * 应用更新时间
+     */
+    private LocalDateTime appUpdateTime;
+
+    /**
+     * 版本总数
+     */
+    private Long totalVersions;
+
+    /**
+     * 发布版本ID（无发布版本时为null，下同）
+     */
+    private Long versionId;
+
+    /**
+     * 发布版本号
+     */
+    private Integer versionCode;
+
+    /**
+     * 发布版本名称
+     */
+    private String versionName;
+
+    /**
+     * 发布版本文件大小
+     */
+    private Long fileSize;
+
+    /**
+     * 发布版本是否强制更新
+     */
+    private Boolean forceUpdate;
+
+    /**
+     * 是否为发布版本
+     */
+    private Boolean isReleased;
+
+    /**
+     * 发布版本创建时间
+     */
+    private LocalDateTime createTime;
+}
@@ -64,6 +64,16 @@ public class AppVersionDto {
      */
     private String downloadUrl;
 
+    /**
+     * 签名者证书SHA-256指纹（逗号分隔）
+     */
+    private String signerFingerprints;
+
+    /**
+     * 应用图标URL（未提取到图标时为null）
+     */
+    private String iconUrl;
+
     /**
      * 更新说明
      */
@@ -79,6 +89,11 @@ public class AppVersionDto {
      */
     private Boolean isReleased;
 
+    /**
+     * APK是否已移到归档存储（仍可正常下载）
+     */
+    private Boolean archived;
+
     /**
      * 创建时间
      */
@@ -0,0 +1,96 @@
+package com.yancey.appupdate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 版本摘要投影（不含更新说明大字段）
+ * 用于只展示版本基础信息的场景，避免加载整个版本实体
+ * 
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppVersionSummary {
+
+    /**
+     * 版本ID
+     */
+    private Long id;
+
+    /**
+     * 应用ID
+     */
+    private String appId;
+
+    /**
+     * 版本号
+     */
+    private Integer versionCode;
+
+    /**
+     * 版本名称
+     */
+    private String versionName;
+
+    /**
+     * 文件大小（字节）
+     */
+    private Long fileSize;
+
+    /**
+     * 文件MD5
+     */
+    private String md5;
+
+    /**
+     * 签名证书指纹
+     */
+    private String signerFingerprints;
+
+    /**
+     * APK存储路径
+     */
+    private String apkPath;
+
+    /**
+     * 下载地址
+     */
+    private String downloadUrl;
+
+    /**
+     * 图标存储路径
+     */
+    private String iconPath;
+
+    /**
+     * 是否强制更新
+     */
+    private Boolean forceUpdate;
+
+    /**
+     * 是否为发布版本
+     */
+    private Boolean isReleased;
+
+    /**
+     * APK是否已移到归档存储
+     */
+    private Boolean archived;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+}
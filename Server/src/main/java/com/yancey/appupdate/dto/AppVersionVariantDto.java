@@ -0,0 +1,56 @@
+package com.yancey.appupdate.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 应用版本变体DTO
+ * 
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-13
+ */
+@Data
+public class AppVersionVariantDto {
+
+    /**
+     * 变体ID
+     */
+    private Long id;
+
+    /**
+     * 所属版本ID
+     */
+    private Long versionId;
+
+    /**
+     * 目标ABI，为null表示不限ABI
+     */
+    private String abi;
+
+    /**
+     * 目标屏幕密度（dpi），为null表示不限密度
+     */
+    private Integer screenDensity;
+
+    /**
+     * 文件大小（字节）
+     */
+    private Long fileSize;
+
+    /**
+     * 文件MD5值
+     */
+    private String md5;
+
+    /**
+     * 下载URL
+     */
+    private String downloadUrl;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,56 @@
+package com.yancey.appupdate.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 冷版本归档任务状态DTO
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+@Data
+public class ArchiveStatusDto {
+
+    /**
+     * 是否启用后台定时归档
+     */
+    private Boolean enabled;
+
+    /**
+     * 当前是否正在归档
+     */
+    private Boolean running;
+
+    /**
+     * 当前已归档的版本数
+     */
+    private Long archivedVersions;
+
+    /**
+     * 最近一轮开始时间
+     */
+    private LocalDateTime lastRunStartTime;
+
+    /**
+     * 最近一轮结束时间
+     */
+    private LocalDateTime lastRunEndTime;
+
+    /**
+     * 最近一轮归档的版本数
+     */
+    private Integer lastRunArchivedVersions;
+
+    /**
+     * 最近一轮移出热存储的字节数
+     */
+    private Long lastRunArchivedBytes;
+
+    /**
+     * 服务启动以来恢复到热存储的版本数
+     */
+    private Long totalRestoredVersions;
+}
@@ -0,0 +1,74 @@
+package com.yancey.appupdate.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量删除版本结果DTO
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-19
+ */
+@Data
+public class BatchDeleteResultDto {
+
+    /**
+     * 已删除的版本数
+     */
+    private int deletedCount;
+
+    /**
+     * 不存在的版本数
+     */
+    private int notFoundCount;
+
+    /**
+     * 因仍是当前发布版本而跳过的版本数（仅保留策略清理时出现）
+     */
+    private int skippedCount;
+
+    /**
+     * 删除失败的版本数
+     */
+    private int failedCount;
+
+    /**
+     * 已提交后台回收的APK文件数（含变体）
+     */
+    private int reclaimedFileCount;
+
+    /**
+     * 已提交后台回收的APK文件总字节数（含变体）
+     */
+    private long reclaimedBytes;
+
+    /**
+     * 每个版本ID的删除结果（按请求顺序）
+     */
+    private List<Item> results = new ArrayList<>();
+
+    /**
+     * 单个版本的删除结果
+     */
+    @Data
+    public static class Item {
+
+        /**
+         * 版本ID
+         */
+        private Long versionId;
+
+        /**
+         * 删除结果：DELETED、NOT_FOUND、SKIPPED、FAILED
+         */
+        private String status;
+
+        /**
+         * 失败或跳过原因
+         */
+        private String message;
+    }
+}
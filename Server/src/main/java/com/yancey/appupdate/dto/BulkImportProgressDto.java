@@ -0,0 +1,77 @@
+package com.yancey.appupdate.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 批量导入任务进度DTO
+ * 
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-10
+ */
+@Data
+public class BulkImportProgressDto {
+
+    /**
+     * 任务ID
+     */
+    private String jobId;
+
+    /**
+     * 导入目录
+     */
+    private String directory;
+
+    /**
+     * 任务状态：PENDING / RUNNING / COMPLETED / FAILED
+     */
+    private String status;
+
+    /**
+     * 扫描到的APK文件总数
+     */
+    private Integer totalFiles;
+
+    /**
+     * 已处理（解析完成或失败）的文件数
+     */
+    private Integer processedFiles;
+
+    /**
+     * 成功导入的版本数
+     */
+    private Integer importedVersions;
+
+    /**
+     * 因版本已存在而跳过的文件数
+     */
+    private Integer skippedDuplicates;
+
+    /**
+     * 处理失败的文件数
+     */
+    private Integer failedFiles;
+
+    /**
+     * 处理速度（APK/分钟）
+     */
+    private Double throughputPerMinute;
+
+    /**
+     * 错误信息（最多保留配置的条数）
+     */
+    private List<String> errors;
+
+    /**
+     * 开始时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 结束时间
+     */
+    private LocalDateTime endTime;
+}
@@ -0,0 +1,27 @@
+package com.yancey.appupdate.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotBlank;
+
+/**
+ * 批量导入APK请求DTO
+ * 
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-10
+ */
+@Data
+public class BulkImportRequestDto {
+
+    /**
+     * 服务器本地APK目录（递归扫描）
+     */
+    @NotBlank(message = "导入目录不能为空")
+    private String directory;
+
+    /**
+     * 导入版本统一使用的更新说明（可选）
+     */
+    private String updateDescription;
+}
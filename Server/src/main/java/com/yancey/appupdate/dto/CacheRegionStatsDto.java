@@ -0,0 +1,39 @@
+package com.yancey.appupdate.dto;
+
+import lombok.Data;
+
+/**
+ * 二级缓存区域统计DTO
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-19
+ */
+@Data
+public class CacheRegionStatsDto {
+
+    /**
+     * 缓存区域名称
+     */
+    private String region;
+
+    /**
+     * 命中次数
+     */
+    private Long hitCount;
+
+    /**
+     * 未命中次数
+     */
+    private Long missCount;
+
+    /**
+     * 写入次数
+     */
+    private Long putCount;
+
+    /**
+     * 命中率（0~1，尚无访问时为null）
+     */
+    private Double hitRatio;
+}
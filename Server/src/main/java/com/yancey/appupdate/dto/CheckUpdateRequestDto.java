@@ -4,6 +4,7 @@ import lombok.Data;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import java.util.List;
 
 /**
  * 移动端检查更新请求DTO
@@ -26,4 +27,14 @@ public class CheckUpdateRequestDto {
      */
     @NotNull(message = "当前版本号不能为空")
     private Integer currentVersionCode;
+
+    /**
+     * 设备支持的ABI列表（按优先级排列，如Build.SUPPORTED_ABIS），可选
+     */
+    private List<String> supportedAbis;
+
+    /**
+     * 设备屏幕密度（dpi，如DisplayMetrics.densityDpi），可选
+     */
+    private Integer screenDensity;
 } 
\ No newline at end of file
@@ -52,6 +52,16 @@ public class CheckUpdateResponseDto {
      */
     private Long fileSize;
 
+    /**
+     * 下发变体的目标ABI（下发通用包时为null）
+     */
+    private String abi;
+
+    /**
+     * 下发变体的目标屏幕密度（下发通用包时为null）
+     */
+    private Integer screenDensity;
+
     /**
      * 创建无更新的响应
      */
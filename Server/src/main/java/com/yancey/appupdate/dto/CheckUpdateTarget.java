@@ -0,0 +1,59 @@
+package com.yancey.appupdate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 检查更新投影（应用强制更新设置及当前发布版本）
+ * 只包含判断和下发更新所需的窄字段，更新说明在确实需要下发更新时单独读取
+ * 
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckUpdateTarget {
+
+    /**
+     * 应用ID
+     */
+    private String appId;
+
+    /**
+     * 应用级别的强制更新设置
+     */
+    private Boolean appForceUpdate;
+
+    /**
+     * 发布版本ID（没有发布版本时为null）
+     */
+    private Long versionId;
+
+    /**
+     * 发布版本号
+     */
+    private Integer versionCode;
+
+    /**
+     * 发布版本名称
+     */
+    private String versionName;
+
+    /**
+     * 发布版本文件大小（字节）
+     */
+    private Long fileSize;
+
+    /**
+     * 发布版本文件MD5
+     */
+    private String md5;
+
+    /**
+     * 发布版本下载地址
+     */
+    private String downloadUrl;
+}
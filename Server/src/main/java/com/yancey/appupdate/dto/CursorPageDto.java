@@ -0,0 +1,41 @@
+package com.yancey.appupdate.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 游标分页结果DTO
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-18
+ */
+@Data
+public class CursorPageDto<T> {
+
+    /**
+     * 本页数据
+     */
+    private List<T> content;
+
+    /**
+     * 每页大小
+     */
+    private Integer size;
+
+    /**
+     * 是否还有下一页
+     */
+    private Boolean hasNext;
+
+    /**
+     * 下一页游标（没有下一页时为null）
+     */
+    private String nextCursor;
+
+    /**
+     * 总记录数（仅在请求includeTotal时返回，否则为null）
+     */
+    private Long totalElements;
+}
@@ -1,6 +1,10 @@
 package com.yancey.appupdate.dto;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.util.function.Supplier;
 
 /**
  * 解析后的APK数据
@@ -10,6 +14,7 @@ import lombok.Data;
  * @since 2024-05-30
  */
 @Data
+@ToString(doNotUseGetters = true)
 public class ParsedApkData {
 
     /**
@@ -42,11 +47,42 @@ public class ParsedApkData {
      */
     private String md5;
 
+    /**
+     * 签名方案（0未签名，1/2/3对应v1/v2/v3），未校验时为null
+     */
+    private Integer signatureScheme;
+
+    /**
+     * 签名者证书SHA-256指纹（逗号分隔），未签名时为null
+     */
+    private String signerFingerprints;
+
     /**
      * 应用图标（可选）
      */
+    @ToString.Exclude
     private byte[] icon;
 
+    /**
+     * 应用名称的延迟解析器（应用名称引用资源时，仅在首次读取时解析resources.arsc）
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private transient Supplier<String> appNameResolver;
+
+    /**
+     * 获取应用名称，必要时触发延迟解析
+     * 
+     * @return 应用名称
+     */
+    public String getAppName() {
+        if (appName == null && appNameResolver != null) {
+            appName = appNameResolver.get();
+            appNameResolver = null;
+        }
+        return appName;
+    }
+
     /**
      * 获取整数类型的版本号
      * 
@@ -0,0 +1,44 @@
+package com.yancey.appupdate.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.Min;
+
+/**
+ * 应用版本保留策略DTO
+ * 请求时keepLast、keepDays为null表示恢复使用全局默认值
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+@Data
+public class RetentionPolicyDto {
+
+    /**
+     * 应用ID（仅响应）
+     */
+    private String appId;
+
+    /**
+     * 应用单独配置的保留版本数（null表示使用全局默认值）
+     */
+    @Min(value = 0, message = "保留版本数不能小于0")
+    private Integer keepLast;
+
+    /**
+     * 应用单独配置的保留天数（null表示使用全局默认值）
+     */
+    @Min(value = 0, message = "保留天数不能小于0")
+    private Integer keepDays;
+
+    /**
+     * 实际生效的保留版本数（仅响应）
+     */
+    private Integer effectiveKeepLast;
+
+    /**
+     * 实际生效的保留天数（仅响应）
+     */
+    private Integer effectiveKeepDays;
+}
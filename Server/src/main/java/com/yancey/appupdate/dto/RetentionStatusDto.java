@@ -0,0 +1,66 @@
+package com.yancey.appupdate.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 版本保留策略清理任务状态DTO
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+@Data
+public class RetentionStatusDto {
+
+    /**
+     * 是否启用后台定时清理
+     */
+    private Boolean enabled;
+
+    /**
+     * 当前是否正在清理
+     */
+    private Boolean running;
+
+    /**
+     * 下一轮从该appId之后继续评估（null表示从头开始）
+     */
+    private String cursor;
+
+    /**
+     * 最近一轮开始时间
+     */
+    private LocalDateTime lastRunStartTime;
+
+    /**
+     * 最近一轮结束时间
+     */
+    private LocalDateTime lastRunEndTime;
+
+    /**
+     * 最近一轮评估的应用数
+     */
+    private Integer lastRunAppsEvaluated;
+
+    /**
+     * 最近一轮删除的版本数
+     */
+    private Long lastRunDeletedVersions;
+
+    /**
+     * 最近一轮回收的字节数
+     */
+    private Long lastRunReclaimedBytes;
+
+    /**
+     * 服务启动以来删除的版本总数
+     */
+    private Long totalDeletedVersions;
+
+    /**
+     * 服务启动以来回收的总字节数
+     */
+    private Long totalReclaimedBytes;
+}
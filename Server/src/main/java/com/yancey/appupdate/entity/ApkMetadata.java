@@ -0,0 +1,97 @@
+package com.yancey.appupdate.entity;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.CreationTimestamp;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * APK解析结果缓存实体（以文件内容MD5为键）
+ * 
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-12
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@Entity
+@Table(name = "apk_metadata")
+public class ApkMetadata {
+
+    /**
+     * 文件内容MD5值
+     */
+    @Id
+    @Column(name = "md5", length = 32)
+    private String md5;
+
+    /**
+     * 包名
+     */
+    @Column(name = "package_name", nullable = false, length = 100)
+    private String packageName;
+
+    /**
+     * 版本号（数字）
+     */
+    @Column(name = "version_code", nullable = false)
+    private Long versionCode;
+
+    /**
+     * 版本名称（字符串）
+     */
+    @Column(name = "version_name", length = 50)
+    private String versionName;
+
+    /**
+     * 应用名称
+     */
+    @Column(name = "app_name", length = 200)
+    private String appName;
+
+    /**
+     * 应用名称资源ID（应用名称尚未解析时有值）
+     */
+    @Column(name = "label_resource_id")
+    private Integer labelResourceId;
+
+    /**
+     * 最低SDK版本
+     */
+    @Column(name = "min_sdk_version")
+    private Integer minSdkVersion;
+
+    /**
+     * 目标SDK版本
+     */
+    @Column(name = "target_sdk_version")
+    private Integer targetSdkVersion;
+
+    /**
+     * 最近一次校验通过的签名方案（0未签名，1/2/3对应v1/v2/v3），为null表示尚未校验
+     * 仅作记录：MD5相同不代表是同一文件，解析APK时签名总是重新校验
+     */
+    @Column(name = "signature_scheme")
+    private Integer signatureScheme;
+
+    /**
+     * 签名者证书SHA-256指纹（逗号分隔）
+     */
+    @Column(name = "signer_fingerprints", length = 1000)
+    private String signerFingerprints;
+
+    /**
+     * 文件大小（字节）
+     */
+    @Column(name = "file_size", nullable = false)
+    private Long fileSize;
+
+    /**
+     * 创建时间
+     */
+    @CreationTimestamp
+    @Column(name = "create_time", nullable = false, updatable = false)
+    private LocalDateTime createTime;
+}
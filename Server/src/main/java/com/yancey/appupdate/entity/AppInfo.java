@@ -2,6 +2,8 @@ package com.yancey.appupdate.entity;
 
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -19,6 +21,8 @@ import java.util.List;
 @Data
 @EqualsAndHashCode(callSuper = false)
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "appInfo")
 @Table(name = "app_info")
 public class AppInfo {
 
@@ -48,6 +52,25 @@ public class AppInfo {
     @Column(name = "force_update", nullable = false)
     private Boolean forceUpdate = false;
 
+    /**
+     * 当前发布版本ID（为null表示暂无发布版本）
+     * 发布版本以此指针为准，app_version.is_released仅为兼容保留
+     */
+    @Column(name = "released_version_id")
+    private Long releasedVersionId;
+
+    /**
+     * 保留策略：至少保留的最新版本数（为null时使用全局默认值）
+     */
+    @Column(name = "retention_keep_last")
+    private Integer retentionKeepLast;
+
+    /**
+     * 保留策略：保留最近多少天内上传的版本（为null时使用全局默认值）
+     */
+    @Column(name = "retention_keep_days")
+    private Integer retentionKeepDays;
+
     /**
      * 创建时间
      */
@@ -2,6 +2,8 @@ package com.yancey.appupdate.entity;
 
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -18,6 +20,8 @@ import java.time.LocalDateTime;
 @Data
 @EqualsAndHashCode(callSuper = false)
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "appVersion")
 @Table(name = "app_version")
 public class AppVersion {
 
@@ -67,6 +71,18 @@ public class AppVersion {
     @Column(name = "download_url", length = 500)
     private String downloadUrl;
 
+    /**
+     * 签名者证书SHA-256指纹（逗号分隔），未签名时为null
+     */
+    @Column(name = "signer_fingerprints", length = 1000)
+    private String signerFingerprints;
+
+    /**
+     * 应用图标原图在服务器上的存储路径
+     */
+    @Column(name = "icon_path", length = 500)
+    private String iconPath;
+
     /**
      * 更新说明
      */
@@ -86,6 +102,18 @@ public class AppVersion {
     @Column(name = "is_released", nullable = false)
     private Boolean isReleased = false;
 
+    /**
+     * 最近一次被下载的时间（由下载记录批量写回，实体不写入）
+     */
+    @Column(name = "last_download_time", insertable = false, updatable = false)
+    private LocalDateTime lastDownloadTime;
+
+    /**
+     * APK文件是否已移到归档目录（由归档任务维护，实体不写入）
+     */
+    @Column(name = "archived", insertable = false, updatable = false)
+    private Boolean archived;
+
     /**
      * 创建时间
      */
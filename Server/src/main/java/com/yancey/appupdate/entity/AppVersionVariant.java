@@ -0,0 +1,78 @@
+package com.yancey.appupdate.entity;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.CreationTimestamp;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 应用版本变体实体（按ABI或屏幕密度拆分的APK）
+ * 版本本身的APK视为通用包，变体为同一版本号下的拆分包
+ * 
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-13
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@Entity
+@Table(name = "app_version_variant", indexes = {
+        @Index(name = "idx_variant_version_id", columnList = "version_id")
+})
+public class AppVersionVariant {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 所属版本ID
+     */
+    @Column(name = "version_id", nullable = false)
+    private Long versionId;
+
+    /**
+     * 目标ABI（如arm64-v8a），为null表示不限ABI
+     */
+    @Column(name = "abi", length = 50)
+    private String abi;
+
+    /**
+     * 目标屏幕密度（dpi，如480），为null表示不限密度
+     */
+    @Column(name = "screen_density")
+    private Integer screenDensity;
+
+    /**
+     * 文件大小（字节）
+     */
+    @Column(name = "file_size", nullable = false)
+    private Long fileSize;
+
+    /**
+     * 文件MD5值
+     */
+    @Column(name = "md5", nullable = false, length = 32)
+    private String md5;
+
+    /**
+     * APK文件在服务器上的存储路径
+     */
+    @Column(name = "apk_path", nullable = false, length = 500)
+    private String apkPath;
+
+    /**
+     * 下载URL
+     */
+    @Column(name = "download_url", length = 500)
+    private String downloadUrl;
+
+    /**
+     * 创建时间
+     */
+    @CreationTimestamp
+    @Column(name = "create_time", nullable = false, updatable = false)
+    private LocalDateTime createTime;
+}
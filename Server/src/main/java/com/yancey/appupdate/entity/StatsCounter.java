@@ -0,0 +1,39 @@
+package com.yancey.appupdate.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * 统计计数器实体
+ * 版本统计的聚合值随业务操作增量维护，并由定时任务定期与实际数据校准
+ * 
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-17
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "stats_counter")
+public class StatsCounter {
+
+    /**
+     * 计数器名称
+     */
+    @Id
+    @Column(name = "counter_name", length = 50)
+    private String name;
+
+    /**
+     * 计数器值
+     */
+    @Column(name = "counter_value", nullable = false)
+    private Long value;
+}
@@ -0,0 +1,43 @@
+package com.yancey.appupdate.repository;
+
+import com.yancey.appupdate.entity.ApkMetadata;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * APK解析结果缓存Repository
+ * 
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-12
+ */
+@Repository
+public interface ApkMetadataRepository extends JpaRepository<ApkMetadata, String> {
+
+    /**
+     * 回填延迟解析出的应用名称
+     * 
+     * @param md5 文件MD5值
+     * @param appName 应用名称
+     * @return 更新的记录数
+     */
+    @Modifying
+    @Query("UPDATE ApkMetadata am SET am.appName = :appName, am.labelResourceId = null WHERE am.md5 = :md5")
+    int updateAppName(@Param("md5") String md5, @Param("appName") String appName);
+
+    /**
+     * 回填签名校验结果
+     * 
+     * @param md5 文件MD5值
+     * @param signatureScheme 签名方案
+     * @param signerFingerprints 签名者证书指纹
+     * @return 更新的记录数
+     */
+    @Modifying
+    @Query("UPDATE ApkMetadata am SET am.signatureScheme = :signatureScheme, am.signerFingerprints = :signerFingerprints WHERE am.md5 = :md5")
+    int updateSignature(@Param("md5") String md5, @Param("signatureScheme") Integer signatureScheme,
+                        @Param("signerFingerprints") String signerFingerprints);
+}
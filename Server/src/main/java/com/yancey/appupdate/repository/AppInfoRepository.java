@@ -3,12 +3,18 @@ package com.yancey.appupdate.repository;
 import com.yancey.appupdate.entity.AppInfo;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -21,6 +27,29 @@ import java.util.Optional;
 @Repository
 public interface AppInfoRepository extends JpaRepository<AppInfo, String> {
 
+    /**
+     * 关键词搜索条件：应用名称或包名包含关键词（与搜索索引一致，不区分大小写）
+     * :keyword为小写关键词，:pattern为按'!'转义了LIKE通配符的小写关键词
+     */
+    String KEYWORD_MATCH = "(LOWER(ai.appName) LIKE CONCAT('%', :pattern, '%') ESCAPE '!' " +
+            "OR LOWER(ai.appId) LIKE CONCAT('%', :pattern, '%') ESCAPE '!')";
+
+    /**
+     * 关键词相关度（与搜索索引的排名一致）：完全匹配、前缀匹配、单词前缀匹配、其余子串匹配
+     */
+    String KEYWORD_RELEVANCE = "CASE WHEN LOWER(ai.appName) = :keyword OR LOWER(ai.appId) = :keyword THEN 0 " +
+            "WHEN LOWER(ai.appName) LIKE CONCAT(:pattern, '%') ESCAPE '!' " +
+            "OR LOWER(ai.appId) LIKE CONCAT(:pattern, '%') ESCAPE '!' THEN 1 " +
+            "WHEN LOWER(ai.appName) LIKE CONCAT('% ', :pattern, '%') ESCAPE '!' " +
+            "OR LOWER(ai.appName) LIKE CONCAT('%.', :pattern, '%') ESCAPE '!' " +
+            "OR LOWER(ai.appName) LIKE CONCAT('%!_', :pattern, '%') ESCAPE '!' " +
+            "OR LOWER(ai.appName) LIKE CONCAT('%-', :pattern, '%') ESCAPE '!' " +
+            "OR LOWER(ai.appId) LIKE CONCAT('% ', :pattern, '%') ESCAPE '!' " +
+            "OR LOWER(ai.appId) LIKE CONCAT('%.', :pattern, '%') ESCAPE '!' " +
+            "OR LOWER(ai.appId) LIKE CONCAT('%!_', :pattern, '%') ESCAPE '!' " +
+            "OR LOWER(ai.appId) LIKE CONCAT('%-', :pattern, '%') ESCAPE '!' THEN 2 " +
+            "ELSE 3 END";
+
     // ===========================================
     // 强制更新管理相关方法
     // ===========================================
@@ -43,6 +72,69 @@ public interface AppInfoRepository extends JpaRepository<AppInfo, String> {
      */
     long countByForceUpdateTrue();
 
+    // ===========================================
+    // 发布版本指针相关方法
+    // ===========================================
+
+    /**
+     * 加行锁查询应用（切换发布版本时使用，保证同一应用的切换串行执行）
+     * 
+     * @param appId 应用ID
+     * @return 应用信息
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT ai FROM AppInfo ai WHERE ai.appId = :appId")
+    Optional<AppInfo> findByIdForUpdate(@Param("appId") String appId);
+
+    /**
+     * 更新应用的发布版本指针
+     * 
+     * @param appId 应用ID
+     * @param versionId 发布版本ID（为null表示取消发布）
+     * @return 更新的记录数
+     */
+    @Modifying
+    @Query("UPDATE AppInfo ai SET ai.releasedVersionId = :versionId WHERE ai.appId = :appId")
+    int updateReleasedVersionId(@Param("appId") String appId, @Param("versionId") Long versionId);
+
+    /**
+     * 清空指向指定版本的发布版本指针（删除版本时使用）
+     * 
+     * @param versionId 版本ID
+     * @return 更新的记录数
+     */
+    @Modifying
+    @Query("UPDATE AppInfo ai SET ai.releasedVersionId = null WHERE ai.releasedVersionId = :versionId")
+    int clearReleasedVersionId(@Param("versionId") Long versionId);
+
+    /**
+     * 清空指向任一指定版本的发布版本指针（批量删除版本时使用）
+     * 
+     * @param versionIds 版本ID集合
+     * @return 更新的记录数
+     */
+    @Modifying
+    @Query("UPDATE AppInfo ai SET ai.releasedVersionId = null WHERE ai.releasedVersionId IN :versionIds")
+    int clearReleasedVersionIds(@Param("versionIds") Collection<Long> versionIds);
+
+    /**
+     * 加行锁查询指定版本所属的应用（批量删除版本时使用，与切换发布版本串行执行；按应用ID顺序加锁避免死锁）
+     * 
+     * @param versionIds 版本ID集合
+     * @return 应用信息列表
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT ai FROM AppInfo ai WHERE ai.appId IN " +
+           "(SELECT av.appId FROM AppVersion av WHERE av.id IN :versionIds) ORDER BY ai.appId")
+    List<AppInfo> findVersionOwnersForUpdate(@Param("versionIds") Collection<Long> versionIds);
+
+    /**
+     * 统计有发布版本的应用数量（即发布版本总数）
+     * 
+     * @return 应用数量
+     */
+    long countByReleasedVersionIdIsNotNull();
+
     // ===========================================
     // 应用基础查询方法
     // ===========================================
@@ -65,31 +157,145 @@ public interface AppInfoRepository extends JpaRepository<AppInfo, String> {
     Page<AppInfo> findAllByOrderByCreateTimeDesc(Pageable pageable);
 
     /**
-     * 查询应用信息及其最新发布版本
+     * 分页查询应用ID（按创建时间倒序，分页在数据库中完成）
      * 
      * @param pageable 分页参数
-     * @return 应用信息分页列表
+     * @return 应用ID分页列表
      */
-    @Query(value = "SELECT DISTINCT ai FROM AppInfo ai LEFT JOIN FETCH ai.versions av " +
-           "WHERE av.id IS NULL OR av.id = (SELECT MAX(av2.id) FROM AppVersion av2 WHERE av2.appId = ai.appId AND av2.isReleased = true) " +
-           "ORDER BY ai.createTime DESC",
-           countQuery = "SELECT COUNT(DISTINCT ai) FROM AppInfo ai LEFT JOIN ai.versions av " +
-           "WHERE av.id IS NULL OR av.id = (SELECT MAX(av2.id) FROM AppVersion av2 WHERE av2.appId = ai.appId AND av2.isReleased = true)")
-    Page<AppInfo> findAllWithLatestVersion(Pageable pageable);
+    @Query(value = "SELECT ai.appId FROM AppInfo ai ORDER BY ai.createTime DESC, ai.appId",
+           countQuery = "SELECT COUNT(ai) FROM AppInfo ai")
+    Page<String> findAppIdPage(Pageable pageable);
 
     /**
-     * 根据应用名称模糊查询应用信息及其最新发布版本
+     * 按关键词搜索应用名称或包名，分页查询应用ID（按相关度、创建时间倒序，分页在数据库中完成）
+     * 搜索索引构建完成前使用，匹配规则和排序与索引一致
      * 
-     * @param appName 应用名称
+     * @param keyword 小写关键词
+     * @param pattern 转义后的小写关键词
      * @param pageable 分页参数
-     * @return 应用信息分页列表
+     * @return 应用ID分页列表
+     */
+    @Query(value = "SELECT ai.appId FROM AppInfo ai WHERE " + KEYWORD_MATCH +
+           " ORDER BY " + KEYWORD_RELEVANCE + ", ai.createTime DESC, ai.appId",
+           countQuery = "SELECT COUNT(ai) FROM AppInfo ai WHERE " + KEYWORD_MATCH)
+    Page<String> findAppIdPageByKeyword(@Param("keyword") String keyword, @Param("pattern") String pattern,
+                                        Pageable pageable);
+
+    /**
+     * 切片查询应用ID（按创建时间倒序，多取一行判断是否有下一页，不执行COUNT）
+     * 
+     * @param pageable 分页参数
+     * @return 应用ID切片
+     */
+    @Query("SELECT ai.appId FROM AppInfo ai ORDER BY ai.createTime DESC, ai.appId")
+    Slice<String> findAppIdSlice(Pageable pageable);
+
+    /**
+     * 按关键词搜索应用名称或包名，切片查询应用ID（按相关度、创建时间倒序，不执行COUNT）
+     * 
+     * @param keyword 小写关键词
+     * @param pattern 转义后的小写关键词
+     * @param pageable 分页参数
+     * @return 应用ID切片
+     */
+    @Query("SELECT ai.appId FROM AppInfo ai WHERE " + KEYWORD_MATCH +
+           " ORDER BY " + KEYWORD_RELEVANCE + ", ai.createTime DESC, ai.appId")
+    Slice<String> findAppIdSliceByKeyword(@Param("keyword") String keyword, @Param("pattern") String pattern,
+                                          Pageable pageable);
+
+    // ===========================================
+    // 键集（游标）分页查询方法
+    // ===========================================
+
+    /**
+     * 查询第一页应用ID（按创建时间倒序、应用ID正序，不执行COUNT）
+     * 
+     * @param pageable 只使用其中的条数限制
+     * @return 应用ID列表
+     */
+    @Query("SELECT ai.appId FROM AppInfo ai ORDER BY ai.createTime DESC, ai.appId")
+    List<String> findAppIds(Pageable pageable);
+
+    /**
+     * 查询排在(createTime, appId)之后的应用ID，走idx_app_create_time索引定位，深页与首页代价相同
+     * 条件写成 createTime <= t AND (...) 的形式，数据库才能把它用作索引范围条件
+     * 
+     * @param createTime 上一页最后一个应用的创建时间
+     * @param appId 上一页最后一个应用的ID
+     * @param pageable 只使用其中的条数限制
+     * @return 应用ID列表
+     */
+    @Query("SELECT ai.appId FROM AppInfo ai " +
+           "WHERE ai.createTime <= :createTime AND (ai.createTime < :createTime OR ai.appId > :appId) " +
+           "ORDER BY ai.createTime DESC, ai.appId")
+    List<String> findAppIdsAfter(@Param("createTime") LocalDateTime createTime,
+                                 @Param("appId") String appId, Pageable pageable);
+
+    /**
+     * 按关键词搜索应用名称或包名，查询第一页应用ID（按创建时间倒序，不执行COUNT）
+     * 
+     * @param pattern 转义后的小写关键词
+     * @param pageable 只使用其中的条数限制
+     * @return 应用ID列表
+     */
+    @Query("SELECT ai.appId FROM AppInfo ai WHERE " + KEYWORD_MATCH +
+           " ORDER BY ai.createTime DESC, ai.appId")
+    List<String> findAppIdsByKeyword(@Param("pattern") String pattern, Pageable pageable);
+
+    /**
+     * 按关键词搜索应用名称或包名，查询排在(createTime, appId)之后的应用ID
+     * 
+     * @param pattern 转义后的小写关键词
+     * @param createTime 上一页最后一个应用的创建时间
+     * @param appId 上一页最后一个应用的ID
+     * @param pageable 只使用其中的条数限制
+     * @return 应用ID列表
+     */
+    @Query("SELECT ai.appId FROM AppInfo ai WHERE " + KEYWORD_MATCH +
+           " AND ai.createTime <= :createTime AND (ai.createTime < :createTime OR ai.appId > :appId) " +
+           "ORDER BY ai.createTime DESC, ai.appId")
+    List<String> findAppIdsByKeywordAfter(@Param("pattern") String pattern,
+                                          @Param("createTime") LocalDateTime createTime,
+                                          @Param("appId") String appId, Pageable pageable);
+
+    /**
+     * 按关键词搜索应用名称或包名，统计应用数量
+     * 
+     * @param pattern 转义后的小写关键词
+     * @return 应用数量
+     */
+    @Query("SELECT COUNT(ai) FROM AppInfo ai WHERE " + KEYWORD_MATCH)
+    long countByKeyword(@Param("pattern") String pattern);
+
+    /**
+     * 查询构建搜索索引所需的字段
+     * 
+     * @return [appId, appName, createTime]
+     */
+    @Query("SELECT ai.appId, ai.appName, ai.createTime FROM AppInfo ai")
+    List<Object[]> findSearchEntries();
+
+    /**
+     * 批量查询应用名称
+     * 
+     * @param appIds 应用ID集合
+     * @return [appId, appName] 列表
+     */
+    @Query("SELECT ai.appId, ai.appName FROM AppInfo ai WHERE ai.appId IN :appIds")
+    List<Object[]> findAppNamesByAppIdIn(@Param("appIds") Collection<String> appIds);
+
+    // ===========================================
+    // 版本保留策略相关方法
+    // ===========================================
+
+    /**
+     * 按appId顺序查询一批应用的保留策略（保留策略后台任务使用）
+     * 
+     * @param afterAppId 从该appId之后开始（不含，从头开始时传空字符串）
+     * @param pageable 分页参数（仅使用页大小）
+     * @return [appId, releasedVersionId, retentionKeepLast, retentionKeepDays] 列表
      */
-    @Query(value = "SELECT DISTINCT ai FROM AppInfo ai LEFT JOIN FETCH ai.versions av " +
-           "WHERE ai.appName LIKE %:appName% AND " +
-           "(av.id IS NULL OR av.id = (SELECT MAX(av2.id) FROM AppVersion av2 WHERE av2.appId = ai.appId AND av2.isReleased = true)) " +
-           "ORDER BY ai.createTime DESC",
-           countQuery = "SELECT COUNT(DISTINCT ai) FROM AppInfo ai LEFT JOIN ai.versions av " +
-           "WHERE ai.appName LIKE %:appName% AND " +
-           "(av.id IS NULL OR av.id = (SELECT MAX(av2.id) FROM AppVersion av2 WHERE av2.appId = ai.appId AND av2.isReleased = true))")
-    Page<AppInfo> findByAppNameContainingWithLatestVersion(@Param("appName") String appName, Pageable pageable);
-} 
\ No newline at end of file
+    @Query("SELECT ai.appId, ai.releasedVersionId, ai.retentionKeepLast, ai.retentionKeepDays " +
+           "FROM AppInfo ai WHERE ai.appId > :afterAppId ORDER BY ai.appId")
+    List<Object[]> findRetentionPoliciesAfter(@Param("afterAppId") String afterAppId, Pageable pageable);
+}
@@ -1,14 +1,24 @@
 package com.yancey.appupdate.repository;
 
+import com.yancey.appupdate.dto.AppReleaseSummary;
+import com.yancey.appupdate.dto.AppVersionSummary;
+import com.yancey.appupdate.dto.CheckUpdateTarget;
 import com.yancey.appupdate.entity.AppVersion;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,22 +37,15 @@ public interface AppVersionRepository extends JpaRepository<AppVersion, Long> {
     // ===========================================
 
     /**
-     * 查找应用的当前发布版本
+     * 更新单个版本的发布标记（兼容字段，发布版本以AppInfo.releasedVersionId为准）
      * 
-     * @param appId 应用ID（packageName）
-     * @return 发布版本
-     */
-    Optional<AppVersion> findByAppIdAndIsReleasedTrue(String appId);
-
-    /**
-     * 批量更新应用的所有版本为非发布状态
-     * 
-     * @param appId 应用ID（packageName）
+     * @param id 版本ID
+     * @param released 是否为发布版本
      * @return 更新的记录数
      */
     @Modifying
-    @Query("UPDATE AppVersion av SET av.isReleased = false WHERE av.appId = :appId")
-    int updateAllVersionsToNonReleased(@Param("appId") String appId);
+    @Query("UPDATE AppVersion av SET av.isReleased = :released WHERE av.id = :id")
+    int updateReleased(@Param("id") Long id, @Param("released") Boolean released);
 
     /**
      * 查找应用的所有发布版本（用于验证数据一致性）
@@ -52,12 +55,63 @@ public interface AppVersionRepository extends JpaRepository<AppVersion, Long> {
      */
     List<AppVersion> findByAppIdAndIsReleasedTrueOrderByVersionCodeDesc(String appId);
 
+    // ===========================================
+    // 批量删除相关方法
+    // ===========================================
+
+    /**
+     * 批量查询待删除版本的文件路径及统计所需字段
+     * 
+     * @param ids 版本ID集合
+     * @return [id, apkPath, iconPath, fileSize, forceUpdate] 列表（不存在的ID不返回）
+     */
+    @Query("SELECT av.id, av.apkPath, av.iconPath, av.fileSize, av.forceUpdate " +
+           "FROM AppVersion av WHERE av.id IN :ids")
+    List<Object[]> findDeleteTargetsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 按ID批量删除版本
+     * 
+     * @param ids 版本ID集合
+     * @return 删除的记录数
+     */
+    @Modifying
+    @Query("DELETE FROM AppVersion av WHERE av.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 按版本号从新到旧查询应用的全部版本ID和上传时间（保留策略评估使用，按索引顺序读取）
+     * 
+     * @param appId 应用ID
+     * @return [id, createTime] 列表
+     */
+    @Query("SELECT av.id, av.createTime FROM AppVersion av WHERE av.appId = :appId " +
+           "ORDER BY av.appId, av.versionCode DESC, av.id DESC")
+    List<Object[]> findRetentionCandidatesByAppId(@Param("appId") String appId);
+
+    // ===========================================
+    // 冷版本归档相关方法
+    // ===========================================
+
+    /**
+     * 查询待归档的版本：未归档、非当前发布版本，且最近下载时间（从未下载过的按上传时间）早于截止时间
+     * 
+     * @param cutoff 截止时间
+     * @param pageable 分页参数（仅使用页大小）
+     * @return [id, apkPath, fileSize] 列表（按ID从小到大）
+     */
+    @Query("SELECT av.id, av.apkPath, av.fileSize FROM AppVersion av WHERE av.archived = false " +
+           "AND (av.lastDownloadTime < :cutoff OR (av.lastDownloadTime IS NULL AND av.createTime < :cutoff)) " +
+           "AND NOT EXISTS (SELECT ai.appId FROM AppInfo ai WHERE ai.releasedVersionId = av.id) " +
+           "ORDER BY av.id")
+    List<Object[]> findArchiveCandidates(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
     /**
-     * 统计发布版本数量
+     * 统计已归档的版本数
      * 
-     * @return 发布版本总数
+     * @return 已归档版本数
      */
-    long countByIsReleasedTrue();
+    long countByArchivedTrue();
 
     // ===========================================
     // 应用版本基础查询方法
@@ -81,6 +135,15 @@ public interface AppVersionRepository extends JpaRepository<AppVersion, Long> {
      */
     Page<AppVersion> findByAppIdOrderByVersionCodeDesc(String appId, Pageable pageable);
 
+    /**
+     * 切片查找指定应用的版本，按版本号倒序排列（多取一行判断是否有下一页，不执行COUNT）
+     * 
+     * @param appId 应用ID（packageName）
+     * @param pageable 分页参数
+     * @return 应用版本切片
+     */
+    Slice<AppVersion> findSliceByAppIdOrderByVersionCodeDesc(String appId, Pageable pageable);
+
     /**
      * 查找指定应用的所有版本，按创建时间倒序排列
      * 
@@ -99,6 +162,99 @@ public interface AppVersionRepository extends JpaRepository<AppVersion, Long> {
      */
     boolean existsByAppIdAndVersionCode(String appId, Integer versionCode);
 
+    /**
+     * 批量查询多个应用已存在的版本号（用于批量导入去重）
+     * 
+     * @param appIds 应用ID列表
+     * @return [appId, versionCode] 列表
+     */
+    @Query("SELECT av.appId, av.versionCode FROM AppVersion av WHERE av.appId IN :appIds")
+    List<Object[]> findVersionKeysByAppIdIn(@Param("appIds") Collection<String> appIds);
+
+    /**
+     * 批量查询应用的基础信息、版本总数及发布版本（应用列表使用，一条语句返回整页数据）
+     * 结果进入releaseLookup查询缓存，app_info或app_version有写入时自动失效
+     * 
+     * @param appIds 应用ID集合
+     * @return 版本汇总列表（每个应用一行）
+     */
+    @QueryHints({
+            @QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"),
+            @QueryHint(name = org.hibernate.annotations.QueryHints.CACHE_REGION, value = "releaseLookup")
+    })
+    @Query("SELECT new com.yancey.appupdate.dto.AppReleaseSummary(" +
+           "ai.appId, ai.appName, ai.forceUpdate, ai.createTime, ai.updateTime, " +
+           "(SELECT COUNT(v.id) FROM AppVersion v WHERE v.appId = ai.appId), " +
+           "rv.id, rv.versionCode, rv.versionName, rv.fileSize, " +
+           "rv.forceUpdate, rv.isReleased, rv.createTime) " +
+           "FROM AppInfo ai LEFT JOIN AppVersion rv ON rv.id = ai.releasedVersionId " +
+           "WHERE ai.appId IN :appIds")
+    List<AppReleaseSummary> findReleaseSummariesByAppIdIn(@Param("appIds") Collection<String> appIds);
+
+    /**
+     * 查询检查更新所需的应用及发布版本字段（不含更新说明）
+     * 结果进入releaseLookup查询缓存，app_info或app_version有写入时自动失效
+     * 
+     * @param appId 应用ID
+     * @return 检查更新目标（应用不存在时为空，没有发布版本时版本字段为null）
+     */
+    @QueryHints({
+            @QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"),
+            @QueryHint(name = org.hibernate.annotations.QueryHints.CACHE_REGION, value = "releaseLookup")
+    })
+    @Query("SELECT new com.yancey.appupdate.dto.CheckUpdateTarget(" +
+           "ai.appId, ai.forceUpdate, rv.id, rv.versionCode, rv.versionName, rv.fileSize, rv.md5, rv.downloadUrl) " +
+           "FROM AppInfo ai LEFT JOIN AppVersion rv ON rv.id = ai.releasedVersionId " +
+           "WHERE ai.appId = :appId")
+    Optional<CheckUpdateTarget> findCheckUpdateTarget(@Param("appId") String appId);
+
+    /**
+     * 查询版本的更新说明（只在确实需要下发更新时读取大字段）
+     * 
+     * @param id 版本ID
+     * @return 更新说明
+     */
+    @QueryHints({
+            @QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"),
+            @QueryHint(name = org.hibernate.annotations.QueryHints.CACHE_REGION, value = "releaseLookup")
+    })
+    @Query("SELECT av.updateDescription FROM AppVersion av WHERE av.id = :id")
+    String findUpdateDescriptionById(@Param("id") Long id);
+
+    /**
+     * 批量查询应用最新的已记录签名者的版本（版本号最大）的签名者
+     * 
+     * @param appIds 应用ID集合
+     * @return [appId, versionCode, signerFingerprints] 列表
+     */
+    @Query("SELECT av.appId, av.versionCode, av.signerFingerprints FROM AppVersion av " +
+           "WHERE av.appId IN :appIds AND av.signerFingerprints IS NOT NULL AND av.versionCode = " +
+           "(SELECT MAX(latest.versionCode) FROM AppVersion latest " +
+           "WHERE latest.appId = av.appId AND latest.signerFingerprints IS NOT NULL)")
+    List<Object[]> findLatestSignerFingerprintsByAppIdIn(@Param("appIds") Collection<String> appIds);
+
+    /**
+     * 更新版本的图标路径
+     * 
+     * @param id 版本ID
+     * @param iconPath 图标路径
+     * @return 更新的记录数
+     */
+    @Modifying
+    @Query("UPDATE AppVersion av SET av.iconPath = :iconPath WHERE av.id = :id")
+    int updateIconPath(@Param("id") Long id, @Param("iconPath") String iconPath);
+
+    /**
+     * 加行锁查询版本（切换发布版本时使用）
+     * 直接查询数据库，不读取二级缓存中可能已过期的实体（归档标记由JDBC更新）
+     * 
+     * @param id 版本ID
+     * @return 应用版本
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT av FROM AppVersion av WHERE av.id = :id")
+    Optional<AppVersion> findByIdForUpdate(@Param("id") Long id);
+
     /**
      * 根据APK路径查找版本
      * 
@@ -107,6 +263,33 @@ public interface AppVersionRepository extends JpaRepository<AppVersion, Long> {
      */
     Optional<AppVersion> findByApkPath(String apkPath);
 
+    /**
+     * 查询指定应用第一页版本（按版本号、ID倒序，不执行COUNT）
+     * ORDER BY带上等值条件列app_id，使H2能按idx_version_app_code_id索引顺序读取
+     * 
+     * @param appId 应用ID（packageName）
+     * @param pageable 只使用其中的条数限制
+     * @return 应用版本列表
+     */
+    @Query("SELECT av FROM AppVersion av WHERE av.appId = :appId " +
+           "ORDER BY av.appId, av.versionCode DESC, av.id DESC")
+    List<AppVersion> findVersionsByAppId(@Param("appId") String appId, Pageable pageable);
+
+    /**
+     * 查询指定应用中排在(versionCode, id)之后的版本，按索引定位，深页与首页代价相同
+     * 
+     * @param appId 应用ID（packageName）
+     * @param versionCode 上一页最后一个版本的版本号
+     * @param id 上一页最后一个版本的ID
+     * @param pageable 只使用其中的条数限制
+     * @return 应用版本列表
+     */
+    @Query("SELECT av FROM AppVersion av WHERE av.appId = :appId AND av.versionCode <= :versionCode " +
+           "AND (av.versionCode < :versionCode OR av.id < :id) " +
+           "ORDER BY av.appId, av.versionCode DESC, av.id DESC")
+    List<AppVersion> findVersionsByAppIdAfter(@Param("appId") String appId, @Param("versionCode") Integer versionCode,
+                                              @Param("id") Long id, Pageable pageable);
+
     /**
      * 统计指定应用的版本数量
      * 
@@ -131,9 +314,15 @@ public interface AppVersionRepository extends JpaRepository<AppVersion, Long> {
     Long sumFileSize();
 
     /**
-     * 查找最近创建的10个版本
+     * 查找最近创建的版本（不含更新说明）
      * 
+     * @param pageable 只使用其中的条数限制
      * @return 最近版本列表
      */
-    List<AppVersion> findTop10ByOrderByCreateTimeDesc();
+    @Query("SELECT new com.yancey.appupdate.dto.AppVersionSummary(" +
+           "av.id, av.appId, av.versionCode, av.versionName, av.fileSize, av.md5, av.signerFingerprints, " +
+           "av.apkPath, av.downloadUrl, av.iconPath, av.forceUpdate, av.isReleased, av.archived, " +
+           "av.createTime, av.updateTime) " +
+           "FROM AppVersion av ORDER BY av.createTime DESC")
+    List<AppVersionSummary> findRecentVersionSummaries(Pageable pageable);
 } 
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.yancey.appupdate.repository;
+
+import com.yancey.appupdate.entity.AppVersionVariant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 应用版本变体Repository
+ * 
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-13
+ */
+@Repository
+public interface AppVersionVariantRepository extends JpaRepository<AppVersionVariant, Long> {
+
+    /**
+     * 查询版本的全部变体
+     * 
+     * @param versionId 版本ID
+     * @return 变体列表
+     */
+    List<AppVersionVariant> findByVersionIdOrderByFileSizeAsc(Long versionId);
+
+    /**
+     * 批量查询多个版本的变体
+     * 
+     * @param versionIds 版本ID集合
+     * @return 变体列表
+     */
+    List<AppVersionVariant> findByVersionIdIn(Collection<Long> versionIds);
+
+    /**
+     * 批量查询多个版本的变体文件路径和大小（批量删除使用）
+     * 
+     * @param versionIds 版本ID集合
+     * @return [versionId, apkPath, fileSize] 列表
+     */
+    @Query("SELECT v.versionId, v.apkPath, v.fileSize FROM AppVersionVariant v WHERE v.versionId IN :versionIds")
+    List<Object[]> findApkPathsByVersionIdIn(@Param("versionIds") Collection<Long> versionIds);
+
+    /**
+     * 批量删除多个版本的全部变体
+     * 
+     * @param versionIds 版本ID集合
+     * @return 删除的记录数
+     */
+    @Modifying
+    @Query("DELETE FROM AppVersionVariant v WHERE v.versionId IN :versionIds")
+    int deleteByVersionIdIn(@Param("versionIds") Collection<Long> versionIds);
+}
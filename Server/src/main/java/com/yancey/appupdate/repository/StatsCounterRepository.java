@@ -0,0 +1,30 @@
+package com.yancey.appupdate.repository;
+
+import com.yancey.appupdate.entity.StatsCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 统计计数器Repository
+ * 
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-17
+ */
+@Repository
+public interface StatsCounterRepository extends JpaRepository<StatsCounter, String> {
+
+    /**
+     * 原子增减计数器（在调用方事务中执行）
+     * 
+     * @param name 计数器名称
+     * @param delta 增量（可为负数）
+     * @return 更新的记录数
+     */
+    @Modifying
+    @Query("UPDATE StatsCounter c SET c.value = c.value + :delta WHERE c.name = :name")
+    int increment(@Param("name") String name, @Param("delta") long delta);
+}
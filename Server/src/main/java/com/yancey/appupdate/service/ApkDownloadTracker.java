@@ -0,0 +1,88 @@
+package com.yancey.appupdate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * APK下载记录
+ * 下载时只在内存中记录路径和时间，定期批量写回所属版本的last_download_time，
+ * 供归档任务判断版本是否已变冷。直接用JDBC写入，不触发二级缓存失效
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+@Slf4j
+@Service
+public class ApkDownloadTracker {
+
+    private static final String TOUCH_VERSION_SQL =
+            "UPDATE app_version SET last_download_time = ? WHERE apk_path = ?";
+
+    private static final String TOUCH_VARIANT_OWNER_SQL =
+            "UPDATE app_version SET last_download_time = ? " +
+            "WHERE id IN (SELECT version_id FROM app_version_variant WHERE apk_path = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 待写回的下载记录：APK路径 -> 最近下载时间（毫秒）
+     */
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+
+    public ApkDownloadTracker(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 记录一次下载
+     *
+     * @param apkPath APK存储路径（版本或变体）
+     */
+    public void recordDownload(String apkPath) {
+        pending.put(apkPath, System.currentTimeMillis());
+    }
+
+    /**
+     * 批量写回下载时间
+     */
+    @Scheduled(fixedDelayString = "${app.archive.access-flush-interval:PT1M}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>();
+        for (String apkPath : new ArrayList<>(pending.keySet())) {
+            Long downloadMillis = pending.remove(apkPath);
+            if (downloadMillis != null) {
+                batch.add(new Object[]{new Timestamp(downloadMillis), apkPath});
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate(TOUCH_VERSION_SQL, batch);
+            jdbcTemplate.batchUpdate(TOUCH_VARIANT_OWNER_SQL, batch);
+            log.debug("下载时间已写回: {}个文件", batch.size());
+        } catch (DataAccessException e) {
+            // 放回队列等待下次写回（期间有更新的下载记录时保留较新的）
+            for (Object[] row : batch) {
+                pending.merge((String) row[1], ((Timestamp) row[0]).getTime(), Math::max);
+            }
+            log.warn("写回下载时间失败: error={}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
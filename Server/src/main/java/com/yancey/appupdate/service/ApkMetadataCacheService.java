@@ -0,0 +1,74 @@
+package com.yancey.appupdate.service;
+
+import com.yancey.appupdate.entity.ApkMetadata;
+import com.yancey.appupdate.repository.ApkMetadataRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * APK解析结果缓存服务
+ * 写入使用独立事务，缓存写入失败（如并发写入同一MD5）不会影响上传等外层事务
+ * 
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-12
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ApkMetadataCacheService {
+
+    private final ApkMetadataRepository apkMetadataRepository;
+
+    /**
+     * 按文件MD5查找缓存的解析结果
+     * 
+     * @param md5 文件MD5值
+     * @return 解析结果
+     */
+    @Transactional(readOnly = true)
+    public Optional<ApkMetadata> find(String md5) {
+        return apkMetadataRepository.findById(md5);
+    }
+
+    /**
+     * 保存解析结果，已存在时忽略
+     * 
+     * @param metadata 解析结果
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void save(ApkMetadata metadata) {
+        if (!apkMetadataRepository.existsById(metadata.getMd5())) {
+            apkMetadataRepository.save(metadata);
+            log.debug("APK解析结果已缓存: md5={}, packageName={}", metadata.getMd5(), metadata.getPackageName());
+        }
+    }
+
+    /**
+     * 回填延迟解析出的应用名称
+     * 
+     * @param md5 文件MD5值
+     * @param appName 应用名称
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void updateAppName(String md5, String appName) {
+        apkMetadataRepository.updateAppName(md5, appName);
+    }
+
+    /**
+     * 回填签名校验结果
+     * 
+     * @param md5 文件MD5值
+     * @param signatureScheme 签名方案
+     * @param signerFingerprints 签名者证书指纹
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void updateSignature(String md5, Integer signatureScheme, String signerFingerprints) {
+        apkMetadataRepository.updateSignature(md5, signatureScheme, signerFingerprints);
+    }
+}
@@ -1,20 +1,44 @@
 package com.yancey.appupdate.service;
 
+import com.yancey.appupdate.config.AppProperties;
+import com.yancey.appupdate.dto.ApkManifestInfo;
+import com.yancey.appupdate.dto.ApkSignatureInfo;
 import com.yancey.appupdate.dto.ParsedApkData;
+import com.yancey.appupdate.entity.ApkMetadata;
 import com.yancey.appupdate.exception.ApkParseException;
+import com.yancey.appupdate.util.ApkManifestReader;
+import com.yancey.appupdate.util.ApkSignatureVerifier;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.dongliu.apk.parser.ApkFile;
 import net.dongliu.apk.parser.bean.ApkMeta;
+import net.dongliu.apk.parser.bean.AdaptiveIcon;
 import net.dongliu.apk.parser.bean.Icon;
+import net.dongliu.apk.parser.bean.IconFace;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.springframework.stereotype.Service;
 
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.Enumeration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
  * APK文件解析服务
+ * 清单解析结果以文件内容MD5为键缓存，已知APK的元数据查询只需一次哈希加一次主键查询。
+ * MD5不足以证明文件就是当初校验过的APK，签名每次都按实际文件重新校验，缓存中的签名结果只作记录
  * 
  * @author yancey
  * @version 1.0
@@ -22,8 +46,12 @@ import java.io.IOException;
  */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class ApkParserService {
 
+    private final ApkMetadataCacheService apkMetadataCacheService;
+    private final AppProperties appProperties;
+
     /**
      * 解析APK文件
      * 
@@ -32,51 +60,264 @@ public class ApkParserService {
      * @throws IOException 解析异常
      */
     public ParsedApkData parseApk(File apkFile) throws IOException {
-        if (!apkFile.exists()) {
-            throw new ApkParseException("APK文件不存在: " + apkFile.getAbsolutePath());
+        checkReadable(apkFile);
+
+        // 计算文件大小和MD5
+        long fileSize = apkFile.length();
+        String md5 = calculateMd5(apkFile);
+
+        ApkMetadata metadata = loadMetadata(apkFile, md5, fileSize);
+        AppProperties.SignatureConfig signatureConfig = appProperties.getSignature();
+        if (signatureConfig.isEnabled() && signatureConfig.isRequireSigned()
+                && Integer.valueOf(ApkSignatureInfo.SCHEME_NONE).equals(metadata.getSignatureScheme())) {
+            throw new ApkParseException("APK未签名，无法安装: " + apkFile.getName());
         }
+        ParsedApkData parsedData = toParsedApkData(apkFile, metadata);
 
-        if (!apkFile.canRead()) {
-            throw new ApkParseException("无法读取APK文件: " + apkFile.getAbsolutePath());
+        log.info("APK解析成功: {} ({})", parsedData.getVersionName(), parsedData.getPackageName());
+
+        return parsedData;
+    }
+
+    /**
+     * 获取APK的完整元数据（含SDK版本等扩展清单信息），优先读取缓存
+     * 
+     * @param apkFile APK文件
+     * @param md5 文件MD5值（为空时重新计算）
+     * @return APK元数据
+     * @throws IOException 解析异常
+     */
+    public ApkMetadata getMetadata(File apkFile, String md5) throws IOException {
+        if (md5 != null) {
+            Optional<ApkMetadata> cached = findCachedQuietly(md5);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+
+        checkReadable(apkFile);
+        String actualMd5 = md5 != null ? md5 : calculateMd5(apkFile);
+        return loadMetadata(apkFile, actualMd5, apkFile.length());
+    }
+
+    /**
+     * 使用完整解析器解析APK文件（解析resources.arsc，不使用缓存）
+     * 
+     * @param apkFile APK文件
+     * @return 解析后的APK数据
+     * @throws IOException 解析异常
+     */
+    public ParsedApkData parseApkFully(File apkFile) throws IOException {
+        checkReadable(apkFile);
+
+        ApkMetadata metadata = parseWithApkFile(apkFile, calculateMd5(apkFile), apkFile.length());
+        return toParsedApkData(apkFile, metadata);
+    }
+
+    /**
+     * 仅读取清单信息（内存映射中央目录 + 解码二进制XML），失败时返回null
+     * 
+     * @param apkFile APK文件
+     * @return 清单信息
+     */
+    public ApkManifestInfo readManifestQuietly(File apkFile) {
+        try {
+            return ApkManifestReader.read(apkFile);
+        } catch (Exception e) {
+            log.debug("轻量读取APK清单失败，将使用完整解析: {}, error={}", apkFile.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 查缓存，未命中时解析并写入缓存；无论是否命中，签名都按实际文件校验
+     */
+    private ApkMetadata loadMetadata(File apkFile, String md5, long fileSize) {
+        Optional<ApkMetadata> cached = findCachedQuietly(md5);
+        if (cached.isPresent()) {
+            log.debug("APK解析缓存命中: md5={}", md5);
+            ApkMetadata metadata = copyManifestFields(cached.get());
+            if (appProperties.getSignature().isEnabled()) {
+                verifySignature(apkFile, metadata);
+                if (!Objects.equals(cached.get().getSignatureScheme(), metadata.getSignatureScheme())
+                        || !Objects.equals(cached.get().getSignerFingerprints(), metadata.getSignerFingerprints())) {
+                    // 缓存早于签名校验功能写入，或记录的结果已过期，回填本次的校验结果
+                    try {
+                        apkMetadataCacheService.updateSignature(md5, metadata.getSignatureScheme(), metadata.getSignerFingerprints());
+                    } catch (Exception e) {
+                        log.warn("回填APK签名校验结果失败: md5={}, error={}", md5, e.getMessage());
+                    }
+                }
+            }
+            return metadata;
+        }
+
+        ApkMetadata metadata = parseUncached(apkFile, md5, fileSize);
+        if (appProperties.getSignature().isEnabled()) {
+            verifySignature(apkFile, metadata);
+        }
+        try {
+            apkMetadataCacheService.save(metadata);
+        } catch (Exception e) {
+            log.warn("写入APK解析缓存失败: md5={}, error={}", md5, e.getMessage());
+        }
+        return metadata;
+    }
+
+    /**
+     * 复制缓存中的清单字段（不含签名结果），不修改缓存实体
+     */
+    private ApkMetadata copyManifestFields(ApkMetadata cached) {
+        ApkMetadata metadata = new ApkMetadata();
+        metadata.setMd5(cached.getMd5());
+        metadata.setPackageName(cached.getPackageName());
+        metadata.setVersionCode(cached.getVersionCode());
+        metadata.setVersionName(cached.getVersionName());
+        metadata.setAppName(cached.getAppName());
+        metadata.setLabelResourceId(cached.getLabelResourceId());
+        metadata.setMinSdkVersion(cached.getMinSdkVersion());
+        metadata.setTargetSdkVersion(cached.getTargetSdkVersion());
+        metadata.setFileSize(cached.getFileSize());
+        metadata.setCreateTime(cached.getCreateTime());
+        return metadata;
+    }
+
+    /**
+     * 校验APK签名块，结果写入元数据（校验失败时抛出异常，不写入缓存）
+     */
+    private void verifySignature(File apkFile, ApkMetadata metadata) {
+        long startTime = System.currentTimeMillis();
+        try {
+            ApkSignatureInfo signatureInfo = ApkSignatureVerifier.verify(apkFile);
+            metadata.setSignatureScheme(signatureInfo.getScheme());
+            metadata.setSignerFingerprints(signatureInfo.joinFingerprints());
+            log.info("APK签名校验完成: {} scheme=v{}, signers={}, 耗时={}ms", apkFile.getName(),
+                    signatureInfo.getScheme(), signatureInfo.getSignerFingerprints(), System.currentTimeMillis() - startTime);
+        } catch (IOException e) {
+            throw new ApkParseException("读取APK签名块失败: " + e.getMessage(), e);
+        }
+    }
+
+    private Optional<ApkMetadata> findCachedQuietly(String md5) {
+        try {
+            return apkMetadataCacheService.find(md5);
+        } catch (Exception e) {
+            log.warn("读取APK解析缓存失败: md5={}, error={}", md5, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 解析APK，优先使用轻量读取器，无法处理时回退到完整解析
+     */
+    private ApkMetadata parseUncached(File apkFile, String md5, long fileSize) {
+        ApkManifestInfo manifestInfo = readManifestQuietly(apkFile);
+        if (manifestInfo == null || manifestInfo.getVersionCode() == null || manifestInfo.isVersionNameReference()) {
+            return parseWithApkFile(apkFile, md5, fileSize);
         }
 
+        ApkMetadata metadata = new ApkMetadata();
+        metadata.setMd5(md5);
+        metadata.setPackageName(manifestInfo.getPackageName());
+        metadata.setVersionCode(manifestInfo.getVersionCode());
+        metadata.setVersionName(manifestInfo.getVersionName());
+        metadata.setAppName(manifestInfo.getLabel());
+        metadata.setLabelResourceId(manifestInfo.getLabel() == null ? manifestInfo.getLabelResourceId() : null);
+        metadata.setMinSdkVersion(manifestInfo.getMinSdkVersion());
+        metadata.setTargetSdkVersion(manifestInfo.getTargetSdkVersion());
+        metadata.setFileSize(fileSize);
+        return metadata;
+    }
+
+    /**
+     * 使用net.dongliu ApkFile完整解析
+     */
+    private ApkMetadata parseWithApkFile(File apkFile, String md5, long fileSize) {
         try (ApkFile apk = new ApkFile(apkFile)) {
             ApkMeta apkMeta = apk.getApkMeta();
             
-            if (apkMeta == null) {
-                throw new ApkParseException("无法解析APK元数据");
+            if (apkMeta == null || apkMeta.getPackageName() == null || apkMeta.getPackageName().trim().isEmpty()) {
+                throw new ApkParseException("无法解析APK元数据: " + apkFile.getName());
             }
 
-            // 计算文件大小和MD5
-            long fileSize = apkFile.length();
-            String md5 = calculateMd5(apkFile);
-
-            // 构建解析结果
-            ParsedApkData parsedData = new ParsedApkData();
-            parsedData.setPackageName(apkMeta.getPackageName());
-            parsedData.setVersionCode(String.valueOf(apkMeta.getVersionCode()));
-            parsedData.setVersionName(apkMeta.getVersionName());
-            parsedData.setAppName(apkMeta.getLabel());
-            parsedData.setFileSize(fileSize);
-            parsedData.setMd5(md5);
-
-            // 可选：提取应用图标
-            // byte[] icon = apk.getIconFile();
-            // parsedData.setIcon(icon);
-
-            log.info("APK解析成功: {} - {} ({})", 
-                    parsedData.getAppName(), 
-                    parsedData.getVersionName(), 
-                    parsedData.getPackageName());
-
-            return parsedData;
+            ApkMetadata metadata = new ApkMetadata();
+            metadata.setMd5(md5);
+            metadata.setPackageName(apkMeta.getPackageName());
+            metadata.setVersionCode(apkMeta.getVersionCode());
+            metadata.setVersionName(apkMeta.getVersionName());
+            metadata.setAppName(apkMeta.getLabel());
+            metadata.setMinSdkVersion(parseSdkVersion(apkMeta.getMinSdkVersion()));
+            metadata.setTargetSdkVersion(parseSdkVersion(apkMeta.getTargetSdkVersion()));
+            metadata.setFileSize(fileSize);
+            return metadata;
             
+        } catch (ApkParseException e) {
+            throw e;
         } catch (Exception e) {
             log.error("APK文件解析失败: {}", apkFile.getName(), e);
             throw new ApkParseException("APK文件解析失败: " + apkFile.getName(), e);
         }
     }
 
+    /**
+     * 构建解析结果，应用名称引用资源时延迟到首次读取才解析resources.arsc
+     */
+    private ParsedApkData toParsedApkData(File apkFile, ApkMetadata metadata) {
+        ParsedApkData parsedData = new ParsedApkData();
+        parsedData.setPackageName(metadata.getPackageName());
+        parsedData.setVersionCode(String.valueOf(metadata.getVersionCode()));
+        parsedData.setVersionName(metadata.getVersionName());
+        parsedData.setFileSize(metadata.getFileSize());
+        parsedData.setMd5(metadata.getMd5());
+        parsedData.setSignatureScheme(metadata.getSignatureScheme());
+        parsedData.setSignerFingerprints(metadata.getSignerFingerprints());
+
+        if (metadata.getAppName() != null) {
+            parsedData.setAppName(metadata.getAppName());
+        } else if (metadata.getLabelResourceId() != null) {
+            parsedData.setAppNameResolver(() -> resolveLabel(apkFile, metadata.getMd5()));
+        }
+        return parsedData;
+    }
+
+    /**
+     * 通过resources.arsc解析应用名称，并回填到缓存
+     * 
+     * @param apkFile APK文件
+     * @param md5 文件MD5值
+     * @return 应用名称，解析失败返回null
+     */
+    private String resolveLabel(File apkFile, String md5) {
+        try (ApkFile apk = new ApkFile(apkFile)) {
+            String label = apk.getApkMeta().getLabel();
+            if (label != null) {
+                apkMetadataCacheService.updateAppName(md5, label);
+            }
+            return label;
+        } catch (Exception e) {
+            log.warn("解析APK应用名称失败: {}", apkFile.getName(), e);
+            return null;
+        }
+    }
+
+    private void checkReadable(File apkFile) {
+        if (!apkFile.exists()) {
+            throw new ApkParseException("APK文件不存在: " + apkFile.getAbsolutePath());
+        }
+
+        if (!apkFile.canRead()) {
+            throw new ApkParseException("无法读取APK文件: " + apkFile.getAbsolutePath());
+        }
+    }
+
+    private Integer parseSdkVersion(String sdkVersion) {
+        try {
+            return sdkVersion != null ? Integer.valueOf(sdkVersion.trim()) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     /**
      * 计算文件MD5值
      * 
@@ -110,11 +351,9 @@ public class ApkParserService {
             return false;
         }
 
-        try (ApkFile apk = new ApkFile(file)) {
-            ApkMeta apkMeta = apk.getApkMeta();
-            return apkMeta != null && 
-                   apkMeta.getPackageName() != null && 
-                   !apkMeta.getPackageName().trim().isEmpty();
+        try {
+            ApkMetadata metadata = getMetadata(file, null);
+            return metadata.getPackageName() != null && !metadata.getPackageName().trim().isEmpty();
         } catch (Exception e) {
             log.debug("APK文件验证失败: {}", file.getName(), e);
             return false;
@@ -136,16 +375,63 @@ public class ApkParserService {
         }
     }
 
+    /**
+     * 检测APK包含的原生库ABI（lib/{abi}/目录）
+     * 
+     * @param apkFile APK文件
+     * @return ABI集合，不含原生库时为空
+     */
+    public Set<String> detectNativeAbis(File apkFile) {
+        Set<String> abis = new TreeSet<>();
+        try (ZipFile zipFile = new ZipFile(apkFile)) {
+            Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+            while (zipEntries.hasMoreElements()) {
+                String name = zipEntries.nextElement().getName();
+                int abiEnd = name.indexOf('/', 4);
+                if (name.startsWith("lib/") && abiEnd > 4) {
+                    abis.add(name.substring(4, abiEnd));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("读取APK原生库目录失败: {}, error={}", apkFile.getName(), e.getMessage());
+        }
+        return abis;
+    }
+
     /**
      * 提取APK图标
+     * 优先选择密度最高的位图图标；只有自适应图标时，将前景和背景合成并裁剪到可见区域
      * 
      * @param apkFile APK文件
      * @return 图标字节数组，如果没有图标则返回null
      */
     public byte[] extractIcon(File apkFile) {
         try (ApkFile apk = new ApkFile(apkFile)) {
+            Icon bestRaster = null;
+            AdaptiveIcon adaptiveIcon = null;
+            for (IconFace iconFace : apk.getAllIcons()) {
+                if (iconFace instanceof Icon) {
+                    Icon icon = (Icon) iconFace;
+                    if (isRasterIcon(icon) && (bestRaster == null || icon.getDensity() > bestRaster.getDensity())) {
+                        bestRaster = icon;
+                    }
+                } else if (iconFace instanceof AdaptiveIcon && adaptiveIcon == null) {
+                    adaptiveIcon = (AdaptiveIcon) iconFace;
+                }
+            }
+
+            if (bestRaster != null) {
+                return bestRaster.getData();
+            }
+            if (adaptiveIcon != null) {
+                byte[] composed = composeAdaptiveIcon(adaptiveIcon);
+                if (composed != null) {
+                    return composed;
+                }
+            }
+
             Icon icon = apk.getIconFile();
-            if (icon != null) {
+            if (icon != null && isRasterIcon(icon)) {
                 return icon.getData();
             }
             return null;
@@ -154,4 +440,44 @@ public class ApkParserService {
             return null;
         }
     }
-} 
\ No newline at end of file
+
+    private boolean isRasterIcon(Icon icon) {
+        if (icon == null || icon.getData() == null || icon.getPath() == null) {
+            return false;
+        }
+        String path = icon.getPath().toLowerCase();
+        return path.endsWith(".png") || path.endsWith(".webp") || path.endsWith(".jpg") || path.endsWith(".jpeg");
+    }
+
+    /**
+     * 合成自适应图标：背景 + 前景，并裁剪中心72/108的可见区域
+     */
+    private byte[] composeAdaptiveIcon(AdaptiveIcon adaptiveIcon) throws IOException {
+        Icon foreground = adaptiveIcon.getForeground();
+        Icon background = adaptiveIcon.getBackground();
+        BufferedImage foregroundImage = isRasterIcon(foreground) ? ImageIO.read(new ByteArrayInputStream(foreground.getData())) : null;
+        if (foregroundImage == null) {
+            return null;
+        }
+        BufferedImage backgroundImage = isRasterIcon(background) ? ImageIO.read(new ByteArrayInputStream(background.getData())) : null;
+
+        int size = Math.max(foregroundImage.getWidth(), foregroundImage.getHeight());
+        BufferedImage composed = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = composed.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            if (backgroundImage != null) {
+                graphics.drawImage(backgroundImage, 0, 0, size, size, null);
+            }
+            graphics.drawImage(foregroundImage, 0, 0, size, size, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        int visible = size * 72 / 108;
+        int offset = (size - visible) / 2;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(composed.getSubimage(offset, offset, visible, visible), "png", output);
+        return output.toByteArray();
+    }
+}
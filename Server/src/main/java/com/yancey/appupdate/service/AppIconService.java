@@ -0,0 +1,424 @@
+package com.yancey.appupdate.service;
+
+import com.yancey.appupdate.config.AppProperties;
+import com.yancey.appupdate.entity.AppVersion;
+import com.yancey.appupdate.exception.FileStorageException;
+import com.yancey.appupdate.repository.AppVersionRepository;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import javax.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 应用图标服务
+ * 上传提交后在后台线程中从APK提取图标，生成多个尺寸的PNG缩略图并落盘，
+ * 读取时经过按字节数限制大小的LRU内存缓存
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-12
+ */
+@Slf4j
+@Service
+public class AppIconService {
+
+    /**
+     * 图标目录名（位于存储根目录下，每个版本一个子目录）
+     */
+    private static final String ICON_DIRECTORY = ".icons";
+
+    /**
+     * 原图文件名前缀
+     */
+    private static final String ORIGINAL_NAME = "original";
+
+    /**
+     * 后台提取任务队列长度，队列满时丢弃任务（下次访问图标时会重新触发）
+     */
+    private static final int EXTRACTION_QUEUE_CAPACITY = 256;
+
+    private final AppVersionRepository appVersionRepository;
+    private final FileStorageService fileStorageService;
+    private final ApkParserService apkParserService;
+    private final TransactionTemplate transactionTemplate;
+    private final String serverBaseUrl;
+    private final Set<Integer> sizes;
+    private final IconCache iconCache;
+    private final ThreadPoolExecutor extractionExecutor;
+
+    /**
+     * 正在提取中的版本，避免同一版本被重复提交
+     */
+    private final Set<Long> pendingVersions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 已确认不含可用图标或APK已不存在的版本，避免每次访问图标都重新解析APK
+     */
+    private final Set<Long> iconlessVersions = ConcurrentHashMap.newKeySet();
+
+    public AppIconService(AppVersionRepository appVersionRepository,
+                          FileStorageService fileStorageService,
+                          ApkParserService apkParserService,
+                          PlatformTransactionManager transactionManager,
+                          AppProperties appProperties) {
+        this.appVersionRepository = appVersionRepository;
+        this.fileStorageService = fileStorageService;
+        this.apkParserService = apkParserService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.serverBaseUrl = appProperties.getNormalizedServerBaseUrl();
+        this.sizes = new TreeSet<>();
+        for (Integer size : appProperties.getIcon().getSizes()) {
+            if (size != null && size > 0) {
+                this.sizes.add(size);
+            }
+        }
+        this.iconCache = new IconCache(appProperties.getIcon().getCacheMaxSize().toBytes());
+        this.extractionExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(EXTRACTION_QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "app-icon-extractor");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        extractionExecutor.shutdownNow();
+    }
+
+    /**
+     * 调度图标提取任务
+     * 处于事务中时在事务提交后执行，避免为回滚的版本生成图标
+     *
+     * @param versionId 版本ID
+     * @param apkPath APK存储路径（相对路径）
+     */
+    public void scheduleExtraction(Long versionId, String apkPath) {
+        if (versionId == null || apkPath == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submitExtraction(versionId, apkPath);
+                }
+            });
+        } else {
+            submitExtraction(versionId, apkPath);
+        }
+    }
+
+    private void submitExtraction(Long versionId, String apkPath) {
+        if (!pendingVersions.add(versionId)) {
+            return;
+        }
+        try {
+            extractionExecutor.execute(() -> {
+                try {
+                    extractAndStore(versionId, apkPath);
+                } finally {
+                    pendingVersions.remove(versionId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingVersions.remove(versionId);
+            log.warn("图标提取队列已满，跳过: versionId={}", versionId);
+        }
+    }
+
+    /**
+     * 提取图标并生成缩略图，完成后回写版本的图标路径
+     */
+    private void extractAndStore(Long versionId, String apkPath) {
+        long startTime = System.currentTimeMillis();
+        byte[] iconData;
+        try {
+            iconData = readIcon(apkPath);
+        } catch (FileStorageException | IOException e) {
+            log.warn("无法读取APK，跳过图标提取: versionId={}, apkPath={}, error={}", versionId, apkPath, e.getMessage());
+            iconlessVersions.add(versionId);
+            return;
+        }
+        if (iconData == null || iconData.length == 0) {
+            log.info("APK中未找到可用图标: versionId={}, apkPath={}", versionId, apkPath);
+            iconlessVersions.add(versionId);
+            return;
+        }
+
+        String iconDirectory = ICON_DIRECTORY + "/" + versionId;
+        Path directory = fileStorageService.resolveApkPath(iconDirectory);
+        try {
+            Files.createDirectories(directory);
+            String originalName = ORIGINAL_NAME + "." + detectExtension(iconData);
+            Files.write(directory.resolve(originalName), iconData);
+
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(iconData));
+            if (image != null) {
+                for (Integer size : sizes) {
+                    Files.write(directory.resolve(size + ".png"), resize(image, size));
+                }
+            } else {
+                log.info("图标格式无法解码，仅保存原图: versionId={}, file={}", versionId, originalName);
+            }
+
+            String iconPath = iconDirectory + "/" + originalName;
+            Integer updated = transactionTemplate.execute(status -> appVersionRepository.updateIconPath(versionId, iconPath));
+            if (updated == null || updated == 0) {
+                // 版本在提取期间被删除
+                FileSystemUtils.deleteRecursively(directory);
+                return;
+            }
+            log.info("图标提取完成: versionId={}, iconPath={}, 耗时={}ms", versionId, iconPath,
+                    System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            log.warn("图标存储失败: versionId={}, error={}", versionId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 从APK中读取图标
+     * 热存储中没有时从归档目录读取，压缩归档先解压到临时文件
+     */
+    private byte[] readIcon(String apkPath) throws IOException {
+        Resource apk = fileStorageService.loadFileAsResource(apkPath);
+        if (apk.isFile()) {
+            return apkParserService.extractIcon(apk.getFile());
+        }
+        Path tempFile = Files.createTempFile("app-icon-", ".apk");
+        try {
+            try (InputStream in = apk.getInputStream()) {
+                Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return apkParserService.extractIcon(tempFile.toFile());
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private byte[] resize(BufferedImage source, int size) throws IOException {
+        BufferedImage target = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, size, size, null);
+        } finally {
+            graphics.dispose();
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(target, "png", output);
+        return output.toByteArray();
+    }
+
+    /**
+     * 加载图标
+     *
+     * @param version 应用版本
+     * @param size 期望尺寸，为null时返回原图；否则返回不小于该尺寸的最小缩略图
+     * @return 图标内容，尚未提取时返回null（同时触发后台提取）
+     */
+    public IconContent loadIcon(AppVersion version, Integer size) {
+        if (version.getIconPath() == null) {
+            if (!iconlessVersions.contains(version.getId())) {
+                scheduleExtraction(version.getId(), version.getApkPath());
+            }
+            return null;
+        }
+
+        String iconPath = resolveVariantPath(version.getIconPath(), size);
+        IconContent cached = iconCache.get(iconPath);
+        if (cached != null) {
+            return cached;
+        }
+
+        Path file = fileStorageService.resolveApkPath(iconPath);
+        if (!Files.isRegularFile(file)) {
+            // 缩略图缺失（例如图标格式无法解码）时回退到原图
+            file = fileStorageService.resolveApkPath(version.getIconPath());
+            iconPath = version.getIconPath();
+        }
+        try {
+            byte[] data = Files.readAllBytes(file);
+            IconContent content = new IconContent(data, detectContentType(data), "\"" + DigestUtils.md5Hex(data) + "\"");
+            iconCache.put(iconPath, content);
+            return content;
+        } catch (IOException e) {
+            log.warn("读取图标失败: versionId={}, path={}, error={}", version.getId(), file, e.getMessage());
+            return null;
+        }
+    }
+
+    private String resolveVariantPath(String originalPath, Integer size) {
+        if (size == null || sizes.isEmpty()) {
+            return originalPath;
+        }
+        Integer selected = null;
+        for (Integer candidate : sizes) {
+            selected = candidate;
+            if (candidate >= size) {
+                break;
+            }
+        }
+        return originalPath.substring(0, originalPath.lastIndexOf('/') + 1) + selected + ".png";
+    }
+
+    /**
+     * 删除版本的全部图标文件
+     *
+     * @param iconPath 原图路径
+     */
+    public void deleteIcons(String iconPath) {
+        if (iconPath == null) {
+            return;
+        }
+        int slash = iconPath.lastIndexOf('/');
+        if (slash <= 0) {
+            return;
+        }
+        String directory = iconPath.substring(0, slash);
+        iconCache.invalidatePrefix(directory + "/");
+        try {
+            FileSystemUtils.deleteRecursively(fileStorageService.resolveApkPath(directory));
+        } catch (IOException e) {
+            log.warn("删除图标目录失败: {}, error={}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * 生成图标URL
+     *
+     * @param version 应用版本
+     * @return 图标URL，未提取到图标时返回null
+     */
+    public String generateIconUrl(AppVersion version) {
+        return generateIconUrl(version.getId(), version.getIconPath());
+    }
+
+    /**
+     * 生成图标访问地址
+     *
+     * @param versionId 版本ID
+     * @param iconPath 图标存储路径（为空表示没有图标）
+     * @return 图标地址，没有图标时返回null
+     */
+    public String generateIconUrl(Long versionId, String iconPath) {
+        if (iconPath == null) {
+            return null;
+        }
+        return serverBaseUrl + "/api/app/icon/" + versionId;
+    }
+
+    private String detectExtension(byte[] data) {
+        String contentType = detectContentType(data);
+        if ("image/webp".equals(contentType)) {
+            return "webp";
+        }
+        if ("image/jpeg".equals(contentType)) {
+            return "jpg";
+        }
+        return "png";
+    }
+
+    private String detectContentType(byte[] data) {
+        if (data.length >= 12 && data[0] == 'R' && data[1] == 'I' && data[2] == 'F' && data[3] == 'F'
+                && data[8] == 'W' && data[9] == 'E' && data[10] == 'B' && data[11] == 'P') {
+            return "image/webp";
+        }
+        if (data.length >= 2 && (data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == 0xD8) {
+            return "image/jpeg";
+        }
+        return "image/png";
+    }
+
+    /**
+     * 图标内容
+     */
+    @Getter
+    public static class IconContent {
+        private final byte[] data;
+        private final String contentType;
+        private final String etag;
+
+        public IconContent(byte[] data, String contentType, String etag) {
+            this.data = data;
+            this.contentType = contentType;
+            this.etag = etag;
+        }
+    }
+
+    /**
+     * 按总字节数限制的LRU缓存
+     */
+    private static class IconCache {
+        private final long maxBytes;
+        private final LinkedHashMap<String, IconContent> entries = new LinkedHashMap<>(64, 0.75f, true);
+        private long currentBytes;
+
+        IconCache(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized IconContent get(String key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(String key, IconContent content) {
+            long size = content.getData().length;
+            if (size > maxBytes) {
+                return;
+            }
+            IconContent previous = entries.put(key, content);
+            if (previous != null) {
+                currentBytes -= previous.getData().length;
+            }
+            currentBytes += size;
+
+            Iterator<Map.Entry<String, IconContent>> iterator = entries.entrySet().iterator();
+            while (currentBytes > maxBytes && iterator.hasNext()) {
+                currentBytes -= iterator.next().getValue().getData().length;
+                iterator.remove();
+            }
+        }
+
+        synchronized void invalidatePrefix(String prefix) {
+            Iterator<Map.Entry<String, IconContent>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, IconContent> entry = iterator.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    currentBytes -= entry.getValue().getData().length;
+                    iterator.remove();
+                }
+            }
+        }
+    }
+}
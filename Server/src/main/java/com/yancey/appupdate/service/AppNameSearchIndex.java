@@ -0,0 +1,366 @@
+package com.yancey.appupdate.service;
+
+import com.yancey.appupdate.config.AppProperties;
+import com.yancey.appupdate.entity.AppInfo;
+import com.yancey.appupdate.repository.AppInfoRepository;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 应用名称内存搜索索引
+ * 对应用名称和包名（小写）建立三元组倒排索引，管理端按关键词搜索应用时不再对app_info做LIKE全表扫描。
+ * 关键词不少于3个字符时取最短的倒排链逐条校验，少于3个字符时在内存中逐条比较；两种情况均不访问数据库。
+ * 本实例的新建应用在事务提交后写入索引，其他实例的写入由定期重建同步；重建完成前调用方应回退到数据库查询
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+@Slf4j
+@Component
+public class AppNameSearchIndex {
+
+    /**
+     * 三元组长度
+     */
+    private static final int GRAM_LENGTH = 3;
+
+    /**
+     * 排名：完全匹配 < 前缀匹配 < 单词前缀匹配 < 子串匹配
+     */
+    private static final int RANK_EXACT = 0;
+    private static final int RANK_PREFIX = 1;
+    private static final int RANK_WORD_PREFIX = 2;
+    private static final int RANK_SUBSTRING = 3;
+
+    /**
+     * 列表顺序：创建时间倒序、应用ID正序（与数据库中的列表及游标顺序一致）
+     */
+    private static final Comparator<AppEntry> LISTING_ORDER = Comparator
+            .comparing(AppEntry::getCreateTime, Comparator.reverseOrder())
+            .thenComparing(AppEntry::getAppId);
+
+    private final AppInfoRepository appInfoRepository;
+    private final AppProperties.SearchConfig searchConfig;
+
+    /**
+     * 当前索引，重建时整体替换
+     */
+    private volatile Index index = new Index();
+
+    /**
+     * 索引是否已完成首次构建
+     */
+    private volatile boolean ready;
+
+    /**
+     * 重建期间写入的条目，替换前重放到新索引，避免被加载时读到的旧数据覆盖（仅在持有本对象锁时访问）
+     */
+    private Map<String, AppEntry> writesDuringRebuild;
+
+    private final Object rebuildLock = new Object();
+
+    public AppNameSearchIndex(AppInfoRepository appInfoRepository, AppProperties appProperties) {
+        this.appInfoRepository = appInfoRepository;
+        this.searchConfig = appProperties.getSearch();
+    }
+
+    /**
+     * 索引是否可用（未启用或尚未完成首次构建时不可用）
+     *
+     * @return 是否可用
+     */
+    public boolean isReady() {
+        return ready && searchConfig.isEnabled();
+    }
+
+    /**
+     * 从数据库重建索引（启动时执行一次，之后定期执行以同步其他实例的写入）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.search.refresh-interval:PT10M}",
+               initialDelayString = "${app.search.refresh-interval:PT10M}")
+    public void rebuild() {
+        if (!searchConfig.isEnabled()) {
+            return;
+        }
+        synchronized (rebuildLock) {
+            long start = System.currentTimeMillis();
+            synchronized (this) {
+                writesDuringRebuild = new HashMap<>();
+            }
+            try {
+                Index rebuilt = new Index();
+                for (Object[] row : appInfoRepository.findSearchEntries()) {
+                    rebuilt.put(new AppEntry((String) row[0], (String) row[1], (LocalDateTime) row[2]));
+                }
+                synchronized (this) {
+                    writesDuringRebuild.values().forEach(rebuilt::put);
+                    index = rebuilt;
+                    ready = true;
+                }
+                log.info("应用搜索索引已重建: 应用数={}, 三元组数={}, 耗时={}ms",
+                        rebuilt.entries.size(), rebuilt.postings.size(), System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                log.error("应用搜索索引重建失败: error={}", e.getMessage(), e);
+            } finally {
+                synchronized (this) {
+                    writesDuringRebuild = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 新建或修改应用后更新索引（处于事务中时在提交后执行）
+     *
+     * @param appInfos 已保存的应用
+     */
+    public void onAppsSaved(Collection<AppInfo> appInfos) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<AppInfo> saved = new ArrayList<>(appInfos);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    saved.forEach(AppNameSearchIndex.this::put);
+                }
+            });
+        } else {
+            appInfos.forEach(this::put);
+        }
+    }
+
+    /**
+     * 新建或修改应用后更新索引（处于事务中时在提交后执行）
+     *
+     * @param appInfo 已保存的应用
+     */
+    public void onAppSaved(AppInfo appInfo) {
+        onAppsSaved(Collections.singletonList(appInfo));
+    }
+
+    /**
+     * 按相关度搜索应用（排名相同时按创建时间倒序、应用ID正序）
+     *
+     * @param query 关键词（不区分大小写，匹配应用名称或包名的任意子串）
+     * @return 匹配的应用ID
+     */
+    public List<String> search(String query) {
+        String normalized = normalize(query);
+        List<AppEntry> matches = match(normalized);
+        Map<String, Integer> ranks = new HashMap<>();
+        for (AppEntry entry : matches) {
+            ranks.put(entry.getAppId(), rank(entry, normalized));
+        }
+        matches.sort(Comparator.<AppEntry>comparingInt(entry -> ranks.get(entry.getAppId()))
+                .thenComparing(LISTING_ORDER));
+        return toAppIds(matches);
+    }
+
+    /**
+     * 按列表顺序（创建时间倒序、应用ID正序）查询排在(createTime, appId)之后的匹配应用
+     *
+     * @param query 关键词
+     * @param createTime 上一页最后一个应用的创建时间（为空表示第一页）
+     * @param appId 上一页最后一个应用的ID
+     * @param limit 最多返回的条数
+     * @return 匹配的应用ID
+     */
+    public List<String> searchAfter(String query, LocalDateTime createTime, String appId, int limit) {
+        List<AppEntry> matches = match(normalize(query));
+        matches.sort(LISTING_ORDER);
+        int from = 0;
+        if (createTime != null) {
+            AppEntry position = new AppEntry(appId, "", createTime);
+            while (from < matches.size() && LISTING_ORDER.compare(matches.get(from), position) <= 0) {
+                from++;
+            }
+        }
+        return toAppIds(matches.subList(from, Math.min(matches.size(), from + limit)));
+    }
+
+    /**
+     * 统计匹配的应用数
+     *
+     * @param query 关键词
+     * @return 匹配的应用数
+     */
+    public int count(String query) {
+        return match(normalize(query)).size();
+    }
+
+    private synchronized void put(AppInfo appInfo) {
+        AppEntry entry = new AppEntry(appInfo.getAppId(), appInfo.getAppName(),
+                appInfo.getCreateTime() != null ? appInfo.getCreateTime() : LocalDateTime.now());
+        index.put(entry);
+        if (writesDuringRebuild != null) {
+            writesDuringRebuild.put(entry.getAppId(), entry);
+        }
+    }
+
+    /**
+     * 查找名称或包名包含关键词的应用
+     */
+    private List<AppEntry> match(String normalized) {
+        Index current = index;
+        if (normalized.isEmpty()) {
+            return new ArrayList<>(current.entries.values());
+        }
+
+        Collection<String> candidates;
+        if (normalized.length() < GRAM_LENGTH) {
+            candidates = current.entries.keySet();
+        } else {
+            // 取最短的倒排链作为候选，任一三元组不存在即无匹配
+            candidates = null;
+            for (String gram : grams(normalized)) {
+                Set<String> posting = current.postings.get(gram);
+                if (posting == null) {
+                    return new ArrayList<>();
+                }
+                if (candidates == null || posting.size() < candidates.size()) {
+                    candidates = posting;
+                }
+            }
+        }
+
+        List<AppEntry> matches = new ArrayList<>();
+        for (String candidate : candidates) {
+            AppEntry entry = current.entries.get(candidate);
+            if (entry != null && entry.matches(normalized)) {
+                matches.add(entry);
+            }
+        }
+        return matches;
+    }
+
+    private static int rank(AppEntry entry, String normalized) {
+        if (entry.getName().equals(normalized) || entry.getId().equals(normalized)) {
+            return RANK_EXACT;
+        }
+        if (entry.getName().startsWith(normalized) || entry.getId().startsWith(normalized)) {
+            return RANK_PREFIX;
+        }
+        if (isWordPrefix(entry.getName(), normalized) || isWordPrefix(entry.getId(), normalized)) {
+            return RANK_WORD_PREFIX;
+        }
+        return RANK_SUBSTRING;
+    }
+
+    /**
+     * 关键词是否出现在某个单词（以空格、点、下划线或连字符分隔）的开头
+     */
+    private static boolean isWordPrefix(String text, String normalized) {
+        for (int i = text.indexOf(normalized); i > 0; i = text.indexOf(normalized, i + 1)) {
+            char previous = text.charAt(i - 1);
+            if (previous == ' ' || previous == '.' || previous == '_' || previous == '-') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> toAppIds(List<AppEntry> entries) {
+        List<String> appIds = new ArrayList<>(entries.size());
+        for (AppEntry entry : entries) {
+            appIds.add(entry.getAppId());
+        }
+        return appIds;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    /**
+     * 索引数据：应用ID -> 条目，三元组 -> 应用ID集合
+     */
+    private static class Index {
+        private final Map<String, AppEntry> entries = new ConcurrentHashMap<>();
+        private final Map<String, Set<String>> postings = new ConcurrentHashMap<>();
+
+        /**
+         * 写入或替换条目（调用方保证同一时刻只有一个写入者）
+         */
+        void put(AppEntry entry) {
+            AppEntry previous = entries.put(entry.getAppId(), entry);
+            Set<String> grams = entry.allGrams();
+            if (previous != null) {
+                for (String gram : previous.allGrams()) {
+                    if (!grams.contains(gram)) {
+                        postings.computeIfPresent(gram, (key, appIds) -> {
+                            appIds.remove(entry.getAppId());
+                            return appIds.isEmpty() ? null : appIds;
+                        });
+                    }
+                }
+            }
+            for (String gram : grams) {
+                postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(entry.getAppId());
+            }
+        }
+    }
+
+    /**
+     * 索引中的应用条目（不可变）
+     */
+    @Getter
+    static class AppEntry {
+        private final String appId;
+        private final LocalDateTime createTime;
+        /**
+         * 小写的应用名称
+         */
+        private final String name;
+        /**
+         * 小写的应用ID（包名）
+         */
+        private final String id;
+
+        AppEntry(String appId, String appName, LocalDateTime createTime) {
+            this.appId = appId;
+            // 与数据库保存的精度一致，保证游标比较结果与数据库相同
+            this.createTime = createTime.truncatedTo(ChronoUnit.MICROS);
+            this.name = normalize(appName);
+            this.id = normalize(appId);
+        }
+
+        boolean matches(String normalized) {
+            return name.contains(normalized) || id.contains(normalized);
+        }
+
+        Set<String> allGrams() {
+            Set<String> grams = grams(name);
+            grams.addAll(grams(id));
+            return grams;
+        }
+    }
+}
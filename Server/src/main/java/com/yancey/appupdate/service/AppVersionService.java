@@ -1,28 +1,56 @@
 package com.yancey.appupdate.service;
 
+import com.yancey.appupdate.config.AppProperties;
+import com.yancey.appupdate.dto.ApkMetadataDto;
 import com.yancey.appupdate.dto.AppInfoDto;
 import com.yancey.appupdate.dto.AppInfoWithLatestVersionDto;
+import com.yancey.appupdate.dto.AppReleaseSummary;
 import com.yancey.appupdate.dto.AppVersionDto;
+import com.yancey.appupdate.dto.AppVersionSummary;
+import com.yancey.appupdate.dto.AppVersionVariantDto;
+import com.yancey.appupdate.dto.CheckUpdateTarget;
+import com.yancey.appupdate.dto.CursorPageDto;
 import com.yancey.appupdate.dto.ParsedApkData;
+import com.yancey.appupdate.entity.ApkMetadata;
 import com.yancey.appupdate.entity.AppInfo;
 import com.yancey.appupdate.entity.AppVersion;
+import com.yancey.appupdate.entity.AppVersionVariant;
 import com.yancey.appupdate.exception.BusinessException;
 import com.yancey.appupdate.repository.AppInfoRepository;
 import com.yancey.appupdate.repository.AppVersionRepository;
+import com.yancey.appupdate.repository.AppVersionVariantRepository;
+import com.yancey.appupdate.util.PageCursorCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 应用版本服务
@@ -36,10 +64,30 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class AppVersionService {
 
+    /**
+     * 支持的ABI
+     */
+    private static final Set<String> KNOWN_ABIS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "armeabi", "armeabi-v7a", "arm64-v8a", "x86", "x86_64", "mips", "mips64", "riscv64")));
+
+    /**
+     * 游标分页的最大每页条数
+     */
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+    private final AppProperties appProperties;
     private final AppInfoRepository appInfoRepository;
     private final AppVersionRepository appVersionRepository;
     private final FileStorageService fileStorageService;
     private final ApkParserService apkParserService;
+    private final AppIconService appIconService;
+    private final AppVersionVariantRepository appVersionVariantRepository;
+    private final VersionVariantIndex versionVariantIndex;
+    private final VersionStatsService versionStatsService;
+    private final VersionArchiveService versionArchiveService;
+    private final AppNameSearchIndex appNameSearchIndex;
+    private final ListingCountCache listingCountCache;
+    private final SignerPinService signerPinService;
 
     /**
      * 创建应用版本
@@ -52,17 +100,39 @@ public class AppVersionService {
      */
     @Transactional
     public AppVersion createAppVersion(MultipartFile apkFile, String appId, String updateDescription, Boolean forceUpdate) {
-        try {
-            // 1. 验证参数
-            validateCreateParams(apkFile, appId);
+        // 1. 验证参数
+        validateCreateParams(apkFile, appId);
+
+        // 2. 将上传内容写入暂存目录，解析后直接移动到最终位置
+        String stagedPath;
+        try (InputStream inputStream = apkFile.getInputStream()) {
+            stagedPath = fileStorageService.stageApkStream(inputStream);
+        } catch (IOException e) {
+            log.error("创建应用版本失败: {}", e.getMessage(), e);
+            throw new BusinessException("APK文件处理失败: " + e.getMessage());
+        }
 
-            // 2. 存储APK文件（临时存储，用于解析）
-            String tempFileName = fileStorageService.storeApkFile(apkFile, appId, "temp");
-            File tempApkFile = fileStorageService.resolveApkPath(tempFileName).toFile();
+        return createAppVersionFromStagedFile(stagedPath, appId, updateDescription, forceUpdate);
+    }
+
+    /**
+     * 基于暂存目录中的APK创建应用版本
+     * 
+     * @param stagedPath 暂存文件路径（相对路径），处理完成后暂存文件总会被移走或删除
+     * @param appId 应用ID
+     * @param updateDescription 更新说明
+     * @param forceUpdate 是否强制更新
+     * @return 创建的应用版本
+     */
+    @Transactional
+    public AppVersion createAppVersionFromStagedFile(String stagedPath, String appId, String updateDescription, Boolean forceUpdate) {
+        try {
+            File stagedApkFile = fileStorageService.resolveApkPath(stagedPath).toFile();
+            boolean promoteScheduled = false;
 
             try {
                 // 3. 解析APK文件
-                ParsedApkData parsedData = apkParserService.parseApk(tempApkFile);
+                ParsedApkData parsedData = apkParserService.parseApk(stagedApkFile);
                 log.info("APK解析完成: {}", parsedData);
 
                 // 4. 查找或创建AppInfo
@@ -71,8 +141,11 @@ public class AppVersionService {
                 // 5. 检查版本是否已存在
                 checkVersionExists(appInfo, parsedData.getVersionCodeAsInt());
 
-                // 6. 重新存储APK文件（使用正确的版本号）
-                String finalFileName = fileStorageService.storeApkFile(apkFile, appId, parsedData.getVersionCode());
+                // 5.1 检查签名者与该应用最新的已签名版本一致
+                signerPinService.checkSameSigner(appId, parsedData.getSignerFingerprints());
+
+                // 6. 计算APK文件的最终位置（使用正确的版本号），文件在事务提交后才移动过去
+                String finalFileName = fileStorageService.apkStoragePath(appId, parsedData.getVersionCode(), null);
                 String downloadUrl = fileStorageService.generateDownloadUrl(finalFileName);
 
                 // 7. 创建AppVersion实体
@@ -80,13 +153,21 @@ public class AppVersionService {
 
                 // 8. 保存到数据库
                 AppVersion savedVersion = appVersionRepository.save(appVersion);
+                versionStatsService.onVersionCreated(savedVersion);
                 log.info("应用版本创建成功: {} - {}", appInfo.getAppName(), savedVersion.getVersionName());
 
+                // 9. 事务提交后移动APK文件，再在后台提取图标
+                promoteAfterCommit(stagedPath, appId, parsedData.getVersionCode(), null);
+                promoteScheduled = true;
+                appIconService.scheduleExtraction(savedVersion.getId(), savedVersion.getApkPath());
+
                 return savedVersion;
 
             } finally {
-                // 清理临时文件
-                fileStorageService.deleteFile(tempFileName);
+                // 清理暂存文件（已交给事务提交后移动的除外）
+                if (!promoteScheduled && fileStorageService.fileExists(stagedPath)) {
+                    fileStorageService.deleteFile(stagedPath);
+                }
             }
 
         } catch (IOException e) {
@@ -98,6 +179,40 @@ public class AppVersionService {
         }
     }
 
+    /**
+     * 在事务提交后把暂存文件移动到最终位置，回滚时删除暂存文件
+     * 并发上传同一版本时只有提交成功的一方会移动文件，回滚的一方不会覆盖已提交版本的APK，也不会在最终位置留下孤立文件
+     *
+     * @param stagedPath 暂存文件路径（相对路径）
+     * @param appId 应用ID
+     * @param versionCode 版本号
+     * @param qualifier 变体限定符，为null时为通用包
+     */
+    private void promoteAfterCommit(String stagedPath, String appId, String versionCode, String qualifier) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            fileStorageService.promoteStagedApk(stagedPath, appId, versionCode, qualifier);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    fileStorageService.promoteStagedApk(stagedPath, appId, versionCode, qualifier);
+                } catch (Exception e) {
+                    log.error("版本已入库但APK文件移动失败，需要重新上传: appId={}, versionCode={}, stagedPath={}, error={}",
+                            appId, versionCode, stagedPath, e.getMessage(), e);
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED && fileStorageService.fileExists(stagedPath)) {
+                    fileStorageService.deleteFile(stagedPath);
+                }
+            }
+        });
+    }
+
     /**
      * 验证创建参数
      */
@@ -134,6 +249,8 @@ public class AppVersionService {
                     newAppInfo.setForceUpdate(false);
                     
                     AppInfo savedAppInfo = appInfoRepository.save(newAppInfo);
+                    versionStatsService.onAppsCreated(1);
+                    appNameSearchIndex.onAppSaved(savedAppInfo);
                     log.info("创建新应用: {} - {}", savedAppInfo.getAppId(), savedAppInfo.getAppName());
                     return savedAppInfo;
                 });
@@ -160,6 +277,7 @@ public class AppVersionService {
         appVersion.setVersionName(parsedData.getVersionName());
         appVersion.setFileSize(parsedData.getFileSize());
         appVersion.setMd5(parsedData.getMd5());
+        appVersion.setSignerFingerprints(parsedData.getSignerFingerprints());
         appVersion.setApkPath(fileName);
         appVersion.setDownloadUrl(downloadUrl);
         appVersion.setUpdateDescription(updateDescription);
@@ -173,24 +291,95 @@ public class AppVersionService {
      * 转换为DTO
      */
     public AppVersionDto convertToDto(AppVersion appVersion) {
-        // 获取应用信息
-        AppInfo appInfo = appInfoRepository.findById(appVersion.getAppId())
-                .orElseThrow(() -> new BusinessException("找不到应用信息: " + appVersion.getAppId()));
-        
+        return convertToDtos(Collections.singletonList(appVersion)).get(0);
+    }
+
+    /**
+     * 批量转换为DTO（所需的应用名称通过一次查询获取）
+     * 
+     * @param appVersions 版本列表
+     * @return DTO列表，顺序与输入一致
+     */
+    public List<AppVersionDto> convertToDtos(List<AppVersion> appVersions) {
+        if (appVersions.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<String> appIds = appVersions.stream().map(AppVersion::getAppId).collect(Collectors.toSet());
+        Map<String, String> appNames = new HashMap<>();
+        for (Object[] row : appInfoRepository.findAppNamesByAppIdIn(appIds)) {
+            appNames.put((String) row[0], (String) row[1]);
+        }
+
+        return appVersions.stream().map(appVersion -> {
+            if (!appNames.containsKey(appVersion.getAppId())) {
+                throw new BusinessException("找不到应用信息: " + appVersion.getAppId());
+            }
+            return convertToDto(appVersion, appNames.get(appVersion.getAppId()));
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * 批量转换版本摘要为DTO（不含更新说明，所需的应用名称通过一次查询获取）
+     * 
+     * @param summaries 版本摘要列表
+     * @return DTO列表，顺序与输入一致
+     */
+    private List<AppVersionDto> convertSummariesToDtos(List<AppVersionSummary> summaries) {
+        if (summaries.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<String> appIds = summaries.stream().map(AppVersionSummary::getAppId).collect(Collectors.toSet());
+        Map<String, String> appNames = new HashMap<>();
+        for (Object[] row : appInfoRepository.findAppNamesByAppIdIn(appIds)) {
+            appNames.put((String) row[0], (String) row[1]);
+        }
+
+        return summaries.stream().map(summary -> {
+            AppVersionDto dto = new AppVersionDto();
+            dto.setId(summary.getId());
+            dto.setAppId(summary.getAppId());
+            dto.setAppName(appNames.get(summary.getAppId()));
+            dto.setPackageName(summary.getAppId()); // packageName就是appId
+            dto.setVersionCode(summary.getVersionCode());
+            dto.setVersionName(summary.getVersionName());
+            dto.setFileSize(summary.getFileSize());
+            dto.setMd5(summary.getMd5());
+            dto.setSignerFingerprints(summary.getSignerFingerprints());
+            dto.setApkPath(summary.getApkPath());
+            dto.setDownloadUrl(summary.getDownloadUrl());
+            dto.setIconUrl(appIconService.generateIconUrl(summary.getId(), summary.getIconPath()));
+            dto.setForceUpdate(summary.getForceUpdate());
+            dto.setIsReleased(summary.getIsReleased());
+            dto.setArchived(Boolean.TRUE.equals(summary.getArchived()));
+            dto.setCreateTime(summary.getCreateTime());
+            dto.setUpdateTime(summary.getUpdateTime());
+            return dto;
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * 使用已知的应用名称转换为DTO
+     */
+    private AppVersionDto convertToDto(AppVersion appVersion, String appName) {
         AppVersionDto dto = new AppVersionDto();
         dto.setId(appVersion.getId());
         dto.setAppId(appVersion.getAppId());
-        dto.setAppName(appInfo.getAppName());
+        dto.setAppName(appName);
         dto.setPackageName(appVersion.getAppId()); // packageName就是appId
         dto.setVersionCode(appVersion.getVersionCode());
         dto.setVersionName(appVersion.getVersionName());
         dto.setFileSize(appVersion.getFileSize());
         dto.setMd5(appVersion.getMd5());
+        dto.setSignerFingerprints(appVersion.getSignerFingerprints());
         dto.setApkPath(appVersion.getApkPath());
         dto.setDownloadUrl(appVersion.getDownloadUrl());
+        dto.setIconUrl(appIconService.generateIconUrl(appVersion));
         dto.setUpdateDescription(appVersion.getUpdateDescription());
         dto.setForceUpdate(appVersion.getForceUpdate());
         dto.setIsReleased(appVersion.getIsReleased());
+        dto.setArchived(Boolean.TRUE.equals(appVersion.getArchived()));
         dto.setCreateTime(appVersion.getCreateTime());
         dto.setUpdateTime(appVersion.getUpdateTime());
         
@@ -204,48 +393,196 @@ public class AppVersionService {
      * @param pageable 分页参数
      * @return 应用信息及最新版本的分页列表
      */
+    @Transactional(readOnly = true)
     public Page<AppInfoWithLatestVersionDto> getAppsWithLatestVersion(String appNameQuery, Pageable pageable) {
-        Page<AppInfo> appInfoPage;
+        Page<String> appIdPage;
+        // 列表固定按创建时间倒序，忽略请求中的排序参数，保证排序能直接使用idx_app_create_time索引
+        Pageable pageRequest = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
         
-        // 根据是否有搜索条件选择不同的查询方法
-        if (StringUtils.hasText(appNameQuery)) {
+        // 先分页查出本页的应用ID，再只查询这些应用的汇总信息
+        if (StringUtils.hasText(appNameQuery) && appNameSearchIndex.isReady()) {
+            // 搜索索引按相关度排序，只取本页的应用ID
+            log.info("查询应用列表，搜索条件: {}, 分页: {}", appNameQuery, pageable);
+            List<String> matched = appNameSearchIndex.search(appNameQuery);
+            int from = (int) Math.min(pageRequest.getOffset(), matched.size());
+            int to = Math.min(from + pageRequest.getPageSize(), matched.size());
+            appIdPage = new PageImpl<>(matched.subList(from, to), pageRequest, matched.size());
+        } else if (StringUtils.hasText(appNameQuery)) {
             log.info("查询应用列表，搜索条件: {}, 分页: {}", appNameQuery, pageable);
-            appInfoPage = appInfoRepository.findByAppNameContainingWithLatestVersion(appNameQuery, pageable);
+            // 搜索索引构建完成前查数据库，匹配规则和排序与索引相同
+            String keyword = searchKeyword(appNameQuery);
+            appIdPage = appInfoRepository.findAppIdPageByKeyword(keyword, likePattern(keyword), pageRequest);
         } else {
             log.info("查询所有应用列表，分页: {}", pageable);
-            appInfoPage = appInfoRepository.findAllWithLatestVersion(pageable);
+            appIdPage = appInfoRepository.findAppIdPage(pageRequest);
         }
         
-        // 转换为DTO
-        return appInfoPage.map(this::convertToAppInfoWithLatestVersionDto);
+        return toAppListingPage(appIdPage);
+    }
+
+    /**
+     * 切片查询应用列表（支持搜索）
+     * 多取一行判断是否有下一页，不执行COUNT；请求总数时未搜索取计数缓存，搜索时取搜索索引的匹配数
+     * 
+     * @param appNameQuery 应用名称查询条件（可选）
+     * @param pageable 分页参数
+     * @param includeTotal 是否返回总数（为true时返回带总数的分页结果）
+     * @return 应用信息及最新版本的切片
+     */
+    @Transactional(readOnly = true)
+    public Slice<AppInfoWithLatestVersionDto> getAppsWithLatestVersionSlice(String appNameQuery, Pageable pageable,
+                                                                            boolean includeTotal) {
+        // 与分页模式相同，固定按创建时间倒序
+        Pageable pageRequest = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        boolean filtered = StringUtils.hasText(appNameQuery);
+
+        if (filtered && appNameSearchIndex.isReady()) {
+            // 搜索索引在内存中得到全部匹配，总数无需另外统计
+            List<String> matched = appNameSearchIndex.search(appNameQuery);
+            int from = (int) Math.min(pageRequest.getOffset(), matched.size());
+            int to = Math.min(from + pageRequest.getPageSize(), matched.size());
+            List<AppInfoWithLatestVersionDto> content = toAppListing(matched.subList(from, to));
+            return includeTotal
+                    ? new PageImpl<>(content, pageRequest, matched.size())
+                    : new SliceImpl<>(content, pageRequest, to < matched.size());
+        }
+
+        String keyword = filtered ? searchKeyword(appNameQuery) : null;
+        Slice<String> appIdSlice = filtered
+                ? appInfoRepository.findAppIdSliceByKeyword(keyword, likePattern(keyword), pageRequest)
+                : appInfoRepository.findAppIdSlice(pageRequest);
+        Slice<AppInfoWithLatestVersionDto> slice = new SliceImpl<>(
+                toAppListing(appIdSlice.getContent()), pageRequest, appIdSlice.hasNext());
+        if (!includeTotal) {
+            return slice;
+        }
+        // 搜索索引不可用时只能按关键词统计数据库
+        long total = filtered ? appInfoRepository.countByKeyword(likePattern(keyword)) : listingCountCache.getTotalApps();
+        return ListingCountCache.withTotal(slice, total);
+    }
+
+    /**
+     * 数据库搜索使用的关键词（与搜索索引相同：去掉首尾空白并转为小写）
+     */
+    private static String searchKeyword(String query) {
+        return query.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 转义LIKE通配符，使关键词按字面匹配（转义符为'!'）
+     */
+    private static String likePattern(String keyword) {
+        return keyword.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    /**
+     * 将应用ID分页转换为列表DTO，整页应用的汇总信息通过一次查询获取
+     */
+    private Page<AppInfoWithLatestVersionDto> toAppListingPage(Page<String> appIdPage) {
+        return new PageImpl<>(toAppListing(appIdPage.getContent()), appIdPage.getPageable(), appIdPage.getTotalElements());
+    }
+
+    /**
+     * 按给定的应用ID顺序生成列表DTO，整页应用的汇总信息通过一次查询获取
+     */
+    private List<AppInfoWithLatestVersionDto> toAppListing(List<String> appIds) {
+        if (appIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<String, AppReleaseSummary> summaries = new HashMap<>();
+        for (AppReleaseSummary summary : appVersionRepository.findReleaseSummariesByAppIdIn(appIds)) {
+            summaries.put(summary.getAppId(), summary);
+        }
+
+        // 按ID分页的顺序输出，两次查询之间被删除的应用直接跳过
+        return appIds.stream()
+                .map(summaries::get)
+                .filter(Objects::nonNull)
+                .map(this::convertToAppInfoWithLatestVersionDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 游标分页查询应用列表
+     * 按(创建时间倒序, 应用ID正序)做键集分页，任意页的代价与第一页相同
+     * 
+     * @param appNameQuery 应用名称查询条件（可选）
+     * @param cursor 上一页返回的游标（为空表示第一页）
+     * @param size 每页大小
+     * @param includeTotal 是否同时查询总数
+     * @return 应用信息及最新版本的游标分页结果
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<AppInfoWithLatestVersionDto> getAppsWithLatestVersionByCursor(
+            String appNameQuery, String cursor, int size, boolean includeTotal) {
+        int pageSize = normalizeCursorPageSize(size);
+        // 多取一条用于判断是否还有下一页，不需要COUNT
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        boolean filtered = StringUtils.hasText(appNameQuery);
+        boolean indexed = filtered && appNameSearchIndex.isReady();
+        String pattern = filtered ? likePattern(searchKeyword(appNameQuery)) : null;
+
+        List<String> appIds;
+        if (StringUtils.hasText(cursor)) {
+            String[] position = PageCursorCodec.decode(PageCursorCodec.TYPE_APP, cursor);
+            LocalDateTime createTime = parseCursorValue(position[0], LocalDateTime::parse);
+            appIds = indexed
+                    ? appNameSearchIndex.searchAfter(appNameQuery, createTime, position[1], pageSize + 1)
+                    : filtered
+                    ? appInfoRepository.findAppIdsByKeywordAfter(pattern, createTime, position[1], limit)
+                    : appInfoRepository.findAppIdsAfter(createTime, position[1], limit);
+        } else {
+            appIds = indexed
+                    ? appNameSearchIndex.searchAfter(appNameQuery, null, null, pageSize + 1)
+                    : filtered
+                    ? appInfoRepository.findAppIdsByKeyword(pattern, limit)
+                    : appInfoRepository.findAppIds(limit);
+        }
+
+        boolean hasNext = appIds.size() > pageSize;
+        List<AppInfoWithLatestVersionDto> content = toAppListing(hasNext ? appIds.subList(0, pageSize) : appIds);
+
+        CursorPageDto<AppInfoWithLatestVersionDto> page = new CursorPageDto<>();
+        page.setContent(content);
+        page.setSize(pageSize);
+        page.setHasNext(hasNext && !content.isEmpty());
+        if (page.getHasNext()) {
+            AppInfoWithLatestVersionDto last = content.get(content.size() - 1);
+            page.setNextCursor(PageCursorCodec.encode(PageCursorCodec.TYPE_APP,
+                    last.getCreateTime().toString(), last.getAppId()));
+        }
+        if (includeTotal) {
+            page.setTotalElements(indexed ? appNameSearchIndex.count(appNameQuery)
+                    : filtered ? appInfoRepository.countByKeyword(pattern)
+                    : appInfoRepository.count());
+        }
+        return page;
     }
 
     /**
      * 转换为AppInfoWithLatestVersionDto
      */
-    private AppInfoWithLatestVersionDto convertToAppInfoWithLatestVersionDto(AppInfo appInfo) {
+    private AppInfoWithLatestVersionDto convertToAppInfoWithLatestVersionDto(AppReleaseSummary summary) {
         AppInfoWithLatestVersionDto dto = new AppInfoWithLatestVersionDto();
         dto.setId(null); // 不再使用数字ID
-        dto.setAppId(appInfo.getAppId());
-        dto.setAppName(appInfo.getAppName());
-        dto.setPackageName(appInfo.getAppId()); // packageName就是appId
-        dto.setForceUpdate(appInfo.getForceUpdate());
-        dto.setCreateTime(appInfo.getCreateTime());
-        dto.setUpdateTime(appInfo.getUpdateTime());
-        dto.setTotalVersions((int) appVersionRepository.countByAppId(appInfo.getAppId()));
-
-        // 查找最新的发布版本
-        Optional<AppVersion> latestVersion = appVersionRepository.findByAppIdAndIsReleasedTrue(appInfo.getAppId());
-        if (latestVersion.isPresent()) {
-            AppVersion version = latestVersion.get();
-            dto.setLatestVersionId(version.getId());
-            dto.setLatestVersionCode(version.getVersionCode());
-            dto.setLatestVersionName(version.getVersionName());
-            dto.setLatestFileSize(version.getFileSize());
-            dto.setLatestUpdateDescription(version.getUpdateDescription());
-            dto.setLatestForceUpdate(version.getForceUpdate());
-            dto.setLatestIsReleased(version.getIsReleased());
-            dto.setLatestVersionCreateTime(version.getCreateTime());
+        dto.setAppId(summary.getAppId());
+        dto.setAppName(summary.getAppName());
+        dto.setPackageName(summary.getAppId()); // packageName就是appId
+        dto.setForceUpdate(summary.getAppForceUpdate());
+        dto.setCreateTime(summary.getAppCreateTime());
+        dto.setUpdateTime(summary.getAppUpdateTime());
+        dto.setTotalVersions(summary.getTotalVersions().intValue());
+
+        // 最新的发布版本
+        if (summary.getVersionId() != null) {
+            dto.setLatestVersionId(summary.getVersionId());
+            dto.setLatestVersionCode(summary.getVersionCode());
+            dto.setLatestVersionName(summary.getVersionName());
+            dto.setLatestFileSize(summary.getFileSize());
+            dto.setLatestForceUpdate(summary.getForceUpdate());
+            dto.setLatestIsReleased(summary.getIsReleased());
+            dto.setLatestVersionCreateTime(summary.getCreateTime());
         }
         
         return dto;
@@ -254,6 +591,7 @@ public class AppVersionService {
     /**
      * 查询指定应用的版本列表
      */
+    @Transactional(readOnly = true)
     public Page<AppVersionDto> getAppVersions(String appId, Pageable pageable) {
         try {
             log.info("查询应用版本列表: appId={}", appId);
@@ -264,7 +602,8 @@ public class AppVersionService {
         
             Page<AppVersion> versionsPage = appVersionRepository.findByAppIdOrderByVersionCodeDesc(appId, pageable);
             
-            Page<AppVersionDto> dtoPage = versionsPage.map(this::convertToDto);
+            // 所有版本属于同一应用，直接使用已查询的应用名称
+            Page<AppVersionDto> dtoPage = versionsPage.map(version -> convertToDto(version, appInfo.getAppName()));
         
             log.info("查询应用版本列表成功: appId={}, 总数={}", appId, dtoPage.getTotalElements());
             return dtoPage;
@@ -275,6 +614,90 @@ public class AppVersionService {
         }
     }
 
+    /**
+     * 切片查询指定应用的版本列表
+     * 多取一行判断是否有下一页，不执行COUNT；请求总数时取计数缓存
+     * 
+     * @param appId 应用ID
+     * @param pageable 分页参数
+     * @param includeTotal 是否返回总数（为true时返回带总数的分页结果）
+     * @return 应用版本的切片
+     */
+    @Transactional(readOnly = true)
+    public Slice<AppVersionDto> getAppVersionsSlice(String appId, Pageable pageable, boolean includeTotal) {
+        AppInfo appInfo = appInfoRepository.findById(appId)
+                .orElseThrow(() -> new BusinessException("应用不存在: " + appId));
+
+        Slice<AppVersionDto> slice = appVersionRepository.findSliceByAppIdOrderByVersionCodeDesc(appId, pageable)
+                .map(version -> convertToDto(version, appInfo.getAppName()));
+        return includeTotal ? ListingCountCache.withTotal(slice, listingCountCache.getVersionCount(appId)) : slice;
+    }
+
+    /**
+     * 游标分页查询指定应用的版本列表
+     * 按(版本号倒序, ID倒序)做键集分页，任意页的代价与第一页相同
+     * 
+     * @param appId 应用ID
+     * @param cursor 上一页返回的游标（为空表示第一页）
+     * @param size 每页大小
+     * @param includeTotal 是否同时查询总数
+     * @return 应用版本的游标分页结果
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<AppVersionDto> getAppVersionsByCursor(String appId, String cursor, int size, boolean includeTotal) {
+        AppInfo appInfo = appInfoRepository.findById(appId)
+                .orElseThrow(() -> new BusinessException("应用不存在: " + appId));
+
+        int pageSize = normalizeCursorPageSize(size);
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<AppVersion> versions;
+        if (StringUtils.hasText(cursor)) {
+            String[] position = PageCursorCodec.decode(PageCursorCodec.TYPE_VERSION, cursor);
+            versions = appVersionRepository.findVersionsByAppIdAfter(appId,
+                    parseCursorValue(position[0], Integer::valueOf), parseCursorValue(position[1], Long::valueOf), limit);
+        } else {
+            versions = appVersionRepository.findVersionsByAppId(appId, limit);
+        }
+
+        boolean hasNext = versions.size() > pageSize;
+        List<AppVersion> pageVersions = hasNext ? versions.subList(0, pageSize) : versions;
+
+        CursorPageDto<AppVersionDto> page = new CursorPageDto<>();
+        page.setContent(pageVersions.stream()
+                .map(version -> convertToDto(version, appInfo.getAppName()))
+                .collect(Collectors.toList()));
+        page.setSize(pageSize);
+        page.setHasNext(hasNext);
+        if (hasNext) {
+            AppVersion last = pageVersions.get(pageVersions.size() - 1);
+            page.setNextCursor(PageCursorCodec.encode(PageCursorCodec.TYPE_VERSION,
+                    String.valueOf(last.getVersionCode()), String.valueOf(last.getId())));
+        }
+        if (includeTotal) {
+            page.setTotalElements(appVersionRepository.countByAppId(appId));
+        }
+        return page;
+    }
+
+    /**
+     * 游标分页大小限制在1到MAX_CURSOR_PAGE_SIZE之间
+     */
+    private int normalizeCursorPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+    }
+
+    /**
+     * 解析游标中的排序键，格式错误统一按无效游标处理
+     */
+    private <T> T parseCursorValue(String value, Function<String, T> parser) {
+        try {
+            return parser.apply(value);
+        } catch (RuntimeException e) {
+            throw new BusinessException("无效的分页游标");
+        }
+    }
+
     /**
      * 修改应用版本信息
      * 
@@ -294,6 +717,7 @@ public class AppVersionService {
             version.setUpdateDescription(updateRequest.getUpdateDescription());
         }
         if (updateRequest.getForceUpdate() != null) {
+            versionStatsService.onForceUpdateChanged(version.getForceUpdate(), updateRequest.getForceUpdate());
             version.setForceUpdate(updateRequest.getForceUpdate());
         }
         
@@ -328,45 +752,228 @@ public class AppVersionService {
                 log.warn("删除APK文件失败: {}, error={}", version.getApkPath(), e.getMessage());
             }
         }
+
+        // 图标属于派生数据，随版本一起删除
+        appIconService.deleteIcons(version.getIconPath());
+
+        // 删除版本的全部变体
+        List<AppVersionVariant> variants = appVersionVariantRepository.findByVersionIdOrderByFileSizeAsc(versionId);
+        if (!variants.isEmpty()) {
+            if (forceDelete == null || forceDelete) {
+                variants.forEach(variant -> fileStorageService.deleteFile(variant.getApkPath()));
+            }
+            appVersionVariantRepository.deleteAll(variants);
+            versionVariantIndex.invalidate(versionId);
+        }
         
+        // 删除的是发布版本时清空应用的发布版本指针
+        appInfoRepository.clearReleasedVersionId(versionId);
+
         // 删除数据库记录
         appVersionRepository.delete(version);
+        versionStatsService.onVersionDeleted(version);
         
         log.info("删除应用版本成功: versionId={}, versionCode={}", versionId, version.getVersionCode());
     }
 
     /**
-     * 批量删除应用版本
+     * 获取版本图标
      * 
-     * @param batchDeleteRequest 批量删除请求
-     * @return 删除成功的版本ID列表
+     * @param versionId 版本ID
+     * @param size 期望尺寸（可选）
+     * @return 图标内容，尚未提取到图标时返回null
+     */
+    public AppIconService.IconContent getVersionIcon(Long versionId, Integer size) {
+        AppVersion version = appVersionRepository.findById(versionId)
+                .orElseThrow(() -> new BusinessException("版本不存在: " + versionId));
+        return appIconService.loadIcon(version, size);
+    }
+
+    /**
+     * 为版本添加ABI/屏幕密度变体
+     * 变体必须与版本的包名和版本号一致；未指定ABI时根据APK内的原生库目录自动识别
+     * 
+     * @param versionId 版本ID
+     * @param apkFile 变体APK文件
+     * @param abi 目标ABI（可选）
+     * @param screenDensity 目标屏幕密度dpi（可选）
+     * @return 变体DTO
      */
     @Transactional
-    public java.util.List<Long> batchDeleteVersions(com.yancey.appupdate.dto.BatchDeleteRequestDto batchDeleteRequest) {
-        log.info("批量删除应用版本: request={}", batchDeleteRequest);
-        
-        java.util.List<Long> successIds = new java.util.ArrayList<>();
-        java.util.List<String> errors = new java.util.ArrayList<>();
-        
-        for (Long versionId : batchDeleteRequest.getVersionIds()) {
-            try {
-                deleteAppVersion(versionId, batchDeleteRequest.getForceDelete());
-                successIds.add(versionId);
-            } catch (Exception e) {
-                errors.add("版本ID " + versionId + ": " + e.getMessage());
-                log.error("删除版本失败: versionId={}, error={}", versionId, e.getMessage());
+    public AppVersionVariantDto addVersionVariant(Long versionId, MultipartFile apkFile, String abi, Integer screenDensity) {
+        AppVersion version = appVersionRepository.findById(versionId)
+                .orElseThrow(() -> new BusinessException("版本不存在: " + versionId));
+        validateCreateParams(apkFile, version.getAppId());
+
+        String stagedPath;
+        try (InputStream inputStream = apkFile.getInputStream()) {
+            stagedPath = fileStorageService.stageApkStream(inputStream);
+        } catch (IOException e) {
+            log.error("上传版本变体失败: {}", e.getMessage(), e);
+            throw new BusinessException("APK文件处理失败: " + e.getMessage());
+        }
+
+        boolean promoteScheduled = false;
+        try {
+            File stagedApkFile = fileStorageService.resolveApkPath(stagedPath).toFile();
+            ParsedApkData parsedData = apkParserService.parseApk(stagedApkFile);
+
+            if (!version.getAppId().equals(parsedData.getPackageName())) {
+                throw new BusinessException(String.format("变体包名 %s 与版本包名 %s 不一致",
+                        parsedData.getPackageName(), version.getAppId()));
+            }
+            if (!version.getVersionCode().equals(parsedData.getVersionCodeAsInt())) {
+                throw new BusinessException(String.format("变体版本号 %s 与版本号 %d 不一致",
+                        parsedData.getVersionCode(), version.getVersionCode()));
+            }
+
+            if (appProperties.getSignature().isEnabled() && appProperties.getSignature().isEnforceSameSigner()
+                    && version.getSignerFingerprints() != null
+                    && !version.getSignerFingerprints().equals(parsedData.getSignerFingerprints())) {
+                throw new BusinessException("变体签名证书与版本不一致");
+            }
+
+            String variantAbi = resolveVariantAbi(stagedApkFile, abi);
+            if (screenDensity != null && screenDensity <= 0) {
+                throw new BusinessException("屏幕密度必须为正数");
+            }
+            if (variantAbi == null && screenDensity == null) {
+                throw new BusinessException("变体必须指定ABI或屏幕密度");
+            }
+
+            for (AppVersionVariant existing : appVersionVariantRepository.findByVersionIdOrderByFileSizeAsc(versionId)) {
+                if (Objects.equals(existing.getAbi(), variantAbi)
+                        && Objects.equals(existing.getScreenDensity(), screenDensity)) {
+                    throw new BusinessException(String.format("变体已存在: abi=%s, density=%s", variantAbi, screenDensity));
+                }
+            }
+
+            String qualifier = (variantAbi != null ? variantAbi : "any") + "-" + (screenDensity != null ? screenDensity + "dpi" : "any");
+            String apkPath = fileStorageService.apkStoragePath(version.getAppId(),
+                    String.valueOf(version.getVersionCode()), qualifier);
+
+            AppVersionVariant variant = new AppVersionVariant();
+            variant.setVersionId(versionId);
+            variant.setAbi(variantAbi);
+            variant.setScreenDensity(screenDensity);
+            variant.setFileSize(parsedData.getFileSize());
+            variant.setMd5(parsedData.getMd5());
+            variant.setApkPath(apkPath);
+            variant.setDownloadUrl(fileStorageService.generateDownloadUrl(apkPath));
+            AppVersionVariant savedVariant = appVersionVariantRepository.save(variant);
+            promoteAfterCommit(stagedPath, version.getAppId(), String.valueOf(version.getVersionCode()), qualifier);
+            promoteScheduled = true;
+
+            versionVariantIndex.invalidate(versionId);
+            log.info("版本变体创建成功: versionId={}, abi={}, density={}, fileSize={}",
+                    versionId, variantAbi, screenDensity, savedVariant.getFileSize());
+            return convertToVariantDto(savedVariant);
+
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("上传版本变体失败: versionId={}, error={}", versionId, e.getMessage(), e);
+            throw new BusinessException("上传版本变体失败: " + e.getMessage());
+        } finally {
+            if (!promoteScheduled && fileStorageService.fileExists(stagedPath)) {
+                fileStorageService.deleteFile(stagedPath);
             }
         }
-        
-        log.info("批量删除应用版本完成: 成功={}, 失败={}", successIds.size(), errors.size());
-        
-        if (!errors.isEmpty() && successIds.isEmpty()) {
-            throw new BusinessException("批量删除失败: " + String.join(", ", errors));
-        } else if (!errors.isEmpty()) {
-            log.warn("部分删除失败: {}", String.join(", ", errors));
+    }
+
+    /**
+     * 确定变体的ABI：显式指定时校验APK确实包含该ABI的原生库，否则在仅含单一ABI时自动识别
+     */
+    private String resolveVariantAbi(File apkFile, String abi) {
+        Set<String> nativeAbis = apkParserService.detectNativeAbis(apkFile);
+        if (StringUtils.hasText(abi)) {
+            String trimmedAbi = abi.trim();
+            if (!KNOWN_ABIS.contains(trimmedAbi)) {
+                throw new BusinessException("不支持的ABI: " + trimmedAbi);
+            }
+            if (!nativeAbis.isEmpty() && !nativeAbis.contains(trimmedAbi)) {
+                throw new BusinessException(String.format("APK不包含ABI %s 的原生库，实际包含: %s", trimmedAbi, nativeAbis));
+            }
+            return trimmedAbi;
+        }
+        return nativeAbis.size() == 1 ? nativeAbis.iterator().next() : null;
+    }
+
+    /**
+     * 查询版本的全部变体
+     * 
+     * @param versionId 版本ID
+     * @return 按文件大小升序排列的变体列表
+     */
+    public List<AppVersionVariantDto> getVersionVariants(Long versionId) {
+        if (!appVersionRepository.existsById(versionId)) {
+            throw new BusinessException("版本不存在: " + versionId);
+        }
+        return appVersionVariantRepository.findByVersionIdOrderByFileSizeAsc(versionId).stream()
+                .map(this::convertToVariantDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 删除版本变体
+     * 
+     * @param variantId 变体ID
+     */
+    @Transactional
+    public void deleteVersionVariant(Long variantId) {
+        AppVersionVariant variant = appVersionVariantRepository.findById(variantId)
+                .orElseThrow(() -> new BusinessException("变体不存在: " + variantId));
+
+        fileStorageService.deleteFile(variant.getApkPath());
+        appVersionVariantRepository.delete(variant);
+        versionVariantIndex.invalidate(variant.getVersionId());
+        log.info("删除版本变体成功: variantId={}, versionId={}", variantId, variant.getVersionId());
+    }
+
+    private AppVersionVariantDto convertToVariantDto(AppVersionVariant variant) {
+        AppVersionVariantDto dto = new AppVersionVariantDto();
+        dto.setId(variant.getId());
+        dto.setVersionId(variant.getVersionId());
+        dto.setAbi(variant.getAbi());
+        dto.setScreenDensity(variant.getScreenDensity());
+        dto.setFileSize(variant.getFileSize());
+        dto.setMd5(variant.getMd5());
+        dto.setDownloadUrl(variant.getDownloadUrl());
+        dto.setCreateTime(variant.getCreateTime());
+        return dto;
+    }
+
+    /**
+     * 获取版本APK的元数据（命中解析缓存时无需重新解析文件）
+     * 
+     * @param versionId 版本ID
+     * @return APK元数据
+     */
+    public ApkMetadataDto getVersionMetadata(Long versionId) {
+        AppVersion version = appVersionRepository.findById(versionId)
+                .orElseThrow(() -> new BusinessException("版本不存在: " + versionId));
+
+        try {
+            File apkFile = fileStorageService.resolveApkPath(version.getApkPath()).toFile();
+            ApkMetadata metadata = apkParserService.getMetadata(apkFile, version.getMd5());
+
+            ApkMetadataDto dto = new ApkMetadataDto();
+            dto.setVersionId(versionId);
+            dto.setMd5(metadata.getMd5());
+            dto.setPackageName(metadata.getPackageName());
+            dto.setVersionCode(metadata.getVersionCode());
+            dto.setVersionName(metadata.getVersionName());
+            dto.setAppName(metadata.getAppName());
+            dto.setMinSdkVersion(metadata.getMinSdkVersion());
+            dto.setTargetSdkVersion(metadata.getTargetSdkVersion());
+            dto.setFileSize(metadata.getFileSize());
+            dto.setSignatureScheme(metadata.getSignatureScheme());
+            dto.setSignerFingerprints(metadata.getSignerFingerprints());
+            return dto;
+        } catch (IOException e) {
+            log.error("获取版本元数据失败: versionId={}, error={}", versionId, e.getMessage(), e);
+            throw new BusinessException("获取版本元数据失败: " + e.getMessage());
         }
-        
-        return successIds;
     }
 
     /**
@@ -401,34 +1008,33 @@ public class AppVersionService {
      * 
      * @return 统计信息
      */
+    @Transactional(readOnly = true)
     public com.yancey.appupdate.dto.VersionStatsDto getVersionStats() {
         log.info("获取版本统计信息");
         
         com.yancey.appupdate.dto.VersionStatsDto stats = new com.yancey.appupdate.dto.VersionStatsDto();
         
-        // 应用总数
-        stats.setTotalApps(appInfoRepository.count());
-        
-        // 版本总数
-        stats.setTotalVersions(appVersionRepository.count());
+        // 聚合值从增量维护的计数器读取
+        Map<String, Long> counters = versionStatsService.getCounters();
+        long totalVersions = counters.get(VersionStatsService.TOTAL_VERSIONS);
+        long releasedVersions = counters.get(VersionStatsService.RELEASED_VERSIONS);
+        stats.setTotalApps(counters.get(VersionStatsService.TOTAL_APPS));
+        stats.setTotalVersions(totalVersions);
         
         // 发布版本统计（替代原有的状态统计）
-        stats.setEnabledVersions(appVersionRepository.countByIsReleasedTrue());
-        stats.setDisabledVersions(appVersionRepository.count() - appVersionRepository.countByIsReleasedTrue());
+        stats.setEnabledVersions(releasedVersions);
+        stats.setDisabledVersions(totalVersions - releasedVersions);
         stats.setTestVersions(0L); // 不再区分测试版本
         
         // 强制更新版本数
-        stats.setForceUpdateVersions(appVersionRepository.countByForceUpdateTrue());
+        stats.setForceUpdateVersions(counters.get(VersionStatsService.FORCE_UPDATE_VERSIONS));
         
         // 文件总大小
-        Long totalSize = appVersionRepository.sumFileSize();
-        stats.setTotalFileSize(totalSize != null ? totalSize : 0L);
+        stats.setTotalFileSize(counters.get(VersionStatsService.TOTAL_FILE_SIZE));
         
-        // 最近版本（最近10个）
-        java.util.List<AppVersion> recentVersions = appVersionRepository.findTop10ByOrderByCreateTimeDesc();
-        stats.setRecentVersions(recentVersions.stream()
-                .map(this::convertToDto)
-                .collect(java.util.stream.Collectors.toList()));
+        // 最近版本（最近10个，不含更新说明）
+        List<AppVersionSummary> recentVersions = appVersionRepository.findRecentVersionSummaries(PageRequest.of(0, 10));
+        stats.setRecentVersions(convertSummariesToDtos(recentVersions));
         
         stats.setStatisticsTime(LocalDateTime.now());
         
@@ -441,23 +1047,33 @@ public class AppVersionService {
      * 检查更新
      */
     public com.yancey.appupdate.dto.CheckUpdateResponseDto checkUpdate(String appId, Integer currentVersionCode) {
+        return checkUpdate(appId, currentVersionCode, null, null);
+    }
+
+    /**
+     * 移动端检查更新（按设备ABI和屏幕密度选择最小的兼容变体）
+     * 
+     * @param appId 应用ID
+     * @param currentVersionCode 当前版本号
+     * @param supportedAbis 设备支持的ABI（可选）
+     * @param screenDensity 设备屏幕密度dpi（可选）
+     * @return 检查更新响应
+     */
+    @Transactional(readOnly = true)
+    public com.yancey.appupdate.dto.CheckUpdateResponseDto checkUpdate(String appId, Integer currentVersionCode,
+                                                                     List<String> supportedAbis, Integer screenDensity) {
         try {
         log.info("检查更新: appId={}, currentVersionCode={}", appId, currentVersionCode);
         
-            // 验证应用是否存在
-            AppInfo appInfo = appInfoRepository.findById(appId)
+            // 按发布版本指针一次查出应用和发布版本的窄字段，不加载实体及更新说明
+            CheckUpdateTarget releaseVersion = appVersionRepository.findCheckUpdateTarget(appId)
                     .orElseThrow(() -> new BusinessException("应用不存在: " + appId));
             
-            // 查找当前发布版本
-            Optional<AppVersion> releaseVersionOpt = appVersionRepository.findByAppIdAndIsReleasedTrue(appId);
-            
-            if (!releaseVersionOpt.isPresent()) {
+            if (releaseVersion.getVersionId() == null) {
                 log.info("应用暂无发布版本: appId={}", appId);
                 return createNoUpdateResponse();
             }
             
-            AppVersion releaseVersion = releaseVersionOpt.get();
-            
             // 判断是否需要更新
             if (releaseVersion.getVersionCode() <= currentVersionCode) {
                 log.info("当前版本已是最新: appId={}, currentVersionCode={}, releaseVersionCode={}", 
@@ -469,7 +1085,24 @@ public class AppVersionService {
             log.info("发现新版本: appId={}, currentVersionCode={}, newVersionCode={}", 
                     appId, currentVersionCode, releaseVersion.getVersionCode());
             
-            return createUpdateResponse(releaseVersion, appInfo.getForceUpdate());
+            // 只有确实下发更新时才读取更新说明
+            com.yancey.appupdate.dto.CheckUpdateResponseDto response = createUpdateResponse(releaseVersion,
+                    appVersionRepository.findUpdateDescriptionById(releaseVersion.getVersionId()));
+
+            // 存在比通用包更小的兼容变体时改为下发变体
+            Optional<VersionVariantIndex.VariantEntry> variant = versionVariantIndex.selectSmallest(
+                    releaseVersion.getVersionId(), supportedAbis, screenDensity);
+            if (variant.isPresent() && variant.get().getFileSize() < releaseVersion.getFileSize()) {
+                VersionVariantIndex.VariantEntry selected = variant.get();
+                response.setDownloadUrl(selected.getDownloadUrl());
+                response.setMd5(selected.getMd5());
+                response.setFileSize(selected.getFileSize());
+                response.setAbi(selected.getAbi());
+                response.setScreenDensity(selected.getScreenDensity());
+                log.info("下发版本变体: appId={}, variantId={}, abi={}, density={}, fileSize={}",
+                        appId, selected.getId(), selected.getAbi(), selected.getScreenDensity(), selected.getFileSize());
+            }
+            return response;
 
         } catch (Exception e) {
             log.error("检查更新失败: appId={}, currentVersionCode={}, error={}", appId, currentVersionCode, e.getMessage(), e);
@@ -492,11 +1125,12 @@ public class AppVersionService {
     public AppVersionDto setReleaseVersion(String appId, Long versionId) {
         log.info("设置发布版本: appId={}, versionId={}", appId, versionId);
         
-        // 1. 验证应用和版本存在性
-        AppInfo appInfo = appInfoRepository.findById(appId)
+        // 1. 验证应用和版本存在性（锁定应用行，同一应用的发布切换串行执行）
+        AppInfo appInfo = appInfoRepository.findByIdForUpdate(appId)
                 .orElseThrow(() -> new IllegalArgumentException("应用不存在: " + appId));
         
-        AppVersion targetVersion = appVersionRepository.findById(versionId)
+        // 锁定版本行并直接从数据库读取，归档标记以数据库为准（归档任务同样先锁定应用行再标记）
+        AppVersion targetVersion = appVersionRepository.findByIdForUpdate(versionId)
                 .orElseThrow(() -> new IllegalArgumentException("版本不存在: " + versionId));
         
         // 2. 验证版本属于该应用
@@ -504,13 +1138,25 @@ public class AppVersionService {
             throw new IllegalArgumentException("版本不属于指定应用");
         }
         
-        // 3. 原子操作：先清除所有发布状态，再设置新的发布版本
-        int updatedCount = appVersionRepository.updateAllVersionsToNonReleased(appId);
-        log.info("清除应用所有发布状态: appId={}, updatedCount={}", appId, updatedCount);
+        // 3. 更新应用的发布版本指针，并同步原发布版本和新发布版本的兼容标记
+        Long previousVersionId = appInfo.getReleasedVersionId();
+        if (previousVersionId != null && !previousVersionId.equals(versionId)) {
+            appVersionRepository.updateReleased(previousVersionId, false);
+            log.info("取消原发布版本: appId={}, versionId={}", appId, previousVersionId);
+        }
+        appInfoRepository.updateReleasedVersionId(appId, versionId);
+        if (previousVersionId == null) {
+            versionStatsService.onReleasedChanged(1);
+        }
         
         targetVersion.setIsReleased(true);
         targetVersion.setUpdateTime(LocalDateTime.now());
         AppVersion savedVersion = appVersionRepository.save(targetVersion);
+
+        // 已归档的版本重新发布后移回热存储（恢复完成前下载仍从归档目录读取）
+        if (Boolean.TRUE.equals(targetVersion.getArchived())) {
+            versionArchiveService.scheduleRestore(versionId);
+        }
         
         log.info("设置发布版本成功: appId={}, versionId={}, versionCode={}", 
                 appId, versionId, savedVersion.getVersionCode());
@@ -547,10 +1193,13 @@ public class AppVersionService {
      * @param appId 应用ID
      * @return 当前发布版本，如果没有则返回null
      */
+    @Transactional(readOnly = true)
     public AppVersionDto getCurrentReleaseVersion(String appId) {
         log.info("获取当前发布版本: appId={}", appId);
         
-        Optional<AppVersion> releaseVersion = appVersionRepository.findByAppIdAndIsReleasedTrue(appId);
+        Optional<AppVersion> releaseVersion = appInfoRepository.findById(appId)
+                .map(AppInfo::getReleasedVersionId)
+                .flatMap(appVersionRepository::findById);
         
         if (releaseVersion.isPresent()) {
             log.info("找到发布版本: appId={}, versionCode={}", appId, releaseVersion.get().getVersionCode());
@@ -620,6 +1269,8 @@ public class AppVersionService {
 
             // 3. 保存到数据库
             AppInfo savedAppInfo = appInfoRepository.save(appInfo);
+            versionStatsService.onAppsCreated(1);
+            appNameSearchIndex.onAppSaved(savedAppInfo);
             log.info("应用创建成功: appId={}, appName={}", savedAppInfo.getAppId(), savedAppInfo.getAppName());
 
             return savedAppInfo;
@@ -635,12 +1286,13 @@ public class AppVersionService {
         return com.yancey.appupdate.dto.CheckUpdateResponseDto.noUpdate();
     }
 
-    private com.yancey.appupdate.dto.CheckUpdateResponseDto createUpdateResponse(AppVersion releaseVersion, Boolean forceUpdate) {
+    private com.yancey.appupdate.dto.CheckUpdateResponseDto createUpdateResponse(CheckUpdateTarget releaseVersion,
+                                                                                String updateDescription) {
         return com.yancey.appupdate.dto.CheckUpdateResponseDto.hasUpdate(
                 releaseVersion.getVersionName(),
                 releaseVersion.getVersionCode(),
-                releaseVersion.getUpdateDescription(),
-                forceUpdate, // 使用应用级别的强制更新设置
+                updateDescription,
+                releaseVersion.getAppForceUpdate(), // 使用应用级别的强制更新设置
                 releaseVersion.getDownloadUrl(),
                 releaseVersion.getMd5(),
                 releaseVersion.getFileSize()
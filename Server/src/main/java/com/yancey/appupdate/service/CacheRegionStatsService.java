@@ -0,0 +1,62 @@
+package com.yancey.appupdate.service;
+
+import com.yancey.appupdate.dto.CacheRegionStatsDto;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 二级缓存区域统计服务
+ * 命中、未命中和写入次数来自Hibernate统计信息，自应用启动起累计
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-19
+ */
+@Service
+@RequiredArgsConstructor
+public class CacheRegionStatsService {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * 获取各缓存区域的命中统计（未启用二级缓存时返回空列表）
+     *
+     * @return 缓存区域统计列表（按区域名称排序）
+     */
+    public List<CacheRegionStatsDto> getRegionStats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            return Collections.emptyList();
+        }
+
+        String[] regionNames = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regionNames);
+
+        List<CacheRegionStatsDto> result = new ArrayList<>();
+        for (String regionName : regionNames) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(regionName);
+            if (regionStatistics == null) {
+                continue;
+            }
+
+            CacheRegionStatsDto dto = new CacheRegionStatsDto();
+            dto.setRegion(regionName);
+            dto.setHitCount(regionStatistics.getHitCount());
+            dto.setMissCount(regionStatistics.getMissCount());
+            dto.setPutCount(regionStatistics.getPutCount());
+            long lookups = regionStatistics.getHitCount() + regionStatistics.getMissCount();
+            dto.setHitRatio(lookups > 0 ? (double) regionStatistics.getHitCount() / lookups : null);
+            result.add(dto);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,121 @@
+package com.yancey.appupdate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文件回收服务
+ * 删除数据库记录的事务中先把APK文件改名到回收站中的唯一路径，提交后在后台线程中删除回收站文件和图标目录，
+ * 删除请求不再等待文件系统；排队期间重新上传到原路径的文件不受影响；事务回滚时文件移回原路径
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-19
+ */
+@Slf4j
+@Service
+public class FileReclaimService {
+
+    /**
+     * 关闭时等待已提交回收任务完成的最长时间（秒）
+     */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final FileStorageService fileStorageService;
+    private final AppIconService appIconService;
+    private final ExecutorService reclaimExecutor;
+
+    public FileReclaimService(FileStorageService fileStorageService, AppIconService appIconService) {
+        this.fileStorageService = fileStorageService;
+        this.appIconService = appIconService;
+        this.reclaimExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "file-reclaimer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 关闭时处理完已提交的回收任务，避免留下孤立文件
+     */
+    @PreDestroy
+    public void shutdown() {
+        reclaimExecutor.shutdown();
+        try {
+            if (!reclaimExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("文件回收任务未在{}秒内完成，剩余文件需手动清理", SHUTDOWN_TIMEOUT_SECONDS);
+                reclaimExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            reclaimExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 调度文件回收
+     * APK文件（含归档副本）立即移入回收站；处于事务中时在事务提交后删除，回滚时移回原路径
+     *
+     * @param apkPaths 待删除的APK文件路径（相对路径）
+     * @param iconPaths 待删除图标的原图路径
+     * @return 移入回收站的文件（不存在的文件不计入）
+     */
+    public List<FileStorageService.TrashedFile> reclaimAfterCommit(List<String> apkPaths, List<String> iconPaths) {
+        if (apkPaths.isEmpty() && iconPaths.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<FileStorageService.TrashedFile> trashed = new ArrayList<>();
+        List<String> icons = new ArrayList<>(iconPaths);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 先注册再改名，改名中途失败导致回滚时已移入的文件也能移回
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        submit(trashed, icons);
+                    } else {
+                        fileStorageService.restoreFromTrash(trashed);
+                    }
+                }
+            });
+            for (String apkPath : apkPaths) {
+                trashed.addAll(fileStorageService.moveToTrash(apkPath));
+            }
+        } else {
+            for (String apkPath : apkPaths) {
+                trashed.addAll(fileStorageService.moveToTrash(apkPath));
+            }
+            submit(trashed, icons);
+        }
+        return trashed;
+    }
+
+    private void submit(List<FileStorageService.TrashedFile> trashedFiles, List<String> iconPaths) {
+        reclaimExecutor.execute(() -> reclaim(trashedFiles, iconPaths));
+    }
+
+    private void reclaim(List<FileStorageService.TrashedFile> trashedFiles, List<String> iconPaths) {
+        long start = System.currentTimeMillis();
+        int deleted = 0;
+        for (FileStorageService.TrashedFile file : trashedFiles) {
+            if (fileStorageService.deleteTrashed(file)) {
+                deleted++;
+            }
+        }
+        for (String iconPath : iconPaths) {
+            appIconService.deleteIcons(iconPath);
+        }
+        log.info("文件回收完成: 文件={}(已删除{}), 图标目录={}, 耗时={}ms",
+                trashedFiles.size(), deleted, iconPaths.size(), System.currentTimeMillis() - start);
+    }
+}
@@ -4,19 +4,33 @@ import com.yancey.appupdate.config.AppProperties;
 import com.yancey.appupdate.exception.FileStorageException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.AbstractResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.PostConstruct;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * 文件存储服务
@@ -29,13 +43,42 @@ import java.nio.file.StandardCopyOption;
 @Service
 public class FileStorageService {
 
+    /**
+     * 暂存目录名（位于存储根目录下，上传内容先写入此处，解析完成后再移动到最终位置）
+     */
+    private static final String STAGING_DIRECTORY = ".staging";
+
+    /**
+     * 回收站目录名（位于存储根目录和归档目录下，待删除的文件先改名到此处的唯一路径，事务提交后再删除）
+     */
+    private static final String TRASH_DIRECTORY = ".trash";
+
+    /**
+     * 压缩归档文件的扩展名
+     */
+    private static final String COMPRESSED_SUFFIX = ".gz";
+
+    /**
+     * 写入中的临时文件扩展名（写完后原子改名）
+     */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * 压缩/解压时的缓冲区大小
+     */
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
     private final Path fileStorageLocation;
+    private final Path stagingLocation;
+    private final Path archiveLocation;
     private final String serverBaseUrl;
 
     @Autowired
     public FileStorageService(AppProperties appProperties) {
         this.fileStorageLocation = Paths.get(appProperties.getNormalizedUploadPath())
                 .toAbsolutePath().normalize();
+        this.stagingLocation = this.fileStorageLocation.resolve(STAGING_DIRECTORY);
+        this.archiveLocation = Paths.get(appProperties.getArchive().getPath()).toAbsolutePath().normalize();
         this.serverBaseUrl = appProperties.getNormalizedServerBaseUrl();
     }
 
@@ -43,7 +86,10 @@ public class FileStorageService {
     public void init() {
         try {
             Files.createDirectories(this.fileStorageLocation);
+            Files.createDirectories(this.stagingLocation);
             log.info("文件存储目录初始化成功: {}", this.fileStorageLocation);
+            recoverTrash(fileStorageLocation);
+            recoverTrash(archiveLocation);
         } catch (Exception ex) {
             log.error("无法创建文件存储目录: {}", this.fileStorageLocation, ex);
             throw new FileStorageException("无法创建文件存储目录", ex);
@@ -104,6 +150,115 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * 将上传内容写入暂存目录
+     * 
+     * @param inputStream 上传内容流
+     * @return 暂存文件路径（相对于根目录）
+     */
+    public String stageApkStream(InputStream inputStream) {
+        String fileName = UUID.randomUUID() + ".apk";
+        Path stagedFile = this.stagingLocation.resolve(fileName);
+
+        try {
+            Files.createDirectories(this.stagingLocation);
+            long bytes = Files.copy(inputStream, stagedFile);
+
+            log.debug("上传内容已写入暂存目录: {} ({} bytes)", stagedFile, bytes);
+            return STAGING_DIRECTORY + "/" + fileName;
+        } catch (IOException ex) {
+            try {
+                Files.deleteIfExists(stagedFile);
+            } catch (IOException cleanupEx) {
+                log.warn("清理暂存文件失败: {}", stagedFile, cleanupEx);
+            }
+            log.error("写入暂存文件失败: {}, error={}", stagedFile, ex.getMessage(), ex);
+            throw new FileStorageException("写入暂存文件失败: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * 将暂存文件移动到最终存储位置（同一文件系统内为重命名，不产生额外拷贝）
+     * 
+     * @param stagedPath 暂存文件路径（相对路径）
+     * @param appId 应用ID
+     * @param versionCode 版本号
+     * @return 存储的文件路径（相对于根目录）
+     */
+    public String promoteStagedApk(String stagedPath, String appId, String versionCode) {
+        return promoteStagedApk(stagedPath, appId, versionCode, null);
+    }
+
+    /**
+     * 将暂存文件移动到最终存储位置，文件名附加变体限定符
+     * 
+     * @param stagedPath 暂存文件路径（相对路径）
+     * @param appId 应用ID
+     * @param versionCode 版本号
+     * @param qualifier 变体限定符（如arm64-v8a-480dpi），为null时为通用包
+     * @return 存储的文件路径（相对于根目录）
+     */
+    public String promoteStagedApk(String stagedPath, String appId, String versionCode, String qualifier) {
+        String relativePath = apkStoragePath(appId, versionCode, qualifier);
+        Path target = resolveApkPath(relativePath);
+        String fileName = target.getFileName().toString();
+
+        try {
+            Files.createDirectories(target.getParent());
+            Files.move(resolveApkPath(stagedPath), target, StandardCopyOption.REPLACE_EXISTING);
+
+            log.info("APK文件存储成功: {} -> {}", stagedPath, relativePath);
+            return relativePath;
+        } catch (IOException ex) {
+            log.error("移动暂存文件失败: stagedPath={}, target={}, error={}", stagedPath, relativePath, ex.getMessage(), ex);
+            throw new FileStorageException("存储文件失败: " + fileName, ex);
+        }
+    }
+
+    /**
+     * 把本地APK文件拷贝到暂存目录（用于批量导入等非HTTP上传场景），入库提交后再移动到最终位置
+     * 
+     * @param sourceFile 源APK文件
+     * @return 暂存文件路径（相对于根目录）
+     */
+    public String stageApkFile(Path sourceFile) {
+        if (!Files.isRegularFile(sourceFile)) {
+            throw new FileStorageException("源文件不存在: " + sourceFile);
+        }
+
+        String fileName = UUID.randomUUID() + ".apk";
+        Path stagedFile = this.stagingLocation.resolve(fileName);
+        try {
+            Files.createDirectories(this.stagingLocation);
+            Files.copy(sourceFile, stagedFile);
+
+            log.debug("APK文件已拷贝到暂存目录: {} -> {}", sourceFile, stagedFile);
+            return STAGING_DIRECTORY + "/" + fileName;
+        } catch (IOException ex) {
+            try {
+                Files.deleteIfExists(stagedFile);
+            } catch (IOException cleanupEx) {
+                log.warn("清理暂存文件失败: {}", stagedFile, cleanupEx);
+            }
+            log.error("拷贝到暂存目录失败: source={}, error={}", sourceFile, ex.getMessage(), ex);
+            throw new FileStorageException("拷贝到暂存目录失败: " + sourceFile, ex);
+        }
+    }
+
+    /**
+     * 计算APK的最终存储路径（与promoteStagedApk移动到的位置一致）
+     * 
+     * @param appId 应用ID
+     * @param versionCode 版本号
+     * @param qualifier 变体限定符，为null时为通用包
+     * @return 存储的文件路径（相对于根目录）
+     */
+    public String apkStoragePath(String appId, String versionCode, String qualifier) {
+        String cleanAppId = sanitizeForFilename(appId);
+        return cleanAppId + "/" + cleanAppId + "-" + versionCode
+                + (qualifier != null ? "-" + sanitizeForFilename(qualifier) : "") + ".apk";
+    }
+
     /**
      * 解析APK文件路径
      * 
@@ -139,9 +294,18 @@ public class FileStorageService {
             
             if (resource.exists()) {
                 return resource;
-            } else {
-                throw new FileStorageException("文件不存在: " + filePath);
             }
+
+            // 热存储中没有时从归档目录读取
+            Path archivedPath = resolveArchivePath(filePath);
+            if (Files.exists(archivedPath)) {
+                return new UrlResource(archivedPath.toUri());
+            }
+            Path compressedPath = resolveArchivePath(filePath + COMPRESSED_SUFFIX);
+            if (Files.exists(compressedPath)) {
+                return new GzipFileResource(compressedPath, resolvedPath.getFileName().toString());
+            }
+            throw new FileStorageException("文件不存在: " + filePath);
         } catch (MalformedURLException ex) {
             log.error("文件路径格式错误: {}", filePath, ex);
             throw new FileStorageException("文件路径格式错误: " + filePath, ex);
@@ -166,6 +330,9 @@ public class FileStorageService {
             }
             
             boolean deleted = Files.deleteIfExists(resolvedPath);
+            if (resolvedPath.startsWith(fileStorageLocation)) {
+                deleted |= deleteArchivedFile(fileStorageLocation.relativize(resolvedPath).toString());
+            }
             if (deleted) {
                 log.info("文件删除成功: {}", resolvedPath);
             } else {
@@ -178,6 +345,235 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * 把文件复制到归档目录（先写临时文件再改名），热存储中的文件由调用方在确认后删除
+     * 
+     * @param storedFilePath 存储的文件路径（相对路径）
+     * @param compress 是否以gzip压缩
+     * @return 归档目录中是否已有该文件（热存储中没有但已归档时也返回true）
+     */
+    public boolean copyToArchive(String storedFilePath, boolean compress) {
+        Path source = resolveApkPath(storedFilePath);
+        Path target = resolveArchivePath(compress ? storedFilePath + COMPRESSED_SUFFIX : storedFilePath);
+        Path other = resolveArchivePath(compress ? storedFilePath : storedFilePath + COMPRESSED_SUFFIX);
+        try {
+            if (!Files.exists(source)) {
+                return Files.exists(target) || Files.exists(other);
+            }
+            Files.createDirectories(target.getParent());
+            Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+            if (compress) {
+                try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), STREAM_BUFFER_SIZE)) {
+                    Files.copy(source, out);
+                }
+            } else {
+                Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // 切换过压缩设置时清理另一种格式的旧归档
+            Files.deleteIfExists(other);
+            return true;
+        } catch (IOException ex) {
+            log.error("归档文件失败: {}, error={}", storedFilePath, ex.getMessage(), ex);
+            return false;
+        }
+    }
+
+    /**
+     * 从归档目录恢复文件到热存储（热存储中已存在时直接返回），归档副本由调用方在确认后删除
+     * 
+     * @param storedFilePath 存储的文件路径（相对路径）
+     * @return 热存储中是否已有该文件
+     */
+    public boolean restoreFromArchive(String storedFilePath) {
+        Path target = resolveApkPath(storedFilePath);
+        if (Files.exists(target)) {
+            return true;
+        }
+        Path archived = resolveArchivePath(storedFilePath);
+        Path compressed = resolveArchivePath(storedFilePath + COMPRESSED_SUFFIX);
+        try {
+            Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+            if (Files.exists(archived)) {
+                Files.createDirectories(target.getParent());
+                Files.copy(archived, temp, StandardCopyOption.REPLACE_EXISTING);
+            } else if (Files.exists(compressed)) {
+                Files.createDirectories(target.getParent());
+                try (InputStream in = new GZIPInputStream(Files.newInputStream(compressed), STREAM_BUFFER_SIZE)) {
+                    Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } else {
+                log.warn("归档文件不存在，无法恢复: {}", storedFilePath);
+                return false;
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException ex) {
+            log.error("恢复归档文件失败: {}, error={}", storedFilePath, ex.getMessage(), ex);
+            return false;
+        }
+    }
+
+    /**
+     * 删除热存储中的文件（归档完成后使用）
+     * 
+     * @param storedFilePath 存储的文件路径（相对路径）
+     */
+    public void deleteHotFile(String storedFilePath) {
+        try {
+            Files.deleteIfExists(resolveApkPath(storedFilePath));
+        } catch (IOException ex) {
+            log.warn("删除热存储文件失败: {}, error={}", storedFilePath, ex.getMessage());
+        }
+    }
+
+    /**
+     * 删除归档目录中的文件（压缩和未压缩两种格式）
+     * 
+     * @param storedFilePath 存储的文件路径（相对路径）
+     * @return 是否删除了文件
+     */
+    public boolean deleteArchivedFile(String storedFilePath) {
+        try {
+            boolean deleted = Files.deleteIfExists(resolveArchivePath(storedFilePath));
+            deleted |= Files.deleteIfExists(resolveArchivePath(storedFilePath + COMPRESSED_SUFFIX));
+            return deleted;
+        } catch (IOException ex) {
+            log.warn("删除归档文件失败: {}, error={}", storedFilePath, ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 把文件在热存储和归档目录中的副本改名到回收站中的唯一路径
+     * 之后在原路径写入的同名文件（如重新上传同一版本号）不会被回收任务删除
+     * 
+     * @param storedFilePath 存储的文件路径（相对路径）
+     * @return 移入回收站的文件（没有任何副本时为空）
+     */
+    public List<TrashedFile> moveToTrash(String storedFilePath) {
+        List<TrashedFile> trashed = new ArrayList<>();
+        String batch = UUID.randomUUID().toString();
+        moveToTrash(fileStorageLocation, resolveApkPath(storedFilePath), batch, trashed);
+        moveToTrash(archiveLocation, resolveArchivePath(storedFilePath), batch, trashed);
+        moveToTrash(archiveLocation, resolveArchivePath(storedFilePath + COMPRESSED_SUFFIX), batch, trashed);
+        return trashed;
+    }
+
+    private void moveToTrash(Path root, Path original, String batch, List<TrashedFile> trashed) {
+        if (!original.startsWith(root) || !Files.exists(original)) {
+            return;
+        }
+        Path target = root.resolve(TRASH_DIRECTORY).resolve(batch).resolve(root.relativize(original));
+        try {
+            long size = Files.size(original);
+            Files.createDirectories(target.getParent());
+            Files.move(original, target, StandardCopyOption.ATOMIC_MOVE);
+            trashed.add(new TrashedFile(original, target, size));
+        } catch (IOException ex) {
+            log.error("移入回收站失败: {}, error={}", original, ex.getMessage(), ex);
+            throw new FileStorageException("移入回收站失败: " + original, ex);
+        }
+    }
+
+    /**
+     * 把回收站中的文件移回原路径（事务回滚时使用；原路径已有文件时保留原路径上的文件）
+     * 
+     * @param trashedFiles 移入回收站的文件
+     */
+    public void restoreFromTrash(List<TrashedFile> trashedFiles) {
+        for (TrashedFile file : trashedFiles) {
+            try {
+                if (Files.exists(file.getOriginal())) {
+                    Files.deleteIfExists(file.getTrashed());
+                } else {
+                    Files.move(file.getTrashed(), file.getOriginal(), StandardCopyOption.ATOMIC_MOVE);
+                }
+                deleteEmptyTrashDirectories(file.getTrashed());
+            } catch (IOException ex) {
+                log.error("从回收站恢复文件失败: {} -> {}, error={}", file.getTrashed(), file.getOriginal(), ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * 删除回收站中的文件
+     * 
+     * @param file 移入回收站的文件
+     * @return 是否删除了文件
+     */
+    public boolean deleteTrashed(TrashedFile file) {
+        try {
+            boolean deleted = Files.deleteIfExists(file.getTrashed());
+            deleteEmptyTrashDirectories(file.getTrashed());
+            return deleted;
+        } catch (IOException ex) {
+            log.warn("删除回收站文件失败: {}, error={}", file.getTrashed(), ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 删除回收站中文件所在的空目录（直到批次目录）
+     */
+    private void deleteEmptyTrashDirectories(Path trashedFile) {
+        Path directory = trashedFile.getParent();
+        while (directory != null && !directory.getFileName().toString().equals(TRASH_DIRECTORY)) {
+            try {
+                Files.deleteIfExists(directory);
+            } catch (IOException ex) {
+                // 目录非空（同一批次还有其他文件）
+                return;
+            }
+            directory = directory.getParent();
+        }
+    }
+
+    /**
+     * 启动时处理上次未完成的回收：原路径上没有文件的移回原路径（可能是提交前中断的删除），其余删除
+     */
+    private void recoverTrash(Path root) {
+        Path trash = root.resolve(TRASH_DIRECTORY);
+        if (!Files.isDirectory(trash)) {
+            return;
+        }
+        int restored = 0;
+        int deleted = 0;
+        try (Stream<Path> batches = Files.list(trash)) {
+            for (Path batch : batches.collect(Collectors.toList())) {
+                List<Path> files;
+                try (Stream<Path> paths = Files.walk(batch)) {
+                    files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+                }
+                for (Path file : files) {
+                    Path original = root.resolve(batch.relativize(file));
+                    if (Files.exists(original)) {
+                        Files.delete(file);
+                        deleted++;
+                    } else {
+                        Files.createDirectories(original.getParent());
+                        Files.move(file, original, StandardCopyOption.ATOMIC_MOVE);
+                        restored++;
+                    }
+                }
+                FileSystemUtils.deleteRecursively(batch);
+            }
+        } catch (IOException ex) {
+            log.warn("处理回收站失败: {}, error={}", trash, ex.getMessage(), ex);
+        }
+        if (restored > 0 || deleted > 0) {
+            log.info("处理上次未完成的回收: 目录={}, 移回={}, 删除={}", trash, restored, deleted);
+        }
+    }
+
+    private Path resolveArchivePath(String storedFilePath) {
+        Path path = archiveLocation.resolve(storedFilePath).normalize();
+        if (!path.startsWith(archiveLocation)) {
+            throw new FileStorageException("无效的文件路径: " + storedFilePath);
+        }
+        return path;
+    }
+
     /**
      * 检查文件是否存在
      * 
@@ -242,4 +638,82 @@ public class FileStorageService {
         // 清理包名中的特殊字符，只保留字母、数字、点、下划线、连字符
         return input.replaceAll("[^a-zA-Z0-9._-]", "_");
     }
-} 
\ No newline at end of file
+
+    /**
+     * 移入回收站的文件（不可变）
+     */
+    public static class TrashedFile {
+
+        private final Path original;
+        private final Path trashed;
+        private final long size;
+
+        public TrashedFile(Path original, Path trashed, long size) {
+            this.original = original;
+            this.trashed = trashed;
+            this.size = size;
+        }
+
+        public Path getOriginal() {
+            return original;
+        }
+
+        public Path getTrashed() {
+            return trashed;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+
+    /**
+     * gzip压缩的归档文件，下载时边解压边输出
+     * 长度取自gzip尾部记录的原始大小（APK小于4GB）
+     */
+    private static class GzipFileResource extends AbstractResource {
+
+        private final Path path;
+        private final String filename;
+
+        GzipFileResource(Path path, String filename) {
+            this.path = path;
+            this.filename = filename;
+        }
+
+        @Override
+        public boolean exists() {
+            return Files.exists(path);
+        }
+
+        @Override
+        public String getFilename() {
+            return filename;
+        }
+
+        @Override
+        public String getDescription() {
+            return "gzip archive [" + path + "]";
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new GZIPInputStream(Files.newInputStream(path), STREAM_BUFFER_SIZE);
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            try (SeekableByteChannel channel = Files.newByteChannel(path)) {
+                ByteBuffer trailer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+                channel.position(channel.size() - 4);
+                while (trailer.hasRemaining()) {
+                    if (channel.read(trailer) < 0) {
+                        throw new IOException("gzip文件不完整: " + path);
+                    }
+                }
+                trailer.flip();
+                return Integer.toUnsignedLong(trailer.getInt());
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.yancey.appupdate.service;
+
+import com.yancey.appupdate.config.AppProperties;
+import com.yancey.appupdate.repository.AppVersionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 列表总数缓存
+ * 应用总数直接读取stats_counter中随写入增量维护、定期校准的计数器；各应用的版本数在首次请求时统计，
+ * 超过刷新间隔后再次请求时重新统计，切片分页请求总数时不再随每次翻页执行COUNT。
+ * 版本数最多滞后一个刷新间隔；与切片合并时按本页实际读到的行数校正，最后一页的总数总是准确的
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+@Slf4j
+@Component
+public class ListingCountCache {
+
+    private final AppVersionRepository appVersionRepository;
+    private final VersionStatsService versionStatsService;
+    private final Duration refreshInterval;
+
+    /**
+     * 应用ID -> 版本数
+     */
+    private final Map<String, CachedCount> versionCounts = new ConcurrentHashMap<>();
+
+    public ListingCountCache(AppVersionRepository appVersionRepository,
+                             VersionStatsService versionStatsService,
+                             AppProperties appProperties) {
+        this.appVersionRepository = appVersionRepository;
+        this.versionStatsService = versionStatsService;
+        this.refreshInterval = appProperties.getListing().getCountRefreshInterval();
+    }
+
+    /**
+     * 应用总数
+     *
+     * @return 应用总数
+     */
+    public long getTotalApps() {
+        return versionStatsService.getCounters().get(VersionStatsService.TOTAL_APPS);
+    }
+
+    /**
+     * 指定应用的版本数（缓存值超过刷新间隔时重新统计）
+     *
+     * @param appId 应用ID
+     * @return 版本数
+     */
+    public long getVersionCount(String appId) {
+        long now = System.currentTimeMillis();
+        CachedCount cached = versionCounts.get(appId);
+        if (cached != null && now - cached.countTime < refreshInterval.toMillis()) {
+            return cached.value;
+        }
+        long value = appVersionRepository.countByAppId(appId);
+        versionCounts.put(appId, new CachedCount(value, now));
+        return value;
+    }
+
+    /**
+     * 清除已过期的版本数（已删除应用的条目也由此清除）
+     */
+    @Scheduled(fixedDelayString = "${app.listing.count-refresh-interval:PT1M}",
+               initialDelayString = "${app.listing.count-refresh-interval:PT1M}")
+    public void evictExpired() {
+        long expireBefore = System.currentTimeMillis() - refreshInterval.toMillis();
+        int before = versionCounts.size();
+        versionCounts.values().removeIf(cached -> cached.countTime < expireBefore);
+        log.debug("清除过期的版本数缓存: 清除={}, 剩余={}", before - versionCounts.size(), versionCounts.size());
+    }
+
+    /**
+     * 为切片附加总数：没有下一页时由本页位置得到准确总数，否则取缓存值与已知下界中的较大者
+     *
+     * @param slice 切片
+     * @param cachedTotal 缓存的总数
+     * @return 带总数的分页结果
+     */
+    public static <T> PageImpl<T> withTotal(Slice<T> slice, long cachedTotal) {
+        long offset = slice.getPageable().getOffset();
+        long total;
+        if (slice.hasContent()) {
+            long known = offset + slice.getNumberOfElements();
+            total = slice.hasNext() ? Math.max(cachedTotal, known + 1) : known;
+        } else {
+            // 超出末页时只知道总数不超过偏移量
+            total = Math.min(cachedTotal, offset);
+        }
+        return new PageImpl<>(slice.getContent(), slice.getPageable(), total);
+    }
+
+    /**
+     * 缓存的计数及统计时间（不可变）
+     */
+    private static class CachedCount {
+        private final long value;
+        private final long countTime;
+
+        CachedCount(long value, long countTime) {
+            this.value = value;
+            this.countTime = countTime;
+        }
+    }
+}
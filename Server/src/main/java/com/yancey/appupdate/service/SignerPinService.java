@@ -0,0 +1,103 @@
+package com.yancey.appupdate.service;
+
+import com.yancey.appupdate.config.AppProperties;
+import com.yancey.appupdate.exception.BusinessException;
+import com.yancey.appupdate.repository.AppVersionRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 签名者固定规则
+ * 新版本的签名者必须与该应用最新的已记录签名者的版本（版本号最大）一致，应用还没有已签名版本时不限制；
+ * 上传和批量导入使用同一规则
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SignerPinService {
+
+    private final AppProperties appProperties;
+    private final AppVersionRepository appVersionRepository;
+
+    /**
+     * 是否启用签名者一致性检查
+     */
+    public boolean isEnforced() {
+        return appProperties.getSignature().isEnabled() && appProperties.getSignature().isEnforceSameSigner();
+    }
+
+    /**
+     * 批量查询应用当前固定的签名者（最新的已记录签名者的版本）
+     *
+     * @param appIds 应用ID集合
+     * @return 应用ID -> 固定的签名者，没有已签名版本的应用不在结果中
+     */
+    public Map<String, PinnedSigner> findPinnedSigners(Collection<String> appIds) {
+        if (appIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, PinnedSigner> pinned = new HashMap<>();
+        for (Object[] row : appVersionRepository.findLatestSignerFingerprintsByAppIdIn(appIds)) {
+            pinned.put((String) row[0], new PinnedSigner((Integer) row[1], (String) row[2]));
+        }
+        return pinned;
+    }
+
+    /**
+     * 检查签名者与应用固定的签名者一致
+     *
+     * @param appId 应用ID
+     * @param signerFingerprints 新版本的签名者证书指纹（未签名时为null）
+     * @throws BusinessException 签名者不一致
+     */
+    public void checkSameSigner(String appId, String signerFingerprints) {
+        if (!isEnforced()) {
+            return;
+        }
+        PinnedSigner pinned = findPinnedSigners(Collections.singleton(appId)).get(appId);
+        if (pinned != null && !pinned.matches(signerFingerprints)) {
+            log.warn("APK签名者与已有版本不一致: appId={}, previousVersion={}, previous={}, current={}",
+                    appId, pinned.getVersionCode(), pinned.getSignerFingerprints(), signerFingerprints);
+            throw new BusinessException(pinned.mismatchMessage());
+        }
+    }
+
+    /**
+     * 应用固定的签名者
+     */
+    @Getter
+    public static class PinnedSigner {
+        private final Integer versionCode;
+        private final String signerFingerprints;
+
+        public PinnedSigner(Integer versionCode, String signerFingerprints) {
+            this.versionCode = versionCode;
+            this.signerFingerprints = signerFingerprints;
+        }
+
+        /**
+         * 签名者是否一致
+         */
+        public boolean matches(String fingerprints) {
+            return signerFingerprints.equals(fingerprints);
+        }
+
+        /**
+         * 不一致时的错误信息
+         */
+        public String mismatchMessage() {
+            return String.format("APK签名证书与已有版本 %d 不一致，设备将无法覆盖安装", versionCode);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.yancey.appupdate.service;
+
+import com.yancey.appupdate.exception.BusinessException;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUploadBase;
+import org.apache.commons.fileupload.FileUploadException;
+import org.apache.commons.fileupload.servlet.ServletFileUpload;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 流式上传服务
+ * 直接从请求流解析multipart内容并写入存储暂存目录，不经过Servlet容器的临时文件
+ * 
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-10
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StreamingUploadService {
+
+    private static final String APK_FIELD_NAME = "apkFile";
+
+    /**
+     * 普通表单字段的最大字节数
+     */
+    private static final int MAX_FORM_FIELD_BYTES = 64 * 1024;
+
+    /**
+     * ZIP本地文件头魔数 "PK\3\4"
+     */
+    private static final byte[] ZIP_MAGIC = {0x50, 0x4B, 0x03, 0x04};
+
+    private final FileStorageService fileStorageService;
+    private final ObjectProvider<MultipartProperties> multipartProperties;
+
+    /**
+     * 接收流式上传请求
+     * 
+     * @param request HTTP请求
+     * @return 暂存的上传内容及表单字段
+     */
+    public StagedUpload receive(HttpServletRequest request) {
+        if (!ServletFileUpload.isMultipartContent(request)) {
+            throw new BusinessException("请求必须为multipart/form-data格式");
+        }
+
+        MultipartProperties limits = multipartProperties.getIfAvailable(MultipartProperties::new);
+        ServletFileUpload upload = new ServletFileUpload();
+        if (limits.getMaxFileSize() != null) {
+            upload.setFileSizeMax(limits.getMaxFileSize().toBytes());
+        }
+        if (limits.getMaxRequestSize() != null) {
+            upload.setSizeMax(limits.getMaxRequestSize().toBytes());
+        }
+
+        StagedUpload staged = new StagedUpload();
+        try {
+            FileItemIterator iterator = upload.getItemIterator(request);
+            while (iterator.hasNext()) {
+                FileItemStream item = iterator.next();
+                try (InputStream itemStream = item.openStream()) {
+                    if (item.isFormField()) {
+                        readFormField(item.getFieldName(), itemStream, staged);
+                    } else {
+                        stageApkPart(item, itemStream, staged);
+                    }
+                }
+            }
+        } catch (FileUploadBase.FileSizeLimitExceededException | FileUploadBase.SizeLimitExceededException e) {
+            discard(staged);
+            throw new BusinessException("上传文件超过大小限制: " + e.getMessage());
+        } catch (FileUploadException | IOException e) {
+            discard(staged);
+            if (e.getCause() instanceof FileUploadBase.FileSizeLimitExceededException) {
+                throw new BusinessException("上传文件超过大小限制: " + e.getCause().getMessage());
+            }
+            log.error("读取流式上传内容失败: {}", e.getMessage(), e);
+            throw new BusinessException("读取上传内容失败: " + e.getMessage());
+        } catch (RuntimeException e) {
+            discard(staged);
+            throw e;
+        }
+
+        if (staged.getStagedPath() == null) {
+            throw new BusinessException("APK文件不能为空");
+        }
+        if (!StringUtils.hasText(staged.getAppId())) {
+            discard(staged);
+            throw new BusinessException("应用ID不能为空");
+        }
+        if (staged.getAppId().length() > 100) {
+            discard(staged);
+            throw new BusinessException("应用ID长度不能超过100个字符");
+        }
+        return staged;
+    }
+
+    /**
+     * 校验并暂存APK文件部分
+     */
+    private void stageApkPart(FileItemStream item, InputStream itemStream, StagedUpload staged) throws IOException {
+        if (!APK_FIELD_NAME.equals(item.getFieldName())) {
+            throw new BusinessException("不支持的文件字段: " + item.getFieldName());
+        }
+        if (staged.getStagedPath() != null) {
+            throw new BusinessException("一次只能上传一个APK文件");
+        }
+
+        String fileName = item.getName();
+        if (fileName == null || !fileName.toLowerCase().endsWith(".apk")) {
+            throw new BusinessException("只支持APK文件格式");
+        }
+
+        // 读取前4个字节校验ZIP魔数，非APK内容在写盘前即被拒绝
+        BufferedInputStream bufferedStream = new BufferedInputStream(itemStream);
+        bufferedStream.mark(ZIP_MAGIC.length);
+        byte[] header = new byte[ZIP_MAGIC.length];
+        int read = bufferedStream.readNBytes(header, 0, header.length);
+        if (read < header.length || !Arrays.equals(header, ZIP_MAGIC)) {
+            throw new BusinessException("文件内容不是有效的APK: " + fileName);
+        }
+        bufferedStream.reset();
+
+        staged.setOriginalFilename(fileName);
+        staged.setStagedPath(fileStorageService.stageApkStream(bufferedStream));
+        log.info("流式上传APK已暂存: fileName={}, stagedPath={}", fileName, staged.getStagedPath());
+    }
+
+    /**
+     * 读取普通表单字段
+     */
+    private void readFormField(String fieldName, InputStream itemStream, StagedUpload staged) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        int read;
+        while ((read = itemStream.read(chunk)) != -1) {
+            if (buffer.size() + read > MAX_FORM_FIELD_BYTES) {
+                throw new BusinessException("表单字段过长: " + fieldName);
+            }
+            buffer.write(chunk, 0, read);
+        }
+        String value = new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+
+        switch (fieldName) {
+            case "appId":
+                staged.setAppId(value.trim());
+                break;
+            case "updateDescription":
+                staged.setUpdateDescription(value);
+                break;
+            case "forceUpdate":
+                staged.setForceUpdate(Boolean.parseBoolean(value.trim()));
+                break;
+            default:
+                log.debug("忽略未知表单字段: {}", fieldName);
+        }
+    }
+
+    /**
+     * 丢弃已暂存的文件
+     */
+    private void discard(StagedUpload staged) {
+        if (staged.getStagedPath() != null) {
+            fileStorageService.deleteFile(staged.getStagedPath());
+            staged.setStagedPath(null);
+        }
+    }
+
+    /**
+     * 暂存的上传内容
+     */
+    @Data
+    public static class StagedUpload {
+        /**
+         * 暂存文件路径（相对于存储根目录）
+         */
+        private String stagedPath;
+
+        /**
+         * 原始文件名
+         */
+        private String originalFilename;
+
+        /**
+         * 应用ID
+         */
+        private String appId;
+
+        /**
+         * 更新说明
+         */
+        private String updateDescription;
+
+        /**
+         * 是否强制更新
+         */
+        private Boolean forceUpdate = false;
+    }
+}
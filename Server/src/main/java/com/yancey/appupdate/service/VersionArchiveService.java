@@ -0,0 +1,333 @@
+package com.yancey.appupdate.service;
+
+import com.yancey.appupdate.config.AppProperties;
+import com.yancey.appupdate.dto.ArchiveStatusDto;
+import com.yancey.appupdate.entity.AppVersion;
+import com.yancey.appupdate.exception.BusinessException;
+import com.yancey.appupdate.repository.AppInfoRepository;
+import com.yancey.appupdate.repository.AppVersionRepository;
+import com.yancey.appupdate.repository.AppVersionVariantRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 冷版本归档服务
+ * 长时间未被下载的非发布版本（含变体）移到归档目录，可选gzip压缩；下载时热存储中没有会从归档目录读取。
+ * 版本重新成为发布版本后自动恢复到热存储。
+ * 归档和恢复在同一个线程中串行执行，移动过程中先写目标再删源，任一时刻至少有一份可下载的文件
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+@Slf4j
+@Service
+public class VersionArchiveService {
+
+    /**
+     * 标记为已归档；期间被设为发布版本时不标记，由调用方撤销归档副本
+     */
+    private static final String MARK_ARCHIVED_SQL =
+            "UPDATE app_version SET archived = TRUE WHERE id = ? AND archived = FALSE " +
+            "AND NOT EXISTS (SELECT 1 FROM app_info WHERE released_version_id = ?)";
+
+    private static final String MARK_RESTORED_SQL = "UPDATE app_version SET archived = FALSE WHERE id = ?";
+
+    private final AppVersionRepository appVersionRepository;
+    private final AppVersionVariantRepository appVersionVariantRepository;
+    private final AppInfoRepository appInfoRepository;
+    private final FileStorageService fileStorageService;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final AppProperties.ArchiveConfig archiveConfig;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService archiveExecutor;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong totalRestoredVersions = new AtomicLong();
+
+    private volatile LocalDateTime lastRunStartTime;
+    private volatile LocalDateTime lastRunEndTime;
+    private volatile int lastRunArchivedVersions;
+    private volatile long lastRunArchivedBytes;
+
+    public VersionArchiveService(AppVersionRepository appVersionRepository,
+                                 AppVersionVariantRepository appVersionVariantRepository,
+                                 AppInfoRepository appInfoRepository,
+                                 FileStorageService fileStorageService,
+                                 JdbcTemplate jdbcTemplate,
+                                 EntityManagerFactory entityManagerFactory,
+                                 PlatformTransactionManager transactionManager,
+                                 AppProperties appProperties) {
+        this.appVersionRepository = appVersionRepository;
+        this.appVersionVariantRepository = appVersionVariantRepository;
+        this.appInfoRepository = appInfoRepository;
+        this.fileStorageService = fileStorageService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.archiveConfig = appProperties.getArchive();
+        // 读写事务：启用读写分离时在主库上判断发布指针
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archiveExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "version-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        archiveExecutor.shutdownNow();
+    }
+
+    /**
+     * 定时归档（未启用时跳过）
+     */
+    @Scheduled(fixedDelayString = "${app.archive.interval:PT1H}",
+               initialDelayString = "${app.archive.interval:PT1H}")
+    public void scheduledArchive() {
+        if (archiveConfig.isEnabled()) {
+            triggerArchive();
+        }
+    }
+
+    /**
+     * 立即触发一轮归档，已有归档在执行时不重复提交
+     *
+     * @return 触发后的任务状态
+     */
+    public ArchiveStatusDto triggerArchive() {
+        if (running.compareAndSet(false, true)) {
+            archiveExecutor.execute(() -> {
+                try {
+                    archiveOnce();
+                } catch (Exception e) {
+                    log.error("冷版本归档失败: error={}", e.getMessage(), e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        }
+        return getStatus();
+    }
+
+    /**
+     * 获取归档任务状态
+     *
+     * @return 任务状态
+     */
+    public ArchiveStatusDto getStatus() {
+        ArchiveStatusDto status = new ArchiveStatusDto();
+        status.setEnabled(archiveConfig.isEnabled());
+        status.setRunning(running.get());
+        status.setArchivedVersions(appVersionRepository.countByArchivedTrue());
+        status.setLastRunStartTime(lastRunStartTime);
+        status.setLastRunEndTime(lastRunEndTime);
+        status.setLastRunArchivedVersions(lastRunArchivedVersions);
+        status.setLastRunArchivedBytes(lastRunArchivedBytes);
+        status.setTotalRestoredVersions(totalRestoredVersions.get());
+        return status;
+    }
+
+    /**
+     * 调度恢复任务（版本重新成为发布版本时调用）
+     * 处于事务中时在事务提交后执行
+     *
+     * @param versionId 版本ID
+     */
+    public void scheduleRestore(Long versionId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    archiveExecutor.execute(() -> restoreVersion(versionId));
+                }
+            });
+        } else {
+            archiveExecutor.execute(() -> restoreVersion(versionId));
+        }
+    }
+
+    /**
+     * 立即把版本恢复到热存储（等待恢复完成）
+     *
+     * @param versionId 版本ID
+     */
+    public void restoreNow(Long versionId) {
+        try {
+            if (!archiveExecutor.submit(() -> restoreVersion(versionId)).get()) {
+                throw new BusinessException("恢复归档版本失败: " + versionId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("恢复归档版本被中断: " + versionId);
+        } catch (ExecutionException e) {
+            throw new BusinessException("恢复归档版本失败: " + e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * 执行一轮归档
+     */
+    private void archiveOnce() {
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        lastRunStartTime = now;
+        LocalDateTime cutoff = now.minus(archiveConfig.getIdleAfter());
+        boolean compress = archiveConfig.isCompress();
+
+        List<Object[]> candidates = transactionTemplate.execute(status -> appVersionRepository.findArchiveCandidates(
+                cutoff, PageRequest.of(0, Math.max(1, archiveConfig.getBatchSize()))));
+
+        // 每个版本的文件：主APK和全部变体
+        Map<Long, List<String>> paths = new HashMap<>();
+        Map<Long, Long> sizes = new HashMap<>();
+        List<Long> versionIds = new ArrayList<>();
+        for (Object[] row : candidates) {
+            Long versionId = (Long) row[0];
+            versionIds.add(versionId);
+            paths.computeIfAbsent(versionId, id -> new ArrayList<>()).add((String) row[1]);
+            sizes.merge(versionId, row[2] != null ? ((Number) row[2]).longValue() : 0L, Long::sum);
+        }
+        if (!versionIds.isEmpty()) {
+            for (Object[] row : appVersionVariantRepository.findApkPathsByVersionIdIn(versionIds)) {
+                Long versionId = (Long) row[0];
+                paths.get(versionId).add((String) row[1]);
+                sizes.merge(versionId, row[2] != null ? ((Number) row[2]).longValue() : 0L, Long::sum);
+            }
+        }
+
+        int archived = 0;
+        long archivedBytes = 0;
+        for (Long versionId : versionIds) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            if (archiveVersion(versionId, paths.get(versionId), compress)) {
+                archived++;
+                archivedBytes += sizes.get(versionId);
+            }
+        }
+
+        lastRunArchivedVersions = archived;
+        lastRunArchivedBytes = archivedBytes;
+        lastRunEndTime = LocalDateTime.now();
+        if (archived > 0) {
+            log.info("冷版本归档完成: 候选={}, 归档={}, 移出热存储={}字节, compress={}, 耗时={}ms",
+                    versionIds.size(), archived, archivedBytes, compress, System.currentTimeMillis() - start);
+        } else {
+            log.debug("冷版本归档完成: 无可归档版本");
+        }
+    }
+
+    /**
+     * 归档单个版本：复制到归档目录 -> 标记已归档 -> 删除热存储文件
+     */
+    private boolean archiveVersion(Long versionId, List<String> apkPaths, boolean compress) {
+        for (String apkPath : apkPaths) {
+            if (!fileStorageService.copyToArchive(apkPath, compress)) {
+                log.warn("版本文件归档失败，跳过: versionId={}, apkPath={}", versionId, apkPath);
+                discardArchivedCopies(apkPaths);
+                return false;
+            }
+        }
+
+        // 先锁定所属应用行再标记，与setReleaseVersion（同样锁定应用行）串行执行；
+        // 标记前后都清除二级缓存中的版本，发布切换不会读到标记前缓存的archived=false
+        evictVersion(versionId);
+        Boolean marked = transactionTemplate.execute(status -> {
+            appInfoRepository.findVersionOwnersForUpdate(Collections.singletonList(versionId));
+            return jdbcTemplate.update(MARK_ARCHIVED_SQL, versionId, versionId) > 0;
+        });
+        evictVersion(versionId);
+        if (!Boolean.TRUE.equals(marked)) {
+            // 期间被设为发布版本或已删除：撤销归档副本，保留热存储文件
+            log.info("版本已不满足归档条件，撤销归档: versionId={}", versionId);
+            discardArchivedCopies(apkPaths);
+            return false;
+        }
+        apkPaths.forEach(fileStorageService::deleteHotFile);
+        log.debug("版本已归档: versionId={}, 文件数={}", versionId, apkPaths.size());
+        return true;
+    }
+
+    /**
+     * 恢复单个版本：复制回热存储 -> 取消归档标记 -> 删除归档副本
+     */
+    private boolean restoreVersion(Long versionId) {
+        try {
+            List<String> apkPaths = transactionTemplate.execute(status -> {
+                AppVersion version = appVersionRepository.findById(versionId).orElse(null);
+                if (version == null) {
+                    return Collections.<String>emptyList();
+                }
+                List<String> result = new ArrayList<>();
+                result.add(version.getApkPath());
+                for (Object[] row : appVersionVariantRepository.findApkPathsByVersionIdIn(
+                        Collections.singletonList(versionId))) {
+                    result.add((String) row[1]);
+                }
+                return result;
+            });
+            if (apkPaths.isEmpty()) {
+                return false;
+            }
+
+            for (String apkPath : apkPaths) {
+                if (!fileStorageService.restoreFromArchive(apkPath)) {
+                    log.error("版本文件恢复失败: versionId={}, apkPath={}", versionId, apkPath);
+                    return false;
+                }
+            }
+            apkPaths.forEach(fileStorageService::deleteArchivedFile);
+            if (jdbcTemplate.update(MARK_RESTORED_SQL, versionId) > 0) {
+                evictVersion(versionId);
+                totalRestoredVersions.incrementAndGet();
+                log.info("版本已恢复到热存储: versionId={}, 文件数={}", versionId, apkPaths.size());
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("恢复归档版本失败: versionId={}, error={}", versionId, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 撤销归档副本（只删除热存储中仍有文件的副本）
+     */
+    private void discardArchivedCopies(List<String> apkPaths) {
+        for (String apkPath : apkPaths) {
+            if (fileStorageService.fileExists(apkPath)) {
+                fileStorageService.deleteArchivedFile(apkPath);
+            }
+        }
+    }
+
+    /**
+     * 归档标记由JDBC直接更新，需从二级缓存中移除对应实体
+     */
+    private void evictVersion(Long versionId) {
+        entityManagerFactory.getCache().evict(AppVersion.class, versionId);
+    }
+}
@@ -0,0 +1,239 @@
+package com.yancey.appupdate.service;
+
+import com.yancey.appupdate.dto.BatchDeleteRequestDto;
+import com.yancey.appupdate.dto.BatchDeleteResultDto;
+import com.yancey.appupdate.entity.AppInfo;
+import com.yancey.appupdate.repository.AppInfoRepository;
+import com.yancey.appupdate.repository.AppVersionRepository;
+import com.yancey.appupdate.repository.AppVersionVariantRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 批量删除版本服务
+ * 按块执行集合删除：每块一个事务，先用一条查询取出文件路径和统计所需字段，
+ * 再以IN条件一次性删除变体、清空发布指针、删除版本记录。
+ * 文件在事务提交后交给后台回收，某一块失败只影响该块内的版本
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-19
+ */
+@Slf4j
+@Service
+public class VersionBatchDeleteService {
+
+    /**
+     * 每个删除事务处理的版本数，控制IN列表长度和单个事务持有行锁的范围
+     */
+    private static final int CHUNK_SIZE = 500;
+
+    private static final String STATUS_DELETED = "DELETED";
+    private static final String STATUS_NOT_FOUND = "NOT_FOUND";
+    private static final String STATUS_SKIPPED = "SKIPPED";
+    private static final String STATUS_FAILED = "FAILED";
+
+    private final AppVersionRepository appVersionRepository;
+    private final AppVersionVariantRepository appVersionVariantRepository;
+    private final AppInfoRepository appInfoRepository;
+    private final VersionStatsService versionStatsService;
+    private final VersionVariantIndex versionVariantIndex;
+    private final FileReclaimService fileReclaimService;
+    private final TransactionTemplate transactionTemplate;
+
+    public VersionBatchDeleteService(AppVersionRepository appVersionRepository,
+                                     AppVersionVariantRepository appVersionVariantRepository,
+                                     AppInfoRepository appInfoRepository,
+                                     VersionStatsService versionStatsService,
+                                     VersionVariantIndex versionVariantIndex,
+                                     FileReclaimService fileReclaimService,
+                                     PlatformTransactionManager transactionManager) {
+        this.appVersionRepository = appVersionRepository;
+        this.appVersionVariantRepository = appVersionVariantRepository;
+        this.appInfoRepository = appInfoRepository;
+        this.versionStatsService = versionStatsService;
+        this.versionVariantIndex = versionVariantIndex;
+        this.fileReclaimService = fileReclaimService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 批量删除应用版本
+     *
+     * @param request 批量删除请求
+     * @return 每个版本ID的删除结果
+     */
+    public BatchDeleteResultDto deleteVersions(BatchDeleteRequestDto request) {
+        boolean deleteFiles = request.getForceDelete() == null || request.getForceDelete();
+        return deleteVersions(request.getVersionIds(), deleteFiles, false);
+    }
+
+    /**
+     * 批量删除应用版本
+     *
+     * @param requestedIds 版本ID列表
+     * @param deleteFiles 是否删除APK文件（图标总是删除）
+     * @param keepReleased 是否跳过当前仍是发布版本的版本（在删除事务内检查）
+     * @return 每个版本ID的删除结果
+     */
+    public BatchDeleteResultDto deleteVersions(List<Long> requestedIds, boolean deleteFiles, boolean keepReleased) {
+        long start = System.currentTimeMillis();
+
+        // 去重并保持请求顺序
+        Set<Long> uniqueIds = new LinkedHashSet<>();
+        for (Long versionId : requestedIds) {
+            if (versionId != null) {
+                uniqueIds.add(versionId);
+            }
+        }
+        List<Long> versionIds = new ArrayList<>(uniqueIds);
+
+        Map<Long, BatchDeleteResultDto.Item> outcomes = new HashMap<>();
+        int reclaimedFiles = 0;
+        long reclaimedBytes = 0;
+        for (int from = 0; from < versionIds.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = versionIds.subList(from, Math.min(from + CHUNK_SIZE, versionIds.size()));
+            try {
+                ChunkResult result = transactionTemplate.execute(status -> deleteChunk(chunk, deleteFiles, keepReleased));
+                for (Long versionId : chunk) {
+                    if (result.deletedIds.contains(versionId)) {
+                        outcomes.put(versionId, item(versionId, STATUS_DELETED, null));
+                    } else if (result.skippedIds.contains(versionId)) {
+                        outcomes.put(versionId, item(versionId, STATUS_SKIPPED, "当前发布版本"));
+                    } else {
+                        outcomes.put(versionId, item(versionId, STATUS_NOT_FOUND, null));
+                    }
+                }
+                reclaimedFiles += result.reclaimedFiles;
+                reclaimedBytes += result.reclaimedBytes;
+            } catch (Exception e) {
+                log.error("批量删除版本失败: 版本数={}, 首个版本ID={}, error={}", chunk.size(), chunk.get(0), e.getMessage(), e);
+                for (Long versionId : chunk) {
+                    outcomes.put(versionId, item(versionId, STATUS_FAILED, e.getMessage()));
+                }
+            }
+        }
+
+        BatchDeleteResultDto resultDto = new BatchDeleteResultDto();
+        for (Long versionId : versionIds) {
+            BatchDeleteResultDto.Item item = outcomes.get(versionId);
+            resultDto.getResults().add(item);
+            if (STATUS_DELETED.equals(item.getStatus())) {
+                resultDto.setDeletedCount(resultDto.getDeletedCount() + 1);
+            } else if (STATUS_NOT_FOUND.equals(item.getStatus())) {
+                resultDto.setNotFoundCount(resultDto.getNotFoundCount() + 1);
+            } else if (STATUS_SKIPPED.equals(item.getStatus())) {
+                resultDto.setSkippedCount(resultDto.getSkippedCount() + 1);
+            } else {
+                resultDto.setFailedCount(resultDto.getFailedCount() + 1);
+            }
+        }
+        resultDto.setReclaimedFileCount(reclaimedFiles);
+        resultDto.setReclaimedBytes(reclaimedBytes);
+
+        log.info("批量删除应用版本完成: 请求={}, 删除={}, 不存在={}, 跳过={}, 失败={}, 回收文件={}({}字节), 耗时={}ms",
+                versionIds.size(), resultDto.getDeletedCount(), resultDto.getNotFoundCount(), resultDto.getSkippedCount(),
+                resultDto.getFailedCount(), reclaimedFiles, reclaimedBytes, System.currentTimeMillis() - start);
+        return resultDto;
+    }
+
+    /**
+     * 在当前事务中删除一块版本
+     */
+    private ChunkResult deleteChunk(List<Long> versionIds, boolean deleteFiles, boolean keepReleased) {
+        ChunkResult result = new ChunkResult();
+        // 先锁定所属应用行再读取发布指针：与setReleaseVersion（同样锁定应用行）串行执行，
+        // 避免检查之后并发发布的版本被删除、发布指针被清空或指向已删除的版本
+        Set<Long> releasedIds = new HashSet<>();
+        for (AppInfo appInfo : appInfoRepository.findVersionOwnersForUpdate(versionIds)) {
+            if (keepReleased && appInfo.getReleasedVersionId() != null) {
+                releasedIds.add(appInfo.getReleasedVersionId());
+            }
+        }
+
+        List<String> apkPaths = new ArrayList<>();
+        List<String> iconPaths = new ArrayList<>();
+        long totalFileSize = 0;
+        long forceUpdateCount = 0;
+        for (Object[] row : appVersionRepository.findDeleteTargetsByIdIn(versionIds)) {
+            Long versionId = (Long) row[0];
+            if (releasedIds.contains(versionId)) {
+                result.skippedIds.add(versionId);
+                continue;
+            }
+            result.deletedIds.add(versionId);
+            if (row[1] != null) {
+                apkPaths.add((String) row[1]);
+            }
+            if (row[2] != null) {
+                iconPaths.add((String) row[2]);
+            }
+            totalFileSize += row[3] != null ? ((Number) row[3]).longValue() : 0L;
+            if (Boolean.TRUE.equals(row[4])) {
+                forceUpdateCount++;
+            }
+        }
+        if (result.deletedIds.isEmpty()) {
+            return result;
+        }
+        List<Long> existingIds = new ArrayList<>(result.deletedIds);
+
+        // 变体
+        Set<Long> versionsWithVariants = new HashSet<>();
+        for (Object[] row : appVersionVariantRepository.findApkPathsByVersionIdIn(existingIds)) {
+            versionsWithVariants.add((Long) row[0]);
+            apkPaths.add((String) row[1]);
+        }
+        if (!versionsWithVariants.isEmpty()) {
+            appVersionVariantRepository.deleteByVersionIdIn(existingIds);
+            versionsWithVariants.forEach(versionVariantIndex::invalidate);
+        }
+
+        // 发布版本数以应用的发布指针为准（与统计校准口径一致）
+        int releasedCount = appInfoRepository.clearReleasedVersionIds(existingIds);
+        int deleted = appVersionRepository.deleteByIdIn(existingIds);
+        versionStatsService.onVersionsDeleted(deleted, totalFileSize, releasedCount, forceUpdateCount);
+
+        if (!deleteFiles) {
+            apkPaths.clear();
+        }
+        // 只统计实际移入回收站（提交后删除）的文件
+        for (FileStorageService.TrashedFile file : fileReclaimService.reclaimAfterCommit(apkPaths, iconPaths)) {
+            result.reclaimedFiles++;
+            result.reclaimedBytes += file.getSize();
+        }
+        return result;
+    }
+
+    private static BatchDeleteResultDto.Item item(Long versionId, String status, String message) {
+        BatchDeleteResultDto.Item item = new BatchDeleteResultDto.Item();
+        item.setVersionId(versionId);
+        item.setStatus(status);
+        item.setMessage(message);
+        return item;
+    }
+
+    /**
+     * 单块删除结果
+     */
+    private static class ChunkResult {
+
+        private final Set<Long> deletedIds = new LinkedHashSet<>();
+
+        private final Set<Long> skippedIds = new HashSet<>();
+
+        private int reclaimedFiles;
+
+        private long reclaimedBytes;
+    }
+}
@@ -0,0 +1,357 @@
+package com.yancey.appupdate.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.yancey.appupdate.config.AppProperties;
+import com.yancey.appupdate.exception.BusinessException;
+import com.yancey.appupdate.repository.AppInfoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 版本导出服务
+ * 以只读事务执行一条按版本ID排序的查询，用只进游标逐行读取并立即写出为NDJSON或CSV，
+ * 不经过Hibernate会话，内存占用与导出行数无关
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+@Slf4j
+@Service
+public class VersionExportService {
+
+    private static final String EXPORT_SQL =
+            "SELECT v.id, v.app_id, ai.app_name, v.version_code, v.version_name, v.file_size, v.md5, " +
+            "v.download_url, v.signer_fingerprints, v.update_description, v.force_update, " +
+            "CASE WHEN ai.released_version_id = v.id THEN TRUE ELSE FALSE END AS released, v.archived, " +
+            "m.min_sdk_version, m.target_sdk_version, m.signature_scheme, " +
+            "v.create_time, v.update_time, v.last_download_time " +
+            "FROM app_version v " +
+            "JOIN app_info ai ON ai.app_id = v.app_id " +
+            "LEFT JOIN apk_metadata m ON m.md5 = v.md5";
+
+    /**
+     * 导出列（与EXPORT_SQL的列顺序一致）
+     */
+    private static final String[] COLUMNS = {
+            "id", "appId", "appName", "versionCode", "versionName", "fileSize", "md5",
+            "downloadUrl", "signerFingerprints", "updateDescription", "forceUpdate",
+            "released", "archived", "minSdkVersion", "targetSdkVersion", "signatureScheme",
+            "createTime", "updateTime", "lastDownloadTime"};
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * 写出缓冲区大小
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final AppInfoRepository appInfoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Semaphore exportPermits;
+    private final int fetchSize;
+
+    public VersionExportService(AppInfoRepository appInfoRepository,
+                                DataSource dataSource,
+                                PlatformTransactionManager transactionManager,
+                                AppProperties appProperties) {
+        AppProperties.ExportConfig exportConfig = appProperties.getExport();
+        this.appInfoRepository = appInfoRepository;
+        // 导出专用的JdbcTemplate，fetchSize按数据库在每条语句上设置（见prepareStreaming）
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.fetchSize = exportConfig.getFetchSize();
+        // 只读事务：启用读写分离时在副本上执行，长时间导出不占用主库
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.exportPermits = new Semaphore(Math.max(1, exportConfig.getMaxConcurrent()));
+    }
+
+    /**
+     * 导出格式
+     */
+    public enum ExportFormat {
+        NDJSON("application/x-ndjson;charset=UTF-8", "ndjson"),
+        CSV("text/csv;charset=UTF-8", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        ExportFormat(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * 解析导出格式（不区分大小写）
+         *
+         * @param format 格式名称：ndjson或csv
+         * @return 导出格式
+         */
+        public static ExportFormat parse(String format) {
+            try {
+                return valueOf(format.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BusinessException("不支持的导出格式: " + format + "，可选ndjson或csv");
+            }
+        }
+    }
+
+    /**
+     * 导出版本，校验失败时在写出任何内容之前抛出异常
+     *
+     * @param appId 应用ID（为空表示全部应用）
+     * @param from 上传时间下限（包含，可为空）
+     * @param to 上传时间上限（不包含，可为空）
+     * @param format 导出格式
+     * @param out 输出流（不会被关闭）
+     * @return 导出的行数
+     */
+    public long exportVersions(String appId, LocalDateTime from, LocalDateTime to,
+                               ExportFormat format, OutputStream out) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new BusinessException("导出时间范围无效: from必须早于to");
+        }
+        if (StringUtils.hasText(appId) && !appInfoRepository.existsById(appId)) {
+            throw new BusinessException("应用不存在: " + appId);
+        }
+        if (!exportPermits.tryAcquire()) {
+            throw new BusinessException("导出任务过多，请稍后重试");
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            StringBuilder sql = new StringBuilder(EXPORT_SQL);
+            List<Object> params = new ArrayList<>();
+            List<String> conditions = new ArrayList<>();
+            if (StringUtils.hasText(appId)) {
+                conditions.add("v.app_id = ?");
+                params.add(appId);
+            }
+            if (from != null) {
+                conditions.add("v.create_time >= ?");
+                params.add(Timestamp.valueOf(from));
+            }
+            if (to != null) {
+                conditions.add("v.create_time < ?");
+                params.add(Timestamp.valueOf(to));
+            }
+            if (!conditions.isEmpty()) {
+                sql.append(" WHERE ").append(String.join(" AND ", conditions));
+            }
+            sql.append(" ORDER BY v.id");
+
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            RowWriter rowWriter = format == ExportFormat.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+            long[] rows = new long[1];
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(
+                    connection -> prepareStreaming(connection, sql.toString(), params), rs -> {
+                        try {
+                            rowWriter.write(readRow(rs));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        rows[0]++;
+                    }));
+            rowWriter.finish();
+
+            log.info("版本导出完成: appId={}, from={}, to={}, format={}, 行数={}, 耗时={}ms",
+                    appId, from, to, format, rows[0], System.currentTimeMillis() - start);
+            return rows[0];
+        } catch (IOException | UncheckedIOException e) {
+            // 多为客户端中途断开，查询随异常终止
+            log.warn("版本导出中断: appId={}, format={}, error={}", appId, format, e.getMessage());
+            throw new BusinessException("版本导出中断: " + e.getMessage());
+        } finally {
+            exportPermits.release();
+        }
+    }
+
+    /**
+     * 创建只进、只读的导出语句
+     * MySQL驱动只有在fetchSize为Integer.MIN_VALUE时才逐行流式读取结果（无需在连接地址上开启useCursorFetch），
+     * 其他数据库按app.export.fetch-size分批读取
+     */
+    private PreparedStatement prepareStreaming(Connection connection, String sql, List<Object> params) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            boolean mysql = connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql");
+            statement.setFetchSize(mysql ? Integer.MIN_VALUE : fetchSize);
+            for (int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
+            }
+            return statement;
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 读取当前行，时间转换为ISO-8601字符串，数值列为NULL时保留null
+     */
+    private static Object[] readRow(ResultSet rs) throws SQLException {
+        return new Object[]{
+                rs.getLong(1),
+                rs.getString(2),
+                rs.getString(3),
+                rs.getInt(4),
+                rs.getString(5),
+                nullableLong(rs, 6),
+                rs.getString(7),
+                rs.getString(8),
+                rs.getString(9),
+                rs.getString(10),
+                rs.getBoolean(11),
+                rs.getBoolean(12),
+                rs.getBoolean(13),
+                nullableInt(rs, 14),
+                nullableInt(rs, 15),
+                nullableInt(rs, 16),
+                isoTime(rs.getTimestamp(17)),
+                isoTime(rs.getTimestamp(18)),
+                isoTime(rs.getTimestamp(19))};
+    }
+
+    private static Long nullableLong(ResultSet rs, int column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Integer nullableInt(ResultSet rs, int column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static String isoTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime().toString() : null;
+    }
+
+    /**
+     * 逐行写出
+     */
+    private interface RowWriter {
+        void write(Object[] values) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    /**
+     * 每行一个JSON对象
+     */
+    private static class NdjsonRowWriter implements RowWriter {
+        private final Writer writer;
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            this.generator = JSON_FACTORY.createGenerator(writer);
+            // 行之间只用换行分隔
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < COLUMNS.length; i++) {
+                generator.writeObjectField(COLUMNS[i], values[i]);
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+            writer.flush();
+        }
+    }
+
+    /**
+     * RFC 4180格式，首行为列名，NULL写为空字段
+     * 以=、+、-、@、制表符或回车开头的文本前加单引号，防止在电子表格中被当作公式执行
+     */
+    private static class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            write(COLUMNS);
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (values[i] instanceof String) {
+                    writeField((String) values[i]);
+                } else if (values[i] != null) {
+                    // 数值和布尔值不含需要转义的字符
+                    writer.write(values[i].toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeField(String value) throws IOException {
+            if (isFormulaPrefix(value)) {
+                value = "'" + value;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                    && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        private static boolean isFormulaPrefix(String value) {
+            if (value.isEmpty()) {
+                return false;
+            }
+            char first = value.charAt(0);
+            return first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r';
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.yancey.appupdate.service;
+
+import com.yancey.appupdate.config.AppProperties;
+import com.yancey.appupdate.dto.BatchDeleteResultDto;
+import com.yancey.appupdate.dto.RetentionPolicyDto;
+import com.yancey.appupdate.dto.RetentionStatusDto;
+import com.yancey.appupdate.entity.AppInfo;
+import com.yancey.appupdate.exception.BusinessException;
+import com.yancey.appupdate.repository.AppInfoRepository;
+import com.yancey.appupdate.repository.AppVersionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 版本保留策略服务
+ * 版本满足任一条件即保留：属于最新的keepLast个版本、在keepDays天内上传、是当前发布版本，其余版本被清理。
+ * 后台任务每轮按appId顺序评估一批应用，下一轮从上一轮结束处继续；
+ * 过期版本分批删除（批次间停顿），删除事务内再次确认不是发布版本，文件在提交后由后台回收
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+@Slf4j
+@Service
+public class VersionRetentionService {
+
+    private final AppInfoRepository appInfoRepository;
+    private final AppVersionRepository appVersionRepository;
+    private final VersionBatchDeleteService versionBatchDeleteService;
+    private final AppProperties.RetentionConfig retentionConfig;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService retentionExecutor;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong totalDeletedVersions = new AtomicLong();
+    private final AtomicLong totalReclaimedBytes = new AtomicLong();
+
+    /**
+     * 下一轮从该appId之后继续评估（null表示从头开始）
+     */
+    private volatile String cursor;
+
+    private volatile LocalDateTime lastRunStartTime;
+    private volatile LocalDateTime lastRunEndTime;
+    private volatile int lastRunAppsEvaluated;
+    private volatile long lastRunDeletedVersions;
+    private volatile long lastRunReclaimedBytes;
+
+    public VersionRetentionService(AppInfoRepository appInfoRepository,
+                                   AppVersionRepository appVersionRepository,
+                                   VersionBatchDeleteService versionBatchDeleteService,
+                                   PlatformTransactionManager transactionManager,
+                                   AppProperties appProperties) {
+        this.appInfoRepository = appInfoRepository;
+        this.appVersionRepository = appVersionRepository;
+        this.versionBatchDeleteService = versionBatchDeleteService;
+        this.retentionConfig = appProperties.getRetention();
+        // 评估走读写事务：启用读写分离时必须在主库上读取发布指针，避免按过期数据删除刚发布的版本
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retentionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "version-retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retentionExecutor.shutdownNow();
+    }
+
+    /**
+     * 定时清理（未启用时跳过）
+     * 实际清理在独立线程中执行，不占用调度线程
+     */
+    @Scheduled(fixedDelayString = "${app.retention.interval:PT5M}",
+               initialDelayString = "${app.retention.interval:PT5M}")
+    public void scheduledPurge() {
+        if (retentionConfig.isEnabled()) {
+            triggerPurge();
+        }
+    }
+
+    /**
+     * 立即触发一轮清理，已有清理在执行时不重复提交
+     *
+     * @return 触发后的任务状态
+     */
+    public RetentionStatusDto triggerPurge() {
+        if (running.compareAndSet(false, true)) {
+            retentionExecutor.execute(() -> {
+                try {
+                    purgeOnce();
+                } catch (Exception e) {
+                    log.error("版本保留策略清理失败: error={}", e.getMessage(), e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        }
+        return getStatus();
+    }
+
+    /**
+     * 获取清理任务状态
+     *
+     * @return 任务状态
+     */
+    public RetentionStatusDto getStatus() {
+        RetentionStatusDto status = new RetentionStatusDto();
+        status.setEnabled(retentionConfig.isEnabled());
+        status.setRunning(running.get());
+        status.setCursor(cursor);
+        status.setLastRunStartTime(lastRunStartTime);
+        status.setLastRunEndTime(lastRunEndTime);
+        status.setLastRunAppsEvaluated(lastRunAppsEvaluated);
+        status.setLastRunDeletedVersions(lastRunDeletedVersions);
+        status.setLastRunReclaimedBytes(lastRunReclaimedBytes);
+        status.setTotalDeletedVersions(totalDeletedVersions.get());
+        status.setTotalReclaimedBytes(totalReclaimedBytes.get());
+        return status;
+    }
+
+    /**
+     * 获取应用的保留策略
+     *
+     * @param appId 应用ID
+     * @return 保留策略
+     */
+    @Transactional(readOnly = true)
+    public RetentionPolicyDto getPolicy(String appId) {
+        AppInfo appInfo = appInfoRepository.findById(appId)
+                .orElseThrow(() -> new BusinessException("应用不存在: " + appId));
+        return toPolicyDto(appInfo);
+    }
+
+    /**
+     * 更新应用的保留策略
+     *
+     * @param appId 应用ID
+     * @param request 保留策略（字段为null表示使用全局默认值）
+     * @return 更新后的保留策略
+     */
+    @Transactional
+    public RetentionPolicyDto updatePolicy(String appId, RetentionPolicyDto request) {
+        AppInfo appInfo = appInfoRepository.findById(appId)
+                .orElseThrow(() -> new BusinessException("应用不存在: " + appId));
+        appInfo.setRetentionKeepLast(request.getKeepLast());
+        appInfo.setRetentionKeepDays(request.getKeepDays());
+        appInfo.setUpdateTime(LocalDateTime.now());
+        AppInfo saved = appInfoRepository.save(appInfo);
+
+        log.info("更新应用保留策略: appId={}, keepLast={}, keepDays={}", appId, request.getKeepLast(), request.getKeepDays());
+        return toPolicyDto(saved);
+    }
+
+    /**
+     * 执行一轮清理
+     */
+    private void purgeOnce() {
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        lastRunStartTime = now;
+        String startCursor = cursor;
+        int appsPerRun = Math.max(1, retentionConfig.getAppsPerRun());
+
+        List<Object[]> apps = transactionTemplate.execute(status -> appInfoRepository.findRetentionPoliciesAfter(
+                startCursor != null ? startCursor : "", PageRequest.of(0, appsPerRun)));
+
+        // 本轮评估完最后一个应用后，下一轮从其后继续；不足一页说明已到末尾，下一轮从头开始
+        String nextCursor = apps.size() < appsPerRun ? null : (String) apps.get(apps.size() - 1)[0];
+        String lastEvaluated = startCursor;
+        int remaining = Math.max(0, retentionConfig.getMaxVersionsPerRun());
+        int evaluated = 0;
+        List<Long> expired = new ArrayList<>();
+        for (Object[] app : apps) {
+            if (Thread.currentThread().isInterrupted()) {
+                nextCursor = lastEvaluated;
+                break;
+            }
+            String appId = (String) app[0];
+            List<Long> appExpired = transactionTemplate.execute(status -> findExpiredVersions(app, now));
+            evaluated++;
+            if (appExpired.size() > remaining) {
+                // 达到本轮删除上限：先删除最旧的部分，下一轮重新评估该应用
+                expired.addAll(appExpired.subList(0, remaining));
+                nextCursor = lastEvaluated;
+                break;
+            }
+            expired.addAll(appExpired);
+            remaining -= appExpired.size();
+            lastEvaluated = appId;
+        }
+
+        long[] deleted = deleteInBatches(expired);
+        cursor = nextCursor;
+
+        lastRunAppsEvaluated = evaluated;
+        lastRunDeletedVersions = deleted[0];
+        lastRunReclaimedBytes = deleted[1];
+        lastRunEndTime = LocalDateTime.now();
+        totalDeletedVersions.addAndGet(deleted[0]);
+        totalReclaimedBytes.addAndGet(deleted[1]);
+
+        if (deleted[0] > 0) {
+            log.info("版本保留策略清理完成: 评估应用={}, 删除版本={}, 回收={}字节, 下一轮起点={}, 耗时={}ms",
+                    evaluated, deleted[0], deleted[1], nextCursor, System.currentTimeMillis() - start);
+        } else {
+            log.debug("版本保留策略清理完成: 评估应用={}, 无过期版本, 下一轮起点={}", evaluated, nextCursor);
+        }
+    }
+
+    /**
+     * 计算应用中不满足任一保留条件的版本
+     *
+     * @param app [appId, releasedVersionId, retentionKeepLast, retentionKeepDays]
+     * @return 过期版本ID（从旧到新）
+     */
+    private List<Long> findExpiredVersions(Object[] app, LocalDateTime now) {
+        String appId = (String) app[0];
+        Long releasedVersionId = (Long) app[1];
+        int keepLast = app[2] != null ? (Integer) app[2] : retentionConfig.getKeepLast();
+        int keepDays = app[3] != null ? (Integer) app[3] : retentionConfig.getKeepDays();
+        LocalDateTime cutoff = now.minusDays(keepDays);
+
+        List<Object[]> versions = appVersionRepository.findRetentionCandidatesByAppId(appId);
+        List<Long> expired = new ArrayList<>();
+        for (int i = Math.max(0, keepLast); i < versions.size(); i++) {
+            Long versionId = (Long) versions.get(i)[0];
+            LocalDateTime createTime = (LocalDateTime) versions.get(i)[1];
+            if (!versionId.equals(releasedVersionId) && createTime.isBefore(cutoff)) {
+                expired.add(versionId);
+            }
+        }
+        Collections.reverse(expired);
+        return expired;
+    }
+
+    /**
+     * 分批删除过期版本
+     *
+     * @return [删除的版本数, 回收的字节数]
+     */
+    private long[] deleteInBatches(List<Long> versionIds) {
+        long deletedVersions = 0;
+        long reclaimedBytes = 0;
+        int batchSize = Math.max(1, retentionConfig.getBatchSize());
+        long pauseMillis = retentionConfig.getBatchPause().toMillis();
+        for (int from = 0; from < versionIds.size(); from += batchSize) {
+            if (from > 0 && pauseMillis > 0) {
+                try {
+                    Thread.sleep(pauseMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            List<Long> batch = versionIds.subList(from, Math.min(from + batchSize, versionIds.size()));
+            BatchDeleteResultDto result = versionBatchDeleteService.deleteVersions(batch, true, true);
+            deletedVersions += result.getDeletedCount();
+            reclaimedBytes += result.getReclaimedBytes();
+        }
+        return new long[]{deletedVersions, reclaimedBytes};
+    }
+
+    private RetentionPolicyDto toPolicyDto(AppInfo appInfo) {
+        RetentionPolicyDto dto = new RetentionPolicyDto();
+        dto.setAppId(appInfo.getAppId());
+        dto.setKeepLast(appInfo.getRetentionKeepLast());
+        dto.setKeepDays(appInfo.getRetentionKeepDays());
+        dto.setEffectiveKeepLast(appInfo.getRetentionKeepLast() != null
+                ? appInfo.getRetentionKeepLast() : retentionConfig.getKeepLast());
+        dto.setEffectiveKeepDays(appInfo.getRetentionKeepDays() != null
+                ? appInfo.getRetentionKeepDays() : retentionConfig.getKeepDays());
+        return dto;
+    }
+}
@@ -0,0 +1,172 @@
+package com.yancey.appupdate.service;
+
+import com.yancey.appupdate.entity.AppVersion;
+import com.yancey.appupdate.entity.StatsCounter;
+import com.yancey.appupdate.repository.AppInfoRepository;
+import com.yancey.appupdate.repository.AppVersionRepository;
+import com.yancey.appupdate.repository.StatsCounterRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 版本统计服务
+ * 统计值保存在stats_counter表中（计数器行由迁移脚本预置），随版本创建、删除、发布切换、强制更新变更在同一事务内增量维护，
+ * 读取统计时不再扫描全表；定时任务按实际数据计算偏差并以增量修正计数器，不覆盖校准期间提交的增量
+ * 
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-17
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VersionStatsService {
+
+    public static final String TOTAL_APPS = "total_apps";
+    public static final String TOTAL_VERSIONS = "total_versions";
+    public static final String RELEASED_VERSIONS = "released_versions";
+    public static final String FORCE_UPDATE_VERSIONS = "force_update_versions";
+    public static final String TOTAL_FILE_SIZE = "total_file_size";
+
+    private final StatsCounterRepository statsCounterRepository;
+    private final AppInfoRepository appInfoRepository;
+    private final AppVersionRepository appVersionRepository;
+
+    /**
+     * 读取全部计数器（未初始化的计数器为0）
+     * 
+     * @return 计数器名称 -> 值
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Long> getCounters() {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        for (String name : new String[]{TOTAL_APPS, TOTAL_VERSIONS, RELEASED_VERSIONS, FORCE_UPDATE_VERSIONS, TOTAL_FILE_SIZE}) {
+            counters.put(name, 0L);
+        }
+        statsCounterRepository.findAll().forEach(counter -> counters.put(counter.getName(), counter.getValue()));
+        return counters;
+    }
+
+    /**
+     * 新建应用
+     */
+    public void onAppsCreated(long count) {
+        increment(TOTAL_APPS, count);
+    }
+
+    /**
+     * 新建版本
+     */
+    public void onVersionCreated(AppVersion version) {
+        increment(TOTAL_VERSIONS, 1);
+        increment(TOTAL_FILE_SIZE, fileSize(version));
+        if (Boolean.TRUE.equals(version.getIsReleased())) {
+            increment(RELEASED_VERSIONS, 1);
+        }
+        if (Boolean.TRUE.equals(version.getForceUpdate())) {
+            increment(FORCE_UPDATE_VERSIONS, 1);
+        }
+    }
+
+    /**
+     * 批量导入版本（导入的版本均为未发布、非强制更新）
+     */
+    public void onVersionsImported(long count, long totalFileSize) {
+        increment(TOTAL_VERSIONS, count);
+        increment(TOTAL_FILE_SIZE, totalFileSize);
+    }
+
+    /**
+     * 删除版本
+     */
+    public void onVersionDeleted(AppVersion version) {
+        increment(TOTAL_VERSIONS, -1);
+        increment(TOTAL_FILE_SIZE, -fileSize(version));
+        if (Boolean.TRUE.equals(version.getIsReleased())) {
+            increment(RELEASED_VERSIONS, -1);
+        }
+        if (Boolean.TRUE.equals(version.getForceUpdate())) {
+            increment(FORCE_UPDATE_VERSIONS, -1);
+        }
+    }
+
+    /**
+     * 批量删除版本
+     */
+    public void onVersionsDeleted(long count, long totalFileSize, long releasedCount, long forceUpdateCount) {
+        increment(TOTAL_VERSIONS, -count);
+        increment(TOTAL_FILE_SIZE, -totalFileSize);
+        increment(RELEASED_VERSIONS, -releasedCount);
+        increment(FORCE_UPDATE_VERSIONS, -forceUpdateCount);
+    }
+
+    /**
+     * 发布版本数变化
+     */
+    public void onReleasedChanged(long delta) {
+        increment(RELEASED_VERSIONS, delta);
+    }
+
+    /**
+     * 版本强制更新设置变化
+     */
+    public void onForceUpdateChanged(Boolean before, Boolean after) {
+        if (Boolean.TRUE.equals(before) != Boolean.TRUE.equals(after)) {
+            increment(FORCE_UPDATE_VERSIONS, Boolean.TRUE.equals(after) ? 1 : -1);
+        }
+    }
+
+    /**
+     * 按实际数据校准全部计数器（启动时执行一次，之后定期执行）
+     * 计数器与实际数据在同一快照中读取（可重复读），两者之差即快照时刻的偏差，以增量写回：
+     * MySQL的UPDATE基于最新提交值，校准期间提交的增量得以保留；H2遇到期间被修改的计数器时回滚本次校准，由下一次校准处理
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.stats.reconcile-interval:PT10M}",
+               initialDelayString = "${app.stats.reconcile-interval:PT10M}")
+    @Transactional(isolation = Isolation.REPEATABLE_READ)
+    public void reconcile() {
+        Map<String, Long> current = new HashMap<>();
+        statsCounterRepository.findAll().forEach(counter -> current.put(counter.getName(), counter.getValue()));
+
+        Map<String, Long> actual = new LinkedHashMap<>();
+        actual.put(TOTAL_APPS, appInfoRepository.count());
+        actual.put(TOTAL_VERSIONS, appVersionRepository.count());
+        actual.put(RELEASED_VERSIONS, appInfoRepository.countByReleasedVersionIdIsNotNull());
+        actual.put(FORCE_UPDATE_VERSIONS, appVersionRepository.countByForceUpdateTrue());
+        Long totalFileSize = appVersionRepository.sumFileSize();
+        actual.put(TOTAL_FILE_SIZE, totalFileSize != null ? totalFileSize : 0L);
+
+        actual.forEach((name, value) -> {
+            Long counted = current.get(name);
+            if (counted == null) {
+                // 计数器行缺失（如被手动删除）时补建
+                log.info("创建统计计数器: {}={}", name, value);
+                statsCounterRepository.save(new StatsCounter(name, value));
+            } else if (counted.longValue() != value.longValue()) {
+                log.info("校准统计计数器: {} {} -> {}", name, counted, value);
+                statsCounterRepository.increment(name, value - counted);
+            }
+        });
+    }
+
+    private void increment(String name, long delta) {
+        if (delta != 0) {
+            statsCounterRepository.increment(name, delta);
+        }
+    }
+
+    private static long fileSize(AppVersion version) {
+        return version.getFileSize() != null ? version.getFileSize() : 0L;
+    }
+}
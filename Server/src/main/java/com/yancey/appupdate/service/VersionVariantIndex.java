@@ -0,0 +1,169 @@
+package com.yancey.appupdate.service;
+
+import com.yancey.appupdate.entity.AppVersionVariant;
+import com.yancey.appupdate.repository.AppVersionVariantRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 版本变体内存索引
+ * 检查更新时按设备ABI和屏幕密度选择最小的兼容变体，避免每次请求查询数据库
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-13
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VersionVariantIndex {
+
+    private final AppVersionVariantRepository variantRepository;
+
+    /**
+     * 版本ID -> 按文件大小升序排列的变体
+     */
+    private final Map<Long, List<VariantEntry>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 失效代数，防止失效前开始的加载把旧数据写回索引
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 选择设备可用的最小变体
+     *
+     * @param versionId 版本ID
+     * @param supportedAbis 设备支持的ABI（可为空，为空时不选择限定ABI的变体）
+     * @param screenDensity 设备屏幕密度dpi（可为空，为空时不选择限定密度的变体）
+     * @return 最小的兼容变体，没有兼容变体时返回空
+     */
+    public Optional<VariantEntry> selectSmallest(Long versionId, List<String> supportedAbis, Integer screenDensity) {
+        List<VariantEntry> variants = getVariants(versionId);
+        if (variants.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Set<String> abis = supportedAbis == null ? Collections.emptySet() : new HashSet<>(supportedAbis);
+        Integer targetDensity = resolveTargetDensity(variants, screenDensity);
+
+        // 变体已按文件大小升序，第一个兼容的即为最小
+        for (VariantEntry variant : variants) {
+            boolean abiMatches = variant.getAbi() == null || abis.contains(variant.getAbi());
+            boolean densityMatches = variant.getScreenDensity() == null || variant.getScreenDensity().equals(targetDensity);
+            if (abiMatches && densityMatches) {
+                return Optional.of(variant);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 计算设备应使用的密度档位：不低于设备密度的最小档位，设备密度高于所有档位时取最大档位
+     */
+    private Integer resolveTargetDensity(List<VariantEntry> variants, Integer screenDensity) {
+        if (screenDensity == null || screenDensity <= 0) {
+            return null;
+        }
+        Integer ceiling = null;
+        Integer highest = null;
+        for (VariantEntry variant : variants) {
+            Integer density = variant.getScreenDensity();
+            if (density == null) {
+                continue;
+            }
+            if (highest == null || density > highest) {
+                highest = density;
+            }
+            if (density >= screenDensity && (ceiling == null || density < ceiling)) {
+                ceiling = density;
+            }
+        }
+        return ceiling != null ? ceiling : highest;
+    }
+
+    /**
+     * 获取版本的变体（未命中时从数据库加载）
+     *
+     * @param versionId 版本ID
+     * @return 按文件大小升序排列的变体
+     */
+    public List<VariantEntry> getVariants(Long versionId) {
+        List<VariantEntry> cached = entries.get(versionId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadGeneration = generation.get();
+        List<VariantEntry> loaded = new ArrayList<>();
+        for (AppVersionVariant variant : variantRepository.findByVersionIdOrderByFileSizeAsc(versionId)) {
+            loaded.add(new VariantEntry(variant));
+        }
+        loaded = Collections.unmodifiableList(loaded);
+
+        if (generation.get() == loadGeneration) {
+            entries.putIfAbsent(versionId, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * 使版本的索引失效（处于事务中时在提交后执行）
+     *
+     * @param versionId 版本ID
+     */
+    public void invalidate(Long versionId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(versionId);
+                }
+            });
+        } else {
+            evict(versionId);
+        }
+    }
+
+    private void evict(Long versionId) {
+        generation.incrementAndGet();
+        entries.remove(versionId);
+        log.debug("版本变体索引已失效: versionId={}", versionId);
+    }
+
+    /**
+     * 索引中的变体条目（不可变）
+     */
+    @Getter
+    public static class VariantEntry {
+        private final Long id;
+        private final String abi;
+        private final Integer screenDensity;
+        private final Long fileSize;
+        private final String md5;
+        private final String downloadUrl;
+
+        VariantEntry(AppVersionVariant variant) {
+            this.id = variant.getId();
+            this.abi = variant.getAbi();
+            this.screenDensity = variant.getScreenDensity();
+            this.fileSize = variant.getFileSize();
+            this.md5 = variant.getMd5();
+            this.downloadUrl = variant.getDownloadUrl();
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package com.yancey.appupdate.util;
+
+import com.yancey.appupdate.dto.ApkManifestInfo;
+import com.yancey.appupdate.exception.ApkParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 轻量级APK清单读取器
+ * 只内存映射ZIP的中央目录定位AndroidManifest.xml，解压并解码其二进制XML，
+ * 不读取dex、不解析resources.arsc
+ * 
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-12
+ */
+public final class ApkManifestReader {
+
+    private static final String MANIFEST_ENTRY = "AndroidManifest.xml";
+    private static final byte[] MANIFEST_ENTRY_BYTES = MANIFEST_ENTRY.getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 解压后的清单文件大小上限，防止异常文件耗尽内存
+     */
+    private static final int MAX_MANIFEST_SIZE = 16 * 1024 * 1024;
+
+    // ZIP结构签名
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int EOCD_MIN_SIZE = 22;
+    private static final int LOCAL_HEADER_SIZE = 30;
+
+    // 二进制XML chunk类型
+    private static final int RES_STRING_POOL_TYPE = 0x0001;
+    private static final int RES_XML_TYPE = 0x0003;
+    private static final int RES_XML_START_ELEMENT_TYPE = 0x0102;
+    private static final int RES_XML_RESOURCE_MAP_TYPE = 0x0180;
+
+    // 属性值类型
+    private static final int TYPE_REFERENCE = 0x01;
+    private static final int TYPE_STRING = 0x03;
+    private static final int TYPE_INT_DEC = 0x10;
+    private static final int TYPE_INT_HEX = 0x11;
+
+    // android命名空间属性资源ID
+    private static final int ATTR_LABEL = 0x01010001;
+    private static final int ATTR_MIN_SDK_VERSION = 0x0101020c;
+    private static final int ATTR_VERSION_CODE = 0x0101021b;
+    private static final int ATTR_VERSION_NAME = 0x0101021c;
+    private static final int ATTR_TARGET_SDK_VERSION = 0x01010270;
+    private static final int ATTR_VERSION_CODE_MAJOR = 0x01010576;
+
+    private ApkManifestReader() {
+    }
+
+    /**
+     * 读取APK清单信息
+     * 
+     * @param apkFile APK文件
+     * @return 清单信息
+     * @throws IOException 读取异常
+     */
+    public static ApkManifestInfo read(File apkFile) throws IOException {
+        return decodeManifest(readManifestBytes(apkFile));
+    }
+
+    /**
+     * 通过中央目录定位并读取解压后的AndroidManifest.xml
+     * 
+     * @param apkFile APK文件
+     * @return 二进制XML内容
+     * @throws IOException 读取异常
+     */
+    public static byte[] readManifestBytes(File apkFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(apkFile.toPath(), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < EOCD_MIN_SIZE) {
+                throw new ApkParseException("文件过小，不是有效的APK: " + apkFile.getName());
+            }
+
+            // 1. 在文件尾部（最多64KB注释 + EOCD）查找中央目录结束记录
+            int tailSize = (int) Math.min(fileSize, 0xFFFF + EOCD_MIN_SIZE);
+            MappedByteBuffer tail = channel.map(FileChannel.MapMode.READ_ONLY, fileSize - tailSize, tailSize);
+            tail.order(ByteOrder.LITTLE_ENDIAN);
+            int eocd = findEndOfCentralDirectory(tail);
+            if (eocd < 0) {
+                throw new ApkParseException("未找到ZIP中央目录: " + apkFile.getName());
+            }
+
+            long centralDirectorySize = Integer.toUnsignedLong(tail.getInt(eocd + 12));
+            long centralDirectoryOffset = Integer.toUnsignedLong(tail.getInt(eocd + 16));
+            if (centralDirectoryOffset == 0xFFFFFFFFL || centralDirectorySize == 0xFFFFFFFFL) {
+                throw new ApkParseException("不支持ZIP64格式的APK: " + apkFile.getName());
+            }
+            if (centralDirectoryOffset + centralDirectorySize > fileSize) {
+                throw new ApkParseException("ZIP中央目录越界: " + apkFile.getName());
+            }
+
+            // 2. 内存映射中央目录，查找清单条目
+            MappedByteBuffer centralDirectory = channel.map(
+                    FileChannel.MapMode.READ_ONLY, centralDirectoryOffset, centralDirectorySize);
+            centralDirectory.order(ByteOrder.LITTLE_ENDIAN);
+
+            int position = 0;
+            while (position + 46 <= centralDirectorySize) {
+                if (centralDirectory.getInt(position) != CENTRAL_DIRECTORY_SIGNATURE) {
+                    throw new ApkParseException("ZIP中央目录格式错误: " + apkFile.getName());
+                }
+                int method = Short.toUnsignedInt(centralDirectory.getShort(position + 10));
+                long compressedSize = Integer.toUnsignedLong(centralDirectory.getInt(position + 20));
+                long uncompressedSize = Integer.toUnsignedLong(centralDirectory.getInt(position + 24));
+                int nameLength = Short.toUnsignedInt(centralDirectory.getShort(position + 28));
+                int extraLength = Short.toUnsignedInt(centralDirectory.getShort(position + 30));
+                int commentLength = Short.toUnsignedInt(centralDirectory.getShort(position + 32));
+                long localHeaderOffset = Integer.toUnsignedLong(centralDirectory.getInt(position + 42));
+
+                if (nameEquals(centralDirectory, position + 46, nameLength)) {
+                    return readEntry(channel, apkFile, method, compressedSize, uncompressedSize, localHeaderOffset);
+                }
+                position += 46 + nameLength + extraLength + commentLength;
+            }
+
+            throw new ApkParseException("APK中缺少AndroidManifest.xml: " + apkFile.getName());
+        }
+    }
+
+    /**
+     * 解码二进制AndroidManifest.xml
+     * 
+     * @param manifest 二进制XML内容
+     * @return 清单信息
+     */
+    public static ApkManifestInfo decodeManifest(byte[] manifest) {
+        ByteBuffer buffer = ByteBuffer.wrap(manifest).order(ByteOrder.LITTLE_ENDIAN);
+        if (manifest.length < 8 || Short.toUnsignedInt(buffer.getShort(0)) != RES_XML_TYPE) {
+            throw new ApkParseException("AndroidManifest.xml不是有效的二进制XML");
+        }
+
+        ApkManifestInfo info = new ApkManifestInfo();
+        StringPool strings = null;
+        int[] resourceIds = new int[0];
+        long versionCodeMajor = 0;
+        boolean manifestSeen = false;
+        boolean applicationSeen = false;
+
+        int end = Math.min(manifest.length, buffer.getInt(4));
+        int position = Short.toUnsignedInt(buffer.getShort(2));
+        while (position + 8 <= end) {
+            int chunkType = Short.toUnsignedInt(buffer.getShort(position));
+            int headerSize = Short.toUnsignedInt(buffer.getShort(position + 2));
+            int chunkSize = buffer.getInt(position + 4);
+            if (chunkSize < 8 || position + chunkSize > end) {
+                throw new ApkParseException("二进制XML chunk越界");
+            }
+
+            if (chunkType == RES_STRING_POOL_TYPE) {
+                strings = new StringPool(buffer, position, headerSize);
+            } else if (chunkType == RES_XML_RESOURCE_MAP_TYPE) {
+                resourceIds = new int[(chunkSize - headerSize) / 4];
+                for (int i = 0; i < resourceIds.length; i++) {
+                    resourceIds[i] = buffer.getInt(position + headerSize + i * 4);
+                }
+            } else if (chunkType == RES_XML_START_ELEMENT_TYPE && strings != null) {
+                int ext = position + headerSize;
+                String elementName = strings.get(buffer.getInt(ext + 4));
+                int attributeStart = Short.toUnsignedInt(buffer.getShort(ext + 8));
+                int attributeSize = Short.toUnsignedInt(buffer.getShort(ext + 10));
+                int attributeCount = Short.toUnsignedInt(buffer.getShort(ext + 12));
+
+                boolean isManifest = "manifest".equals(elementName) && !manifestSeen;
+                boolean isUsesSdk = "uses-sdk".equals(elementName);
+                boolean isApplication = "application".equals(elementName) && !applicationSeen;
+                manifestSeen |= isManifest;
+                applicationSeen |= isApplication;
+
+                if (isManifest || isUsesSdk || isApplication) {
+                    for (int i = 0; i < attributeCount; i++) {
+                        int attribute = ext + attributeStart + i * attributeSize;
+                        int nameIndex = buffer.getInt(attribute + 4);
+                        int rawValue = buffer.getInt(attribute + 8);
+                        int dataType = Byte.toUnsignedInt(buffer.get(attribute + 15));
+                        int data = buffer.getInt(attribute + 16);
+                        int resourceId = nameIndex >= 0 && nameIndex < resourceIds.length ? resourceIds[nameIndex] : 0;
+                        String attributeName = resourceId == 0 ? strings.get(nameIndex) : null;
+
+                        if (isManifest) {
+                            if ("package".equals(attributeName)) {
+                                info.setPackageName(stringValue(strings, rawValue, dataType, data));
+                            } else if (resourceId == ATTR_VERSION_CODE && isInt(dataType)) {
+                                info.setVersionCode(Integer.toUnsignedLong(data));
+                            } else if (resourceId == ATTR_VERSION_CODE_MAJOR && isInt(dataType)) {
+                                versionCodeMajor = Integer.toUnsignedLong(data);
+                            } else if (resourceId == ATTR_VERSION_NAME) {
+                                if (dataType == TYPE_REFERENCE) {
+                                    info.setVersionNameReference(true);
+                                } else {
+                                    info.setVersionName(stringValue(strings, rawValue, dataType, data));
+                                }
+                            }
+                        } else if (isUsesSdk) {
+                            if (resourceId == ATTR_MIN_SDK_VERSION && isInt(dataType)) {
+                                info.setMinSdkVersion(data);
+                            } else if (resourceId == ATTR_TARGET_SDK_VERSION && isInt(dataType)) {
+                                info.setTargetSdkVersion(data);
+                            }
+                        } else if (resourceId == ATTR_LABEL) {
+                            if (dataType == TYPE_REFERENCE) {
+                                info.setLabelResourceId(data);
+                            } else {
+                                info.setLabel(stringValue(strings, rawValue, dataType, data));
+                            }
+                        }
+                    }
+                }
+
+                if (applicationSeen) {
+                    // application之后的元素与基础信息无关
+                    break;
+                }
+            }
+            position += chunkSize;
+        }
+
+        if (info.getPackageName() == null) {
+            throw new ApkParseException("AndroidManifest.xml缺少包名");
+        }
+        if (info.getVersionCode() != null && versionCodeMajor != 0) {
+            info.setVersionCode((versionCodeMajor << 32) | info.getVersionCode());
+        }
+        return info;
+    }
+
+    /**
+     * 从尾部向前查找EOCD记录
+     */
+    static int findEndOfCentralDirectory(ByteBuffer tail) {
+        for (int position = tail.limit() - EOCD_MIN_SIZE; position >= 0; position--) {
+            if (tail.getInt(position) == EOCD_SIGNATURE) {
+                int commentLength = Short.toUnsignedInt(tail.getShort(position + 20));
+                if (position + EOCD_MIN_SIZE + commentLength == tail.limit()) {
+                    return position;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static boolean nameEquals(ByteBuffer buffer, int offset, int length) {
+        if (length != MANIFEST_ENTRY_BYTES.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(offset + i) != MANIFEST_ENTRY_BYTES[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 读取并解压单个ZIP条目
+     */
+    private static byte[] readEntry(FileChannel channel, File apkFile, int method,
+                                    long compressedSize, long uncompressedSize, long localHeaderOffset) throws IOException {
+        if (uncompressedSize > MAX_MANIFEST_SIZE || compressedSize > MAX_MANIFEST_SIZE) {
+            throw new ApkParseException("AndroidManifest.xml过大: " + apkFile.getName());
+        }
+
+        ByteBuffer localHeader = ByteBuffer.allocate(LOCAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, localHeader, localHeaderOffset);
+        if (localHeader.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new ApkParseException("ZIP本地文件头格式错误: " + apkFile.getName());
+        }
+        long dataOffset = localHeaderOffset + LOCAL_HEADER_SIZE
+                + Short.toUnsignedInt(localHeader.getShort(26))
+                + Short.toUnsignedInt(localHeader.getShort(28));
+
+        ByteBuffer compressed = ByteBuffer.allocate((int) compressedSize);
+        readFully(channel, compressed, dataOffset);
+
+        if (method == 0) {
+            return compressed.array();
+        }
+        if (method != 8) {
+            throw new ApkParseException("不支持的压缩方式: " + method);
+        }
+
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed.array());
+            byte[] result = new byte[(int) uncompressedSize];
+            int total = 0;
+            while (total < result.length && !inflater.finished()) {
+                int inflated = inflater.inflate(result, total, result.length - total);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                total += inflated;
+            }
+            if (total != result.length) {
+                throw new ApkParseException("AndroidManifest.xml解压失败: " + apkFile.getName());
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new ApkParseException("AndroidManifest.xml解压失败: " + apkFile.getName(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            int read = channel.read(target, position + target.position());
+            if (read < 0) {
+                throw new ApkParseException("APK文件被截断");
+            }
+        }
+        target.flip();
+    }
+
+    private static boolean isInt(int dataType) {
+        return dataType == TYPE_INT_DEC || dataType == TYPE_INT_HEX;
+    }
+
+    private static String stringValue(StringPool strings, int rawValue, int dataType, int data) {
+        if (rawValue >= 0) {
+            return strings.get(rawValue);
+        }
+        return dataType == TYPE_STRING ? strings.get(data) : null;
+    }
+
+    /**
+     * 二进制XML字符串池（按需解码）
+     */
+    private static final class StringPool {
+        private static final int UTF8_FLAG = 1 << 8;
+
+        private final ByteBuffer buffer;
+        private final int stringCount;
+        private final int offsetsStart;
+        private final int stringsStart;
+        private final boolean utf8;
+        private final String[] cache;
+
+        private StringPool(ByteBuffer buffer, int chunkStart, int headerSize) {
+            this.buffer = buffer;
+            this.stringCount = buffer.getInt(chunkStart + 8);
+            this.utf8 = (buffer.getInt(chunkStart + 16) & UTF8_FLAG) != 0;
+            this.stringsStart = chunkStart + buffer.getInt(chunkStart + 20);
+            this.offsetsStart = chunkStart + headerSize;
+            this.cache = new String[Math.max(0, stringCount)];
+        }
+
+        private String get(int index) {
+            if (index < 0 || index >= stringCount) {
+                return null;
+            }
+            if (cache[index] == null) {
+                cache[index] = decode(stringsStart + buffer.getInt(offsetsStart + index * 4));
+            }
+            return cache[index];
+        }
+
+        private String decode(int offset) {
+            if (utf8) {
+                // UTF-8：先是字符数，再是字节数，均为1或2字节变长编码
+                int position = offset + ((buffer.get(offset) & 0x80) != 0 ? 2 : 1);
+                int byteLength = buffer.get(position) & 0xFF;
+                if ((byteLength & 0x80) != 0) {
+                    byteLength = ((byteLength & 0x7F) << 8) | (buffer.get(position + 1) & 0xFF);
+                    position += 2;
+                } else {
+                    position += 1;
+                }
+                byte[] bytes = new byte[byteLength];
+                for (int i = 0; i < byteLength; i++) {
+                    bytes[i] = buffer.get(position + i);
+                }
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            // UTF-16：字符数为1或2个u16变长编码
+            int length = Short.toUnsignedInt(buffer.getShort(offset));
+            int position = offset + 2;
+            if ((length & 0x8000) != 0) {
+                length = ((length & 0x7FFF) << 16) | Short.toUnsignedInt(buffer.getShort(position));
+                position += 2;
+            }
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = buffer.getChar(position + i * 2);
+            }
+            return new String(chars);
+        }
+    }
+}
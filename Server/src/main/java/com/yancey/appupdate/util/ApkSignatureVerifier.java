@@ -0,0 +1,565 @@
+package com.yancey.appupdate.util;
+
+import com.yancey.appupdate.dto.ApkSignatureInfo;
+import com.yancey.appupdate.exception.ApkParseException;
+import org.apache.commons.codec.binary.Hex;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.CodeSigner;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.spec.MGF1ParameterSpec;
+import java.security.spec.PSSParameterSpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.stream.IntStream;
+
+/**
+ * APK签名校验器（APK Signature Scheme v2/v3，以及没有签名块时的v1 JAR签名）
+ * v2/v3只读取ZIP尾部的APK签名块并校验签名者的签名，内容摘要按1MB分块并行计算，不解压任何条目；
+ * v1通过JDK的JarFile校验签名文件和每个条目的摘要，只有全部条目都由同一组签名者签名时才返回指纹，
+ * 签名文件无法校验（如使用了JDK禁用的SHA-1算法）时按未签名处理。
+ * 签名声明了更高方案但对应的签名块缺失时视为签名被剥离，拒绝该APK
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-14
+ */
+public final class ApkSignatureVerifier {
+
+    private static final long APK_SIG_BLOCK_MAGIC_LO = 0x20676953204b5041L;
+    private static final long APK_SIG_BLOCK_MAGIC_HI = 0x3234206b636f6c42L;
+    private static final int APK_SIG_BLOCK_MIN_SIZE = 32;
+    private static final int V2_BLOCK_ID = 0x7109871a;
+    private static final int V3_BLOCK_ID = 0xf05368c0;
+
+    /**
+     * v2签名者附加属性：防剥离保护，值为APK同时带有的更高签名方案（3）
+     */
+    private static final int STRIPPING_PROTECTION_ATTR_ID = 0xbeeff00d;
+
+    /**
+     * v1签名文件主属性：APK同时带有的v2/v3签名方案（如"2, 3"）
+     */
+    private static final String SF_ATTRIBUTE_ANDROID_APK_SIGNED = "X-Android-APK-Signed";
+
+    /**
+     * 签名块大小上限，防止异常文件耗尽内存
+     */
+    private static final long MAX_SIG_BLOCK_SIZE = 16L * 1024 * 1024;
+
+    private static final int CHUNK_SIZE = 1024 * 1024;
+    private static final int EOCD_MIN_SIZE = 22;
+
+    // 签名算法ID
+    private static final int RSA_PSS_WITH_SHA256 = 0x0101;
+    private static final int RSA_PSS_WITH_SHA512 = 0x0102;
+    private static final int RSA_PKCS1_V1_5_WITH_SHA256 = 0x0103;
+    private static final int RSA_PKCS1_V1_5_WITH_SHA512 = 0x0104;
+    private static final int ECDSA_WITH_SHA256 = 0x0201;
+    private static final int ECDSA_WITH_SHA512 = 0x0202;
+    private static final int DSA_WITH_SHA256 = 0x0301;
+
+    /**
+     * 按强度从高到低排列的支持算法
+     */
+    private static final List<Integer> ALGORITHM_PREFERENCE = Arrays.asList(
+            RSA_PSS_WITH_SHA512, RSA_PKCS1_V1_5_WITH_SHA512, ECDSA_WITH_SHA512,
+            RSA_PSS_WITH_SHA256, RSA_PKCS1_V1_5_WITH_SHA256, ECDSA_WITH_SHA256, DSA_WITH_SHA256);
+
+    private ApkSignatureVerifier() {
+    }
+
+    /**
+     * 校验APK签名
+     *
+     * @param apkFile APK文件
+     * @return 校验结果，未签名时scheme为{@link ApkSignatureInfo#SCHEME_NONE}
+     * @throws IOException 读取异常
+     * @throws ApkParseException 签名块损坏或签名/摘要不匹配
+     */
+    public static ApkSignatureInfo verify(File apkFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(apkFile.toPath(), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < EOCD_MIN_SIZE) {
+                throw new ApkParseException("文件过小，不是有效的APK: " + apkFile.getName());
+            }
+
+            // 1. 定位EOCD和中央目录
+            int tailSize = (int) Math.min(fileSize, 0xFFFF + EOCD_MIN_SIZE);
+            long tailOffset = fileSize - tailSize;
+            MappedByteBuffer tail = channel.map(FileChannel.MapMode.READ_ONLY, tailOffset, tailSize);
+            tail.order(ByteOrder.LITTLE_ENDIAN);
+            int eocd = ApkManifestReader.findEndOfCentralDirectory(tail);
+            if (eocd < 0) {
+                throw new ApkParseException("未找到ZIP中央目录: " + apkFile.getName());
+            }
+            long centralDirectorySize = Integer.toUnsignedLong(tail.getInt(eocd + 12));
+            long centralDirectoryOffset = Integer.toUnsignedLong(tail.getInt(eocd + 16));
+            long eocdOffset = tailOffset + eocd;
+            if (centralDirectoryOffset + centralDirectorySize != eocdOffset) {
+                throw new ApkParseException("ZIP中央目录与EOCD不相邻: " + apkFile.getName());
+            }
+
+            // 2. 读取中央目录之前的APK签名块
+            ByteBuffer signingBlock = readSigningBlock(channel, centralDirectoryOffset);
+            if (signingBlock == null) {
+                return verifyV1(apkFile);
+            }
+            long signingBlockOffset = centralDirectoryOffset - signingBlock.capacity();
+
+            ByteBuffer schemeBlock = findSchemeBlock(signingBlock, V3_BLOCK_ID);
+            int scheme = ApkSignatureInfo.SCHEME_V3;
+            if (schemeBlock == null) {
+                schemeBlock = findSchemeBlock(signingBlock, V2_BLOCK_ID);
+                scheme = ApkSignatureInfo.SCHEME_V2;
+            }
+            if (schemeBlock == null) {
+                return verifyV1(apkFile);
+            }
+
+            // 3. 校验每个签名者对signed data的签名，收集需要的内容摘要
+            Map<Integer, byte[]> expectedDigests = new HashMap<>();
+            Map<Integer, byte[]> additionalAttributes = new HashMap<>();
+            TreeSet<String> fingerprints = new TreeSet<>();
+            ByteBuffer signers = lengthPrefixed(schemeBlock);
+            if (!signers.hasRemaining()) {
+                throw new ApkParseException("APK签名块中没有签名者");
+            }
+            while (signers.hasRemaining()) {
+                fingerprints.add(verifySigner(lengthPrefixed(signers), scheme == ApkSignatureInfo.SCHEME_V3,
+                        expectedDigests, additionalAttributes));
+            }
+            byte[] strippingProtection = additionalAttributes.get(STRIPPING_PROTECTION_ATTR_ID);
+            if (scheme == ApkSignatureInfo.SCHEME_V2 && strippingProtection != null && strippingProtection.length >= 4
+                    && ByteBuffer.wrap(strippingProtection).order(ByteOrder.LITTLE_ENDIAN).getInt() >= ApkSignatureInfo.SCHEME_V3) {
+                throw new ApkParseException("v2签名声明APK带有v3签名，但签名块中没有v3签名，签名可能已被剥离");
+            }
+
+            // 4. 按分块并行计算内容摘要并与签名中的摘要比对
+            byte[] eocdBytes = new byte[(int) (fileSize - eocdOffset)];
+            ((ByteBuffer) tail.duplicate().position(eocd)).get(eocdBytes);
+            ByteBuffer.wrap(eocdBytes).order(ByteOrder.LITTLE_ENDIAN).putInt(16, (int) signingBlockOffset);
+
+            for (Map.Entry<Integer, byte[]> expected : expectedDigests.entrySet()) {
+                String digestAlgorithm = digestAlgorithm(expected.getKey());
+                byte[] actual = computeContentDigest(channel, digestAlgorithm, signingBlockOffset,
+                        centralDirectoryOffset, centralDirectorySize, eocdBytes);
+                if (!MessageDigest.isEqual(actual, expected.getValue())) {
+                    throw new ApkParseException("APK内容摘要与签名不匹配(" + digestAlgorithm + ")，文件可能已被修改");
+                }
+            }
+
+            ApkSignatureInfo info = new ApkSignatureInfo();
+            info.setScheme(scheme);
+            info.setSignerFingerprints(new ArrayList<>(fingerprints));
+            return info;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new ApkParseException("APK签名块格式错误: " + apkFile.getName(), e);
+        }
+    }
+
+    /**
+     * 读取APK签名块（含首尾大小字段和magic），不存在时返回null
+     */
+    private static ByteBuffer readSigningBlock(FileChannel channel, long centralDirectoryOffset) throws IOException {
+        if (centralDirectoryOffset < APK_SIG_BLOCK_MIN_SIZE) {
+            return null;
+        }
+        ByteBuffer footer = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, footer, centralDirectoryOffset - 24);
+        if (footer.getLong(8) != APK_SIG_BLOCK_MAGIC_LO || footer.getLong(16) != APK_SIG_BLOCK_MAGIC_HI) {
+            return null;
+        }
+
+        long blockSize = footer.getLong(0);
+        long totalSize = blockSize + 8;
+        if (blockSize < 24 || totalSize > MAX_SIG_BLOCK_SIZE || totalSize > centralDirectoryOffset) {
+            throw new ApkParseException("APK签名块大小异常: " + blockSize);
+        }
+
+        ByteBuffer block = ByteBuffer.allocate((int) totalSize).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, block, centralDirectoryOffset - totalSize);
+        if (block.getLong(0) != blockSize) {
+            throw new ApkParseException("APK签名块首尾大小不一致");
+        }
+        return block;
+    }
+
+    /**
+     * 在签名块的ID-值对中查找指定方案的块
+     */
+    private static ByteBuffer findSchemeBlock(ByteBuffer signingBlock, int blockId) {
+        ByteBuffer pairs = slice(signingBlock, 8, signingBlock.capacity() - 32);
+        while (pairs.hasRemaining()) {
+            long pairLength = pairs.getLong();
+            if (pairLength < 4 || pairLength > pairs.remaining()) {
+                throw new ApkParseException("APK签名块ID-值对长度异常: " + pairLength);
+            }
+            int id = pairs.getInt();
+            int valueLength = (int) pairLength - 4;
+            if (id == blockId) {
+                return slice(pairs, pairs.position(), valueLength);
+            }
+            pairs.position(pairs.position() + valueLength);
+        }
+        return null;
+    }
+
+    /**
+     * 校验单个签名者，返回其证书指纹；signed data中的附加属性按ID写入additionalAttributes
+     */
+    private static String verifySigner(ByteBuffer signer, boolean v3, Map<Integer, byte[]> expectedDigests,
+                                       Map<Integer, byte[]> additionalAttributes) {
+        ByteBuffer signedData = lengthPrefixed(signer);
+        if (v3) {
+            signer.getInt();
+            signer.getInt();
+        }
+        ByteBuffer signatures = lengthPrefixed(signer);
+        byte[] publicKeyBytes = readBytes(lengthPrefixed(signer));
+
+        // 选择最强的受支持签名算法
+        int bestAlgorithm = -1;
+        byte[] bestSignature = null;
+        while (signatures.hasRemaining()) {
+            ByteBuffer signature = lengthPrefixed(signatures);
+            int algorithm = signature.getInt();
+            byte[] signatureBytes = readBytes(lengthPrefixed(signature));
+            int rank = ALGORITHM_PREFERENCE.indexOf(algorithm);
+            if (rank >= 0 && (bestAlgorithm == -1 || rank < ALGORITHM_PREFERENCE.indexOf(bestAlgorithm))) {
+                bestAlgorithm = algorithm;
+                bestSignature = signatureBytes;
+            }
+        }
+        if (bestAlgorithm == -1) {
+            throw new ApkParseException("签名者没有受支持的签名算法");
+        }
+
+        try {
+            PublicKey publicKey = KeyFactory.getInstance(keyAlgorithm(bestAlgorithm))
+                    .generatePublic(new X509EncodedKeySpec(publicKeyBytes));
+            Signature verifier = newSignature(bestAlgorithm);
+            verifier.initVerify(publicKey);
+            verifier.update(signedData.duplicate());
+            if (!verifier.verify(bestSignature)) {
+                throw new ApkParseException("APK签名校验失败：签名与signed data不匹配");
+            }
+
+            // signed data: 摘要序列、证书序列（v3还有minSdk/maxSdk）、附加属性
+            ByteBuffer digests = lengthPrefixed(signedData);
+            ByteBuffer certificates = lengthPrefixed(signedData);
+
+            byte[] digest = null;
+            while (digests.hasRemaining()) {
+                ByteBuffer entry = lengthPrefixed(digests);
+                int algorithm = entry.getInt();
+                byte[] value = readBytes(lengthPrefixed(entry));
+                if (algorithm == bestAlgorithm) {
+                    digest = value;
+                }
+            }
+            if (digest == null) {
+                throw new ApkParseException("签名者的signed data中缺少对应算法的内容摘要");
+            }
+            byte[] previous = expectedDigests.get(bestAlgorithm);
+            if (previous != null && !MessageDigest.isEqual(previous, digest)) {
+                throw new ApkParseException("多个签名者的内容摘要不一致");
+            }
+            expectedDigests.put(bestAlgorithm, digest);
+
+            if (!certificates.hasRemaining()) {
+                throw new ApkParseException("签名者没有证书");
+            }
+            byte[] certificateBytes = readBytes(lengthPrefixed(certificates));
+            X509Certificate certificate = (X509Certificate) CertificateFactory.getInstance("X.509")
+                    .generateCertificate(new ByteArrayInputStream(certificateBytes));
+            if (!Arrays.equals(certificate.getPublicKey().getEncoded(), publicKeyBytes)) {
+                throw new ApkParseException("签名者公钥与证书不匹配");
+            }
+
+            if (v3) {
+                signedData.getInt();
+                signedData.getInt();
+            }
+            ByteBuffer attributes = lengthPrefixed(signedData);
+            while (attributes.hasRemaining()) {
+                ByteBuffer attribute = lengthPrefixed(attributes);
+                int id = attribute.getInt();
+                additionalAttributes.put(id, readBytes(attribute));
+            }
+            return fingerprint(certificateBytes);
+        } catch (GeneralSecurityException e) {
+            throw new ApkParseException("APK签名校验失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 计算APK内容摘要：三个区段按1MB分块，各分块摘要并行计算后再做顶层摘要
+     */
+    private static byte[] computeContentDigest(FileChannel channel, String digestAlgorithm,
+                                               long entriesSize, long centralDirectoryOffset,
+                                               long centralDirectorySize, byte[] eocdBytes) {
+        List<long[]> chunks = new ArrayList<>();
+        addChunks(chunks, 0, entriesSize);
+        addChunks(chunks, centralDirectoryOffset, centralDirectorySize);
+        int eocdChunk = chunks.size();
+        chunks.add(new long[]{-1, eocdBytes.length});
+
+        byte[][] chunkDigests = new byte[chunks.size()][];
+        IntStream.range(0, chunks.size()).parallel().forEach(index -> {
+            long[] chunk = chunks.get(index);
+            MessageDigest digest = newDigest(digestAlgorithm);
+            digest.update((byte) 0xa5);
+            digest.update(littleEndianInt((int) chunk[1]));
+            if (index == eocdChunk) {
+                digest.update(eocdBytes);
+            } else {
+                ByteBuffer buffer = ByteBuffer.allocate((int) chunk[1]);
+                try {
+                    readFully(channel, buffer, chunk[0]);
+                } catch (IOException e) {
+                    throw new ApkParseException("读取APK内容失败: " + e.getMessage(), e);
+                }
+                buffer.flip();
+                digest.update(buffer);
+            }
+            chunkDigests[index] = digest.digest();
+        });
+
+        MessageDigest topLevel = newDigest(digestAlgorithm);
+        topLevel.update((byte) 0x5a);
+        topLevel.update(littleEndianInt(chunkDigests.length));
+        for (byte[] chunkDigest : chunkDigests) {
+            topLevel.update(chunkDigest);
+        }
+        return topLevel.digest();
+    }
+
+    private static void addChunks(List<long[]> chunks, long offset, long size) {
+        for (long position = 0; position < size; position += CHUNK_SIZE) {
+            chunks.add(new long[]{offset + position, Math.min(CHUNK_SIZE, size - position)});
+        }
+    }
+
+    /**
+     * 没有v2/v3签名块时校验v1 JAR签名
+     * 读取每个条目触发JarFile的摘要校验（摘要不匹配时抛出SecurityException），
+     * 除签名相关文件外的全部条目都由同一组签名者签名时才视为已签名
+     */
+    private static ApkSignatureInfo verifyV1(File apkFile) throws IOException {
+        ApkSignatureInfo info = new ApkSignatureInfo();
+        try (JarFile jarFile = new JarFile(apkFile, true)) {
+            List<JarEntry> signatureFiles = new ArrayList<>();
+            List<JarEntry> contentEntries = new ArrayList<>();
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                if (isSignatureRelated(entry.getName())) {
+                    if (entry.getName().toUpperCase(Locale.ROOT).endsWith(".SF")) {
+                        signatureFiles.add(entry);
+                    }
+                } else {
+                    contentEntries.add(entry);
+                }
+            }
+            if (signatureFiles.isEmpty() || contentEntries.isEmpty()) {
+                return info;
+            }
+
+            byte[] buffer = new byte[8192];
+            TreeSet<String> fingerprints = null;
+            for (JarEntry entry : contentEntries) {
+                try (InputStream inputStream = jarFile.getInputStream(entry)) {
+                    while (inputStream.read(buffer) != -1) {
+                        // 读完整个条目才会校验摘要并得到签名者
+                    }
+                }
+                TreeSet<String> entrySigners = signerFingerprints(entry.getCodeSigners());
+                if (entrySigners.isEmpty() || (fingerprints != null && !fingerprints.equals(entrySigners))) {
+                    // 签名文件无效、算法被禁用，或有条目未被（同一组签名者）签名：不信任其中的证书
+                    return info;
+                }
+                fingerprints = entrySigners;
+            }
+
+            // 签名文件已通过校验，其中声明的v2/v3签名必须存在
+            for (JarEntry signatureFile : signatureFiles) {
+                try (InputStream inputStream = jarFile.getInputStream(signatureFile)) {
+                    String signedSchemes = new Manifest(inputStream).getMainAttributes().getValue(SF_ATTRIBUTE_ANDROID_APK_SIGNED);
+                    if (signedSchemes != null && (signedSchemes.contains("2") || signedSchemes.contains("3"))) {
+                        throw new ApkParseException("v1签名声明APK带有v" + signedSchemes.trim()
+                                + "签名，但没有找到对应的签名块，签名可能已被剥离");
+                    }
+                }
+            }
+
+            info.setScheme(ApkSignatureInfo.SCHEME_V1);
+            info.setSignerFingerprints(new ArrayList<>(fingerprints));
+            return info;
+        } catch (SecurityException e) {
+            throw new ApkParseException("v1签名校验失败，文件可能已被修改: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 是否为v1签名相关文件（META-INF下的MANIFEST.MF、签名文件和签名块），这些文件本身不需要被签名
+     */
+    private static boolean isSignatureRelated(String name) {
+        String upperName = name.toUpperCase(Locale.ROOT);
+        if (!upperName.startsWith("META-INF/") || upperName.indexOf('/', 9) >= 0) {
+            return false;
+        }
+        return upperName.equals("META-INF/MANIFEST.MF") || upperName.endsWith(".SF") || upperName.endsWith(".RSA")
+                || upperName.endsWith(".DSA") || upperName.endsWith(".EC") || upperName.startsWith("META-INF/SIG-");
+    }
+
+    private static TreeSet<String> signerFingerprints(CodeSigner[] codeSigners) {
+        TreeSet<String> fingerprints = new TreeSet<>();
+        if (codeSigners == null) {
+            return fingerprints;
+        }
+        for (CodeSigner codeSigner : codeSigners) {
+            List<? extends Certificate> certificates = codeSigner.getSignerCertPath().getCertificates();
+            if (!certificates.isEmpty()) {
+                try {
+                    fingerprints.add(fingerprint(certificates.get(0).getEncoded()));
+                } catch (CertificateEncodingException e) {
+                    throw new ApkParseException("v1签名证书格式错误", e);
+                }
+            }
+        }
+        return fingerprints;
+    }
+
+    private static Signature newSignature(int algorithm) throws GeneralSecurityException {
+        switch (algorithm) {
+            case RSA_PSS_WITH_SHA256: {
+                Signature signature = Signature.getInstance("RSASSA-PSS");
+                signature.setParameter(new PSSParameterSpec("SHA-256", "MGF1", MGF1ParameterSpec.SHA256, 32, 1));
+                return signature;
+            }
+            case RSA_PSS_WITH_SHA512: {
+                Signature signature = Signature.getInstance("RSASSA-PSS");
+                signature.setParameter(new PSSParameterSpec("SHA-512", "MGF1", MGF1ParameterSpec.SHA512, 64, 1));
+                return signature;
+            }
+            case RSA_PKCS1_V1_5_WITH_SHA256:
+                return Signature.getInstance("SHA256withRSA");
+            case RSA_PKCS1_V1_5_WITH_SHA512:
+                return Signature.getInstance("SHA512withRSA");
+            case ECDSA_WITH_SHA256:
+                return Signature.getInstance("SHA256withECDSA");
+            case ECDSA_WITH_SHA512:
+                return Signature.getInstance("SHA512withECDSA");
+            case DSA_WITH_SHA256:
+                return Signature.getInstance("SHA256withDSA");
+            default:
+                throw new NoSuchAlgorithmException("不支持的签名算法: 0x" + Integer.toHexString(algorithm));
+        }
+    }
+
+    private static String keyAlgorithm(int algorithm) {
+        switch (algorithm) {
+            case ECDSA_WITH_SHA256:
+            case ECDSA_WITH_SHA512:
+                return "EC";
+            case DSA_WITH_SHA256:
+                return "DSA";
+            default:
+                return "RSA";
+        }
+    }
+
+    private static String digestAlgorithm(int algorithm) {
+        switch (algorithm) {
+            case RSA_PSS_WITH_SHA512:
+            case RSA_PKCS1_V1_5_WITH_SHA512:
+            case ECDSA_WITH_SHA512:
+                return "SHA-512";
+            default:
+                return "SHA-256";
+        }
+    }
+
+    private static MessageDigest newDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String fingerprint(byte[] certificate) {
+        return Hex.encodeHexString(newDigest("SHA-256").digest(certificate));
+    }
+
+    private static byte[] littleEndianInt(int value) {
+        return new byte[]{(byte) value, (byte) (value >>> 8), (byte) (value >>> 16), (byte) (value >>> 24)};
+    }
+
+    /**
+     * 读取uint32长度前缀的子区段，并推进源缓冲区位置
+     */
+    private static ByteBuffer lengthPrefixed(ByteBuffer source) {
+        int length = source.getInt();
+        if (length < 0 || length > source.remaining()) {
+            throw new ApkParseException("APK签名块长度字段越界: " + length);
+        }
+        ByteBuffer result = slice(source, source.position(), length);
+        source.position(source.position() + length);
+        return result;
+    }
+
+    private static ByteBuffer slice(ByteBuffer source, int offset, int length) {
+        ByteBuffer duplicate = source.duplicate();
+        duplicate.position(offset);
+        duplicate.limit(offset + length);
+        return duplicate.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("文件提前结束");
+            }
+        }
+    }
+}
@@ -5,6 +5,12 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 
+/**
+ * 早期的离线建表工具（会清空全部数据）
+ * 
+ * @deprecated 表结构已改由 db/migration 下的 Flyway 脚本维护，应用启动时自动迁移
+ */
+@Deprecated
 public class DatabaseMigrator {
     
     public static void main(String[] args) {
@@ -0,0 +1,71 @@
+package com.yancey.appupdate.util;
+
+import com.yancey.appupdate.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 键集分页游标编解码
+ * 游标记录上一页最后一行的排序键和主键，编码为URL安全的Base64字符串，
+ * 对调用方不透明；类型前缀防止把应用列表的游标用在版本列表上
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-18
+ */
+public final class PageCursorCodec {
+
+    /**
+     * 应用列表游标：(create_time, app_id)
+     */
+    public static final String TYPE_APP = "a1";
+
+    /**
+     * 版本列表游标：(version_code, id)
+     */
+    public static final String TYPE_VERSION = "v1";
+
+    private static final char SEPARATOR = '|';
+
+    private PageCursorCodec() {
+    }
+
+    /**
+     * 编码游标
+     *
+     * @param type 游标类型
+     * @param sortKey 排序键
+     * @param id 主键（排序键相同时的决胜列）
+     * @return 游标字符串
+     */
+    public static String encode(String type, String sortKey, String id) {
+        String raw = type + SEPARATOR + sortKey + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标
+     *
+     * @param type 期望的游标类型
+     * @param cursor 游标字符串
+     * @return [排序键, 主键]
+     * @throws BusinessException 游标格式错误或类型不匹配
+     */
+    public static String[] decode(String type, String cursor) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("无效的分页游标");
+        }
+
+        // 主键（应用包名）不含分隔符，排序键也不含，按前两个分隔符切分即可
+        int first = raw.indexOf(SEPARATOR);
+        int second = first < 0 ? -1 : raw.indexOf(SEPARATOR, first + 1);
+        if (second < 0 || !type.equals(raw.substring(0, first))) {
+            throw new BusinessException("无效的分页游标");
+        }
+        return new String[]{raw.substring(first + 1, second), raw.substring(second + 1)};
+    }
+}
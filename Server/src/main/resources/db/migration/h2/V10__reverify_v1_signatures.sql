@@ -0,0 +1,4 @@
+-- 重新校验缓存中的v1签名结果（H2）
+-- 此前没有签名块的APK只读取META-INF下的证书、不校验JAR签名，缓存的v1指纹不可信；
+-- 清空后下次命中缓存时会按新规则重新校验并回填
+UPDATE apk_metadata SET signature_scheme = NULL, signer_fingerprints = NULL WHERE signature_scheme = 1;
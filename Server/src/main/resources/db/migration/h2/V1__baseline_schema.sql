@@ -0,0 +1,68 @@
+-- 基线表结构（H2）
+-- 与实体定义一致；使用IF NOT EXISTS，已由ddl-auto创建过表结构的数据库可直接接入
+
+CREATE TABLE IF NOT EXISTS app_info (
+    app_id          VARCHAR(100)  NOT NULL,
+    app_name        VARCHAR(200)  NOT NULL,
+    app_description CLOB,
+    force_update    BOOLEAN       NOT NULL,
+    create_time     TIMESTAMP     NOT NULL,
+    update_time     TIMESTAMP     NOT NULL,
+    PRIMARY KEY (app_id)
+);
+
+CREATE TABLE IF NOT EXISTS app_version (
+    id                  BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    app_id              VARCHAR(100)  NOT NULL,
+    version_code        INTEGER       NOT NULL,
+    version_name        VARCHAR(50)   NOT NULL,
+    file_size           BIGINT,
+    md5                 VARCHAR(32),
+    apk_path            VARCHAR(500)  NOT NULL,
+    download_url        VARCHAR(500),
+    signer_fingerprints VARCHAR(1000),
+    icon_path           VARCHAR(500),
+    update_description  CLOB,
+    force_update        BOOLEAN       NOT NULL,
+    is_released         BOOLEAN       NOT NULL,
+    create_time         TIMESTAMP     NOT NULL,
+    update_time         TIMESTAMP     NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS app_version_variant (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    version_id     BIGINT        NOT NULL,
+    abi            VARCHAR(50),
+    screen_density INTEGER,
+    file_size      BIGINT        NOT NULL,
+    md5            VARCHAR(32)   NOT NULL,
+    apk_path       VARCHAR(500)  NOT NULL,
+    download_url   VARCHAR(500),
+    create_time    TIMESTAMP     NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS apk_metadata (
+    md5                 VARCHAR(32)   NOT NULL,
+    package_name        VARCHAR(100)  NOT NULL,
+    version_code        BIGINT        NOT NULL,
+    version_name        VARCHAR(50),
+    app_name            VARCHAR(200),
+    label_resource_id   INTEGER,
+    min_sdk_version     INTEGER,
+    target_sdk_version  INTEGER,
+    signature_scheme    INTEGER,
+    signer_fingerprints VARCHAR(1000),
+    file_size           BIGINT        NOT NULL,
+    create_time         TIMESTAMP     NOT NULL,
+    PRIMARY KEY (md5)
+);
+
+CREATE TABLE IF NOT EXISTS stats_counter (
+    counter_name  VARCHAR(50)  NOT NULL,
+    counter_value BIGINT       NOT NULL,
+    PRIMARY KEY (counter_name)
+);
+
+CREATE INDEX IF NOT EXISTS idx_variant_version_id ON app_version_variant (version_id);
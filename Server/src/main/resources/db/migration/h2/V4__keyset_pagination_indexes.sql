@@ -0,0 +1,6 @@
+-- 键集（游标）分页索引（H2）
+
+-- 版本列表游标分页：按(version_code, id)倒序定位，H2只有索引方向与ORDER BY一致时才按索引顺序读取
+CREATE INDEX IF NOT EXISTS idx_version_app_code_id ON app_version (app_id, version_code DESC, id DESC);
+
+-- 应用列表游标分页复用V2中的idx_app_create_time (create_time DESC, app_id)
@@ -0,0 +1,10 @@
+-- 只读副本心跳（H2）
+-- 启用读写分离后主库定期写入当前时间，从副本读回即可得到复制延迟
+
+CREATE TABLE IF NOT EXISTS replica_heartbeat (
+    id INT NOT NULL,
+    beat_millis BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO replica_heartbeat (id, beat_millis) VALUES (1, 0);
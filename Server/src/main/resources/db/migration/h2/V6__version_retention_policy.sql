@@ -0,0 +1,5 @@
+-- 应用版本保留策略（H2）
+-- 为空时使用全局默认策略（app.retention.keep-last / keep-days）
+
+ALTER TABLE app_info ADD COLUMN IF NOT EXISTS retention_keep_last INT;
+ALTER TABLE app_info ADD COLUMN IF NOT EXISTS retention_keep_days INT;
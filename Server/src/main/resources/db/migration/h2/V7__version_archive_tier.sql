@@ -0,0 +1,8 @@
+-- 冷版本归档（H2）
+-- last_download_time由下载记录批量写回，archived表示APK文件已移到归档目录
+
+ALTER TABLE app_version ADD COLUMN IF NOT EXISTS last_download_time TIMESTAMP;
+ALTER TABLE app_version ADD COLUMN IF NOT EXISTS archived BOOLEAN DEFAULT FALSE NOT NULL;
+
+-- 下载变体APK时按路径回写所属版本的下载时间
+CREATE INDEX IF NOT EXISTS idx_variant_apk_path ON app_version_variant (apk_path);
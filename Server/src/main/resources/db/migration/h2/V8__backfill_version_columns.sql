@@ -0,0 +1,6 @@
+-- 补齐版本表的后加列（H2）
+-- signer_fingerprints、icon_path原先只由ddl-auto创建；从更早版本升级的数据库中app_version已存在，
+-- V1的CREATE TABLE IF NOT EXISTS不会补列，需要在此添加
+
+ALTER TABLE app_version ADD COLUMN IF NOT EXISTS signer_fingerprints VARCHAR(1000);
+ALTER TABLE app_version ADD COLUMN IF NOT EXISTS icon_path VARCHAR(500);
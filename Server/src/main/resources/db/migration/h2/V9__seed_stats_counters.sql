@@ -0,0 +1,23 @@
+-- 预置统计计数器（H2）
+-- 计数器原先只在启动后的首次校准时创建，在此之前的增量更新找不到行而丢失；
+-- 迁移时按当前数据写入初始值，已存在的计数器保持不变
+
+INSERT INTO stats_counter (counter_name, counter_value)
+SELECT 'total_apps', t.cnt FROM (SELECT COUNT(*) AS cnt FROM app_info) t
+WHERE NOT EXISTS (SELECT 1 FROM stats_counter WHERE counter_name = 'total_apps');
+
+INSERT INTO stats_counter (counter_name, counter_value)
+SELECT 'total_versions', t.cnt FROM (SELECT COUNT(*) AS cnt FROM app_version) t
+WHERE NOT EXISTS (SELECT 1 FROM stats_counter WHERE counter_name = 'total_versions');
+
+INSERT INTO stats_counter (counter_name, counter_value)
+SELECT 'released_versions', t.cnt FROM (SELECT COUNT(*) AS cnt FROM app_info WHERE released_version_id IS NOT NULL) t
+WHERE NOT EXISTS (SELECT 1 FROM stats_counter WHERE counter_name = 'released_versions');
+
+INSERT INTO stats_counter (counter_name, counter_value)
+SELECT 'force_update_versions', t.cnt FROM (SELECT COUNT(*) AS cnt FROM app_version WHERE force_update = TRUE) t
+WHERE NOT EXISTS (SELECT 1 FROM stats_counter WHERE counter_name = 'force_update_versions');
+
+INSERT INTO stats_counter (counter_name, counter_value)
+SELECT 'total_file_size', t.total FROM (SELECT COALESCE(SUM(file_size), 0) AS total FROM app_version) t
+WHERE NOT EXISTS (SELECT 1 FROM stats_counter WHERE counter_name = 'total_file_size');
@@ -0,0 +1,67 @@
+-- 基线表结构（MySQL）
+-- 与实体定义一致；使用IF NOT EXISTS，已由ddl-auto创建过表结构的数据库可直接接入
+
+CREATE TABLE IF NOT EXISTS app_info (
+    app_id          VARCHAR(100)  NOT NULL,
+    app_name        VARCHAR(200)  NOT NULL,
+    app_description LONGTEXT,
+    force_update    BIT           NOT NULL,
+    create_time     DATETIME(6)   NOT NULL,
+    update_time     DATETIME(6)   NOT NULL,
+    PRIMARY KEY (app_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS app_version (
+    id                  BIGINT        NOT NULL AUTO_INCREMENT,
+    app_id              VARCHAR(100)  NOT NULL,
+    version_code        INTEGER       NOT NULL,
+    version_name        VARCHAR(50)   NOT NULL,
+    file_size           BIGINT,
+    md5                 VARCHAR(32),
+    apk_path            VARCHAR(500)  NOT NULL,
+    download_url        VARCHAR(500),
+    signer_fingerprints VARCHAR(1000),
+    icon_path           VARCHAR(500),
+    update_description  LONGTEXT,
+    force_update        BIT           NOT NULL,
+    is_released         BIT           NOT NULL,
+    create_time         DATETIME(6)   NOT NULL,
+    update_time         DATETIME(6)   NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS app_version_variant (
+    id             BIGINT        NOT NULL AUTO_INCREMENT,
+    version_id     BIGINT        NOT NULL,
+    abi            VARCHAR(50),
+    screen_density INTEGER,
+    file_size      BIGINT        NOT NULL,
+    md5            VARCHAR(32)   NOT NULL,
+    apk_path       VARCHAR(500)  NOT NULL,
+    download_url   VARCHAR(500),
+    create_time    DATETIME(6)   NOT NULL,
+    PRIMARY KEY (id),
+    INDEX idx_variant_version_id (version_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS apk_metadata (
+    md5                 VARCHAR(32)   NOT NULL,
+    package_name        VARCHAR(100)  NOT NULL,
+    version_code        BIGINT        NOT NULL,
+    version_name        VARCHAR(50),
+    app_name            VARCHAR(200),
+    label_resource_id   INTEGER,
+    min_sdk_version     INTEGER,
+    target_sdk_version  INTEGER,
+    signature_scheme    INTEGER,
+    signer_fingerprints VARCHAR(1000),
+    file_size           BIGINT        NOT NULL,
+    create_time         DATETIME(6)   NOT NULL,
+    PRIMARY KEY (md5)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS stats_counter (
+    counter_name  VARCHAR(50)  NOT NULL,
+    counter_value BIGINT       NOT NULL,
+    PRIMARY KEY (counter_name)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
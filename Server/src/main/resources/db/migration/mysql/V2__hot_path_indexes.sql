@@ -0,0 +1,19 @@
+-- 热点查询索引（MySQL）
+
+-- 同一应用版本号唯一；同时服务于按应用查询版本列表（version_code倒序）、版本是否存在、签名者查找
+CREATE UNIQUE INDEX unique_app_version ON app_version (app_id, version_code);
+
+-- 检查更新、应用列表：按应用查找发布版本
+CREATE INDEX idx_version_app_released ON app_version (app_id, is_released);
+
+-- 按应用查询版本列表（create_time倒序）
+CREATE INDEX idx_version_app_create_time ON app_version (app_id, create_time DESC);
+
+-- 统计中的最近版本
+CREATE INDEX idx_version_create_time ON app_version (create_time DESC);
+
+-- 下载时按APK路径查找版本
+CREATE INDEX idx_version_apk_path ON app_version (apk_path);
+
+-- 应用列表分页（create_time倒序，app_id为次序键）
+CREATE INDEX idx_app_create_time ON app_info (create_time DESC, app_id);
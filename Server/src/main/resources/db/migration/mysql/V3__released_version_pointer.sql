@@ -0,0 +1,17 @@
+-- 应用发布版本指针（MySQL）
+-- 发布版本以app_info.released_version_id为准，app_version.is_released仅为兼容保留
+
+ALTER TABLE app_info ADD COLUMN released_version_id BIGINT;
+
+-- 回填：存在多个发布版本（历史数据不一致）时取ID最大的一个
+UPDATE app_info ai SET released_version_id = (
+    SELECT MAX(av.id) FROM app_version av WHERE av.app_id = ai.app_id AND av.is_released = TRUE
+);
+
+-- 修正兼容标记，使其与指针一致
+UPDATE app_version av JOIN app_info ai ON ai.app_id = av.app_id
+SET av.is_released = FALSE
+WHERE av.is_released = TRUE AND av.id <> ai.released_version_id;
+
+-- 删除版本时按指针清空
+CREATE INDEX idx_app_released_version ON app_info (released_version_id);
@@ -0,0 +1,6 @@
+-- 应用版本保留策略（MySQL）
+-- 为空时使用全局默认策略（app.retention.keep-last / keep-days）
+
+ALTER TABLE app_info
+    ADD COLUMN retention_keep_last INT,
+    ADD COLUMN retention_keep_days INT;
@@ -0,0 +1,9 @@
+-- 冷版本归档（MySQL）
+-- last_download_time由下载记录批量写回，archived表示APK文件已移到归档目录
+
+ALTER TABLE app_version
+    ADD COLUMN last_download_time DATETIME(6),
+    ADD COLUMN archived BIT NOT NULL DEFAULT b'0';
+
+-- 下载变体APK时按路径回写所属版本的下载时间
+CREATE INDEX idx_variant_apk_path ON app_version_variant (apk_path);
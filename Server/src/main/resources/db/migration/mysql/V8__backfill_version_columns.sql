@@ -0,0 +1,21 @@
+-- 补齐版本表的后加列（MySQL）
+-- signer_fingerprints、icon_path原先只由ddl-auto创建；从更早版本升级的数据库中app_version已存在，
+-- V1的CREATE TABLE IF NOT EXISTS不会补列，需要在此添加。MySQL不支持ADD COLUMN IF NOT EXISTS，按information_schema判断
+
+SET @ddl = IF(
+    (SELECT COUNT(*) FROM information_schema.columns
+     WHERE table_schema = DATABASE() AND table_name = 'app_version' AND column_name = 'signer_fingerprints') = 0,
+    'ALTER TABLE app_version ADD COLUMN signer_fingerprints VARCHAR(1000)',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF(
+    (SELECT COUNT(*) FROM information_schema.columns
+     WHERE table_schema = DATABASE() AND table_name = 'app_version' AND column_name = 'icon_path') = 0,
+    'ALTER TABLE app_version ADD COLUMN icon_path VARCHAR(500)',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,55 @@
+package com.yancey.appupdate.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import org.hibernate.cache.spi.RegionFactory;
+import org.junit.jupiter.api.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Hibernate二级缓存区域配置测试
+ * 实体和查询缓存区域按配置写入后过期，表更新时间戳区域不过期
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+class HibernateCacheConfigTest {
+
+    @Test
+    void regionsExpireAfterWrite() {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getEntityCache().setExpireAfterWriteSeconds(30);
+
+        try (CacheManager cacheManager = new HibernateCacheConfig(appProperties).hibernateJCacheManager()) {
+            OptionalLong expected = OptionalLong.of(TimeUnit.SECONDS.toNanos(30));
+            assertEquals(expected, expireAfterWrite(cacheManager, HibernateCacheConfig.APP_INFO_REGION));
+            assertEquals(expected, expireAfterWrite(cacheManager, HibernateCacheConfig.APP_VERSION_REGION));
+            assertEquals(expected, expireAfterWrite(cacheManager, HibernateCacheConfig.RELEASE_LOOKUP_REGION));
+            assertEquals(expected, expireAfterWrite(cacheManager, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME));
+            assertEquals(OptionalLong.empty(),
+                    expireAfterWrite(cacheManager, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME));
+        }
+    }
+
+    @Test
+    void zeroDisablesExpiry() {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getEntityCache().setExpireAfterWriteSeconds(0);
+
+        try (CacheManager cacheManager = new HibernateCacheConfig(appProperties).hibernateJCacheManager()) {
+            assertEquals(OptionalLong.empty(), expireAfterWrite(cacheManager, HibernateCacheConfig.APP_INFO_REGION));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static OptionalLong expireAfterWrite(CacheManager cacheManager, String region) {
+        Cache<Object, Object> cache = cacheManager.getCache(region);
+        return cache.getConfiguration(CaffeineConfiguration.class).getExpireAfterWrite();
+    }
+}
@@ -0,0 +1,132 @@
+package com.yancey.appupdate.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 读写分离路由测试
+ * 用两个H2内存库分别充当主库和副本，各自的marker表记录库名，通过查询结果判断连接被路由到哪个库
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private static final long MAX_LAG_MILLIS = 1000;
+
+    private ReplicaRoutingDataSource routingDataSource;
+    private ReplicaRoutingDataSource.Replica replica;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        HikariDataSource primary = dataSource("primary");
+        HikariDataSource replicaDataSource = dataSource("replica-0");
+        routingDataSource = new ReplicaRoutingDataSource(primary, Collections.singletonList(replicaDataSource), MAX_LAG_MILLIS);
+        routingDataSource.afterPropertiesSet();
+        replica = routingDataSource.getReplicas().get(0);
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        // 构造时记为刚写入，心跳必须晚于该时间
+        Thread.sleep(5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        routingDataSource.close();
+    }
+
+    @Test
+    void readOnlyTransactionUsesCaughtUpReplica() {
+        replica.update(System.currentTimeMillis(), 0);
+
+        assertEquals("replica-0", readOnly.execute(status -> currentDatabase()));
+        assertEquals("primary", readWrite.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    void queryWithoutTransactionDoesNotCountAsWrite() throws Exception {
+        replica.update(System.currentTimeMillis(), 0);
+        Thread.sleep(5);
+
+        assertEquals("primary", currentDatabase());
+        assertEquals("replica-0", readOnly.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    void committedWriteWaitsForNextHeartbeat() throws Exception {
+        replica.update(System.currentTimeMillis(), 0);
+        Thread.sleep(5);
+
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("UPDATE marker SET name = name"));
+        assertEquals("primary", readOnly.execute(status -> currentDatabase()));
+
+        Thread.sleep(5);
+        replica.update(System.currentTimeMillis(), 0);
+        assertEquals("replica-0", readOnly.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    void rolledBackWriteDoesNotCountAsWrite() throws Exception {
+        replica.update(System.currentTimeMillis(), 0);
+        Thread.sleep(5);
+
+        readWrite.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE marker SET name = name");
+            status.setRollbackOnly();
+        });
+        assertEquals("replica-0", readOnly.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    void fallsBackToPrimaryWhenReplicaLags() {
+        replica.update(System.currentTimeMillis(), MAX_LAG_MILLIS + 1);
+        assertEquals("primary", readOnly.execute(status -> currentDatabase()));
+
+        replica.update(System.currentTimeMillis(), MAX_LAG_MILLIS);
+        assertEquals("replica-0", readOnly.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    void fallsBackToPrimaryWhenReplicaUnavailable() {
+        replica.update(System.currentTimeMillis(), 0);
+        replica.markUnavailable("test");
+
+        assertEquals("primary", readOnly.execute(status -> currentDatabase()));
+    }
+
+    private String currentDatabase() {
+        return jdbcTemplate.queryForObject("SELECT name FROM marker", String.class);
+    }
+
+    private static HikariDataSource dataSource(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl("jdbc:h2:mem:routing_" + name.replace('-', '_') + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        new JdbcTemplate(dataSource).execute("CREATE TABLE IF NOT EXISTS marker (name VARCHAR(20))");
+        new JdbcTemplate(dataSource).update("DELETE FROM marker");
+        new JdbcTemplate(dataSource).update("INSERT INTO marker (name) VALUES (?)", name);
+        return dataSource;
+    }
+}
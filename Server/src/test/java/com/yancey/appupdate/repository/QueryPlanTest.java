@@ -0,0 +1,123 @@
+package com.yancey.appupdate.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 热点查询执行计划测试
+ * 对迁移脚本创建的表执行H2 EXPLAIN，断言各热点查询使用对应索引，全表范围的排序查询直接按索引顺序读取而不再排序
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "spring.datasource.url=jdbc:h2:mem:query_plan;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class QueryPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void appListingIsIndexSorted() {
+        assertIndexSorted("SELECT app_id FROM app_info ORDER BY create_time DESC, app_id LIMIT 20",
+                "IDX_APP_CREATE_TIME");
+    }
+
+    @Test
+    void appListingCursorUsesIndex() {
+        assertIndexSorted("SELECT app_id FROM app_info " +
+                        "WHERE create_time < TIMESTAMP '2024-06-01 00:00:00' " +
+                        "OR (create_time = TIMESTAMP '2024-06-01 00:00:00' AND app_id > 'com.example') " +
+                        "ORDER BY create_time DESC, app_id LIMIT 20",
+                "IDX_APP_CREATE_TIME");
+    }
+
+    @Test
+    void versionByAppAndCodeUsesUniqueIndex() {
+        assertUsesIndex("SELECT id FROM app_version WHERE app_id = 'com.example' AND version_code = 1",
+                "UNIQUE_APP_VERSION");
+    }
+
+    /**
+     * H2不会跳过等值条件的前缀列按索引顺序读取，按应用查询版本时只断言按app_id定位索引（只读取该应用的版本）；
+     * MySQL可直接按(app_id, version_code DESC, id DESC)顺序读取
+     */
+    @Test
+    void versionListingSeeksByApp() {
+        assertUsesIndex("SELECT id FROM app_version WHERE app_id = 'com.example' " +
+                        "ORDER BY version_code DESC, id DESC LIMIT 20",
+                "IDX_VERSION_APP_CODE_ID", "UNIQUE_APP_VERSION");
+        assertUsesIndex("SELECT id FROM app_version WHERE app_id = 'com.example' " +
+                        "AND (version_code < 10 OR (version_code = 10 AND id < 100)) " +
+                        "ORDER BY version_code DESC, id DESC LIMIT 20",
+                "IDX_VERSION_APP_CODE_ID", "UNIQUE_APP_VERSION");
+    }
+
+    @Test
+    void releasedVersionLookupUsesIndex() {
+        assertUsesIndex("SELECT id FROM app_version WHERE app_id = 'com.example' AND is_released = TRUE",
+                "IDX_VERSION_APP_RELEASED");
+    }
+
+    @Test
+    void versionsByCreateTimeSeekByApp() {
+        assertUsesIndex("SELECT id FROM app_version WHERE app_id = 'com.example' ORDER BY create_time DESC LIMIT 20",
+                "IDX_VERSION_APP_CREATE_TIME");
+    }
+
+    @Test
+    void recentVersionsAreIndexSorted() {
+        assertIndexSorted("SELECT id FROM app_version ORDER BY create_time DESC LIMIT 10",
+                "IDX_VERSION_CREATE_TIME");
+    }
+
+    @Test
+    void downloadLookupUsesApkPathIndex() {
+        assertUsesIndex("SELECT id FROM app_version WHERE apk_path = 'com.example/com.example-1.apk'",
+                "IDX_VERSION_APK_PATH");
+        assertUsesIndex("SELECT version_id FROM app_version_variant WHERE apk_path = 'com.example/variant.apk'",
+                "IDX_VARIANT_APK_PATH");
+    }
+
+    @Test
+    void variantsByVersionUseIndex() {
+        assertUsesIndex("SELECT id FROM app_version_variant WHERE version_id = 1", "IDX_VARIANT_VERSION_ID");
+    }
+
+    @Test
+    void releasePointerLookupUsesIndex() {
+        assertUsesIndex("SELECT app_id FROM app_info WHERE released_version_id = 1", "IDX_APP_RELEASED_VERSION");
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class).toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * 断言查询使用给定索引之一
+     */
+    private void assertUsesIndex(String sql, String... indexes) {
+        String plan = explain(sql);
+        assertTrue(Arrays.stream(indexes).anyMatch(index -> plan.contains("PUBLIC." + index)),
+                () -> "未使用索引" + Arrays.toString(indexes) + ": " + plan);
+    }
+
+    /**
+     * 断言查询使用给定索引并按索引顺序读取（H2在计划中标注index sorted，不再排序）
+     */
+    private void assertIndexSorted(String sql, String index) {
+        assertUsesIndex(sql, index);
+        String plan = explain(sql);
+        assertTrue(plan.contains("INDEX SORTED"), () -> "查询未按索引顺序读取: " + plan);
+    }
+}
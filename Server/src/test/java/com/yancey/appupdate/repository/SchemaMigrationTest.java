@@ -0,0 +1,111 @@
+package com.yancey.appupdate.repository;
+
+import com.yancey.appupdate.AppUpdateServerApplication;
+import com.yancey.appupdate.entity.AppInfo;
+import com.yancey.appupdate.entity.AppVersion;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 表结构迁移测试
+ * 分别从空库和接入Flyway之前由ddl-auto生成的库启动，迁移后Hibernate校验（ddl-auto=validate）必须通过
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+class SchemaMigrationTest {
+
+    private static final String LATEST_VERSION = "10";
+
+    @Test
+    void migratesEmptyDatabase() {
+        String url = "jdbc:h2:mem:schema_fresh;DB_CLOSE_DELAY=-1";
+        try (ConfigurableApplicationContext context = start(url)) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            assertEquals(LATEST_VERSION, latestMigration(jdbcTemplate));
+        }
+    }
+
+    @Test
+    void upgradesDatabaseCreatedByDdlAuto() throws Exception {
+        String url = "jdbc:h2:mem:schema_legacy;DB_CLOSE_DELAY=-1";
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            ScriptUtils.executeSqlScript(connection,
+                    new EncodedResource(new ClassPathResource("db/legacy/h2_ddl_auto_schema.sql"), StandardCharsets.UTF_8));
+        }
+
+        try (ConfigurableApplicationContext context = start(url)) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            assertEquals(LATEST_VERSION, latestMigration(jdbcTemplate));
+
+            // 旧数据可以通过实体读取，后加列为空，发布版本指针已回填
+            AppVersion version = context.getBean(AppVersionRepository.class).findById(1L).orElseThrow(AssertionError::new);
+            assertEquals("首次发布", version.getUpdateDescription());
+            assertNull(version.getSignerFingerprints());
+            assertNull(version.getIconPath());
+            AppInfo appInfo = context.getBean(AppInfoRepository.class).findById("com.legacy.app").orElseThrow(AssertionError::new);
+            assertEquals(1L, appInfo.getReleasedVersionId());
+        }
+    }
+
+    /**
+     * 只执行迁移（不启动应用，排除启动校准的影响），计数器按迁移时的数据预置
+     */
+    @Test
+    void seedsStatsCountersFromExistingData() throws Exception {
+        String url = "jdbc:h2:mem:schema_counters;DB_CLOSE_DELAY=-1";
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            ScriptUtils.executeSqlScript(connection,
+                    new EncodedResource(new ClassPathResource("db/legacy/h2_ddl_auto_schema.sql"), StandardCharsets.UTF_8));
+        }
+        Flyway.configure()
+                .dataSource(url, "sa", "")
+                .locations("classpath:db/migration/h2")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        Map<String, Long> counters = new HashMap<>();
+        jdbcTemplate.query("SELECT counter_name, counter_value FROM stats_counter",
+                (RowCallbackHandler) rs -> counters.put(rs.getString(1), rs.getLong(2)));
+        assertEquals(1L, counters.get("total_apps"));
+        assertEquals(1L, counters.get("total_versions"));
+        assertEquals(1L, counters.get("released_versions"));
+        assertEquals(0L, counters.get("force_update_versions"));
+        assertEquals(1024L, counters.get("total_file_size"));
+    }
+
+    private static ConfigurableApplicationContext start(String url) {
+        return new SpringApplicationBuilder(AppUpdateServerApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                // 以命令行参数传入，优先于测试配置文件中的数据源地址
+                .run("--spring.datasource.url=" + url);
+    }
+
+    private static String latestMigration(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT \"version\" FROM \"flyway_schema_history\" " +
+                "WHERE \"success\" = TRUE ORDER BY \"installed_rank\" DESC LIMIT 1", String.class);
+    }
+}
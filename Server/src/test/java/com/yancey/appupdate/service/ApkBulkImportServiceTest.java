@@ -0,0 +1,106 @@
+package com.yancey.appupdate.service;
+
+import com.yancey.appupdate.dto.BulkImportProgressDto;
+import com.yancey.appupdate.dto.BulkImportRequestDto;
+import com.yancey.appupdate.exception.BusinessException;
+import com.yancey.appupdate.util.TestApkSigner;
+import com.yancey.appupdate.util.TestApks;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * APK批量导入测试
+ * 已结束的任务超过保留时长后从任务表中清除，进行中的任务不受影响；签名者与上传使用同一固定规则（最新的已签名版本）
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {"spring.datasource.url=jdbc:h2:mem:bulk_import;DB_CLOSE_DELAY=-1",
+                "app.bulk-import.job-retention=0s"})
+@ActiveProfiles("test")
+class ApkBulkImportServiceTest {
+
+    private static final String APP_ID = "com.bulk.signed";
+
+    @Autowired
+    private ApkBulkImportService apkBulkImportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void evictsFinishedJobs(@TempDir Path directory) throws Exception {
+        BulkImportRequestDto request = new BulkImportRequestDto();
+        request.setDirectory(directory.toString());
+        String jobId = apkBulkImportService.startImport(request).getJobId();
+
+        BulkImportProgressDto progress = awaitFinished(jobId);
+        assertEquals("COMPLETED", progress.getStatus());
+
+        Thread.sleep(5);
+        apkBulkImportService.evictFinishedJobs();
+        assertThrows(BusinessException.class, () -> apkBulkImportService.getProgress(jobId));
+    }
+
+    @Test
+    void rejectsSignerOfOlderVersion(@TempDir Path directory) throws Exception {
+        TestApkSigner.Signer oldSigner = TestApkSigner.signer("signer-a");
+        TestApkSigner.Signer newSigner = TestApkSigner.signer("signer-b");
+        // 版本1由signer-a签名，版本2已换成signer-b
+        jdbcTemplate.update("INSERT INTO app_info (app_id, app_name, force_update, create_time, update_time) " +
+                "VALUES (?, 'Signed App', FALSE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", APP_ID);
+        insertVersion(1, oldSigner.fingerprint());
+        insertVersion(2, newSigner.fingerprint());
+        entityManagerFactory.getCache().evictAll();
+
+        Path unsigned = TestApks.write(Files.createTempFile("unsigned", ".apk"), APP_ID, 3);
+        TestApkSigner.signV1AndV2(unsigned, directory.resolve("app-3.apk"), oldSigner);
+        Files.delete(unsigned);
+
+        BulkImportRequestDto request = new BulkImportRequestDto();
+        request.setDirectory(directory.toString());
+        BulkImportProgressDto progress = awaitFinished(apkBulkImportService.startImport(request).getJobId());
+
+        assertEquals(0, progress.getImportedVersions());
+        assertEquals(1, progress.getFailedFiles());
+        assertTrue(progress.getErrors().get(0).contains("已有版本 2 不一致"), progress.getErrors().get(0));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM app_version WHERE app_id = ? AND version_code = 3", Integer.class, APP_ID));
+    }
+
+    private void insertVersion(int versionCode, String signerFingerprints) {
+        jdbcTemplate.update("INSERT INTO app_version (app_id, version_code, version_name, file_size, apk_path, " +
+                "force_update, is_released, signer_fingerprints, create_time, update_time) " +
+                "VALUES (?, ?, ?, 1024, ?, FALSE, FALSE, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)",
+                APP_ID, versionCode, "1." + versionCode, APP_ID + "/" + APP_ID + "-" + versionCode + ".apk",
+                signerFingerprints);
+    }
+
+    private BulkImportProgressDto awaitFinished(String jobId) throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            BulkImportProgressDto progress = apkBulkImportService.getProgress(jobId);
+            if (progress.getEndTime() != null) {
+                return progress;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("导入任务未结束: " + jobId);
+    }
+}
@@ -0,0 +1,175 @@
+package com.yancey.appupdate.service;
+
+import com.yancey.appupdate.config.AppProperties;
+import com.yancey.appupdate.dto.ApkManifestInfo;
+import com.yancey.appupdate.dto.ApkSignatureInfo;
+import com.yancey.appupdate.dto.ParsedApkData;
+import com.yancey.appupdate.entity.ApkMetadata;
+import com.yancey.appupdate.exception.ApkParseException;
+import com.yancey.appupdate.util.TestApkSigner;
+import com.yancey.appupdate.util.TestApks;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * APK解析缓存测试
+ * 缓存以MD5为键，命中时只复用清单字段，签名按实际文件重新校验，缓存中记录的签名结果不会被采信；
+ * 轻量清单读取器无法处理的APK回退到apk-parser完整解析
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+class ApkParserServiceTest {
+
+    private static final String PACKAGE_NAME = "com.yancey.cached";
+
+    @TempDir
+    Path directory;
+
+    private ApkMetadataCacheService cacheService;
+    private AppProperties appProperties;
+    private ApkParserService apkParserService;
+
+    @BeforeEach
+    void setUp() {
+        cacheService = mock(ApkMetadataCacheService.class);
+        appProperties = new AppProperties();
+        apkParserService = new ApkParserService(cacheService, appProperties);
+    }
+
+    @Test
+    void cacheHitReverifiesSignature() throws Exception {
+        TestApkSigner.Signer signer = TestApkSigner.signer("signer-a");
+        Path apk = TestApkSigner.signV1AndV2(unsigned(), directory.resolve("signed.apk"), signer);
+        ApkMetadata cached = cachedMetadata(apk, ApkSignatureInfo.SCHEME_V3, "forged");
+
+        ParsedApkData parsed = apkParserService.parseApk(apk.toFile());
+
+        assertEquals(ApkSignatureInfo.SCHEME_V2, parsed.getSignatureScheme());
+        assertEquals(signer.fingerprint(), parsed.getSignerFingerprints());
+        assertEquals("forged", cached.getSignerFingerprints());
+        verify(cacheService).updateSignature(cached.getMd5(), ApkSignatureInfo.SCHEME_V2, signer.fingerprint());
+    }
+
+    @Test
+    void cachedSignerIsNotTrustedForUnsignedFile() throws Exception {
+        Path apk = unsigned();
+        cachedMetadata(apk, ApkSignatureInfo.SCHEME_V2, "forged");
+
+        ParsedApkData parsed = apkParserService.parseApk(apk.toFile());
+
+        assertEquals(ApkSignatureInfo.SCHEME_NONE, parsed.getSignatureScheme());
+        assertNull(parsed.getSignerFingerprints());
+    }
+
+    @Test
+    void requireSignedRejectsUnsignedFileDespiteCachedSigner() throws Exception {
+        appProperties.getSignature().setRequireSigned(true);
+        Path apk = unsigned();
+        cachedMetadata(apk, ApkSignatureInfo.SCHEME_V2, "forged");
+
+        assertThrows(ApkParseException.class, () -> apkParserService.parseApk(apk.toFile()));
+    }
+
+    @Test
+    void cachedSignerIsIgnoredWhenVerificationDisabled() throws Exception {
+        appProperties.getSignature().setEnabled(false);
+        Path apk = unsigned();
+        cachedMetadata(apk, ApkSignatureInfo.SCHEME_V2, "forged");
+
+        ParsedApkData parsed = apkParserService.parseApk(apk.toFile());
+
+        assertNull(parsed.getSignatureScheme());
+        assertNull(parsed.getSignerFingerprints());
+        assertEquals(PACKAGE_NAME, parsed.getPackageName());
+        verify(cacheService, never()).updateSignature(anyString(), any(), any());
+    }
+
+    @Test
+    void fallsBackToApkFileForZip64() throws Exception {
+        appProperties.getSignature().setEnabled(false);
+        Path apk = unsigned();
+        Files.write(apk, TestApks.toZip64(Files.readAllBytes(apk)));
+        List<ApkManifestInfo> manifestReads = recordManifestReads();
+
+        ParsedApkData parsed = apkParserService.parseApk(apk.toFile());
+
+        assertEquals(Collections.singletonList(null), manifestReads);
+        assertEquals(PACKAGE_NAME, parsed.getPackageName());
+        assertEquals("1", parsed.getVersionCode());
+        assertEquals("1.1", parsed.getVersionName());
+        assertEquals("Test App", parsed.getAppName());
+    }
+
+    @Test
+    void fallsBackToApkFileForCorruptManifest() throws Exception {
+        appProperties.getSignature().setEnabled(false);
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("AndroidManifest.xml", new byte[]{3, 0, 8, 0, 127, 0, 0, 0});
+        Path apk = TestApks.writeZip(directory.resolve("corrupt.apk"), entries);
+        List<ApkManifestInfo> manifestReads = recordManifestReads();
+
+        // 轻量读取失败后由apk-parser再解析一次，同样失败时报告完整解析的错误
+        ApkParseException e = assertThrows(ApkParseException.class, () -> apkParserService.parseApk(apk.toFile()));
+        assertEquals(Collections.singletonList(null), manifestReads);
+        assertTrue(e.getMessage().startsWith("无法解析APK元数据"), e.getMessage());
+    }
+
+    /**
+     * 记录每次轻量清单读取的结果（null表示读取失败）
+     */
+    private List<ApkManifestInfo> recordManifestReads() {
+        List<ApkManifestInfo> results = new ArrayList<>();
+        apkParserService = spy(apkParserService);
+        doAnswer(invocation -> {
+            ApkManifestInfo result = (ApkManifestInfo) invocation.callRealMethod();
+            results.add(result);
+            return result;
+        }).when(apkParserService).readManifestQuietly(any(File.class));
+        return results;
+    }
+
+    private Path unsigned() throws Exception {
+        return TestApks.write(directory.resolve("unsigned.apk"), PACKAGE_NAME, 1);
+    }
+
+    private ApkMetadata cachedMetadata(Path apk, Integer signatureScheme, String signerFingerprints) throws Exception {
+        ApkMetadata metadata = new ApkMetadata();
+        metadata.setMd5(DigestUtils.md5Hex(Files.readAllBytes(apk)));
+        metadata.setPackageName(PACKAGE_NAME);
+        metadata.setVersionCode(1L);
+        metadata.setVersionName("1.1");
+        metadata.setAppName("Test App");
+        metadata.setFileSize(Files.size(apk));
+        metadata.setSignatureScheme(signatureScheme);
+        metadata.setSignerFingerprints(signerFingerprints);
+        when(cacheService.find(metadata.getMd5())).thenReturn(Optional.of(metadata));
+        return metadata;
+    }
+}
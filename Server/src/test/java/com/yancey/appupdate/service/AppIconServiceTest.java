@@ -0,0 +1,127 @@
+package com.yancey.appupdate.service;
+
+import com.yancey.appupdate.config.AppProperties;
+import com.yancey.appupdate.entity.AppVersion;
+import com.yancey.appupdate.exception.FileStorageException;
+import com.yancey.appupdate.repository.AppVersionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 应用图标提取测试
+ * 已归档（压缩）的APK从归档目录读取；找不到APK的版本只尝试一次，之后访问图标不再重新调度提取
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+class AppIconServiceTest {
+
+    private static final String APK_PATH = "com.icon.app/com.icon.app-1.apk";
+
+    @TempDir
+    Path directory;
+
+    private AppVersionRepository appVersionRepository;
+    private FileStorageService fileStorageService;
+    private ApkParserService apkParserService;
+    private AppIconService appIconService;
+
+    @BeforeEach
+    void setUp() {
+        appVersionRepository = mock(AppVersionRepository.class);
+        fileStorageService = mock(FileStorageService.class);
+        apkParserService = mock(ApkParserService.class);
+        when(fileStorageService.resolveApkPath(anyString()))
+                .thenAnswer(invocation -> directory.resolve(invocation.<String>getArgument(0)));
+        appIconService = new AppIconService(appVersionRepository, fileStorageService, apkParserService,
+                mock(PlatformTransactionManager.class), new AppProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        appIconService.shutdown();
+    }
+
+    @Test
+    void extractsIconFromCompressedArchive() throws Exception {
+        byte[] apkBytes = {'P', 'K', 3, 4, 1, 2, 3};
+        // 压缩归档的资源不是普通文件
+        when(fileStorageService.loadFileAsResource(APK_PATH)).thenReturn(new ByteArrayResource(apkBytes));
+        List<Path> extractedFrom = new ArrayList<>();
+        byte[] icon = png();
+        doAnswer(invocation -> {
+            Path apk = invocation.<File>getArgument(0).toPath();
+            extractedFrom.add(apk);
+            assertArrayEquals(apkBytes, Files.readAllBytes(apk));
+            return icon;
+        }).when(apkParserService).extractIcon(any(File.class));
+        when(appVersionRepository.updateIconPath(eq(1L), anyString())).thenReturn(1);
+
+        assertNull(appIconService.loadIcon(version(), null));
+
+        verify(appVersionRepository, timeout(5000)).updateIconPath(1L, ".icons/1/original.png");
+        assertArrayEquals(icon, Files.readAllBytes(directory.resolve(".icons/1/original.png")));
+        assertTrue(Files.isRegularFile(directory.resolve(".icons/1/48.png")));
+        // 解压出的临时文件已删除
+        assertFalse(Files.exists(extractedFrom.get(0)));
+    }
+
+    @Test
+    void missingApkIsNotRescheduled() throws Exception {
+        when(fileStorageService.loadFileAsResource(APK_PATH)).thenThrow(new FileStorageException("文件不存在: " + APK_PATH));
+        AppVersion version = version();
+
+        appIconService.loadIcon(version, null);
+        verify(fileStorageService, timeout(5000)).loadFileAsResource(APK_PATH);
+        // 首次提取结束后的访问不应再次调度
+        for (int i = 0; i < 10; i++) {
+            Thread.sleep(50);
+            assertNull(appIconService.loadIcon(version, null));
+        }
+
+        verify(fileStorageService, times(1)).loadFileAsResource(APK_PATH);
+        verify(apkParserService, never()).extractIcon(any(File.class));
+    }
+
+    private static AppVersion version() {
+        AppVersion version = new AppVersion();
+        version.setId(1L);
+        version.setApkPath(APK_PATH);
+        return version;
+    }
+
+    private static byte[] png() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB), "png", output);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,124 @@
+package com.yancey.appupdate.service;
+
+import com.yancey.appupdate.dto.AppInfoWithLatestVersionDto;
+import com.yancey.appupdate.dto.CursorPageDto;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 应用列表查询次数测试
+ * 通过Hibernate统计的预编译语句数断言列表页的查询次数固定，不随每页条数增长（没有逐行的N+1查询）
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "spring.datasource.url=jdbc:h2:mem:listing_budget;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AppListingQueryBudgetTest {
+
+    private static final int APP_COUNT = 120;
+
+    private static final int[] PAGE_SIZES = {1, 20, 100};
+
+    @Autowired
+    private AppVersionService appVersionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeAll
+    void seed() {
+        List<Object[]> apps = new ArrayList<>();
+        List<Object[]> versions = new ArrayList<>();
+        for (int i = 0; i < APP_COUNT; i++) {
+            String appId = String.format("com.budget.app%03d", i);
+            apps.add(new Object[]{appId, "Budget App " + i});
+            for (int code = 1; code <= 2; code++) {
+                versions.add(new Object[]{appId, code, "1." + code, appId + "/" + appId + "-" + code + ".apk"});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO app_info (app_id, app_name, force_update, create_time, update_time) " +
+                "VALUES (?, ?, FALSE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", apps);
+        jdbcTemplate.batchUpdate("INSERT INTO app_version (app_id, version_code, version_name, file_size, apk_path, " +
+                "force_update, is_released, create_time, update_time) " +
+                "VALUES (?, ?, ?, 1024, ?, FALSE, FALSE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", versions);
+        // 每个应用发布最新版本
+        jdbcTemplate.update("UPDATE app_info ai SET released_version_id = " +
+                "(SELECT MAX(av.id) FROM app_version av WHERE av.app_id = ai.app_id) WHERE ai.app_id LIKE 'com.budget.%'");
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void pagedListingIssuesFixedNumberOfStatements() {
+        // 应用ID分页、COUNT、整页汇总
+        assertStatementBudget(3, size -> {
+            Page<AppInfoWithLatestVersionDto> page =
+                    appVersionService.getAppsWithLatestVersion(null, PageRequest.of(0, size));
+            assertEquals(size, page.getNumberOfElements());
+            return page;
+        });
+    }
+
+    @Test
+    void sliceListingIssuesFixedNumberOfStatements() {
+        // 应用ID切片、整页汇总（总数取计数缓存，不执行COUNT）
+        assertStatementBudget(2, size -> {
+            Slice<AppInfoWithLatestVersionDto> slice =
+                    appVersionService.getAppsWithLatestVersionSlice(null, PageRequest.of(0, size), false);
+            assertEquals(size, slice.getNumberOfElements());
+            return slice;
+        });
+    }
+
+    @Test
+    void cursorListingIssuesFixedNumberOfStatements() {
+        // 应用ID键集查询、整页汇总
+        assertStatementBudget(2, size -> {
+            CursorPageDto<AppInfoWithLatestVersionDto> page =
+                    appVersionService.getAppsWithLatestVersionByCursor(null, null, size, false);
+            assertEquals(size, page.getContent().size());
+            return page;
+        });
+    }
+
+    /**
+     * 对每种页大小执行一次列表查询（执行前清空二级缓存和查询缓存），断言预编译语句数都等于预期值
+     */
+    private void assertStatementBudget(long expected, IntFunction<?> query) {
+        for (int size : PAGE_SIZES) {
+            entityManagerFactory.getCache().evictAll();
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+            statistics.clear();
+
+            query.apply(size);
+
+            assertEquals(expected, statistics.getPrepareStatementCount(), "页大小=" + size + "时的查询次数");
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.yancey.appupdate.service;
+
+import com.yancey.appupdate.config.AppProperties;
+import com.yancey.appupdate.dto.AppInfoWithLatestVersionDto;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 应用搜索回退测试
+ * 搜索索引不可用时的数据库查询与索引的匹配规则（名称或包名、不区分大小写、通配符按字面匹配）和相关度排序一致
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "spring.datasource.url=jdbc:h2:mem:app_search;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AppSearchFallbackTest {
+
+    private static final String[] QUERIES = {"weather", "com.search", "Maps", "map", "cast", "pro", "100%", "a_b"};
+
+    @Autowired
+    private AppVersionService appVersionService;
+
+    @Autowired
+    private AppNameSearchIndex appNameSearchIndex;
+
+    @Autowired
+    private AppProperties appProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seed() {
+        // 创建时间越靠后的应用在列表中越靠前
+        String[][] apps = {
+                {"com.search.weather", "Weather"},
+                {"com.search.maps", "Offline Maps Pro"},
+                {"com.search.mapsplus", "Maps"},
+                {"com.search.cast", "WeatherCast"},
+                {"com.search.tools", "Weather-Tools 100%"},
+                {"com.search.abc", "axb"},
+                {"com.search.a_b", "Underscore"},
+                {"org.weather.radar", "Radar"},
+                {"com.search.promo", "Promo Codes"},
+        };
+        LocalDateTime base = LocalDateTime.now().minusDays(1);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < apps.length; i++) {
+            rows.add(new Object[]{apps[i][0], apps[i][1], Timestamp.valueOf(base.plusMinutes(i))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO app_info (app_id, app_name, force_update, create_time, update_time) " +
+                "VALUES (?, ?, FALSE, ?, CURRENT_TIMESTAMP)", rows);
+        appNameSearchIndex.rebuild();
+    }
+
+    @Test
+    void pagedFallbackMatchesIndex() {
+        for (String query : QUERIES) {
+            Supplier<List<String>> search = () -> appIds(appVersionService
+                    .getAppsWithLatestVersion(query, PageRequest.of(0, 20)).getContent());
+            assertEquals(withIndex(search), withoutIndex(search), query);
+        }
+    }
+
+    @Test
+    void sliceFallbackMatchesIndex() {
+        for (String query : QUERIES) {
+            Supplier<List<String>> search = () -> appIds(appVersionService
+                    .getAppsWithLatestVersionSlice(query, PageRequest.of(0, 20), false).getContent());
+            assertEquals(withIndex(search), withoutIndex(search), query);
+        }
+    }
+
+    @Test
+    void cursorFallbackMatchesIndex() {
+        for (String query : QUERIES) {
+            Supplier<List<String>> search = () -> appIds(appVersionService
+                    .getAppsWithLatestVersionByCursor(query, null, 20, false).getContent());
+            assertEquals(withIndex(search), withoutIndex(search), query);
+        }
+    }
+
+    @Test
+    void fallbackMatchesPackageNameAndRanksByRelevance() {
+        List<String> matched = withoutIndex(() -> appIds(appVersionService
+                .getAppsWithLatestVersion("weather", PageRequest.of(0, 20)).getContent()));
+
+        // 完全匹配、名称前缀匹配（同级按创建时间倒序）、包名中的单词前缀匹配
+        assertEquals(Arrays.asList("com.search.weather", "com.search.tools", "com.search.cast", "org.weather.radar"),
+                matched);
+        // 下划线按字面匹配，不匹配axb
+        assertEquals(Arrays.asList("com.search.a_b"), withoutIndex(() -> appIds(appVersionService
+                .getAppsWithLatestVersion("a_b", PageRequest.of(0, 20)).getContent())));
+    }
+
+    private List<String> withIndex(Supplier<List<String>> search) {
+        assertTrue(appNameSearchIndex.isReady());
+        return search.get();
+    }
+
+    private List<String> withoutIndex(Supplier<List<String>> search) {
+        appProperties.getSearch().setEnabled(false);
+        try {
+            return search.get();
+        } finally {
+            appProperties.getSearch().setEnabled(true);
+        }
+    }
+
+    private static List<String> appIds(List<AppInfoWithLatestVersionDto> apps) {
+        return apps.stream().map(AppInfoWithLatestVersionDto::getAppId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,78 @@
+package com.yancey.appupdate.service;
+
+import com.yancey.appupdate.entity.AppVersion;
+import com.yancey.appupdate.util.TestApks;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * APK上传入库测试
+ * 暂存文件在事务提交后才移动到最终位置；回滚时删除暂存文件，最终位置上已有的文件不被覆盖
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "spring.datasource.url=jdbc:h2:mem:version_upload;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class AppVersionUploadTest {
+
+    @Autowired
+    private AppVersionService appVersionService;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void promotesStagedFileAfterCommit(@TempDir Path directory) throws Exception {
+        String appId = "com.upload.commit";
+        Path finalPath = fileStorageService.resolveApkPath(fileStorageService.apkStoragePath(appId, "1", null));
+        Files.deleteIfExists(finalPath);
+        String stagedPath = fileStorageService.stageApkFile(TestApks.write(directory.resolve("app.apk"), appId, 1));
+
+        AppVersion saved = new TransactionTemplate(transactionManager).execute(status -> {
+            AppVersion version = appVersionService.createAppVersionFromStagedFile(stagedPath, appId, null, false);
+            assertFalse(Files.exists(finalPath), "提交前不应移动到最终位置");
+            return version;
+        });
+
+        assertTrue(Files.isRegularFile(finalPath));
+        assertFalse(fileStorageService.fileExists(stagedPath));
+        assertTrue(fileStorageService.resolveApkPath(saved.getApkPath()).equals(finalPath));
+    }
+
+    @Test
+    void rollbackKeepsExistingFileAndRemovesStagedFile(@TempDir Path directory) throws Exception {
+        String appId = "com.upload.rollback";
+        Path finalPath = fileStorageService.resolveApkPath(fileStorageService.apkStoragePath(appId, "1", null));
+        Files.createDirectories(finalPath.getParent());
+        byte[] committed = "committed".getBytes(StandardCharsets.UTF_8);
+        Files.write(finalPath, committed);
+        String stagedPath = fileStorageService.stageApkFile(TestApks.write(directory.resolve("app.apk"), appId, 1));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            appVersionService.createAppVersionFromStagedFile(stagedPath, appId, null, false);
+            status.setRollbackOnly();
+        });
+
+        assertArrayEquals(committed, Files.readAllBytes(finalPath));
+        assertFalse(fileStorageService.fileExists(stagedPath));
+    }
+}
@@ -0,0 +1,135 @@
+package com.yancey.appupdate.service;
+
+import com.yancey.appupdate.entity.AppVersion;
+import com.yancey.appupdate.repository.AppVersionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * 冷版本归档测试
+ * 归档后重新发布的版本恢复到热存储；发布切换以数据库中的归档标记为准，二级缓存中过期的archived=false不会跳过恢复
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {"spring.datasource.url=jdbc:h2:mem:version_archive;DB_CLOSE_DELAY=-1",
+                "app.archive.path=target/test-data/archive/",
+                "app.archive.idle-after=0s"})
+@ActiveProfiles("test")
+class VersionArchiveServiceTest {
+
+    private static final String APP_ID = "com.archive.app";
+
+    @Autowired
+    private VersionArchiveService versionArchiveService;
+
+    @Autowired
+    private AppVersionService appVersionService;
+
+    @Autowired
+    private AppVersionRepository appVersionRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("UPDATE app_info SET released_version_id = NULL WHERE app_id = ?", APP_ID);
+        jdbcTemplate.update("DELETE FROM app_version WHERE app_id = ?", APP_ID);
+        jdbcTemplate.update("DELETE FROM app_info WHERE app_id = ?", APP_ID);
+        jdbcTemplate.update("INSERT INTO app_info (app_id, app_name, force_update, create_time, update_time) " +
+                "VALUES (?, 'Archive App', FALSE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", APP_ID);
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void archivesIdleVersionAndRestoresOnRelease() throws Exception {
+        long versionId = insertVersion(1);
+        Path apk = writeApk(1);
+
+        versionArchiveService.triggerArchive();
+        await(() -> Boolean.TRUE.equals(archivedInDatabase(versionId)));
+        await(() -> !versionArchiveService.getStatus().getRunning());
+        assertFalse(Files.exists(apk));
+
+        appVersionService.setReleaseVersion(APP_ID, versionId);
+        await(() -> Boolean.FALSE.equals(archivedInDatabase(versionId)));
+        assertTrue(Files.exists(apk));
+    }
+
+    @Test
+    void releaseIgnoresStaleCachedArchivedFlag() throws Exception {
+        long versionId = insertVersion(2);
+        Path apk = writeApk(2);
+
+        // 二级缓存中先放入archived=false的版本
+        assertFalse(appVersionRepository.findById(versionId).map(AppVersion::getArchived).orElseThrow(AssertionError::new));
+        assertTrue(entityManagerFactory.getCache().contains(AppVersion.class, versionId));
+
+        // 模拟归档已标记、缓存尚未清除的时刻
+        String apkPath = APP_ID + "/" + APP_ID + "-2.apk";
+        assertTrue(fileStorageService.copyToArchive(apkPath, false));
+        fileStorageService.deleteHotFile(apkPath);
+        jdbcTemplate.update("UPDATE app_version SET archived = TRUE WHERE id = ?", versionId);
+
+        appVersionService.setReleaseVersion(APP_ID, versionId);
+
+        await(() -> Boolean.FALSE.equals(archivedInDatabase(versionId)));
+        assertTrue(Files.exists(apk));
+        assertEquals(versionId, jdbcTemplate.queryForObject(
+                "SELECT released_version_id FROM app_info WHERE app_id = ?", Long.class, APP_ID));
+    }
+
+    private long insertVersion(int versionCode) {
+        String apkPath = APP_ID + "/" + APP_ID + "-" + versionCode + ".apk";
+        jdbcTemplate.update("INSERT INTO app_version (app_id, version_code, version_name, file_size, apk_path, " +
+                "force_update, is_released, create_time, update_time) " +
+                "VALUES (?, ?, ?, 1024, ?, FALSE, FALSE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)",
+                APP_ID, versionCode, "1." + versionCode, apkPath);
+        return jdbcTemplate.queryForObject("SELECT id FROM app_version WHERE app_id = ? AND version_code = ?",
+                Long.class, APP_ID, versionCode);
+    }
+
+    private Path writeApk(int versionCode) throws Exception {
+        Path apk = fileStorageService.resolveApkPath(APP_ID + "/" + APP_ID + "-" + versionCode + ".apk");
+        Files.createDirectories(apk.getParent());
+        Files.write(apk, new byte[1024]);
+        return apk;
+    }
+
+    private Boolean archivedInDatabase(long versionId) {
+        return jdbcTemplate.queryForObject("SELECT archived FROM app_version WHERE id = ?", Boolean.class, versionId);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            if (condition.getAsBoolean()) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        fail("等待超时");
+    }
+}
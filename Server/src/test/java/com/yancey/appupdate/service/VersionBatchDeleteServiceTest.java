@@ -0,0 +1,188 @@
+package com.yancey.appupdate.service;
+
+import com.yancey.appupdate.dto.BatchDeleteResultDto;
+import com.yancey.appupdate.repository.AppInfoRepository;
+import com.yancey.appupdate.repository.AppVersionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * 批量删除版本测试
+ * 保留发布版本时，删除与并发的发布版本切换串行执行，检查之后才发布的版本不会被删除；
+ * 文件先移入回收站再异步删除，回收统计只计实际存在的文件，排队期间在原路径重新写入的文件不受影响
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "spring.datasource.url=jdbc:h2:mem:batch_delete;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000")
+@ActiveProfiles("test")
+class VersionBatchDeleteServiceTest {
+
+    private static final String APP_ID = "com.batch.delete";
+
+    @Autowired
+    private VersionBatchDeleteService versionBatchDeleteService;
+
+    @Autowired
+    private AppInfoRepository appInfoRepository;
+
+    @Autowired
+    private AppVersionRepository appVersionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private FileReclaimService fileReclaimService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM app_version WHERE app_id = ?", APP_ID);
+        jdbcTemplate.update("DELETE FROM app_info WHERE app_id = ?", APP_ID);
+        jdbcTemplate.update("INSERT INTO app_info (app_id, app_name, force_update, create_time, update_time) " +
+                "VALUES (?, 'Batch Delete', FALSE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", APP_ID);
+    }
+
+    @Test
+    void keepsReleasedVersion() {
+        long released = insertVersion(1);
+        long old = insertVersion(2);
+        jdbcTemplate.update("UPDATE app_info SET released_version_id = ? WHERE app_id = ?", released, APP_ID);
+
+        BatchDeleteResultDto result = versionBatchDeleteService.deleteVersions(Arrays.asList(released, old), false, true);
+
+        assertEquals(1, result.getDeletedCount());
+        assertEquals(1, result.getSkippedCount());
+        assertTrue(appVersionRepository.existsById(released));
+        assertEquals(released, appInfoRepository.findById(APP_ID).orElseThrow(AssertionError::new).getReleasedVersionId());
+    }
+
+    @Test
+    void waitsForConcurrentRelease() throws Exception {
+        long versionId = insertVersion(1);
+        CountDownLatch locked = new CountDownLatch(1);
+
+        // 模拟setReleaseVersion：锁定应用行后（尚未提交）才把发布指针指向该版本
+        CompletableFuture<Void> release = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    appInfoRepository.findByIdForUpdate(APP_ID).orElseThrow(AssertionError::new);
+                    locked.countDown();
+                    sleep(500);
+                    appInfoRepository.updateReleasedVersionId(APP_ID, versionId);
+                }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        BatchDeleteResultDto result = versionBatchDeleteService.deleteVersions(
+                Collections.singletonList(versionId), false, true);
+        release.get(5, TimeUnit.SECONDS);
+
+        assertEquals("SKIPPED", result.getResults().get(0).getStatus());
+        assertTrue(appVersionRepository.existsById(versionId));
+        assertEquals(versionId, appInfoRepository.findById(APP_ID).orElseThrow(AssertionError::new).getReleasedVersionId());
+    }
+
+    @Test
+    void countsOnlyExistingFilesAndKeepsReuploadedFile() throws Exception {
+        long withFile = insertVersion(1);
+        long withoutFile = insertVersion(2);
+        Path apk = writeApk(1, 1000);
+        Files.deleteIfExists(apkPath(2));
+
+        BatchDeleteResultDto result = versionBatchDeleteService.deleteVersions(Arrays.asList(withFile, withoutFile), true, false);
+
+        assertEquals(2, result.getDeletedCount());
+        assertEquals(1, result.getReclaimedFileCount());
+        assertEquals(1000, result.getReclaimedBytes());
+        assertFalse(Files.exists(apk));
+
+        // 提交后重新上传同一版本号，原路径上的新文件不会被排队中的回收任务删除
+        writeApk(1, 2000);
+        awaitTrashEmpty();
+        assertEquals(2000, Files.size(apk));
+    }
+
+    @Test
+    void restoresFilesOnRollback() throws Exception {
+        insertVersion(1);
+        Path apk = writeApk(1, 1000);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            fileReclaimService.reclaimAfterCommit(
+                    Collections.singletonList(APP_ID + "/" + APP_ID + "-1.apk"), Collections.emptyList());
+            assertFalse(Files.exists(apk));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(1000, Files.size(apk));
+    }
+
+    private Path apkPath(int versionCode) {
+        return fileStorageService.resolveApkPath(APP_ID + "/" + APP_ID + "-" + versionCode + ".apk");
+    }
+
+    private Path writeApk(int versionCode, int size) throws Exception {
+        Path apk = apkPath(versionCode);
+        Files.createDirectories(apk.getParent());
+        Files.write(apk, new byte[size]);
+        return apk;
+    }
+
+    private void awaitTrashEmpty() throws Exception {
+        Path trash = fileStorageService.getStorageLocation().resolve(".trash");
+        for (int i = 0; i < 50; i++) {
+            try (Stream<Path> batches = Files.list(trash)) {
+                if (!batches.findAny().isPresent()) {
+                    return;
+                }
+            }
+            Thread.sleep(100);
+        }
+        fail("回收站未清空: " + trash);
+    }
+
+    private long insertVersion(int versionCode) {
+        String apkPath = APP_ID + "/" + APP_ID + "-" + versionCode + ".apk";
+        jdbcTemplate.update("INSERT INTO app_version (app_id, version_code, version_name, file_size, apk_path, " +
+                "force_update, is_released, create_time, update_time) " +
+                "VALUES (?, ?, ?, 1024, ?, FALSE, FALSE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)",
+                APP_ID, versionCode, "1." + versionCode, apkPath);
+        return jdbcTemplate.queryForObject("SELECT id FROM app_version WHERE app_id = ? AND version_code = ?",
+                Long.class, APP_ID, versionCode);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
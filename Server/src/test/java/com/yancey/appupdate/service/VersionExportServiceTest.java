@@ -0,0 +1,74 @@
+package com.yancey.appupdate.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 版本导出测试
+ * CSV中以公式字符开头的文本字段加单引号前缀，数值字段保持原样
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "spring.datasource.url=jdbc:h2:mem:version_export;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class VersionExportServiceTest {
+
+    private static final String APP_ID = "com.export.csv";
+
+    @Autowired
+    private VersionExportService versionExportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("INSERT INTO app_info (app_id, app_name, force_update, create_time, update_time) " +
+                "VALUES (?, ?, FALSE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", APP_ID, "=HYPERLINK(\"http://evil\",\"x\")");
+        insertVersion(1, "+1.0", "@SUM(A1:A2)");
+        insertVersion(2, "-2.0", "normal, with comma");
+    }
+
+    @Test
+    void csvEscapesFormulaPrefixes() {
+        String[] lines = exportCsv().split("\n");
+
+        assertEquals(3, lines.length);
+        assertTrue(lines[1].contains(",\"'=HYPERLINK(\"\"http://evil\"\",\"\"x\"\")\","), lines[1]);
+        assertTrue(lines[1].contains(",'+1.0,"), lines[1]);
+        assertTrue(lines[1].contains(",'@SUM(A1:A2),"), lines[1]);
+        assertTrue(lines[2].contains(",'-2.0,"), lines[2]);
+        assertTrue(lines[2].contains(",\"normal, with comma\","), lines[2]);
+        // 数值字段不加前缀
+        assertTrue(lines[1].contains("," + APP_ID + ","), lines[1]);
+        assertTrue(lines[2].contains(",2,'-2.0,"), lines[2]);
+    }
+
+    private String exportCsv() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        versionExportService.exportVersions(APP_ID, null, null, VersionExportService.ExportFormat.CSV, out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private void insertVersion(int versionCode, String versionName, String updateDescription) {
+        jdbcTemplate.update("INSERT INTO app_version (app_id, version_code, version_name, file_size, apk_path, " +
+                "update_description, force_update, is_released, create_time, update_time) " +
+                "VALUES (?, ?, ?, 1024, ?, ?, FALSE, FALSE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)",
+                APP_ID, versionCode, versionName, APP_ID + "/" + APP_ID + "-" + versionCode + ".apk", updateDescription);
+    }
+}
@@ -0,0 +1,45 @@
+package com.yancey.appupdate.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 版本统计测试
+ * 校准以偏差增量修正计数器，缺失的计数器行会被补建（计数器的预置见SchemaMigrationTest）
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "spring.datasource.url=jdbc:h2:mem:version_stats;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class VersionStatsServiceTest {
+
+    @Autowired
+    private VersionStatsService versionStatsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void reconcileCorrectsDrift() {
+        versionStatsService.reconcile();
+        Map<String, Long> expected = versionStatsService.getCounters();
+
+        jdbcTemplate.update("UPDATE stats_counter SET counter_value = counter_value + 5 WHERE counter_name = ?",
+                VersionStatsService.TOTAL_VERSIONS);
+        jdbcTemplate.update("DELETE FROM stats_counter WHERE counter_name = ?", VersionStatsService.TOTAL_FILE_SIZE);
+        versionStatsService.reconcile();
+
+        assertEquals(expected, versionStatsService.getCounters());
+        assertEquals(5, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stats_counter", Integer.class));
+    }
+}
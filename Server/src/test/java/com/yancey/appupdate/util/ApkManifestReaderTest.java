@@ -0,0 +1,177 @@
+package com.yancey.appupdate.util;
+
+import com.yancey.appupdate.dto.ApkManifestInfo;
+import com.yancey.appupdate.exception.ApkParseException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 轻量级APK清单读取器测试
+ * 覆盖普通清单、资源引用的应用名称和版本名称、versionCodeMajor、带注释和ZIP64的EOCD以及损坏的输入
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+class ApkManifestReaderTest {
+
+    private static final String PACKAGE_NAME = "com.yancey.manifest";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsPlainManifest() throws Exception {
+        Path apk = apk(new TestApks.Manifest(PACKAGE_NAME, 42).versionName("4.2.0").label("Manifest App")
+                .targetSdkVersion(33));
+
+        ApkManifestInfo info = ApkManifestReader.read(apk.toFile());
+
+        assertEquals(PACKAGE_NAME, info.getPackageName());
+        assertEquals(42L, info.getVersionCode());
+        assertEquals("4.2.0", info.getVersionName());
+        assertEquals("Manifest App", info.getLabel());
+        assertNull(info.getLabelResourceId());
+        assertEquals(21, info.getMinSdkVersion());
+        assertEquals(33, info.getTargetSdkVersion());
+        assertFalse(info.isVersionNameReference());
+    }
+
+    @Test
+    void keepsResourceIdOfReferencedLabel() throws Exception {
+        Path apk = apk(new TestApks.Manifest(PACKAGE_NAME, 1).versionName("1.0").labelResource(0x7f0b0001));
+
+        ApkManifestInfo info = ApkManifestReader.read(apk.toFile());
+
+        assertNull(info.getLabel());
+        assertEquals(0x7f0b0001, info.getLabelResourceId());
+    }
+
+    @Test
+    void flagsReferencedVersionName() throws Exception {
+        Path apk = apk(new TestApks.Manifest(PACKAGE_NAME, 1).versionNameResource(0x7f0b0002).label("App"));
+
+        ApkManifestInfo info = ApkManifestReader.read(apk.toFile());
+
+        assertTrue(info.isVersionNameReference());
+        assertNull(info.getVersionName());
+    }
+
+    @Test
+    void combinesVersionCodeMajor() throws Exception {
+        Path apk = apk(new TestApks.Manifest(PACKAGE_NAME, 7).versionCodeMajor(3).versionName("3.7").label("App"));
+
+        ApkManifestInfo info = ApkManifestReader.read(apk.toFile());
+
+        assertEquals((3L << 32) | 7L, info.getVersionCode());
+    }
+
+    @Test
+    void findsEndOfCentralDirectoryBeforeComment() throws Exception {
+        Path apk = apk(new TestApks.Manifest(PACKAGE_NAME, 5).versionName("1.5").label("App"));
+        // 注释中带有EOCD签名，读取器必须按注释长度校验候选位置
+        byte[] comment = concat("PK".getBytes(StandardCharsets.US_ASCII), new byte[]{5, 6},
+                new byte[40], "release build".getBytes(StandardCharsets.US_ASCII));
+        Files.write(apk, withComment(Files.readAllBytes(apk), comment));
+
+        ApkManifestInfo info = ApkManifestReader.read(apk.toFile());
+
+        assertEquals(PACKAGE_NAME, info.getPackageName());
+        assertEquals(5L, info.getVersionCode());
+    }
+
+    @Test
+    void rejectsZip64() throws Exception {
+        Path apk = apk(new TestApks.Manifest(PACKAGE_NAME, 5).versionName("1.5").label("App"));
+        Files.write(apk, TestApks.toZip64(Files.readAllBytes(apk)));
+
+        ApkParseException e = assertThrows(ApkParseException.class, () -> ApkManifestReader.read(apk.toFile()));
+        assertTrue(e.getMessage().contains("ZIP64"), e.getMessage());
+    }
+
+    @Test
+    void rejectsNonZipInput() throws Exception {
+        Path file = Files.write(directory.resolve("random.apk"), new byte[4096]);
+
+        assertThrows(ApkParseException.class, () -> ApkManifestReader.read(file.toFile()));
+    }
+
+    @Test
+    void rejectsTinyFile() throws Exception {
+        Path file = Files.write(directory.resolve("tiny.apk"), new byte[10]);
+
+        assertThrows(ApkParseException.class, () -> ApkManifestReader.read(file.toFile()));
+    }
+
+    @Test
+    void rejectsCentralDirectoryOutOfBounds() throws Exception {
+        Path apk = apk(new TestApks.Manifest(PACKAGE_NAME, 5).versionName("1.5").label("App"));
+        byte[] bytes = Files.readAllBytes(apk);
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(bytes.length - 22 + 16, bytes.length);
+        Files.write(apk, bytes);
+
+        ApkParseException e = assertThrows(ApkParseException.class, () -> ApkManifestReader.read(apk.toFile()));
+        assertTrue(e.getMessage().contains("越界"), e.getMessage());
+    }
+
+    @Test
+    void rejectsMissingManifest() throws Exception {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("classes.dex", new byte[16]);
+        Path apk = TestApks.writeZip(directory.resolve("no-manifest.apk"), entries);
+
+        assertThrows(ApkParseException.class, () -> ApkManifestReader.read(apk.toFile()));
+    }
+
+    @Test
+    void rejectsCorruptBinaryXml() {
+        byte[] manifest = new TestApks.Manifest(PACKAGE_NAME, 1).versionName("1.0").label("App").encode();
+
+        assertThrows(ApkParseException.class, () -> ApkManifestReader.decodeManifest(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}));
+        // 截断后chunk长度超出文档
+        byte[] truncated = Arrays.copyOf(manifest, 40);
+        ByteBuffer.wrap(truncated).order(ByteOrder.LITTLE_ENDIAN).putInt(4, truncated.length);
+        assertThrows(ApkParseException.class, () -> ApkManifestReader.decodeManifest(truncated));
+    }
+
+    private Path apk(TestApks.Manifest manifest) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("AndroidManifest.xml", manifest.encode());
+        entries.put("classes.dex", "dex\n035\0".getBytes(StandardCharsets.UTF_8));
+        return TestApks.writeZip(directory.resolve("app.apk"), entries);
+    }
+
+    /**
+     * 在EOCD后追加注释
+     */
+    private static byte[] withComment(byte[] zip, byte[] comment) {
+        byte[] result = concat(zip, comment);
+        ByteBuffer.wrap(result).order(ByteOrder.LITTLE_ENDIAN).putShort(zip.length - 22 + 20, (short) comment.length);
+        return result;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = Arrays.stream(parts).mapToInt(part -> part.length).sum();
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (byte[] part : parts) {
+            buffer.put(part);
+        }
+        return buffer.array();
+    }
+}
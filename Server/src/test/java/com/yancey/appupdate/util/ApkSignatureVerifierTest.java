@@ -0,0 +1,201 @@
+package com.yancey.appupdate.util;
+
+import com.yancey.appupdate.dto.ApkSignatureInfo;
+import com.yancey.appupdate.exception.ApkParseException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * APK签名校验测试
+ * 覆盖v1/v2/v3签名的正常校验、内容篡改、拷贝证书、签名块剥离和签名块截断
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+class ApkSignatureVerifierTest {
+
+    private static TestApkSigner.Signer signer;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void loadSigner() throws Exception {
+        signer = TestApkSigner.signer("signer-a");
+    }
+
+    @Test
+    void verifiesV1Signature() throws Exception {
+        Path apk = TestApkSigner.signV1(unsigned(), directory.resolve("v1.apk"), signer);
+
+        assertSigned(ApkSignatureInfo.SCHEME_V1, ApkSignatureVerifier.verify(apk.toFile()));
+    }
+
+    @Test
+    void verifiesV2Signature() throws Exception {
+        Path apk = TestApkSigner.signV1AndV2(unsigned(), directory.resolve("v2.apk"), signer);
+
+        assertSigned(ApkSignatureInfo.SCHEME_V2, ApkSignatureVerifier.verify(apk.toFile()));
+    }
+
+    @Test
+    void verifiesV3Signature() throws Exception {
+        Path apk = TestApkSigner.signV3(unsigned(), directory.resolve("v3.apk"), signer);
+
+        assertSigned(ApkSignatureInfo.SCHEME_V3, ApkSignatureVerifier.verify(apk.toFile()));
+    }
+
+    @Test
+    void unsignedApkHasNoSigner() throws Exception {
+        ApkSignatureInfo info = ApkSignatureVerifier.verify(unsigned().toFile());
+
+        assertFalse(info.isSigned());
+        assertTrue(info.getSignerFingerprints().isEmpty());
+    }
+
+    @Test
+    void rejectsTamperedV2Content() throws Exception {
+        Path apk = TestApkSigner.signV1AndV2(unsigned(), directory.resolve("v2.apk"), signer);
+        flipByte(apk, 10);
+
+        ApkParseException e = assertThrows(ApkParseException.class, () -> ApkSignatureVerifier.verify(apk.toFile()));
+        assertTrue(e.getMessage().contains("摘要"), e.getMessage());
+    }
+
+    @Test
+    void rejectsTamperedV3Content() throws Exception {
+        Path apk = TestApkSigner.signV3(unsigned(), directory.resolve("v3.apk"), signer);
+        flipByte(apk, 10);
+
+        assertThrows(ApkParseException.class, () -> ApkSignatureVerifier.verify(apk.toFile()));
+    }
+
+    @Test
+    void rejectsTamperedV1Entry() throws Exception {
+        Path signed = TestApkSigner.signV1(unsigned(), directory.resolve("v1.apk"), signer);
+        Map<String, byte[]> entries = readEntries(signed);
+        entries.put("classes.dex", "tampered".getBytes(StandardCharsets.UTF_8));
+        Path tampered = TestApks.writeZip(directory.resolve("tampered.apk"), entries);
+
+        assertThrows(ApkParseException.class, () -> ApkSignatureVerifier.verify(tampered.toFile()));
+    }
+
+    @Test
+    void copiedV1CertificateIsNotTrusted() throws Exception {
+        Map<String, byte[]> signedEntries = readEntries(TestApkSigner.signV1(unsigned(), directory.resolve("v1.apk"), signer));
+        Map<String, byte[]> entries = readEntries(TestApks.write(directory.resolve("other.apk"), "com.other.app", 1));
+        entries.put("META-INF/CERT.RSA", signedEntries.get("META-INF/CERT.RSA"));
+        Path forged = TestApks.writeZip(directory.resolve("forged.apk"), entries);
+
+        ApkSignatureInfo info = ApkSignatureVerifier.verify(forged.toFile());
+
+        assertFalse(info.isSigned());
+        assertTrue(info.getSignerFingerprints().isEmpty());
+    }
+
+    @Test
+    void rejectsCopiedV1SignatureOverDifferentContent() throws Exception {
+        Map<String, byte[]> signedEntries = readEntries(TestApkSigner.signV1(unsigned(), directory.resolve("v1.apk"), signer));
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        for (String name : new String[]{"META-INF/MANIFEST.MF", "META-INF/CERT.SF", "META-INF/CERT.RSA"}) {
+            entries.put(name, signedEntries.get(name));
+        }
+        entries.putAll(readEntries(TestApks.write(directory.resolve("other.apk"), "com.yancey.signed", 2)));
+        Path forged = TestApks.writeZip(directory.resolve("forged.apk"), entries);
+
+        assertThrows(ApkParseException.class, () -> ApkSignatureVerifier.verify(forged.toFile()));
+    }
+
+    @Test
+    void rejectsApkWithStrippedV2Block() throws Exception {
+        Path signed = TestApkSigner.signV1AndV2(unsigned(), directory.resolve("v2.apk"), signer);
+        Path stripped = TestApkSigner.stripSigningBlock(signed, directory.resolve("stripped.apk"));
+
+        ApkParseException e = assertThrows(ApkParseException.class, () -> ApkSignatureVerifier.verify(stripped.toFile()));
+        assertTrue(e.getMessage().contains("剥离"), e.getMessage());
+    }
+
+    @Test
+    void rejectsV2SignatureClaimingStrippedV3() throws Exception {
+        Path apk = TestApkSigner.signV2ClaimingV3(unsigned(), directory.resolve("v2.apk"), signer);
+
+        ApkParseException e = assertThrows(ApkParseException.class, () -> ApkSignatureVerifier.verify(apk.toFile()));
+        assertTrue(e.getMessage().contains("剥离"), e.getMessage());
+    }
+
+    @Test
+    void rejectsTruncatedSigningBlock() throws Exception {
+        Path apk = TestApkSigner.signV3(unsigned(), directory.resolve("v3.apk"), signer);
+        byte[] bytes = Files.readAllBytes(apk);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int centralDirectoryOffset = buffer.getInt(bytes.length - 22 + 16);
+        long blockSize = buffer.getLong(centralDirectoryOffset - 24);
+        int blockStart = (int) (centralDirectoryOffset - blockSize - 8);
+        // 签名者序列的长度字段超出签名块
+        buffer.putInt(blockStart + 8 + 8 + 4, Integer.MAX_VALUE);
+        Files.write(apk, bytes);
+
+        ApkParseException e = assertThrows(ApkParseException.class, () -> ApkSignatureVerifier.verify(apk.toFile()));
+        assertTrue(e.getMessage().contains("越界"), e.getMessage());
+    }
+
+    @Test
+    void rejectsTruncatedFile() throws Exception {
+        Path apk = TestApkSigner.signV3(unsigned(), directory.resolve("v3.apk"), signer);
+        byte[] bytes = Files.readAllBytes(apk);
+        Files.write(apk, Arrays.copyOf(bytes, bytes.length - 30));
+
+        assertThrows(ApkParseException.class, () -> ApkSignatureVerifier.verify(apk.toFile()));
+    }
+
+    private void assertSigned(int scheme, ApkSignatureInfo info) throws Exception {
+        assertEquals(scheme, info.getScheme());
+        assertEquals(Collections.singletonList(signer.fingerprint()), info.getSignerFingerprints());
+    }
+
+    private Path unsigned() throws IOException {
+        return TestApks.write(directory.resolve("unsigned.apk"), "com.yancey.signed", 1);
+    }
+
+    private static void flipByte(Path file, int offset) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[offset] ^= 0x01;
+        Files.write(file, bytes);
+    }
+
+    private static Map<String, byte[]> readEntries(Path apk) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipFile zipFile = new ZipFile(apk.toFile())) {
+            Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry entry = zipEntries.nextElement();
+                try (InputStream input = zipFile.getInputStream(entry)) {
+                    entries.put(entry.getName(), input.readAllBytes());
+                }
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,261 @@
+package com.yancey.appupdate.util;
+
+import com.android.apksig.ApkSigner;
+import org.apache.commons.codec.binary.Hex;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * 测试用APK签名工具
+ * v1/v2签名使用Android官方的apksig生成；apksig 2.3.0不支持v3，v3签名块按APK Signature Scheme v3规范自行构造。
+ * 密钥来自测试资源signing/test-signers.p12（signer-a、signer-b两个RSA 2048密钥）
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+public final class TestApkSigner {
+
+    private static final String KEYSTORE = "/signing/test-signers.p12";
+    private static final char[] PASSWORD = "test-only".toCharArray();
+
+    private static final int V2_BLOCK_ID = 0x7109871a;
+    private static final int V3_BLOCK_ID = 0xf05368c0;
+    private static final int STRIPPING_PROTECTION_ATTR_ID = 0xbeeff00d;
+    private static final int RSA_PKCS1_V1_5_WITH_SHA256 = 0x0103;
+    private static final int CHUNK_SIZE = 1024 * 1024;
+    private static final byte[] MAGIC = "APK Sig Block 42".getBytes();
+
+    private TestApkSigner() {
+    }
+
+    /**
+     * 签名密钥
+     */
+    public static final class Signer {
+        private final PrivateKey privateKey;
+        private final X509Certificate certificate;
+
+        private Signer(PrivateKey privateKey, X509Certificate certificate) {
+            this.privateKey = privateKey;
+            this.certificate = certificate;
+        }
+
+        /**
+         * 证书SHA-256指纹（与ApkSignatureVerifier的输出格式一致）
+         */
+        public String fingerprint() throws GeneralSecurityException {
+            return Hex.encodeHexString(MessageDigest.getInstance("SHA-256").digest(certificate.getEncoded()));
+        }
+    }
+
+    /**
+     * 加载测试密钥
+     *
+     * @param alias signer-a或signer-b
+     */
+    public static Signer signer(String alias) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream input = TestApkSigner.class.getResourceAsStream(KEYSTORE)) {
+            keyStore.load(input, PASSWORD);
+        }
+        return new Signer((PrivateKey) keyStore.getKey(alias, PASSWORD), (X509Certificate) keyStore.getCertificate(alias));
+    }
+
+    /**
+     * 仅v1（JAR）签名
+     */
+    public static Path signV1(Path unsigned, Path signed, Signer signer) throws Exception {
+        return apksig(unsigned, signed, signer, false);
+    }
+
+    /**
+     * v1 + v2签名（v1签名文件中声明X-Android-APK-Signed: 2）
+     */
+    public static Path signV1AndV2(Path unsigned, Path signed, Signer signer) throws Exception {
+        return apksig(unsigned, signed, signer, true);
+    }
+
+    private static Path apksig(Path unsigned, Path signed, Signer signer, boolean v2) throws Exception {
+        ApkSigner.SignerConfig config = new ApkSigner.SignerConfig.Builder("CERT", signer.privateKey,
+                Collections.singletonList(signer.certificate)).build();
+        new ApkSigner.Builder(Collections.singletonList(config))
+                .setInputApk(unsigned.toFile())
+                .setOutputApk(signed.toFile())
+                .setMinSdkVersion(21)
+                .setV1SigningEnabled(true)
+                .setV2SigningEnabled(v2)
+                .build()
+                .sign();
+        return signed;
+    }
+
+    /**
+     * v3签名（APK中原有的签名块会被替换）
+     */
+    public static Path signV3(Path unsigned, Path signed, Signer signer) throws Exception {
+        return writeSigningBlock(unsigned, signed, signer, V3_BLOCK_ID, new byte[0]);
+    }
+
+    /**
+     * 带防剥离属性（声明还有v3签名）的v2签名，用于模拟v3签名块被剥离后的APK
+     */
+    public static Path signV2ClaimingV3(Path unsigned, Path signed, Signer signer) throws Exception {
+        ByteBuffer attribute = buffer(12).putInt(8).putInt(STRIPPING_PROTECTION_ATTR_ID).putInt(3);
+        return writeSigningBlock(unsigned, signed, signer, V2_BLOCK_ID, attribute.array());
+    }
+
+    /**
+     * 去掉APK签名块（保留v1签名），模拟签名被剥离
+     */
+    public static Path stripSigningBlock(Path apk, Path stripped) throws IOException {
+        Zip zip = Zip.read(apk);
+        Files.write(stripped, zip.assemble(new byte[0]));
+        return stripped;
+    }
+
+    private static Path writeSigningBlock(Path unsigned, Path signed, Signer signer, int blockId,
+                                          byte[] additionalAttributes) throws Exception {
+        Zip zip = Zip.read(unsigned);
+        boolean v3 = blockId == V3_BLOCK_ID;
+
+        ByteArrayOutputStream signedData = new ByteArrayOutputStream();
+        writeLengthPrefixed(signedData, lengthPrefixed(concat(
+                buffer(4).putInt(RSA_PKCS1_V1_5_WITH_SHA256).array(), lengthPrefixed(zip.contentDigest()))));
+        writeLengthPrefixed(signedData, lengthPrefixed(signer.certificate.getEncoded()));
+        if (v3) {
+            signedData.write(buffer(8).putInt(24).putInt(Integer.MAX_VALUE).array());
+        }
+        writeLengthPrefixed(signedData, additionalAttributes);
+
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(signer.privateKey);
+        signature.update(signedData.toByteArray());
+        byte[] signatureBytes = signature.sign();
+
+        ByteArrayOutputStream signerBlock = new ByteArrayOutputStream();
+        writeLengthPrefixed(signerBlock, signedData.toByteArray());
+        if (v3) {
+            signerBlock.write(buffer(8).putInt(24).putInt(Integer.MAX_VALUE).array());
+        }
+        writeLengthPrefixed(signerBlock, lengthPrefixed(concat(
+                buffer(4).putInt(RSA_PKCS1_V1_5_WITH_SHA256).array(), lengthPrefixed(signatureBytes))));
+        writeLengthPrefixed(signerBlock, signer.certificate.getPublicKey().getEncoded());
+
+        byte[] schemeBlock = lengthPrefixed(lengthPrefixed(signerBlock.toByteArray()));
+        ByteBuffer pair = buffer(12 + schemeBlock.length).putLong(4 + schemeBlock.length).putInt(blockId).put(schemeBlock);
+        long blockSize = pair.capacity() + 8 + MAGIC.length;
+        ByteBuffer block = buffer((int) blockSize + 8)
+                .putLong(blockSize).put(pair.array()).putLong(blockSize).put(MAGIC);
+
+        Files.write(signed, zip.assemble(block.array()));
+        return signed;
+    }
+
+    /**
+     * APK按签名块规范拆成的三个区段：条目、中央目录、EOCD
+     */
+    private static final class Zip {
+        private final byte[] entries;
+        private final byte[] centralDirectory;
+        private final byte[] eocd;
+
+        private Zip(byte[] entries, byte[] centralDirectory, byte[] eocd) {
+            this.entries = entries;
+            this.centralDirectory = centralDirectory;
+            this.eocd = eocd;
+        }
+
+        static Zip read(Path apk) throws IOException {
+            byte[] bytes = Files.readAllBytes(apk);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            int eocdOffset = bytes.length - 22;
+            while (buffer.getInt(eocdOffset) != 0x06054b50) {
+                eocdOffset--;
+            }
+            int centralDirectorySize = buffer.getInt(eocdOffset + 12);
+            int centralDirectoryOffset = buffer.getInt(eocdOffset + 16);
+
+            // 已有签名块时去掉
+            int entriesEnd = centralDirectoryOffset;
+            if (centralDirectoryOffset >= 24 && Arrays.equals(MAGIC,
+                    Arrays.copyOfRange(bytes, centralDirectoryOffset - 16, centralDirectoryOffset))) {
+                entriesEnd = (int) (centralDirectoryOffset - buffer.getLong(centralDirectoryOffset - 24) - 8);
+            }
+            return new Zip(Arrays.copyOfRange(bytes, 0, entriesEnd),
+                    Arrays.copyOfRange(bytes, centralDirectoryOffset, centralDirectoryOffset + centralDirectorySize),
+                    Arrays.copyOfRange(bytes, eocdOffset, bytes.length));
+        }
+
+        /**
+         * 签名块插入条目与中央目录之间，EOCD中的中央目录偏移随之调整
+         */
+        byte[] assemble(byte[] signingBlock) {
+            byte[] adjustedEocd = eocd.clone();
+            ByteBuffer.wrap(adjustedEocd).order(ByteOrder.LITTLE_ENDIAN).putInt(16, entries.length + signingBlock.length);
+            return concat(entries, signingBlock, centralDirectory, adjustedEocd);
+        }
+
+        /**
+         * 按1MB分块的SHA-256内容摘要（EOCD中的中央目录偏移取签名块的起始位置，即条目区段的长度）
+         */
+        byte[] contentDigest() throws GeneralSecurityException {
+            byte[] digestedEocd = eocd.clone();
+            ByteBuffer.wrap(digestedEocd).order(ByteOrder.LITTLE_ENDIAN).putInt(16, entries.length);
+
+            ByteArrayOutputStream chunkDigests = new ByteArrayOutputStream();
+            int chunkCount = 0;
+            for (byte[] section : new byte[][]{entries, centralDirectory, digestedEocd}) {
+                for (int offset = 0; offset < section.length; offset += CHUNK_SIZE) {
+                    int length = Math.min(CHUNK_SIZE, section.length - offset);
+                    MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                    digest.update((byte) 0xa5);
+                    digest.update(buffer(4).putInt(length).array());
+                    digest.update(section, offset, length);
+                    chunkDigests.write(digest.digest(), 0, 32);
+                    chunkCount++;
+                }
+            }
+            MessageDigest topLevel = MessageDigest.getInstance("SHA-256");
+            topLevel.update((byte) 0x5a);
+            topLevel.update(buffer(4).putInt(chunkCount).array());
+            topLevel.update(chunkDigests.toByteArray());
+            return topLevel.digest();
+        }
+    }
+
+    private static byte[] lengthPrefixed(byte[] data) {
+        return buffer(4 + data.length).putInt(data.length).put(data).array();
+    }
+
+    private static void writeLengthPrefixed(ByteArrayOutputStream output, byte[] data) {
+        byte[] prefixed = lengthPrefixed(data);
+        output.write(prefixed, 0, prefixed.length);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            output.write(part, 0, part.length);
+        }
+        return output.toByteArray();
+    }
+
+    private static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,286 @@
+package com.yancey.appupdate.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 测试用APK生成工具
+ * 生成只含二进制AndroidManifest.xml和classes.dex的最小APK（未签名）
+ *
+ * @author yancey
+ * @version 1.0
+ * @since 2024-06-20
+ */
+public final class TestApks {
+
+    private static final String ANDROID_NAMESPACE = "http://schemas.android.com/apk/res/android";
+
+    // android命名空间属性资源ID
+    private static final int ATTR_VERSION_CODE = 0x0101021b;
+    private static final int ATTR_VERSION_NAME = 0x0101021c;
+    private static final int ATTR_LABEL = 0x01010001;
+    private static final int ATTR_MIN_SDK_VERSION = 0x0101020c;
+    private static final int ATTR_TARGET_SDK_VERSION = 0x01010270;
+    private static final int ATTR_VERSION_CODE_MAJOR = 0x01010576;
+
+    private static final int TYPE_REFERENCE = 0x01;
+    private static final int TYPE_STRING = 0x03;
+    private static final int TYPE_INT_DEC = 0x10;
+
+    private TestApks() {
+    }
+
+    /**
+     * 生成最小APK
+     *
+     * @param target 输出文件
+     * @param packageName 包名
+     * @param versionCode 版本号
+     * @return 输出文件
+     * @throws IOException 写入异常
+     */
+    public static Path write(Path target, String packageName, int versionCode) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("AndroidManifest.xml", manifest(packageName, versionCode, "1." + versionCode, "Test App"));
+        entries.put("classes.dex", ("dex\n035\0" + packageName + versionCode).getBytes(StandardCharsets.UTF_8));
+        return writeZip(target, entries);
+    }
+
+    /**
+     * 按顺序写入ZIP条目
+     */
+    public static Path writeZip(Path target, Map<String, byte[]> entries) throws IOException {
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        try (OutputStream output = Files.newOutputStream(target);
+             ZipOutputStream zip = new ZipOutputStream(output)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue());
+                zip.closeEntry();
+            }
+        }
+        return target;
+    }
+
+    /**
+     * 改写为ZIP64结构：在EOCD前插入ZIP64 EOCD记录和定位器，EOCD中的数量、大小、偏移置为占位值
+     */
+    public static byte[] toZip64(byte[] zip) {
+        int eocd = zip.length - 22;
+        ByteBuffer source = ByteBuffer.wrap(zip).order(ByteOrder.LITTLE_ENDIAN);
+        int entryCount = Short.toUnsignedInt(source.getShort(eocd + 10));
+        long centralDirectorySize = Integer.toUnsignedLong(source.getInt(eocd + 12));
+        long centralDirectoryOffset = Integer.toUnsignedLong(source.getInt(eocd + 16));
+
+        ByteBuffer zip64 = ByteBuffer.allocate(56 + 20 + 22).order(ByteOrder.LITTLE_ENDIAN);
+        zip64.putInt(0x06064b50).putLong(44).putShort((short) 45).putShort((short) 45).putInt(0).putInt(0)
+                .putLong(entryCount).putLong(entryCount).putLong(centralDirectorySize).putLong(centralDirectoryOffset);
+        zip64.putInt(0x07064b50).putInt(0).putLong(eocd).putInt(1);
+        zip64.putInt(0x06054b50).putShort((short) 0).putShort((short) 0).putShort((short) 0xFFFF).putShort((short) 0xFFFF)
+                .putInt(0xFFFFFFFF).putInt(0xFFFFFFFF).putShort((short) 0);
+        byte[] result = Arrays.copyOf(zip, eocd + zip64.capacity());
+        System.arraycopy(zip64.array(), 0, result, eocd, zip64.capacity());
+        return result;
+    }
+
+    /**
+     * 编码最小的二进制AndroidManifest.xml（manifest、uses-sdk、application三个元素）
+     */
+    public static byte[] manifest(String packageName, int versionCode, String versionName, String label) {
+        return new Manifest(packageName, versionCode).versionName(versionName).label(label).encode();
+    }
+
+    /**
+     * 二进制AndroidManifest.xml的内容，未设置的属性不写入
+     */
+    public static final class Manifest {
+        private final String packageName;
+        private final int versionCode;
+        private Integer versionCodeMajor;
+        private String versionName;
+        private Integer versionNameResourceId;
+        private String label;
+        private Integer labelResourceId;
+        private int minSdkVersion = 21;
+        private Integer targetSdkVersion;
+
+        public Manifest(String packageName, int versionCode) {
+            this.packageName = packageName;
+            this.versionCode = versionCode;
+        }
+
+        public Manifest versionCodeMajor(int versionCodeMajor) {
+            this.versionCodeMajor = versionCodeMajor;
+            return this;
+        }
+
+        public Manifest versionName(String versionName) {
+            this.versionName = versionName;
+            return this;
+        }
+
+        /**
+         * versionName引用字符串资源
+         */
+        public Manifest versionNameResource(int resourceId) {
+            this.versionNameResourceId = resourceId;
+            return this;
+        }
+
+        public Manifest label(String label) {
+            this.label = label;
+            return this;
+        }
+
+        /**
+         * application的label引用字符串资源
+         */
+        public Manifest labelResource(int resourceId) {
+            this.labelResourceId = resourceId;
+            return this;
+        }
+
+        public Manifest targetSdkVersion(int targetSdkVersion) {
+            this.targetSdkVersion = targetSdkVersion;
+            return this;
+        }
+
+        public byte[] encode() {
+            // 带资源ID的属性名必须排在字符串池最前面，与资源映射一一对应
+            List<String> strings = new ArrayList<>(Arrays.asList("versionCode", "versionName", "label", "minSdkVersion",
+                    "targetSdkVersion", "versionCodeMajor", "android", ANDROID_NAMESPACE, "package", "manifest",
+                    "application", "uses-sdk"));
+            int[] resourceIds = {ATTR_VERSION_CODE, ATTR_VERSION_NAME, ATTR_LABEL, ATTR_MIN_SDK_VERSION,
+                    ATTR_TARGET_SDK_VERSION, ATTR_VERSION_CODE_MAJOR};
+            int namespace = strings.indexOf(ANDROID_NAMESPACE);
+            int prefix = strings.indexOf("android");
+
+            List<byte[]> manifestAttributes = new ArrayList<>();
+            manifestAttributes.add(attribute(namespace, strings.indexOf("versionCode"), -1, TYPE_INT_DEC, versionCode));
+            if (versionCodeMajor != null) {
+                manifestAttributes.add(attribute(namespace, strings.indexOf("versionCodeMajor"), -1, TYPE_INT_DEC, versionCodeMajor));
+            }
+            if (versionNameResourceId != null) {
+                manifestAttributes.add(attribute(namespace, strings.indexOf("versionName"), -1, TYPE_REFERENCE, versionNameResourceId));
+            } else if (versionName != null) {
+                manifestAttributes.add(stringAttribute(strings, namespace, "versionName", versionName));
+            }
+            manifestAttributes.add(stringAttribute(strings, -1, "package", packageName));
+
+            List<byte[]> usesSdkAttributes = new ArrayList<>();
+            usesSdkAttributes.add(attribute(namespace, strings.indexOf("minSdkVersion"), -1, TYPE_INT_DEC, minSdkVersion));
+            if (targetSdkVersion != null) {
+                usesSdkAttributes.add(attribute(namespace, strings.indexOf("targetSdkVersion"), -1, TYPE_INT_DEC, targetSdkVersion));
+            }
+
+            List<byte[]> applicationAttributes = new ArrayList<>();
+            if (labelResourceId != null) {
+                applicationAttributes.add(attribute(namespace, strings.indexOf("label"), -1, TYPE_REFERENCE, labelResourceId));
+            } else if (label != null) {
+                applicationAttributes.add(stringAttribute(strings, namespace, "label", label));
+            }
+
+            List<byte[]> chunks = new ArrayList<>();
+            chunks.add(stringPool(strings));
+
+            ByteBuffer resourceMap = buffer(8 + 4 * resourceIds.length);
+            resourceMap.putShort((short) 0x0180).putShort((short) 8).putInt(resourceMap.capacity());
+            for (int resourceId : resourceIds) {
+                resourceMap.putInt(resourceId);
+            }
+            chunks.add(resourceMap.array());
+
+            chunks.add(namespaceChunk(0x0100, prefix, namespace));
+            chunks.add(startElement(strings.indexOf("manifest"), manifestAttributes.toArray(new byte[0][])));
+            chunks.add(startElement(strings.indexOf("uses-sdk"), usesSdkAttributes.toArray(new byte[0][])));
+            chunks.add(endElement(strings.indexOf("uses-sdk")));
+            chunks.add(startElement(strings.indexOf("application"), applicationAttributes.toArray(new byte[0][])));
+            chunks.add(endElement(strings.indexOf("application")));
+            chunks.add(endElement(strings.indexOf("manifest")));
+            chunks.add(namespaceChunk(0x0101, prefix, namespace));
+
+            int bodySize = chunks.stream().mapToInt(chunk -> chunk.length).sum();
+            ByteBuffer document = buffer(8 + bodySize);
+            document.putShort((short) 0x0003).putShort((short) 8).putInt(document.capacity());
+            chunks.forEach(document::put);
+            return document.array();
+        }
+
+        private static byte[] stringAttribute(List<String> strings, int namespace, String name, String value) {
+            if (!strings.contains(value)) {
+                strings.add(value);
+            }
+            int index = strings.indexOf(value);
+            return attribute(namespace, strings.indexOf(name), index, TYPE_STRING, index);
+        }
+    }
+
+    private static byte[] stringPool(List<String> strings) {
+        ByteBuffer data = buffer(strings.stream().mapToInt(s -> 2 + s.length() * 2 + 2).sum() + 4);
+        int[] offsets = new int[strings.size()];
+        for (int i = 0; i < strings.size(); i++) {
+            offsets[i] = data.position();
+            String value = strings.get(i);
+            data.putShort((short) value.length());
+            data.put(value.getBytes(StandardCharsets.UTF_16LE));
+            data.putShort((short) 0);
+        }
+        int dataSize = (data.position() + 3) & ~3;
+
+        int stringsStart = 28 + 4 * strings.size();
+        ByteBuffer pool = buffer(stringsStart + dataSize);
+        pool.putShort((short) 0x0001).putShort((short) 28).putInt(pool.capacity())
+                .putInt(strings.size()).putInt(0).putInt(0).putInt(stringsStart).putInt(0);
+        for (int offset : offsets) {
+            pool.putInt(offset);
+        }
+        pool.put(data.array(), 0, dataSize);
+        return pool.array();
+    }
+
+    private static byte[] attribute(int namespace, int name, int rawValue, int type, int data) {
+        ByteBuffer attribute = buffer(20);
+        attribute.putInt(namespace).putInt(name).putInt(rawValue)
+                .putShort((short) 8).put((byte) 0).put((byte) type).putInt(data);
+        return attribute.array();
+    }
+
+    private static byte[] startElement(int name, byte[]... attributes) {
+        ByteBuffer element = buffer(16 + 20 + 20 * attributes.length);
+        element.putShort((short) 0x0102).putShort((short) 16).putInt(element.capacity()).putInt(1).putInt(-1);
+        element.putInt(-1).putInt(name).putShort((short) 20).putShort((short) 20)
+                .putShort((short) attributes.length).putShort((short) 0).putShort((short) 0).putShort((short) 0);
+        for (byte[] attribute : attributes) {
+            element.put(attribute);
+        }
+        return element.array();
+    }
+
+    private static byte[] endElement(int name) {
+        ByteBuffer element = buffer(24);
+        element.putShort((short) 0x0103).putShort((short) 16).putInt(24).putInt(1).putInt(-1).putInt(-1).putInt(name);
+        return element.array();
+    }
+
+    private static byte[] namespaceChunk(int type, int prefix, int uri) {
+        ByteBuffer chunk = buffer(24);
+        chunk.putShort((short) type).putShort((short) 16).putInt(24).putInt(1).putInt(-1).putInt(prefix).putInt(uri);
+        return chunk.array();
+    }
+
+    private static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,38 @@
+-- 接入Flyway之前由ddl-auto（update）按发布版实体生成的表结构（H2，由SCRIPT NODATA导出）
+-- 用于验证从旧版本升级：app_version缺少后加的signer_fingerprints、icon_path列
+
+CREATE TABLE app_info (
+    app_id          VARCHAR(100) NOT NULL,
+    app_description CLOB,
+    app_name        VARCHAR(200) NOT NULL,
+    create_time     TIMESTAMP    NOT NULL,
+    force_update    BOOLEAN      NOT NULL,
+    update_time     TIMESTAMP    NOT NULL,
+    PRIMARY KEY (app_id)
+);
+
+CREATE TABLE app_version (
+    id                 BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    apk_path           VARCHAR(500) NOT NULL,
+    app_id             VARCHAR(100) NOT NULL,
+    create_time        TIMESTAMP    NOT NULL,
+    download_url       VARCHAR(500),
+    file_size          BIGINT,
+    force_update       BOOLEAN      NOT NULL,
+    is_released        BOOLEAN      NOT NULL,
+    md5                VARCHAR(32),
+    update_description CLOB,
+    update_time        TIMESTAMP    NOT NULL,
+    version_code       INTEGER      NOT NULL,
+    version_name       VARCHAR(50)  NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO app_info (app_id, app_name, force_update, create_time, update_time)
+VALUES ('com.legacy.app', 'Legacy App', FALSE, TIMESTAMP '2024-01-01 00:00:00', TIMESTAMP '2024-01-01 00:00:00');
+
+INSERT INTO app_version (app_id, version_code, version_name, file_size, md5, apk_path, download_url,
+                         update_description, force_update, is_released, create_time, update_time)
+VALUES ('com.legacy.app', 1, '1.0', 1024, '0123456789abcdef0123456789abcdef', 'com.legacy.app/com.legacy.app-1.apk',
+        'http://localhost:8080/api/app/download/com.legacy.app/com.legacy.app-1.apk', '首次发布',
+        FALSE, TRUE, TIMESTAMP '2024-01-01 00:00:00', TIMESTAMP '2024-01-01 00:00:00');